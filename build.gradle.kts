@@ -35,11 +35,15 @@ dependencies {
 	// Swagger / OpenAPI (Spring Boot 3)
 	implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.5")
 
+	// Caché en memoria (replays idempotentes)
+	implementation("com.github.ben-manes.caffeine:caffeine")
+
 
 	// Flyway + PostgreSQL
 	implementation("org.flywaydb:flyway-core")
 	implementation("org.flywaydb:flyway-database-postgresql")
-	runtimeOnly("org.postgresql:postgresql")
+	// implementation (no runtimeOnly): la importación masiva usa el CopyManager de pgjdbc
+	implementation("org.postgresql:postgresql")
 
 	// Lombok
 	compileOnly("org.projectlombok:lombok")
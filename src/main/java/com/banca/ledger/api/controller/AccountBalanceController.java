@@ -1,14 +1,30 @@
 package com.banca.ledger.api.controller;
 
+import com.banca.ledger.api.dto.AccountBalanceRebuildResponse;
 import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.api.dto.AccountBalancesRequest;
+import com.banca.ledger.api.dto.AccountBalancesResponse;
+import com.banca.ledger.api.dto.BalancePointResponse;
+import com.banca.ledger.api.dto.BalanceSeriesResponse;
+import com.banca.ledger.application.service.BalanceSeries;
+import com.banca.ledger.application.service.AccountBalanceRebuildService;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.application.service.LedgerStatementService;
+import com.banca.ledger.domain.enums.BalanceGranularity;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/accounts")
@@ -16,9 +32,17 @@ import java.time.Instant;
 public class AccountBalanceController {
 
     private final LedgerEntryQueryService queryService;
+    private final AccountBalanceRebuildService rebuildService;
+    private final LedgerStatementService statementService;
 
-    public AccountBalanceController(LedgerEntryQueryService queryService) {
+    public AccountBalanceController(
+            LedgerEntryQueryService queryService,
+            AccountBalanceRebuildService rebuildService,
+            LedgerStatementService statementService
+    ) {
         this.queryService = queryService;
+        this.rebuildService = rebuildService;
+        this.statementService = statementService;
     }
 
     // UC-5: saldo actual
@@ -32,6 +56,20 @@ public class AccountBalanceController {
         return ResponseEntity.ok(queryService.getAccountBalance(accountId));
     }
 
+    // UC-5B: saldo actual de varias cuentas en una sola llamada (máx. 100)
+    // Ejemplo: POST /accounts/balances {"accountIds":[10,20,30]}
+    @PostMapping("/balances")
+    public ResponseEntity<AccountBalancesResponse> getAccountBalances(
+            @Valid @RequestBody AccountBalancesRequest request
+    ) {
+        Map<Long, AccountBalanceResponse> balances = queryService.getAccountBalances(request.getAccountIds());
+        List<Long> notFound = request.getAccountIds().stream()
+                .distinct()
+                .filter(id -> !balances.containsKey(id))
+                .toList();
+        return ResponseEntity.ok(new AccountBalancesResponse(balances, notFound));
+    }
+
     // UC-6: saldo histórico (hasta una fecha)
     // Ejemplo: /accounts/10/balance/history?upToDate=2026-01-01T00:00:00Z
     @GetMapping("/{accountId}/balance/history")
@@ -47,4 +85,74 @@ public class AccountBalanceController {
     ) {
         return ResponseEntity.ok(queryService.getAccountBalanceUpToDate(accountId, upToDate));
     }
+
+    // UC-6S: serie de saldos de cierre (UTC), un punto por día / semana / mes en [from, to]
+    // Ejemplo: /accounts/10/balance/series?from=2026-01-01&to=2026-03-31&granularity=DAY
+    @GetMapping("/{accountId}/balance/series")
+    public ResponseEntity<BalanceSeriesResponse> getBalanceSeries(
+            @PathVariable
+            @NotNull(message = "accountId es requerido")
+            @Positive(message = "accountId debe ser válido")
+            Long accountId,
+
+            @RequestParam(name = "from")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @NotNull(message = "from es requerido")
+            LocalDate from,
+
+            @RequestParam(name = "to")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @NotNull(message = "to es requerido")
+            LocalDate to,
+
+            @RequestParam(name = "granularity", defaultValue = "DAY")
+            BalanceGranularity granularity
+    ) {
+        BalanceSeries series = queryService.getBalanceSeries(accountId, from, to, granularity);
+        return ResponseEntity.ok(new BalanceSeriesResponse(
+                series.accountId(),
+                series.granularity(),
+                series.from(),
+                series.to(),
+                series.openingBalance(),
+                series.points().stream().map(p -> new BalancePointResponse(p.date(), p.balance())).toList()
+        ));
+    }
+
+    // UC-6E: extracto del período [from, to]: apertura, asientos con saldo corrido, totales y cierre (en streaming)
+    // Ejemplo: /accounts/10/statement?from=2026-01-01T00:00:00Z&to=2026-01-31T23:59:59.999999Z
+    @GetMapping("/{accountId}/statement")
+    public ResponseEntity<StreamingResponseBody> getStatement(
+            @PathVariable
+            @NotNull(message = "accountId es requerido")
+            @Positive(message = "accountId debe ser válido")
+            Long accountId,
+
+            @RequestParam(name = "from")
+            @NotNull(message = "from es requerido")
+            Instant from,
+
+            @RequestParam(name = "to")
+            @NotNull(message = "to es requerido")
+            Instant to
+    ) {
+        // Validación antes de empezar a escribir: después el status ya está enviado
+        statementService.validate(accountId, from, to);
+
+        StreamingResponseBody body = out -> statementService.writeStatement(accountId, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // Reconstrucción de saldos materializados desde ledger_entries (sin accountId => todas las cuentas)
+    @PostMapping("/balances/rebuild")
+    public ResponseEntity<AccountBalanceRebuildResponse> rebuildBalances(
+            @RequestParam(name = "accountId", required = false)
+            @Positive(message = "accountId debe ser válido")
+            Long accountId
+    ) {
+        int rebuilt = rebuildService.rebuild(accountId);
+        return ResponseEntity.ok(new AccountBalanceRebuildResponse(accountId, rebuilt));
+    }
 }
@@ -0,0 +1,71 @@
+package com.banca.ledger.api.controller;
+
+import com.banca.ledger.api.dto.ImportStatusResponse;
+import com.banca.ledger.application.importing.LedgerImportService;
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.model.LedgerImport;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/imports")
+@Validated
+public class ImportController {
+
+    private final LedgerImportService importService;
+
+    public ImportController(LedgerImportService importService) {
+        this.importService = importService;
+    }
+
+    // UC-9: importación masiva (cuerpo = archivo CSV o NDJSON, leído en streaming)
+    // Ejemplo: curl -X POST --data-binary @asientos.csv "/imports/legacy-2019?format=CSV"
+    // Reenviar con el mismo importId retoma desde el último checkpoint
+    @PostMapping("/{importId}")
+    public ResponseEntity<ImportStatusResponse> importEntries(
+            @PathVariable
+            @NotBlank(message = "importId no puede ser vacío")
+            @Size(max = 100, message = "importId excede 100 caracteres")
+            String importId,
+
+            @RequestParam(name = "format")
+            @NotNull(message = "format es requerido")
+            ImportFormat format,
+
+            InputStream body
+    ) {
+        return ResponseEntity.ok(toResponse(importService.importStream(importId, format, body)));
+    }
+
+    // UC-9B: estado / progreso de una importación
+    @GetMapping("/{importId}")
+    public ResponseEntity<ImportStatusResponse> getImport(
+            @PathVariable
+            @NotBlank(message = "importId no puede ser vacío")
+            String importId
+    ) {
+        return ResponseEntity.ok(toResponse(importService.getImport(importId)));
+    }
+
+    private static ImportStatusResponse toResponse(LedgerImport ledgerImport) {
+        return new ImportStatusResponse(
+                ledgerImport.getId(),
+                ledgerImport.getFormat(),
+                ledgerImport.getStatus(),
+                ledgerImport.getRowsProcessed(),
+                ledgerImport.getOperationsImported(),
+                ledgerImport.getEntriesImported(),
+                ledgerImport.getRowsPerSecond(),
+                ledgerImport.getErrorMessage(),
+                ledgerImport.getStartedAt(),
+                ledgerImport.getUpdatedAt(),
+                ledgerImport.getCompletedAt()
+        );
+    }
+}
@@ -1,25 +1,51 @@
 package com.banca.ledger.api.controller;
 
 import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.api.dto.CreateLedgerEntryBatchRequest;
 import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.LedgerEntryBatchResponse;
+import com.banca.ledger.api.dto.LedgerEntryCursorPageResponse;
 import com.banca.ledger.api.dto.LedgerEntryResponse;
 import com.banca.ledger.api.dto.OperationDetailResponse;
+import com.banca.ledger.api.dto.OperationStatusResponse;
+import com.banca.ledger.api.mapper.LedgerEntryBatchAssembler;
 import com.banca.ledger.api.mapper.LedgerEntryMapper;
 import com.banca.ledger.api.mapper.OperationDetailAssembler;
+import com.banca.ledger.application.idempotency.IdempotencySingleFlight;
+import com.banca.ledger.application.idempotency.IdempotentReplayCache;
+import com.banca.ledger.application.idempotency.IdempotentRequestKey;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline;
+import com.banca.ledger.application.service.BatchEntryResult;
+import com.banca.ledger.application.service.EntryCursorPage;
 import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.LedgerEntryExportService;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.application.service.LedgerGroupCommitWriter;
 import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.application.service.OperationEntriesView;
+import com.banca.ledger.domain.enums.ExportFormat;
 import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.PendingOperation;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -31,26 +57,59 @@ public class LedgerEntryController {
     private final LedgerEntryQueryService queryService;
     private final LedgerEntryMapper ledgerEntryMapper;
     private final OperationDetailAssembler operationDetailAssembler;
+    private final LedgerEntryBatchAssembler ledgerEntryBatchAssembler;
+    private final IdempotencySingleFlight singleFlight;
+    private final IdempotentReplayCache replayCache;
+    private final LedgerGroupCommitWriter groupCommitWriter; // null si ledger.group-commit.enabled=false
+    private final AsyncCompositeMovementPipeline asyncPipeline;
+    private final LedgerEntryExportService exportService;
 
     public LedgerEntryController(
             LedgerEntryCommandService commandService,
             LedgerEntryQueryService queryService,
             LedgerEntryMapper ledgerEntryMapper,
-            OperationDetailAssembler operationDetailAssembler
+            OperationDetailAssembler operationDetailAssembler,
+            LedgerEntryBatchAssembler ledgerEntryBatchAssembler,
+            IdempotencySingleFlight singleFlight,
+            IdempotentReplayCache replayCache,
+            ObjectProvider<LedgerGroupCommitWriter> groupCommitWriter,
+            AsyncCompositeMovementPipeline asyncPipeline,
+            LedgerEntryExportService exportService
     ) {
         this.commandService = commandService;
         this.queryService = queryService;
         this.ledgerEntryMapper = ledgerEntryMapper;
         this.operationDetailAssembler = operationDetailAssembler;
+        this.ledgerEntryBatchAssembler = ledgerEntryBatchAssembler;
+        this.singleFlight = singleFlight;
+        this.replayCache = replayCache;
+        this.groupCommitWriter = groupCommitWriter.getIfAvailable();
+        this.asyncPipeline = asyncPipeline;
+        this.exportService = exportService;
     }
 
     // UC-1: crear entry
+    // - replay de una key ya confirmada: se responde desde la caché
+    // - reintentos simultáneos con la misma key esperan al primero (single-flight)
     @PostMapping
     public ResponseEntity<LedgerEntryResponse> createEntry(
             @Valid @RequestBody CreateLedgerEntryRequest request
     ) {
-        LedgerEntry saved = commandService.createEntry(request);
-        return ResponseEntity.ok(ledgerEntryMapper.toResponse(saved));
+        IdempotentRequestKey key = IdempotentRequestKey.entry(request.getIdempotencyKey(),
+                request.getReferenceType(), request.getReferenceId());
+
+        LedgerEntryResponse response = replayCache.getOrExecute(key, () -> singleFlight.execute(key,
+                () -> ledgerEntryMapper.toResponse(postEntry(request))));
+        return ResponseEntity.ok(response);
+    }
+
+    // UC-1B: crear entries en lote (resultado por elemento: CREATED / REPLAYED / CONFLICT)
+    @PostMapping("/batch")
+    public ResponseEntity<LedgerEntryBatchResponse> createEntries(
+            @Valid @RequestBody CreateLedgerEntryBatchRequest request
+    ) {
+        List<BatchEntryResult> results = commandService.createEntries(request.getEntries());
+        return ResponseEntity.ok(ledgerEntryBatchAssembler.toResponse(results));
     }
 
     // UC-3: listar entries por accountId
@@ -70,25 +129,133 @@ public class LedgerEntryController {
             @Max(value = 100, message = "size debe estar entre 1 y 100")
             int size
     ) {
-        Page<LedgerEntry> result = queryService.listEntries(accountId, page, size);
-        return ResponseEntity.ok(result.map(ledgerEntryMapper::toResponse));
+        return ResponseEntity.ok(queryService.listEntries(accountId, page, size));
+    }
+
+    // UC-3C: listar entries por accountId con cursor (?cursor= vacío para la primera página,
+    // luego el nextCursor de la respuesta). Sin OFFSET ni total: el costo no crece con la profundidad
+    @GetMapping(value = "/accounts/{accountId}", params = "cursor")
+    public ResponseEntity<LedgerEntryCursorPageResponse> listEntriesByCursor(
+            @PathVariable
+            @NotNull(message = "accountId es requerido")
+            @Positive(message = "accountId debe ser válido")
+            Long accountId,
+
+            @RequestParam String cursor,
+
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "size debe estar entre 1 y 100")
+            @Max(value = 100, message = "size debe estar entre 1 y 100")
+            int size
+    ) {
+        EntryCursorPage result = queryService.listEntriesByCursor(accountId, cursor, size);
+        return ResponseEntity.ok(new LedgerEntryCursorPageResponse(result.entries(), result.nextCursor()));
+    }
+
+    // UC-3E: historial completo de la cuenta en streaming (conciliación), en orden cronológico
+    // Ejemplo: curl -o cuenta-10.ndjson "/entries/accounts/10/export?format=NDJSON"
+    @GetMapping("/accounts/{accountId}/export")
+    public ResponseEntity<StreamingResponseBody> exportEntries(
+            @PathVariable
+            @NotNull(message = "accountId es requerido")
+            @Positive(message = "accountId debe ser válido")
+            Long accountId,
+
+            @RequestParam(name = "format", defaultValue = "NDJSON")
+            ExportFormat format
+    ) {
+        // Validación antes de empezar a escribir: después el status ya está enviado
+        exportService.validate(accountId, format);
+
+        MediaType contentType = format == ExportFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.parseMediaType("application/x-ndjson");
+        String filename = "account-" + accountId + (format == ExportFormat.CSV ? ".csv" : ".ndjson");
+
+        StreamingResponseBody body = out -> exportService.exportAccount(accountId, format, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
 
-    // UC-2: movimiento compuesto
+    // UC-2A: movimiento compuesto asíncrono => 202 con el operationId apenas queda guardado como PENDING
+    @PostMapping(value = "/composite", params = "async=true")
+    public ResponseEntity<OperationStatusResponse> acceptCompositeMovement(
+            @Valid @RequestBody CreateCompositeLedgerMovementRequest request
+    ) {
+        PendingOperation pending = asyncPipeline.accept(request);
+
+        OperationStatusResponse response = new OperationStatusResponse(
+                pending.getId(),
+                pending.getStatus(),
+                pending.getPostedOperationId(),
+                pending.getRejectionReason(),
+                pending.getUpdatedAt()
+        );
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/operations/" + pending.getId() + "/status"))
+                .body(response);
+    }
+
+    // UC-2: movimiento compuesto (misma caché de replays y single-flight que UC-1)
     @PostMapping("/composite")
     public ResponseEntity<OperationDetailResponse> createCompositeMovement(
             @Valid @RequestBody CreateCompositeLedgerMovementRequest request
     ) {
-        OperationEntries result = commandService.recordCompositeMovement(request);
+        IdempotentRequestKey key = IdempotentRequestKey.composite(request.getIdempotencyKey(),
+                request.getReferenceType(), request.getReferenceId());
 
-        OperationDetailResponse response = operationDetailAssembler.toResponse(
-                result.operation(),
-                result.entries()
-        );
+        OperationDetailResponse response = replayCache.getOrExecute(key, () -> singleFlight.execute(key, () -> {
+            OperationEntries result = postCompositeMovement(request);
+            return operationDetailAssembler.toResponse(
+                    result.operation(),
+                    result.entries()
+            );
+        }));
+
+        return ResponseEntity.ok(response);
+    }
+
+    // UC-2M: movimiento de N patas en una operación (misma caché de replays y single-flight que UC-2)
+    @PostMapping("/multi-leg")
+    public ResponseEntity<OperationDetailResponse> createMultiLegMovement(
+            @Valid @RequestBody CreateMultiLegMovementRequest request
+    ) {
+        IdempotentRequestKey key = IdempotentRequestKey.multiLeg(request.getIdempotencyKey(),
+                request.getReferenceType(), request.getReferenceId());
+
+        OperationDetailResponse response = replayCache.getOrExecute(key, () -> singleFlight.execute(key, () -> {
+            OperationEntries result = postMultiLegMovement(request);
+            return operationDetailAssembler.toResponse(
+                    result.operation(),
+                    result.entries()
+            );
+        }));
 
         return ResponseEntity.ok(response);
     }
 
+    // Con group commit habilitado UC-1 / UC-2 / UC-2M se escriben agrupados (una transacción por grupo)
+    private LedgerEntry postEntry(CreateLedgerEntryRequest request) {
+        return groupCommitWriter != null
+                ? groupCommitWriter.createEntry(request)
+                : commandService.createEntry(request);
+    }
+
+    private OperationEntries postCompositeMovement(CreateCompositeLedgerMovementRequest request) {
+        return groupCommitWriter != null
+                ? groupCommitWriter.recordCompositeMovement(request)
+                : commandService.recordCompositeMovement(request);
+    }
+
+    private OperationEntries postMultiLegMovement(CreateMultiLegMovementRequest request) {
+        return groupCommitWriter != null
+                ? groupCommitWriter.recordMultiLegMovement(request)
+                : commandService.recordMultiLegMovement(request);
+    }
+
     // UC-4B: detalle por entryId
     @GetMapping("/{entryId}")
     public ResponseEntity<LedgerEntryResponse> getEntryDetail(
@@ -106,13 +273,7 @@ public class LedgerEntryController {
     public ResponseEntity<OperationDetailResponse> getOperationDetail(
             @PathVariable @NotNull(message = "operationId es requerido") UUID operationId
     ) {
-        OperationEntries result = queryService.getOperationEntries(operationId);
-
-        OperationDetailResponse response = operationDetailAssembler.toResponse(
-                result.operation(),
-                result.entries()
-        );
-
-        return ResponseEntity.ok(response);
+        OperationEntriesView result = queryService.getOperationEntries(operationId);
+        return ResponseEntity.ok(operationDetailAssembler.toResponse(result));
     }
 }
@@ -1,16 +1,30 @@
 package com.banca.ledger.api.controller;
 
+import com.banca.ledger.api.dto.BulkReversalRequest;
+import com.banca.ledger.api.dto.BulkReversalResponse;
 import com.banca.ledger.api.dto.OperationDetailResponse;
+import com.banca.ledger.api.dto.OperationStatusResponse;
+import com.banca.ledger.api.mapper.BulkReversalAssembler;
 import com.banca.ledger.api.mapper.OperationDetailAssembler;
+import com.banca.ledger.application.idempotency.IdempotentReplayCache;
+import com.banca.ledger.application.idempotency.IdempotentRequestKey;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline.OperationStatus;
+import com.banca.ledger.application.service.BulkReversalResult;
+import com.banca.ledger.application.service.BulkReversalService;
 import com.banca.ledger.application.service.LedgerEntryCommandService;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
 import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.application.service.OperationEntriesView;
+import com.banca.ledger.domain.enums.ReferenceType;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -21,15 +35,42 @@ public class OperationController {
     private final OperationDetailAssembler operationDetailAssembler;
     private final LedgerEntryQueryService ledgerEntryQueryService;
     private final LedgerEntryCommandService ledgerEntryCommandService;
+    private final IdempotentReplayCache replayCache;
+    private final AsyncCompositeMovementPipeline asyncPipeline;
+    private final BulkReversalService bulkReversalService;
+    private final BulkReversalAssembler bulkReversalAssembler;
 
     public OperationController(
             OperationDetailAssembler operationDetailAssembler,
             LedgerEntryQueryService ledgerEntryQueryService,
-            LedgerEntryCommandService ledgerEntryCommandService
+            LedgerEntryCommandService ledgerEntryCommandService,
+            IdempotentReplayCache replayCache,
+            AsyncCompositeMovementPipeline asyncPipeline,
+            BulkReversalService bulkReversalService,
+            BulkReversalAssembler bulkReversalAssembler
     ) {
         this.operationDetailAssembler = operationDetailAssembler;
         this.ledgerEntryQueryService = ledgerEntryQueryService;
         this.ledgerEntryCommandService = ledgerEntryCommandService;
+        this.replayCache = replayCache;
+        this.asyncPipeline = asyncPipeline;
+        this.bulkReversalService = bulkReversalService;
+        this.bulkReversalAssembler = bulkReversalAssembler;
+    }
+
+    // UC-7B: operaciones de una referencia de negocio (original y reversas), cada una con sus asientos
+    // Ejemplo: GET /operations?referenceType=TRANSFER&referenceId=TRF-123 (sin coincidencias => [])
+    @GetMapping
+    public ResponseEntity<List<OperationDetailResponse>> getByReference(
+            @RequestParam ReferenceType referenceType,
+            @RequestParam
+            @NotBlank(message = "referenceId no puede ser vacío")
+            String referenceId
+    ) {
+        List<OperationEntriesView> result =
+                ledgerEntryQueryService.getOperationsByReference(referenceType, referenceId);
+
+        return ResponseEntity.ok(operationDetailAssembler.toResponses(result));
     }
 
     // UC-7: obtener operación por idempotencyKey
@@ -48,18 +89,58 @@ public class OperationController {
         return ResponseEntity.ok(response);
     }
 
-    // UC-8: reversa de operación
+    // UC-2B: estado de una operación (PENDING / POSTED / REJECTED)
+    @GetMapping("/{operationId}/status")
+    public ResponseEntity<OperationStatusResponse> getStatus(
+            @PathVariable
+            @NotNull(message = "operationId es requerido")
+            UUID operationId
+    ) {
+        OperationStatus status = asyncPipeline.getStatus(operationId);
+
+        OperationStatusResponse response = new OperationStatusResponse(
+                status.operationId(),
+                status.status(),
+                status.postedOperationId(),
+                status.rejectionReason(),
+                status.updatedAt()
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    // UC-8: reversa de operación (una reversa ya confirmada se responde desde la caché de replays)
     @PostMapping("/{operationId}")
     public ResponseEntity<OperationDetailResponse> saveReversed(
             @PathVariable
             @NotNull(message = "operationId es requerido")
             UUID operationId
     ) {
-        OperationEntries result = ledgerEntryCommandService.reverseOperation(operationId);
-
-        OperationDetailResponse response =
-                operationDetailAssembler.toResponse(result.operation(), result.entries());
+        OperationDetailResponse response = replayCache.getOrExecute(IdempotentRequestKey.reversal(operationId), () -> {
+            OperationEntries result = ledgerEntryCommandService.reverseOperation(operationId);
+            return operationDetailAssembler.toResponse(result.operation(), result.entries());
+        });
 
         return ResponseEntity.ok(response);
     }
+
+    // UC-8B / UC-8C: reversa masiva por lista de operationIds o por referencia (un resultado por operación)
+    @PostMapping("/reversals")
+    public ResponseEntity<BulkReversalResponse> reverseInBulk(
+            @Valid @RequestBody BulkReversalRequest request
+    ) {
+        boolean byIds = request.getOperationIds() != null && !request.getOperationIds().isEmpty();
+        boolean byReference = request.getReferenceType() != null
+                || request.getReferenceIdFrom() != null || request.getReferenceIdTo() != null;
+        if (byIds == byReference) {
+            throw new IllegalArgumentException("Indique operationIds o un filtro por referencia (referenceType, referenceIdFrom, referenceIdTo), no ambos");
+        }
+
+        List<BulkReversalResult> results = byIds
+                ? bulkReversalService.reverseOperations(request.getOperationIds())
+                : bulkReversalService.reverseByReference(
+                        request.getReferenceType(), request.getReferenceIdFrom(), request.getReferenceIdTo());
+
+        return ResponseEntity.ok(bulkReversalAssembler.toResponse(results));
+    }
 }
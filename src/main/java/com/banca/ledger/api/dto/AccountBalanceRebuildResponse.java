@@ -0,0 +1,19 @@
+package com.banca.ledger.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountBalanceRebuildResponse {
+
+    // null => se reconstruyeron todas las cuentas
+    private Long accountId;
+
+    // Filas (cuenta/moneda) recalculadas desde ledger_entries
+    private int balancesRebuilt;
+}
@@ -0,0 +1,21 @@
+package com.banca.ledger.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class AccountBalancesRequest {
+
+    @NotEmpty(message = "accountIds no puede ser vacío")
+    @Size(max = 100, message = "accountIds admite como máximo 100 elementos")
+    private List<@NotNull(message = "accountId es requerido") @Positive(message = "accountId debe ser válido") Long> accountIds;
+}
@@ -0,0 +1,20 @@
+package com.banca.ledger.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class AccountBalancesResponse {
+
+    // accountId => saldo (mismo criterio que GET /accounts/{id}/balance), en el orden del request
+    private Map<Long, AccountBalanceResponse> balances;
+
+    // Cuentas sin asientos (en el endpoint individual serían 404)
+    private List<Long> notFound;
+}
@@ -0,0 +1,19 @@
+package com.banca.ledger.api.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class BalancePointResponse {
+
+    // Último día del período (UTC); el saldo es el del cierre de ese día
+    private LocalDate date;
+
+    private BigDecimal balance;
+}
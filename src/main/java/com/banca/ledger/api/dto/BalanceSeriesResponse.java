@@ -0,0 +1,29 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.BalanceGranularity;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class BalanceSeriesResponse {
+
+    private Long accountId;
+
+    private BalanceGranularity granularity;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    // Saldo al inicio de from
+    private BigDecimal openingBalance;
+
+    private List<BalancePointResponse> points;
+}
@@ -0,0 +1,26 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.ReversalStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkReversalItemResponse {
+
+    private UUID operationId;
+
+    private ReversalStatus status;
+
+    private UUID reversalOperationId;
+
+    private int entriesReversed;
+
+    private String message;
+}
@@ -0,0 +1,29 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.ReferenceType;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/*
+Reversa masiva: o bien una lista de operationIds, o bien un filtro por referencia
+(referenceType + rango de referenceId inclusive; from == to para una sola referencia).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class BulkReversalRequest {
+
+    @Size(max = 10000, message = "operationIds admite como máximo 10000 elementos")
+    private List<UUID> operationIds;
+
+    private ReferenceType referenceType;
+
+    private String referenceIdFrom;
+
+    private String referenceIdTo;
+}
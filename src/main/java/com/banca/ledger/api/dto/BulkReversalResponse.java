@@ -0,0 +1,23 @@
+package com.banca.ledger.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class BulkReversalResponse {
+
+    private int reversed;
+
+    private int alreadyReversed;
+
+    private int notFound;
+
+    private int failed;
+
+    private List<BulkReversalItemResponse> results;
+}
@@ -0,0 +1,20 @@
+package com.banca.ledger.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class CreateLedgerEntryBatchRequest {
+
+    @NotEmpty(message = "entries no puede ser vacío")
+    @Size(max = 1000, message = "entries admite como máximo 1000 elementos")
+    private List<@Valid CreateLedgerEntryRequest> entries;
+}
@@ -0,0 +1,36 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.ReferenceType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+/*
+Movimiento de N patas (comisiones, impuestos, dispersión de pagos) en UNA operación.
+Debe cuadrar por moneda: Σ DEBIT == Σ CREDIT.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class CreateMultiLegMovementRequest {
+
+    @NotNull
+    private ReferenceType referenceType;
+
+    @NotBlank(message = "referenceId no puede ser vacío")
+    private String referenceId;
+
+    @NotBlank(message = "idempotencyKey no puede ser vacío")
+    private String idempotencyKey;
+
+    // Máximo 50 = hibernate.jdbc.batch_size: todas las patas salen en un solo batch
+    @NotNull
+    @Size(min = 2, max = 50, message = "legs debe tener entre 2 y 50 elementos")
+    private List<@Valid MovementLegRequest> legs;
+}
@@ -0,0 +1,42 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.enums.ImportStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportStatusResponse {
+
+    private String importId;
+
+    private ImportFormat format;
+
+    private ImportStatus status;
+
+    // Checkpoint: filas del archivo ya confirmadas (al reenviar el archivo se retoma desde aquí)
+    private long rowsProcessed;
+
+    private long operationsImported;
+
+    private long entriesImported;
+
+    // Throughput de la ejecución en curso (o la última)
+    private double rowsPerSecond;
+
+    // Motivo del fallo (solo FAILED)
+    private String errorMessage;
+
+    private Instant startedAt;
+
+    private Instant updatedAt;
+
+    private Instant completedAt;
+}
@@ -0,0 +1,24 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.BatchItemStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LedgerEntryBatchItemResponse {
+
+    private int index;
+
+    private String idempotencyKey;
+
+    private BatchItemStatus status;
+
+    private LedgerEntryResponse entry;
+
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.banca.ledger.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class LedgerEntryBatchResponse {
+
+    private int created;
+
+    private int replayed;
+
+    private int conflicts;
+
+    private List<LedgerEntryBatchItemResponse> results;
+}
@@ -0,0 +1,18 @@
+package com.banca.ledger.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class LedgerEntryCursorPageResponse {
+
+    private List<LedgerEntryResponse> content;
+
+    // null en la última página
+    private String nextCursor;
+}
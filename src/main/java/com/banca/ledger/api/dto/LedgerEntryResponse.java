@@ -3,6 +3,7 @@ package com.banca.ledger.api.dto;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.enums.ReferenceType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
@@ -39,4 +40,12 @@ public class LedgerEntryResponse {
 
     private Instant createdAt;
 
+    // Saldo de la cuenta (en currency) inmediatamente después de este asiento; null si aún no tiene backfill
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal balanceAfter;
+
+    public LedgerEntryResponse(Long id, UUID operationId, Long accountId, EntryType entryType, BigDecimal amount,
+                               Currency currency, ReferenceType referenceType, Instant createdAt) {
+        this(id, operationId, accountId, entryType, amount, currency, referenceType, createdAt, null);
+    }
 }
@@ -0,0 +1,32 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class MovementLegRequest {
+
+    @NotNull
+    @Positive(message = "accountId debe ser válido")
+    private Long accountId;
+
+    @NotNull
+    private EntryType entryType;
+
+    @NotNull
+    @DecimalMin(value = "0.01", inclusive = true, message = "amount debe ser mayor a 0")
+    private BigDecimal amount;
+
+    @NotNull
+    private Currency currency;
+}
@@ -1,6 +1,7 @@
 package com.banca.ledger.api.dto;
 
 import com.banca.ledger.domain.enums.ReferenceType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -27,4 +28,14 @@ public class OperationDetailResponse {
     @NotNull
     List<LedgerEntryResponse> entries;
 
+    // Enlace de reversa: solo aparece si aplica
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private UUID reversesOperationId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private UUID reversedByOperationId;
+
+    public OperationDetailResponse(UUID operationId, ReferenceType referenceType, String referenceId,
+                                   Instant createdAt, List<LedgerEntryResponse> entries) {
+        this(operationId, referenceType, referenceId, createdAt, entries, null, null);
+    }
 }
@@ -0,0 +1,29 @@
+package com.banca.ledger.api.dto;
+
+import com.banca.ledger.domain.enums.PendingOperationStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OperationStatusResponse {
+
+    private UUID operationId;
+
+    private PendingOperationStatus status;
+
+    // Operación contable resultante (solo POSTED; distinta de operationId si la key ya estaba contabilizada)
+    private UUID postedOperationId;
+
+    // Motivo del rechazo (solo REJECTED)
+    private String rejectionReason;
+
+    private Instant updatedAt;
+}
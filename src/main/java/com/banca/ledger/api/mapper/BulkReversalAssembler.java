@@ -0,0 +1,39 @@
+package com.banca.ledger.api.mapper;
+
+import com.banca.ledger.api.dto.BulkReversalItemResponse;
+import com.banca.ledger.api.dto.BulkReversalResponse;
+import com.banca.ledger.application.service.BulkReversalResult;
+import com.banca.ledger.domain.enums.ReversalStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class BulkReversalAssembler {
+
+    public BulkReversalResponse toResponse(List<BulkReversalResult> results) {
+        List<BulkReversalResult> safeResults = (results == null) ? List.of() : results;
+
+        var items = safeResults.stream()
+                .map(r -> new BulkReversalItemResponse(
+                        r.operationId(),
+                        r.status(),
+                        r.reversalOperationId(),
+                        r.entriesReversed(),
+                        r.message()
+                ))
+                .toList();
+
+        BulkReversalResponse response = new BulkReversalResponse();
+        response.setReversed(count(safeResults, ReversalStatus.REVERSED));
+        response.setAlreadyReversed(count(safeResults, ReversalStatus.ALREADY_REVERSED));
+        response.setNotFound(count(safeResults, ReversalStatus.NOT_FOUND));
+        response.setFailed(count(safeResults, ReversalStatus.FAILED));
+        response.setResults(items);
+        return response;
+    }
+
+    private int count(List<BulkReversalResult> results, ReversalStatus status) {
+        return (int) results.stream().filter(r -> r.status() == status).count();
+    }
+}
@@ -1,11 +1,14 @@
 package com.banca.ledger.api.mapper;
 
 import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.MovementLegRequest;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -27,4 +30,19 @@ public class CompositeMovementAssembler {
         );
         return List.of(entryDebit, debitCredit);
     }
+
+    // Una entry por pata, en el orden del request
+    public List<LedgerEntry> toLegEntries(CreateMultiLegMovementRequest request, LedgerOperation op){
+        List<LedgerEntry> entries = new ArrayList<>(request.getLegs().size());
+        for (MovementLegRequest leg : request.getLegs()) {
+            entries.add(new LedgerEntry(
+                    leg.getAccountId(),
+                    leg.getEntryType(),
+                    leg.getAmount(),
+                    leg.getCurrency(),
+                    op
+            ));
+        }
+        return entries;
+    }
 }
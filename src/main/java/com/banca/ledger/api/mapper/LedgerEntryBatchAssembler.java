@@ -0,0 +1,44 @@
+package com.banca.ledger.api.mapper;
+
+import com.banca.ledger.api.dto.LedgerEntryBatchItemResponse;
+import com.banca.ledger.api.dto.LedgerEntryBatchResponse;
+import com.banca.ledger.application.service.BatchEntryResult;
+import com.banca.ledger.domain.enums.BatchItemStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class LedgerEntryBatchAssembler {
+
+    private final LedgerEntryMapper ledgerEntryMapper;
+
+    public LedgerEntryBatchAssembler(LedgerEntryMapper ledgerEntryMapper) {
+        this.ledgerEntryMapper = ledgerEntryMapper;
+    }
+
+    public LedgerEntryBatchResponse toResponse(List<BatchEntryResult> results) {
+        List<BatchEntryResult> safeResults = (results == null) ? List.of() : results;
+
+        var items = safeResults.stream()
+                .map(r -> new LedgerEntryBatchItemResponse(
+                        r.index(),
+                        r.idempotencyKey(),
+                        r.status(),
+                        ledgerEntryMapper.toResponse(r.entry()),
+                        r.message()
+                ))
+                .toList();
+
+        LedgerEntryBatchResponse response = new LedgerEntryBatchResponse();
+        response.setCreated(count(safeResults, BatchItemStatus.CREATED));
+        response.setReplayed(count(safeResults, BatchItemStatus.REPLAYED));
+        response.setConflicts(count(safeResults, BatchItemStatus.CONFLICT));
+        response.setResults(items);
+        return response;
+    }
+
+    private int count(List<BatchEntryResult> results, BatchItemStatus status) {
+        return (int) results.stream().filter(r -> r.status() == status).count();
+    }
+}
@@ -20,6 +20,7 @@ public class LedgerEntryMapper {
         res.setAmount(entry.getAmount());
         res.setCurrency(entry.getCurrency());
         res.setCreatedAt(entry.getCreatedAt());
+        res.setBalanceAfter(entry.getBalanceAfter());
 
         // reference vive en operation (nuevo modelo)
         if (op != null) {
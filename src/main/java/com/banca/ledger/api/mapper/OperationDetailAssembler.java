@@ -1,6 +1,8 @@
 package com.banca.ledger.api.mapper;
 
+import com.banca.ledger.api.dto.LedgerEntryResponse;
 import com.banca.ledger.api.dto.OperationDetailResponse;
+import com.banca.ledger.application.service.OperationEntriesView;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
 import org.springframework.stereotype.Component;
@@ -28,12 +30,30 @@ public class OperationDetailAssembler {
                 .map(ledgerEntryMapper::toResponse)
                 .toList();
 
+        return buildResponse(operation, entryResponses);
+    }
+
+    // Lecturas (UC-4A): los asientos ya vienen como respuesta desde la proyección
+    public OperationDetailResponse toResponse(OperationEntriesView view) {
+        if (view == null || view.operation() == null) {
+            throw new IllegalArgumentException("operation no puede ser null");
+        }
+        return buildResponse(view.operation(), view.entries() == null ? List.of() : view.entries());
+    }
+
+    public List<OperationDetailResponse> toResponses(List<OperationEntriesView> views) {
+        return views.stream().map(this::toResponse).toList();
+    }
+
+    private static OperationDetailResponse buildResponse(LedgerOperation operation, List<LedgerEntryResponse> entryResponses) {
         OperationDetailResponse response = new OperationDetailResponse();
         response.setOperationId(operation.getId());
         response.setCreatedAt(operation.getCreatedAt());
         response.setReferenceId(operation.getReferenceId());
         response.setReferenceType(operation.getReferenceType());
         response.setEntries(entryResponses);
+        response.setReversesOperationId(operation.getReversesOperationId());
+        response.setReversedByOperationId(operation.getReversedByOperationId());
         return response;
     }
 }
@@ -0,0 +1,133 @@
+package com.banca.ledger.application.idempotency;
+
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Pre-chequeo de idempotencyKeys conocidas con un Bloom filter escalable.
+ *
+ * - mightContain == false => la key NO existe en ledger_operations (al menos no creada por este pod):
+ *   el caller puede ir directo al INSERT sin el SELECT previo.
+ * - Se siembra al arrancar desde ledger_operations y se actualiza tras cada commit.
+ * - Mientras no está sembrado (o si está deshabilitado / saturado) responde siempre true.
+ * - NO es la garantía de correctitud: keys creadas por otros pods no están aquí,
+ *   el UNIQUE de idempotency_key + ON CONFLICT siguen resolviendo esas carreras.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyFilter {
+
+    private final LedgerOperationRepository ledgerOperationRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final ScalableBloomFilter filter;
+    private volatile boolean ready;
+
+    private final Counter definitelyAbsent;
+    private final Counter mightExist;
+    private final Counter falsePositives;
+
+    public IdempotencyKeyFilter(
+            LedgerOperationRepository ledgerOperationRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${ledger.idempotency.bloom.enabled:true}") boolean enabled,
+            @Value("${ledger.idempotency.bloom.expected-keys:1000000}") long expectedKeys,
+            @Value("${ledger.idempotency.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${ledger.idempotency.bloom.max-memory:64MB}") DataSize maxMemory
+    ) {
+        this.ledgerOperationRepository = ledgerOperationRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.filter = new ScalableBloomFilter(expectedKeys, falsePositiveRate, maxMemory.toBytes() * 8);
+
+        this.definitelyAbsent = Counter.builder("ledger.idempotency.bloom.checks")
+                .tag("result", "absent").register(meterRegistry);
+        this.mightExist = Counter.builder("ledger.idempotency.bloom.checks")
+                .tag("result", "maybe").register(meterRegistry);
+        this.falsePositives = Counter.builder("ledger.idempotency.bloom.false-positives")
+                .description("Keys que el filtro marcó como posibles y no existían en BD")
+                .register(meterRegistry);
+
+        Gauge.builder("ledger.idempotency.bloom.keys", filter, ScalableBloomFilter::keyCount).register(meterRegistry);
+        Gauge.builder("ledger.idempotency.bloom.memory", filter, f -> f.bitCount() / 8.0)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("ledger.idempotency.bloom.slices", filter, ScalableBloomFilter::sliceCount).register(meterRegistry);
+        Gauge.builder("ledger.idempotency.bloom.fpp.configured", filter, ScalableBloomFilter::configuredFalsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("ledger.idempotency.bloom.fpp.estimated", filter, ScalableBloomFilter::estimatedFalsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("ledger.idempotency.bloom.saturated", filter, f -> f.isSaturated() ? 1 : 0).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!enabled) return;
+
+        long start = System.nanoTime();
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<String> keys = ledgerOperationRepository.streamAllIdempotencyKeys()) {
+                keys.forEach(filter::put);
+            }
+        });
+        ready = true;
+
+        log.info("Bloom filter de idempotencyKeys sembrado: {} keys, {} KB en {} ms",
+                filter.keyCount(), filter.bitCount() / 8 / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean mightContain(String idempotencyKey) {
+        if (!enabled || !ready || filter.mightContain(idempotencyKey)) {
+            mightExist.increment();
+            return true;
+        }
+        definitelyAbsent.increment();
+        return false;
+    }
+
+    public void recordFalsePositives(int count) {
+        if (count > 0) falsePositives.increment(count);
+    }
+
+    public void addAfterCommit(String idempotencyKey) {
+        addAfterCommit(List.of(idempotencyKey));
+    }
+
+    /**
+     * Agrega las keys cuando la transacción actual confirma (si no hay transacción, de inmediato).
+     * Agregar una key que luego hace rollback no rompe nada (solo costaría un SELECT),
+     * pero así el filtro refleja exactamente lo confirmado.
+     */
+    public void addAfterCommit(Collection<String> idempotencyKeys) {
+        if (!enabled || idempotencyKeys.isEmpty()) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<String> keys = List.copyOf(idempotencyKeys);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keys.forEach(filter::put);
+                }
+            });
+        } else {
+            idempotencyKeys.forEach(filter::put);
+        }
+    }
+}
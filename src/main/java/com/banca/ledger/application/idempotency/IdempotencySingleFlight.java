@@ -0,0 +1,87 @@
+package com.banca.ledger.application.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight en proceso para requests con la misma idempotencyKey.
+ *
+ * El gateway reintenta por timeout y la misma key llega varias veces en milisegundos:
+ * el primer request ("líder") ejecuta la escritura y los concurrentes esperan SU resultado
+ * (o su excepción) en vez de competir en BD por la misma fila de ledger_operations.
+ *
+ * - La clave es IdempotentRequestKey: una key con OTRA referencia no se agrupa.
+ * - Si el líder tarda más que maxWait, el request en espera ejecuta por su cuenta;
+ *   la idempotencia en BD sigue siendo la garantía de correctitud.
+ * - Solo agrupa requests SIMULTÁNEOS: al terminar el líder la entrada se elimina.
+ */
+@Component
+public class IdempotencySingleFlight {
+
+    private final Map<IdempotentRequestKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> executedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalescedCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Duration maxWait;
+
+    public IdempotencySingleFlight(
+            MeterRegistry meterRegistry,
+            @Value("${ledger.idempotency.single-flight.max-wait:30s}") Duration maxWait
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.maxWait = maxWait;
+        meterRegistry.gauge("ledger.idempotency.singleflight.inflight", inFlight, Map::size);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(IdempotentRequestKey key, Supplier<T> action) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+
+        if (leader != null) {
+            counter(coalescedCounters, "ledger.idempotency.singleflight.coalesced", key.operation()).increment();
+            try {
+                return (T) leader.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch (TimeoutException e) {
+                // El líder sigue ocupado: ejecutamos nosotros (la BD resuelve la idempotencia)
+                return action.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando la operación en curso: " + key.idempotencyKey(), e);
+            }
+        }
+
+        counter(executedCounters, "ledger.idempotency.singleflight.executed", key.operation()).increment();
+        try {
+            T result = action.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Counter counter(Map<String, Counter> cache, String name, String operation) {
+        return cache.computeIfAbsent(operation, op -> Counter.builder(name)
+                .tag("operation", op)
+                .register(meterRegistry));
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException re) return re;
+        if (cause instanceof Error err) throw err;
+        return new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,77 @@
+package com.banca.ledger.application.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Caché acotada (tamaño + TTL) de respuestas ya construidas para requests idempotentes.
+ *
+ * Un replay de una key que ya tuvo éxito se responde desde memoria: sin ir a PostgreSQL
+ * y sin volver a pasar por los mappers/assemblers.
+ *
+ * - Solo se llena con respuestas de escrituras CONFIRMADAS: si hay una transacción activa
+ *   el put se difiere a afterCommit (un rollback nunca deja nada en la caché).
+ * - Las excepciones (409, 404, 400...) no se cachean.
+ * - Métricas Caffeine en actuator: cache.gets{result=hit|miss}, cache.evictions, cache.size
+ *   con tag cache=ledger.idempotency.replay.
+ */
+@Component
+public class IdempotentReplayCache {
+
+    static final String CACHE_NAME = "ledger.idempotency.replay";
+
+    private final Cache<IdempotentRequestKey, Object> cache;
+
+    public IdempotentReplayCache(
+            MeterRegistry meterRegistry,
+            @Value("${ledger.idempotency.replay-cache.max-size:10000}") long maxSize,
+            @Value("${ledger.idempotency.replay-cache.ttl:10m}") Duration ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getOrExecute(IdempotentRequestKey key, Supplier<T> action) {
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        T response = action.get();
+        putAfterCommit(key, response);
+        return response;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void putAfterCommit(IdempotentRequestKey key, Object response) {
+        if (response == null) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(key, response);
+                }
+            });
+        } else {
+            cache.put(key, response);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.banca.ledger.application.idempotency;
+
+import com.banca.ledger.domain.enums.ReferenceType;
+
+import java.util.UUID;
+
+/**
+ * Identifica un request de escritura idempotente en memoria (single-flight y caché de replays).
+ * Incluye la referencia: la misma key con OTRA referencia nunca comparte resultado
+ * y sigue el camino normal hasta el ConflictException del service.
+ */
+public record IdempotentRequestKey(
+        String operation,
+        String idempotencyKey,
+        ReferenceType referenceType,
+        String referenceId
+) {
+
+    public static IdempotentRequestKey entry(String idempotencyKey, ReferenceType referenceType, String referenceId) {
+        return new IdempotentRequestKey("entry", idempotencyKey, referenceType, referenceId);
+    }
+
+    public static IdempotentRequestKey composite(String idempotencyKey, ReferenceType referenceType, String referenceId) {
+        return new IdempotentRequestKey("composite", idempotencyKey, referenceType, referenceId);
+    }
+
+    public static IdempotentRequestKey multiLeg(String idempotencyKey, ReferenceType referenceType, String referenceId) {
+        return new IdempotentRequestKey("multi-leg", idempotencyKey, referenceType, referenceId);
+    }
+
+    // La reversa se identifica por la operación original (su key es "reversal:" + operationId)
+    public static IdempotentRequestKey reversal(UUID originalOperationId) {
+        return new IdempotentRequestKey("reversal", "reversal:" + originalOperationId, null, null);
+    }
+}
@@ -0,0 +1,176 @@
+package com.banca.ledger.application.idempotency;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter escalable (Almeida et al.): una secuencia de filtros ("slices") donde cada slice
+ * nuevo duplica la capacidad y usa la mitad de tasa de falsos positivos que el anterior,
+ * así la tasa total queda acotada por la configurada aunque el número de keys crezca.
+ *
+ * - Sin falsos negativos para lo que se agregó aquí: mightContain == false => nunca se agregó.
+ * - Thread-safe sin locks en lectura (bits en AtomicLongArray); solo crecer es synchronized.
+ * - maxBits acota la memoria: al alcanzarse el filtro queda "saturado" y responde siempre true
+ *   (se degrada a consultar la BD, nunca a respuestas incorrectas).
+ */
+class ScalableBloomFilter {
+
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final int GROWTH_FACTOR = 2;
+
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+    private final double falsePositiveRate;
+    private final long maxBits;
+    private final AtomicLong keys = new AtomicLong();
+    private volatile boolean saturated;
+
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate, long maxBits) {
+        if (initialCapacity <= 0) throw new IllegalArgumentException("initialCapacity debe ser mayor a 0");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("falsePositiveRate debe estar entre 0 y 1");
+
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxBits = maxBits;
+        Slice first = Slice.create(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO));
+        if (first.bitCount > maxBits) {
+            throw new IllegalArgumentException("La memoria máxima no alcanza para la capacidad inicial del filtro");
+        }
+        slices.add(first);
+    }
+
+    boolean mightContain(String key) {
+        if (saturated) return true;
+
+        long h1 = hash(key, 0x9E3779B97F4A7C15L);
+        long h2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (Slice slice : slices) {
+            if (slice.mightContain(h1, h2)) return true;
+        }
+        return false;
+    }
+
+    void put(String key) {
+        if (saturated || mightContain(key)) return;
+
+        long h1 = hash(key, 0x9E3779B97F4A7C15L);
+        long h2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1L;
+        Slice current = currentSlice();
+        if (current == null) return;
+
+        current.put(h1, h2);
+        keys.incrementAndGet();
+    }
+
+    long keyCount() {
+        return keys.get();
+    }
+
+    long bitCount() {
+        return slices.stream().mapToLong(s -> s.bitCount).sum();
+    }
+
+    int sliceCount() {
+        return slices.size();
+    }
+
+    boolean isSaturated() {
+        return saturated;
+    }
+
+    double configuredFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    // Tasa estimada con la ocupación actual de cada slice: 1 - Π(1 - fpp_i)
+    double estimatedFalsePositiveRate() {
+        if (saturated) return 1.0;
+        double pNone = 1.0;
+        for (Slice slice : slices) {
+            pNone *= 1.0 - slice.estimatedFalsePositiveRate();
+        }
+        return 1.0 - pNone;
+    }
+
+    private Slice currentSlice() {
+        Slice last = slices.get(slices.size() - 1);
+        if (last.count.get() < last.capacity) return last;
+
+        synchronized (this) {
+            last = slices.get(slices.size() - 1);
+            if (last.count.get() < last.capacity) return last;
+
+            Slice next = Slice.create(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+            if (bitCount() + next.bitCount > maxBits) {
+                saturated = true;
+                return null;
+            }
+            slices.add(next);
+            return next;
+        }
+    }
+
+    // FNV-1a de 64 bits sobre los chars + avalancha final (fmix64 de MurmurHash3)
+    private static long hash(String key, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Slice {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashFunctions;
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLong count = new AtomicLong();
+
+        private Slice(long capacity, double falsePositiveRate, long bitCount, int hashFunctions) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            this.bitCount = bitCount;
+            this.hashFunctions = hashFunctions;
+            this.words = new AtomicLongArray(Math.toIntExact((bitCount + 63) / 64));
+        }
+
+        // m = -n·ln(p) / ln(2)²   k = (m/n)·ln(2)
+        static Slice create(long capacity, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            bits = Math.max(64, ((bits + 63) / 64) * 64);
+            int k = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+            return new Slice(capacity, falsePositiveRate, bits, k);
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        void put(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << bit;
+                words.getAndAccumulate((int) (bit >>> 6), mask, (w, m) -> w | m);
+            }
+            count.incrementAndGet();
+        }
+
+        double estimatedFalsePositiveRate() {
+            double fill = 1.0 - Math.exp(-(double) hashFunctions * count.get() / bitCount);
+            return Math.pow(fill, hashFunctions);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.banca.ledger.application.importing;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Una fila del archivo de importación = un asiento.
+ * Los asientos de una misma operación (misma idempotencyKey) van en filas contiguas.
+ * createdAt es opcional (por defecto: el momento de la importación).
+ */
+public record ImportRecord(
+        String idempotencyKey,
+        ReferenceType referenceType,
+        String referenceId,
+        Long accountId,
+        EntryType entryType,
+        BigDecimal amount,
+        Currency currency,
+        Instant createdAt
+) {}
@@ -0,0 +1,171 @@
+package com.banca.ledger.application.importing;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura en streaming (fila a fila, sin cargar el archivo) de CSV o NDJSON.
+ *
+ * - CSV: primera línea = cabecera con los nombres de ImportRecord (cualquier orden; createdAt opcional).
+ *   Campos entre comillas dobles admitidos ("" escapa una comilla).
+ * - NDJSON: un objeto JSON por línea con los mismos nombres.
+ * - Las líneas vacías se ignoran y no cuentan como filas.
+ * Errores de formato => IllegalArgumentException con el número de línea.
+ */
+class ImportRecordReader implements Closeable {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of(
+            "idempotencyKey", "referenceType", "referenceId", "accountId", "entryType", "amount", "currency");
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;
+    private long lineNumber;
+
+    ImportRecordReader(ImportFormat format, InputStream input, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    // Reanudación: salta filas ya confirmadas sin parsearlas
+    void skip(long rows) throws IOException {
+        for (long i = 0; i < rows; i++) {
+            if (nextDataLine() == null) return;
+        }
+    }
+
+    // null al final del archivo
+    ImportRecord next() throws IOException {
+        String line = nextDataLine();
+        if (line == null) return null;
+        return format == ImportFormat.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    private String nextDataLine() throws IOException {
+        if (format == ImportFormat.CSV && columns == null) {
+            readHeader();
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) return line;
+        }
+        return null;
+    }
+
+    private void readHeader() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                columns = Map.of();
+                return;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        if (line.startsWith("\uFEFF")) line = line.substring(1); // BOM de exportaciones Excel
+        List<String> names = splitCsv(line.strip());
+        columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).strip(), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Cabecera CSV sin la columna requerida: " + required);
+            }
+        }
+    }
+
+    private ImportRecord parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, ImportRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private ImportRecord parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        try {
+            return new ImportRecord(
+                    column(values, "idempotencyKey"),
+                    enumValue(ReferenceType.class, column(values, "referenceType")),
+                    column(values, "referenceId"),
+                    column(values, "accountId") != null ? Long.valueOf(column(values, "accountId")) : null,
+                    enumValue(EntryType.class, column(values, "entryType")),
+                    column(values, "amount") != null ? new BigDecimal(column(values, "amount")) : null,
+                    enumValue(Currency.class, column(values, "currency")),
+                    column(values, "createdAt") != null ? Instant.parse(column(values, "createdAt")) : null
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": valor inválido: " + e.getMessage());
+        }
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) return null;
+        String value = values.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": comillas sin cerrar");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
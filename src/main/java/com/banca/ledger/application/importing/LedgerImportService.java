@@ -0,0 +1,320 @@
+package com.banca.ledger.application.importing;
+
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
+import com.banca.ledger.application.service.AccountBalanceCache;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.enums.ImportStatus;
+import com.banca.ledger.domain.model.LedgerImport;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.OperationRow;
+import com.banca.ledger.infrastructure.persistence.LedgerCopyRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerImportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Importación masiva de asientos históricos (migración desde el core legado).
+ *
+ * El archivo se lee en streaming y se carga por bloques de ~chunkSize filas, cada bloque en UNA transacción:
+ * COPY de ledger_operations + COPY de ledger_entries + saldos (account_balances) + avance del checkpoint
+ * (ledger_imports.rows_processed).
+ *
+ * - Un bloque siempre termina en borde de operación (filas contiguas con la misma idempotencyKey).
+ * - Por operación: debe cuadrar (Σ DEBIT == Σ CREDIT por moneda) y referencia única.
+ * - idempotencyKey única: dentro del bloque (en memoria) y contra el ledger (una consulta por bloque).
+ * - Un error deja la importación FAILED con el motivo; lo ya confirmado queda. Reenviar el archivo con el
+ *   mismo importId retoma desde el checkpoint; una importación COMPLETED no se vuelve a ejecutar.
+ * - Progreso (filas/s) en el log, en ledger_imports.rows_per_second y en métricas ledger.import.*.
+ */
+@Slf4j
+@Service
+public class LedgerImportService {
+
+    private final LedgerImportRepository importRepository;
+    private final LedgerCopyRepository copyRepository;
+    private final IdempotencyKeyFilter idempotencyKeyFilter;
+    private final AccountBalanceJdbcRepository accountBalanceRepository;
+    private final AccountBalanceCache accountBalanceCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final Counter rowsImported;
+    private final Timer chunkTimer;
+
+    public LedgerImportService(
+            LedgerImportRepository importRepository,
+            LedgerCopyRepository copyRepository,
+            IdempotencyKeyFilter idempotencyKeyFilter,
+            AccountBalanceJdbcRepository accountBalanceRepository,
+            AccountBalanceCache accountBalanceCache,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${ledger.import.chunk-size:50000}") int chunkSize
+    ) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("ledger.import.chunk-size debe ser mayor a 0");
+
+        this.importRepository = importRepository;
+        this.copyRepository = copyRepository;
+        this.idempotencyKeyFilter = idempotencyKeyFilter;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.accountBalanceCache = accountBalanceCache;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+
+        this.rowsImported = Counter.builder("ledger.import.rows")
+                .description("Asientos cargados por importación masiva")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("ledger.import.chunk")
+                .description("Duración de cada bloque COPY + checkpoint")
+                .register(meterRegistry);
+    }
+
+    // ===============================
+    // UC-9: importar asientos históricos (CSV / NDJSON)
+    // ===============================
+    public LedgerImport importStream(String importId, ImportFormat format, InputStream input) {
+        if (importId == null || importId.isBlank()) {
+            throw new IllegalArgumentException("importId no puede ser vacío");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("format no puede ser null");
+        }
+        if (!running.add(importId)) {
+            throw new ConflictException("La importación " + importId + " ya está en ejecución");
+        }
+
+        try {
+            LedgerImport started = begin(importId, format);
+            if (started.getStatus() == ImportStatus.COMPLETED) {
+                return started;
+            }
+
+            try (ImportRecordReader reader = new ImportRecordReader(format, input, objectMapper)) {
+                return run(started, reader);
+            } catch (IOException e) {
+                markFailed(importId, "Error leyendo el archivo: " + e.getMessage());
+                throw new UncheckedIOException(e);
+            } catch (ConflictException e) {
+                throw e; // otra ejecución avanzó el checkpoint: su estado no se toca
+            } catch (RuntimeException e) {
+                markFailed(importId, e.getMessage());
+                throw e;
+            }
+        } finally {
+            running.remove(importId);
+        }
+    }
+
+    public LedgerImport getImport(String importId) {
+        return importRepository.findById(importId)
+                .orElseThrow(() -> new NotFoundException("Importación no encontrada: " + importId));
+    }
+
+    private LedgerImport begin(String importId, ImportFormat format) {
+        return tx.execute(status -> {
+            Optional<LedgerImport> existing = importRepository.findByIdForUpdate(importId);
+            if (existing.isEmpty()) {
+                return importRepository.save(new LedgerImport(importId, format));
+            }
+            LedgerImport ledgerImport = existing.get();
+            if (ledgerImport.getStatus() != ImportStatus.COMPLETED) {
+                ledgerImport.resume(format);
+                log.info("Reanudando importación {} desde la fila {}", importId, ledgerImport.getRowsProcessed());
+            }
+            return ledgerImport;
+        });
+    }
+
+    private LedgerImport run(LedgerImport started, ImportRecordReader reader) throws IOException {
+        String importId = started.getId();
+        long checkpoint = started.getRowsProcessed();
+        reader.skip(checkpoint);
+
+        Progress progress = new Progress();
+        Chunk chunk = new Chunk();
+        List<ImportRecord> operation = new ArrayList<>();
+
+        ImportRecord record;
+        while ((record = reader.next()) != null) {
+            validateRecord(record, reader.lineNumber());
+
+            if (!operation.isEmpty() && !operation.get(0).idempotencyKey().equals(record.idempotencyKey())) {
+                chunk.add(toOperation(operation));
+                operation = new ArrayList<>();
+                if (chunk.entries.size() >= chunkSize) {
+                    checkpoint = commitChunk(importId, checkpoint, chunk, progress);
+                    chunk = new Chunk();
+                }
+            }
+            operation.add(record);
+        }
+        if (!operation.isEmpty()) {
+            chunk.add(toOperation(operation));
+        }
+        if (!chunk.entries.isEmpty()) {
+            commitChunk(importId, checkpoint, chunk, progress);
+        }
+
+        return tx.execute(status -> {
+            LedgerImport ledgerImport = importRepository.findByIdForUpdate(importId)
+                    .orElseThrow(() -> new NotFoundException("Importación no encontrada: " + importId));
+            ledgerImport.complete();
+            log.info("Importación {} completada: {} operaciones, {} asientos ({} filas/s)", importId,
+                    ledgerImport.getOperationsImported(), ledgerImport.getEntriesImported(),
+                    Math.round(ledgerImport.getRowsPerSecond()));
+            return ledgerImport;
+        });
+    }
+
+    private long commitChunk(String importId, long expectedCheckpoint, Chunk chunk, Progress progress) {
+        long newCheckpoint = expectedCheckpoint + chunk.entries.size();
+
+        chunkTimer.record(() -> tx.executeWithoutResult(status -> {
+            LedgerImport ledgerImport = importRepository.findByIdForUpdate(importId)
+                    .orElseThrow(() -> new NotFoundException("Importación no encontrada: " + importId));
+            if (ledgerImport.getStatus() != ImportStatus.RUNNING || ledgerImport.getRowsProcessed() != expectedCheckpoint) {
+                throw new ConflictException("La importación " + importId + " fue modificada por otra ejecución");
+            }
+
+            List<String> existing = copyRepository.findExistingIdempotencyKeys(chunk.keys);
+            if (!existing.isEmpty()) {
+                throw new IllegalArgumentException("idempotencyKey ya registrada en el ledger: "
+                        + String.join(", ", existing.subList(0, Math.min(5, existing.size())))
+                        + (existing.size() > 5 ? " (y " + (existing.size() - 5) + " más)" : ""));
+            }
+
+            // balance_after en orden de importación (no cronológico si el archivo trae fechas pasadas)
+            copyRepository.copyOperations(chunk.operations);
+            copyRepository.copyEntries(accountBalanceRepository.applyRows(chunk.entries));
+            accountBalanceRepository.updateLastEntryIdsOfOperations(chunk.operations.stream().map(OperationRow::id).toList());
+            accountBalanceCache.invalidateAfterCommit(chunk.entries.stream().map(EntryRow::accountId).toList());
+
+            ledgerImport.checkpoint(newCheckpoint, chunk.operations.size(), chunk.entries.size(),
+                    progress.rowsPerSecond(chunk.entries.size()));
+            idempotencyKeyFilter.addAfterCommit(chunk.keys);
+        }));
+
+        progress.add(chunk.entries.size());
+        rowsImported.increment(chunk.entries.size());
+        log.info("Importación {}: {} filas confirmadas ({} filas/s)", importId, newCheckpoint,
+                Math.round(progress.rowsPerSecond(0)));
+        return newCheckpoint;
+    }
+
+    private static void validateRecord(ImportRecord record, long lineNumber) {
+        String error = null;
+        if (record.idempotencyKey() == null || record.idempotencyKey().isBlank()) error = "idempotencyKey no puede ser vacío";
+        else if (record.idempotencyKey().length() > 512) error = "idempotencyKey excede 512 caracteres";
+        else if (record.referenceType() == null) error = "referenceType no puede ser null";
+        else if (record.referenceId() == null || record.referenceId().isBlank()) error = "referenceId no puede ser vacío";
+        else if (record.referenceId().length() > 100) error = "referenceId excede 100 caracteres";
+        else if (record.accountId() == null || record.accountId() <= 0) error = "accountId debe ser válido";
+        else if (record.entryType() == null) error = "entryType no puede ser null";
+        else if (record.amount() == null || record.amount().signum() <= 0) error = "amount debe ser mayor a 0";
+        else if (record.amount().stripTrailingZeros().scale() > 4) error = "amount admite como máximo 4 decimales";
+        else if (record.currency() == null) error = "currency no puede ser null";
+
+        if (error != null) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": " + error);
+        }
+    }
+
+    // Una operación = filas contiguas con la misma idempotencyKey; debe cuadrar por moneda
+    private static PreparedOperation toOperation(List<ImportRecord> records) {
+        ImportRecord first = records.get(0);
+        Map<Currency, BigDecimal> balance = new EnumMap<>(Currency.class);
+
+        for (ImportRecord r : records) {
+            if (r.referenceType() != first.referenceType() || !r.referenceId().equals(first.referenceId())) {
+                throw new IllegalArgumentException("Operación " + first.idempotencyKey()
+                        + ": todas sus filas deben tener la misma referencia");
+            }
+            BigDecimal signed = r.entryType() == EntryType.DEBIT ? r.amount() : r.amount().negate();
+            balance.merge(r.currency(), signed, BigDecimal::add);
+        }
+        balance.forEach((currency, net) -> {
+            if (net.signum() != 0) {
+                throw new IllegalArgumentException("Operación " + first.idempotencyKey()
+                        + " no cuadra en " + currency + ": débitos - créditos = " + net.toPlainString());
+            }
+        });
+
+        UUID operationId = UUID.randomUUID();
+        Instant operationCreatedAt = first.createdAt() != null ? first.createdAt() : Instant.now();
+        OperationRow operation = new OperationRow(operationId, first.idempotencyKey(),
+                first.referenceType(), first.referenceId(), operationCreatedAt);
+
+        List<EntryRow> entries = new ArrayList<>(records.size());
+        for (ImportRecord r : records) {
+            entries.add(new EntryRow(r.accountId(), r.entryType(), r.amount(), r.currency(),
+                    r.createdAt() != null ? r.createdAt() : operationCreatedAt, operationId));
+        }
+        return new PreparedOperation(operation, entries);
+    }
+
+    private record PreparedOperation(OperationRow operation, List<EntryRow> entries) {}
+
+    private static final class Chunk {
+        private final List<OperationRow> operations = new ArrayList<>();
+        private final List<EntryRow> entries = new ArrayList<>();
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        void add(PreparedOperation prepared) {
+            String key = prepared.operation().idempotencyKey();
+            if (!keys.add(key)) {
+                throw new IllegalArgumentException("idempotencyKey repetida en el archivo: " + key
+                        + " (las filas de una operación deben ser contiguas)");
+            }
+            operations.add(prepared.operation());
+            entries.addAll(prepared.entries());
+        }
+    }
+
+    // Throughput de esta ejecución (no cuenta las filas saltadas al reanudar)
+    private static final class Progress {
+        private final long startNanos = System.nanoTime();
+        private long rows;
+
+        void add(long committed) {
+            rows += committed;
+        }
+
+        double rowsPerSecond(long pending) {
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            return seconds > 0 ? (rows + pending) / seconds : 0;
+        }
+    }
+
+    private void markFailed(String importId, String reason) {
+        try {
+            tx.executeWithoutResult(status -> importRepository.findByIdForUpdate(importId)
+                    .ifPresent(ledgerImport -> ledgerImport.fail(reason)));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo marcar la importación {} como FAILED: {}", importId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Caché acotada (tamaño + TTL) del saldo actual por cuenta (UC-5, GET /accounts/{id}/balance).
+ *
+ * - Se invalida tras el commit de cada contabilización de este pod, para todas las cuentas tocadas
+ *   (ambas patas de un movimiento compuesto, todas las de una reversa).
+ * - Una invalidación que llega mientras se carga la misma cuenta espera a que termine la carga y la descarta:
+ *   un saldo leído antes del commit nunca queda en la caché.
+ * - POST /accounts/balances lee las cuentas presentes y carga el resto en una sola consulta (getAll).
+ * - Las contabilizaciones de OTROS pods no invalidan esta caché: el TTL acota cuánto puede atrasarse.
+ * - Métricas Caffeine en actuator (cache.gets{result=hit|miss}, cache.load.duration, cache.evictions,
+ *   cache.size con tag cache=ledger.balance) + ledger.balance.cache.staleness: antigüedad del saldo servido.
+ */
+@Component
+public class AccountBalanceCache {
+
+    static final String CACHE_NAME = "ledger.balance";
+
+    private final boolean enabled;
+    private final Cache<Long, CachedBalance> cache;
+    private final Timer staleness;
+    // Cambia antes de cada invalidación: una carga en bloque solo se guarda si no hubo ninguna mientras leía
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AccountBalanceCache(
+            MeterRegistry meterRegistry,
+            @Value("${ledger.balance.cache.enabled:true}") boolean enabled,
+            @Value("${ledger.balance.cache.max-size:100000}") long maxSize,
+            @Value("${ledger.balance.cache.ttl:5s}") Duration ttl
+    ) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.staleness = Timer.builder("ledger.balance.cache.staleness")
+                .description("Tiempo desde que se cargó el saldo servido desde la caché")
+                .register(meterRegistry);
+    }
+
+    public AccountBalanceResponse get(long accountId, LongFunction<AccountBalanceResponse> loader) {
+        if (!enabled) return loader.apply(accountId);
+
+        long now = System.nanoTime();
+        // Las excepciones del loader (404 sin asientos) no se cachean
+        CachedBalance cached = cache.get(accountId, id -> new CachedBalance(loader.apply(id), System.nanoTime()));
+        if (cached.loadedAtNanos() < now) {
+            staleness.record(Duration.ofNanos(now - cached.loadedAtNanos()));
+        }
+        return cached.copy();
+    }
+
+    /**
+     * Varias cuentas: las que están en la caché se sirven de ahí y el resto se carga con UNA llamada al loader.
+     * Las cuentas que el loader no devuelve (sin asientos) no se cachean ni aparecen en el resultado.
+     * Lo cargado se guarda cuenta por cuenta solo si no hubo invalidaciones desde antes de leer la BD
+     * (comparación y escritura atómicas respecto del remove de la invalidación).
+     */
+    public Map<Long, AccountBalanceResponse> getAll(
+            Collection<Long> accountIds, Function<Set<Long>, Map<Long, AccountBalanceResponse>> loader
+    ) {
+        Set<Long> ids = new LinkedHashSet<>(accountIds);
+        if (!enabled) return ordered(ids, loader.apply(ids), Map.of());
+
+        long now = System.nanoTime();
+        Map<Long, CachedBalance> present = cache.getAllPresent(ids);
+        present.values().forEach(cached -> staleness.record(Duration.ofNanos(now - cached.loadedAtNanos())));
+
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(present.keySet());
+        Map<Long, AccountBalanceResponse> loaded = Map.of();
+        if (!missing.isEmpty()) {
+            long generation = invalidations.get();
+            loaded = loader.apply(missing);
+            long loadedAt = System.nanoTime();
+            loaded.forEach((id, balance) -> cache.asMap().compute(id, (k, current) ->
+                    current == null && invalidations.get() == generation ? new CachedBalance(copyOf(balance), loadedAt) : current));
+        }
+        return ordered(ids, loaded, present);
+    }
+
+    /**
+     * Invalida las cuentas cuando la transacción actual confirma (si no hay transacción, de inmediato).
+     * Invalidar antes del commit no sirve: una lectura concurrente volvería a cargar el saldo anterior.
+     */
+    public void invalidateAfterCommit(Collection<Long> accountIds) {
+        if (!enabled || accountIds.isEmpty()) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Set<Long> ids = Set.copyOf(accountIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidations.incrementAndGet();
+                    cache.invalidateAll(ids);
+                }
+            });
+        } else {
+            invalidations.incrementAndGet();
+            cache.invalidateAll(accountIds);
+        }
+    }
+
+    public void invalidateAllAfterCommit() {
+        if (!enabled) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidations.incrementAndGet();
+                    cache.invalidateAll();
+                }
+            });
+        } else {
+            invalidations.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    private static Map<Long, AccountBalanceResponse> ordered(
+            Set<Long> ids, Map<Long, AccountBalanceResponse> loaded, Map<Long, CachedBalance> present
+    ) {
+        Map<Long, AccountBalanceResponse> out = new LinkedHashMap<>();
+        for (Long id : ids) {
+            CachedBalance cached = present.get(id);
+            AccountBalanceResponse balance = cached != null ? cached.copy() : loaded.get(id);
+            if (balance != null) out.put(id, balance);
+        }
+        return out;
+    }
+
+    private static AccountBalanceResponse copyOf(AccountBalanceResponse balance) {
+        return new AccountBalanceResponse(balance.getAccountId(), balance.getCurrency(), balance.getBalance());
+    }
+
+    // El DTO es mutable: cada lectura recibe su propia instancia
+    private record CachedBalance(AccountBalanceResponse balance, long loadedAtNanos) {
+        AccountBalanceResponse copy() {
+            return copyOf(balance);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Reconstrucción de account_balances desde ledger_entries (fuente de verdad):
+ * tras una corrección manual de asientos o para verificar que los saldos materializados no derivaron.
+ * Las contabilizaciones que llegan durante la reconstrucción esperan al commit (lock de account_balances)
+ * y aplican su delta sobre el saldo recalculado.
+ */
+@Slf4j
+@Service
+public class AccountBalanceRebuildService {
+
+    private final AccountBalanceJdbcRepository accountBalanceRepository;
+    private final AccountBalanceCache accountBalanceCache;
+
+    public AccountBalanceRebuildService(
+            AccountBalanceJdbcRepository accountBalanceRepository,
+            AccountBalanceCache accountBalanceCache
+    ) {
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.accountBalanceCache = accountBalanceCache;
+    }
+
+    // accountId null => todas las cuentas. Devuelve las filas (cuenta/moneda) reconstruidas
+    @Transactional
+    public int rebuild(Long accountId) {
+        if (accountId != null && accountId <= 0) {
+            throw new IllegalArgumentException("accountId debe ser válido");
+        }
+
+        int rebuilt;
+        if (accountId == null) {
+            rebuilt = accountBalanceRepository.rebuildAll();
+            accountBalanceCache.invalidateAllAfterCommit();
+        } else {
+            rebuilt = accountBalanceRepository.rebuildAccount(accountId);
+            accountBalanceCache.invalidateAfterCommit(List.of(accountId));
+        }
+
+        log.info("Saldos reconstruidos desde ledger_entries ({}): {} filas",
+                accountId == null ? "todas las cuentas" : "cuenta " + accountId, rebuilt);
+        return rebuilt;
+    }
+}
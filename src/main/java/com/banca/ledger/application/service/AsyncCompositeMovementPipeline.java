@@ -0,0 +1,330 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.domain.enums.PendingOperationStatus;
+import com.banca.ledger.domain.model.PendingOperation;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import com.banca.ledger.infrastructure.persistence.PendingOperationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo asíncrono de UC-2: aceptar primero, contabilizar después.
+ *
+ * accept(): guarda el request como PENDING en pending_operations (durable, idempotente por key)
+ * y lo encola en memoria; el caller recibe el operationId sin esperar la transacción contable.
+ *
+ * Drenadores en proceso toman lotes de la cola y los contabilizan con
+ * LedgerEntryCommandService.recordCompositeMovementInGroup en UNA transacción por lote, sin savepoints:
+ * POSTED si se contabilizó, REJECTED con motivo si no. El rechazo (400 / 409) se detecta antes de escribir
+ * nada de la operación, así que el resto del lote sigue y confirma junto con la fila REJECTED.
+ *
+ * - La cola es acotada: si está llena la fila queda PENDING y la toma el barrido periódico.
+ * - Al arrancar se barren todas las PENDING (recuperación tras caída).
+ * - Cualquier otro error en un lote => se revierte y se reintenta operación por operación, cada una en
+ *   su transacción. Error de infraestructura que persiste => la fila queda PENDING para el próximo barrido;
+ *   error no previsto de la propia operación => REJECTED en una transacción aparte.
+ * - Cada pasada por un lote cuenta un intento, confirmado en su propia transacción ANTES de contabilizar
+ *   (el rollback del lote no lo borra). Con maxAttempts agotados la fila pasa a REJECTED sin reintentarse.
+ *   Con la BD caída el intento tampoco se registra: una caída no consume intentos.
+ */
+@Slf4j
+@Component
+public class AsyncCompositeMovementPipeline {
+
+    private final LedgerEntryCommandService commandService;
+    private final PendingOperationRepository pendingOperationRepository;
+    private final LedgerOperationRepository ledgerOperationRepository;
+    private final TransactionTemplate batchTx;
+    private final TransactionTemplate statusTx;
+    private final BlockingQueue<UUID> queue;
+    private final int batchSize;
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration sweepInterval;
+    private final Duration staleAfter;
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile long lastSweepNanos = System.nanoTime();
+
+    private final Counter accepted;
+    private final Counter posted;
+    private final Counter rejected;
+    private final Counter queueFull;
+
+    public AsyncCompositeMovementPipeline(
+            LedgerEntryCommandService commandService,
+            PendingOperationRepository pendingOperationRepository,
+            LedgerOperationRepository ledgerOperationRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${ledger.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${ledger.async.batch-size:100}") int batchSize,
+            @Value("${ledger.async.workers:1}") int workers,
+            @Value("${ledger.async.sweep-interval:5s}") Duration sweepInterval,
+            @Value("${ledger.async.stale-after:30s}") Duration staleAfter,
+            @Value("${ledger.async.max-attempts:5}") int maxAttempts
+    ) {
+        if (maxAttempts <= 0) throw new IllegalArgumentException("ledger.async.max-attempts debe ser mayor a 0");
+
+        this.commandService = commandService;
+        this.pendingOperationRepository = pendingOperationRepository;
+        this.ledgerOperationRepository = ledgerOperationRepository;
+        this.batchTx = new TransactionTemplate(transactionManager);
+        // Lectura de estado en el primario: una transacción read-write no se enruta a la réplica (ver ReadReplicaConfig)
+        this.statusTx = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.sweepInterval = sweepInterval;
+        this.staleAfter = staleAfter;
+        this.maxAttempts = maxAttempts;
+
+        this.accepted = Counter.builder("ledger.async.operations").tag("result", "accepted").register(meterRegistry);
+        this.posted = Counter.builder("ledger.async.operations").tag("result", "posted").register(meterRegistry);
+        this.rejected = Counter.builder("ledger.async.operations").tag("result", "rejected").register(meterRegistry);
+        this.queueFull = Counter.builder("ledger.async.queue.full").register(meterRegistry);
+        meterRegistry.gauge("ledger.async.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(this::drainLoop, "ledger-async-drainer-" + i);
+            t.setDaemon(true);
+            t.start();
+            workerThreads.add(t);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Lo que quede en cola sigue PENDING en BD: lo recupera el próximo arranque
+        running = false;
+        for (Thread t : workerThreads) {
+            t.interrupt();
+            t.join(5_000);
+        }
+    }
+
+    // Recuperación tras caída: todo lo PENDING al arrancar es trabajo huérfano
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPending() {
+        sweep(Instant.now());
+    }
+
+    // ===============================
+    // UC-2A: aceptar movimiento compuesto (asíncrono)
+    // ===============================
+    public PendingOperation accept(CreateCompositeLedgerMovementRequest request) {
+        PendingOperation pending = pendingOperationRepository.insertIfAbsent(
+                        UUID.randomUUID(),
+                        request.getIdempotencyKey(),
+                        request.getReferenceType().name(),
+                        request.getReferenceId(),
+                        request.getDebitAccountId(),
+                        request.getCreditAccountId(),
+                        request.getAmount(),
+                        request.getCurrency().name(),
+                        Instant.now())
+                .or(() -> pendingOperationRepository.findByIdempotencyKey(request.getIdempotencyKey()))
+                .orElseThrow(() -> new IllegalStateException(
+                        "No se pudo recuperar la operación pendiente tras conflicto de idempotencia"));
+
+        if (pending.getReferenceType() != request.getReferenceType()
+                || !Objects.equals(pending.getReferenceId(), request.getReferenceId())) {
+            throw new ConflictException(LedgerEntryCommandService.idempotencyConflictMessage(
+                    pending.getReferenceType(), pending.getReferenceId(),
+                    request.getReferenceType(), request.getReferenceId()));
+        }
+
+        if (pending.getStatus() == PendingOperationStatus.PENDING) {
+            accepted.increment();
+            if (!queue.offer(pending.getId())) {
+                queueFull.increment(); // queda PENDING: la toma el barrido
+            }
+        }
+        return pending;
+    }
+
+    // ===============================
+    // UC-2B: estado de una operación (asíncrona o síncrona)
+    // ===============================
+    // El cliente consulta justo después del 202 / del commit del worker: una réplica atrasada respondería
+    // 404 o PENDING para operaciones ya aceptadas o contabilizadas, por eso se lee del primario
+    public OperationStatus getStatus(UUID operationId) {
+        if (operationId == null) {
+            throw new IllegalArgumentException("operationId no puede ser null");
+        }
+
+        return statusTx.execute(status -> {
+            Optional<PendingOperation> pending = pendingOperationRepository.findById(operationId);
+            if (pending.isPresent()) {
+                PendingOperation p = pending.get();
+                return new OperationStatus(p.getId(), p.getStatus(), p.getPostedOperationId(),
+                        p.getRejectionReason(), p.getUpdatedAt());
+            }
+
+            // Operaciones registradas por la vía síncrona: ya están contabilizadas
+            return ledgerOperationRepository.findById(operationId)
+                    .map(op -> new OperationStatus(op.getId(), PendingOperationStatus.POSTED, op.getId(),
+                            null, op.getCreatedAt()))
+                    .orElseThrow(() -> new NotFoundException("Operación no encontrada: " + operationId));
+        });
+    }
+
+    private void drainLoop() {
+        List<UUID> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                UUID first = queue.poll(sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    processBatch(batch);
+                }
+                if (System.nanoTime() - lastSweepNanos >= sweepInterval.toNanos()) {
+                    sweep(Instant.now().minus(staleAfter));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado drenando operaciones asíncronas", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void sweep(Instant untouchedSince) {
+        lastSweepNanos = System.nanoTime();
+        List<PendingOperation> page = pendingOperationRepository.findStaleFirst(
+                PendingOperationStatus.PENDING, untouchedSince, Limit.of(batchSize));
+        while (running && !page.isEmpty()) {
+            processBatch(page.stream().map(PendingOperation::getId).toList());
+
+            // Siguiente página después de la última fila vista, sigan o no PENDING las de esta
+            PendingOperation last = page.get(page.size() - 1);
+            page = pendingOperationRepository.findStaleAfter(PendingOperationStatus.PENDING, untouchedSince,
+                    last.getCreatedAt(), last.getId(), Limit.of(batchSize));
+        }
+    }
+
+    void processBatch(List<UUID> batch) {
+        List<UUID> ids;
+        try {
+            ids = registerAttempts(batch);
+        } catch (RuntimeException e) {
+            log.warn("Lote asíncrono de {} operaciones sigue PENDING: {}", batch.size(), e.getMessage());
+            return;
+        }
+        if (ids.isEmpty()) return;
+
+        try {
+            batchTx.executeWithoutResult(status -> pendingOperationRepository.findAllById(ids)
+                    .forEach(this::post));
+        } catch (RuntimeException e) {
+            log.warn("Lote asíncrono de {} operaciones revertido, reintentando una por una: {}", ids.size(), e.getMessage());
+            for (UUID id : ids) {
+                try {
+                    batchTx.executeWithoutResult(status -> pendingOperationRepository.findById(id).ifPresent(this::post));
+                } catch (DataAccessException | PersistenceException | TransactionException single) {
+                    log.warn("Operación asíncrona {} sigue PENDING: {}", id, single.getMessage());
+                } catch (RuntimeException single) {
+                    // Falla sola y no por la BD (p. ej. datos inconsistentes): reintentarla no cambia nada
+                    reject(id, single.getMessage());
+                }
+            }
+        }
+    }
+
+    // Transacción propia: el intento queda registrado aunque el lote se revierta después
+    private List<UUID> registerAttempts(List<UUID> ids) {
+        return batchTx.execute(status -> {
+            List<UUID> toPost = new ArrayList<>(ids.size());
+            for (PendingOperation pending : pendingOperationRepository.findAllById(ids)) {
+                if (pending.getStatus() != PendingOperationStatus.PENDING) continue;
+                if (pending.getAttempts() >= maxAttempts) {
+                    pending.markRejected("Sin contabilizar tras " + pending.getAttempts() + " intentos");
+                    rejected.increment();
+                    continue;
+                }
+                pending.registerAttempt();
+                toPost.add(pending.getId());
+            }
+            return toPost;
+        });
+    }
+
+    private void reject(UUID id, String reason) {
+        try {
+            batchTx.executeWithoutResult(status -> pendingOperationRepository.findById(id)
+                    .filter(p -> p.getStatus() == PendingOperationStatus.PENDING)
+                    .ifPresent(p -> {
+                        p.markRejected(reason);
+                        rejected.increment();
+                    }));
+        } catch (RuntimeException e) {
+            log.warn("Operación asíncrona {} sigue PENDING: {}", id, e.getMessage());
+        }
+    }
+
+    private void post(PendingOperation pending) {
+        if (pending.getStatus() != PendingOperationStatus.PENDING) return;
+
+        try {
+            OperationEntries result = commandService.recordCompositeMovementInGroup(toRequest(pending), pending.getId());
+            pending.markPosted(result.operation().getId());
+            posted.increment();
+        } catch (IllegalArgumentException | ConflictException e) {
+            // Rechazo de negocio (validación / conflicto): definitivo, no se reintenta.
+            // Se detectó antes de escribir: la transacción del lote sigue intacta
+            pending.markRejected(e.getMessage());
+            rejected.increment();
+        }
+    }
+
+    private static CreateCompositeLedgerMovementRequest toRequest(PendingOperation pending) {
+        return new CreateCompositeLedgerMovementRequest(
+                pending.getDebitAccountId(),
+                pending.getCreditAccountId(),
+                pending.getAmount(),
+                pending.getCurrency(),
+                pending.getReferenceType(),
+                pending.getReferenceId(),
+                pending.getIdempotencyKey()
+        );
+    }
+
+    public record OperationStatus(
+            UUID operationId,
+            PendingOperationStatus status,
+            UUID postedOperationId,
+            String rejectionReason,
+            Instant updatedAt
+    ) {}
+}
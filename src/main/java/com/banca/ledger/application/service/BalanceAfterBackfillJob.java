@@ -0,0 +1,74 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.infrastructure.persistence.BalanceAfterBackfillJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Completa balance_after (V9) en los asientos registrados antes de la columna.
+ *
+ * Procesa bloques de accountsPerChunk cuentas, un bloque por transacción, hasta que no queden asientos
+ * en NULL (la corrida siguiente no encuentra pendientes y termina enseguida). Cada bloque bloquea los
+ * saldos de sus cuentas: las contabilizaciones de esas cuentas esperan ese bloque y no las demás.
+ */
+@Slf4j
+@Component
+public class BalanceAfterBackfillJob {
+
+    private final BalanceAfterBackfillJdbcRepository backfillRepository;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int accountsPerChunk;
+
+    public BalanceAfterBackfillJob(
+            BalanceAfterBackfillJdbcRepository backfillRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.balance-after.backfill.enabled:true}") boolean enabled,
+            @Value("${ledger.balance-after.backfill.accounts-per-chunk:200}") int accountsPerChunk
+    ) {
+        if (accountsPerChunk <= 0) {
+            throw new IllegalArgumentException("ledger.balance-after.backfill.accounts-per-chunk debe ser mayor a 0");
+        }
+
+        this.backfillRepository = backfillRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.accountsPerChunk = accountsPerChunk;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.balance-after.backfill.interval:PT10M}",
+            initialDelayString = "${ledger.balance-after.backfill.initial-delay:PT30S}")
+    void scheduledRun() {
+        if (!enabled) return;
+        try {
+            run();
+        } catch (RuntimeException e) {
+            // Lo confirmado queda; la próxima corrida sigue con las cuentas pendientes
+            log.error("Error en el backfill de balance_after", e);
+        }
+    }
+
+    // Devuelve los asientos completados en esta corrida
+    public long run() {
+        long filled = 0;
+        while (true) {
+            Integer chunkFilled = tx.execute(status -> {
+                List<Long> accountIds = backfillRepository.findPendingAccountIds(accountsPerChunk);
+                return accountIds.isEmpty() ? null : backfillRepository.backfillAccounts(accountIds);
+            });
+            // 0 con cuentas pendientes no debería ocurrir: se corta para no girar en vacío
+            if (chunkFilled == null || chunkFilled == 0) break;
+            filled += chunkFilled;
+        }
+        if (filled > 0) {
+            log.info("Backfill de balance_after: {} asientos completados", filled);
+        }
+        return filled;
+    }
+}
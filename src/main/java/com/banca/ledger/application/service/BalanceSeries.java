@@ -0,0 +1,22 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.domain.enums.BalanceGranularity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+Saldos de cierre de una cuenta en [from, to] (UTC), un punto por período (denso: también los días sin movimientos).
+openingBalance = saldo al inicio de from; cada punto = saldo al cierre del último día del período (acotado a to).
+ */
+public record BalanceSeries(
+        Long accountId,
+        BalanceGranularity granularity,
+        LocalDate from,
+        LocalDate to,
+        BigDecimal openingBalance,
+        List<Point> points
+) {
+    public record Point(LocalDate date, BigDecimal balance) {}
+}
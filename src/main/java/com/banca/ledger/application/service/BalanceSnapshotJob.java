@@ -0,0 +1,100 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.infrastructure.persistence.BalanceSnapshotJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.BalanceSnapshotJdbcRepository.SnapshotState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Job incremental de snapshots de saldo (balance_snapshots, ver V8).
+ *
+ * Cada corrida avanza la marca de agua día por día (UTC), un día por transacción, desde el día siguiente
+ * a la marca hasta el último día cerrado. Un día se considera cerrado cuando pasó settleAfter desde
+ * su medianoche final (transacciones que cruzan la medianoche ya confirmaron).
+ *
+ * Asientos tardíos: el trigger de ledger_entries retrocede la marca de agua y el job recalcula desde ahí
+ * (upsert sobre los snapshots existentes). Si la invalidación llega mientras se calcula un día,
+ * el CAS sobre version falla, la transacción se descarta y el día se recalcula. Todo asiento con fecha pasada
+ * toma el lock de la fila de estado (V12): con un writer de esos abierto el avance espera a su commit y falla.
+ * Con varias instancias el CAS también evita que dos corridas avancen la misma marca.
+ */
+@Slf4j
+@Component
+public class BalanceSnapshotJob {
+
+    private final BalanceSnapshotJdbcRepository snapshotRepository;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration settleAfter;
+    private final int maxDaysPerRun;
+
+    public BalanceSnapshotJob(
+            BalanceSnapshotJdbcRepository snapshotRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.snapshots.enabled:true}") boolean enabled,
+            @Value("${ledger.snapshots.settle-after:PT5M}") Duration settleAfter,
+            @Value("${ledger.snapshots.max-days-per-run:400}") int maxDaysPerRun
+    ) {
+        if (maxDaysPerRun <= 0) throw new IllegalArgumentException("ledger.snapshots.max-days-per-run debe ser mayor a 0");
+
+        this.snapshotRepository = snapshotRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.settleAfter = settleAfter;
+        this.maxDaysPerRun = maxDaysPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.snapshots.interval:PT15M}",
+            initialDelayString = "${ledger.snapshots.initial-delay:PT1M}")
+    void scheduledRun() {
+        if (!enabled) return;
+        try {
+            run(Instant.now());
+        } catch (RuntimeException e) {
+            // La marca de agua no avanzó: la próxima corrida retoma desde el mismo día
+            log.error("Error generando snapshots de saldo", e);
+        }
+    }
+
+    // Devuelve la cantidad de días cerrados en esta corrida
+    public int run(Instant now) {
+        LocalDate lastClosedDay = LocalDate.ofInstant(now.minus(settleAfter), ZoneOffset.UTC).minusDays(1);
+
+        int advanced = 0;
+        for (int attempt = 0; attempt < maxDaysPerRun; attempt++) {
+            Step step = tx.execute(status -> {
+                SnapshotState state = snapshotRepository.findState();
+                LocalDate next = state.validThrough() != null
+                        ? state.validThrough().plusDays(1)
+                        : snapshotRepository.findFirstEntryDay().orElse(null);
+                if (next == null || next.isAfter(lastClosedDay)) {
+                    return Step.CAUGHT_UP;
+                }
+
+                int rows = snapshotRepository.snapshotDay(next);
+                if (!snapshotRepository.advance(next, state.version())) {
+                    status.setRollbackOnly();
+                    log.info("Snapshots del {} descartados: la marca de agua cambió durante el cálculo", next);
+                    return Step.CONFLICT;
+                }
+                log.debug("Snapshots de saldo del {}: {} filas", next, rows);
+                return Step.ADVANCED;
+            });
+
+            if (step == Step.CAUGHT_UP) break;
+            if (step == Step.ADVANCED) advanced++;
+        }
+        return advanced;
+    }
+
+    private enum Step { ADVANCED, CAUGHT_UP, CONFLICT }
+}
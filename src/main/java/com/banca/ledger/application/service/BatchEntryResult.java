@@ -0,0 +1,29 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.domain.enums.BatchItemStatus;
+import com.banca.ledger.domain.model.LedgerEntry;
+
+/**
+ * Resultado de un elemento del lote: el índice corresponde a la posición en el request original.
+ * - CREATED / REPLAYED: entry contiene el asiento persistido
+ * - CONFLICT: entry es null y message explica el motivo
+ */
+public record BatchEntryResult(
+        int index,
+        String idempotencyKey,
+        BatchItemStatus status,
+        LedgerEntry entry,
+        String message
+) {
+    static BatchEntryResult created(int index, String idempotencyKey, LedgerEntry entry) {
+        return new BatchEntryResult(index, idempotencyKey, BatchItemStatus.CREATED, entry, null);
+    }
+
+    static BatchEntryResult replayed(int index, String idempotencyKey, LedgerEntry entry) {
+        return new BatchEntryResult(index, idempotencyKey, BatchItemStatus.REPLAYED, entry, null);
+    }
+
+    static BatchEntryResult conflict(int index, String idempotencyKey, String message) {
+        return new BatchEntryResult(index, idempotencyKey, BatchItemStatus.CONFLICT, null, message);
+    }
+}
@@ -0,0 +1,36 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.domain.enums.ReversalStatus;
+
+import java.util.UUID;
+
+/**
+ * Resultado de reversar una operación dentro de una reversa masiva:
+ * - REVERSED: reversalOperationId es la reversa creada ahora y entriesReversed sus asientos
+ * - ALREADY_REVERSED: reversalOperationId es la reversa que ya existía (no se escribe nada)
+ * - NOT_FOUND / FAILED: message explica el motivo
+ */
+public record BulkReversalResult(
+        UUID operationId,
+        ReversalStatus status,
+        UUID reversalOperationId,
+        int entriesReversed,
+        String message
+) {
+    static BulkReversalResult reversed(UUID operationId, UUID reversalOperationId, int entriesReversed) {
+        return new BulkReversalResult(operationId, ReversalStatus.REVERSED, reversalOperationId, entriesReversed, null);
+    }
+
+    static BulkReversalResult alreadyReversed(UUID operationId, UUID reversalOperationId) {
+        return new BulkReversalResult(operationId, ReversalStatus.ALREADY_REVERSED, reversalOperationId, 0, null);
+    }
+
+    static BulkReversalResult notFound(UUID operationId) {
+        return new BulkReversalResult(operationId, ReversalStatus.NOT_FOUND, null, 0,
+                "Operación no encontrada: " + operationId);
+    }
+
+    static BulkReversalResult failed(UUID operationId, String message) {
+        return new BulkReversalResult(operationId, ReversalStatus.FAILED, null, 0, message);
+    }
+}
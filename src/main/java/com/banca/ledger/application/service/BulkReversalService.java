@@ -0,0 +1,204 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.OperationRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.ReversalRow;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reversa masiva (p. ej. lote de un partner rechazado): versión set-based de UC-8.
+ *
+ * Las operaciones se procesan en bloques de chunkSize, cada bloque en UNA transacción:
+ * - originales bloqueadas (FOR UPDATE) en una consulta y sus asientos en otra
+ * - asientos inversos generados en memoria
+ * - operaciones de reversa, enlaces original -> reversa y asientos escritos con JDBC batch
+ * - saldos (account_balances) y balance_after de cada asiento con un único upsert por bloque
+ * Devuelve un resultado por operación en el orden del request; un bloque que falla se reporta
+ * FAILED completo sin abortar los demás (lo ya confirmado queda y reintentar es idempotente).
+ */
+@Slf4j
+@Service
+public class BulkReversalService {
+
+    static final int MAX_OPERATIONS = 10000;
+
+    private final LedgerOperationRepository ledgerOperationRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerBatchJdbcRepository ledgerBatchJdbcRepository;
+    private final IdempotencyKeyFilter idempotencyKeyFilter;
+    private final AccountBalanceJdbcRepository accountBalanceRepository;
+    private final AccountBalanceCache accountBalanceCache;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    public BulkReversalService(
+            LedgerOperationRepository ledgerOperationRepository,
+            LedgerEntryRepository ledgerEntryRepository,
+            LedgerBatchJdbcRepository ledgerBatchJdbcRepository,
+            IdempotencyKeyFilter idempotencyKeyFilter,
+            AccountBalanceJdbcRepository accountBalanceRepository,
+            AccountBalanceCache accountBalanceCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.reversal.chunk-size:500}") int chunkSize
+    ) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("ledger.reversal.chunk-size debe ser mayor a 0");
+
+        this.ledgerOperationRepository = ledgerOperationRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.ledgerBatchJdbcRepository = ledgerBatchJdbcRepository;
+        this.idempotencyKeyFilter = idempotencyKeyFilter;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.accountBalanceCache = accountBalanceCache;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    // ===============================
+    // UC-8B: Reversa masiva por lista de operationIds
+    // ===============================
+    public List<BulkReversalResult> reverseOperations(List<UUID> operationIds) {
+        if (operationIds == null || operationIds.isEmpty()) {
+            throw new IllegalArgumentException("operationIds no puede ser vacío");
+        }
+        if (operationIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("operationIds no puede contener nulos");
+        }
+        // Un id repetido se reversa una sola vez (un resultado por operación)
+        List<UUID> distinctIds = new ArrayList<>(new LinkedHashSet<>(operationIds));
+        if (distinctIds.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("operationIds admite como máximo " + MAX_OPERATIONS + " elementos");
+        }
+        return reverseInChunks(distinctIds);
+    }
+
+    // ===============================
+    // UC-8C: Reversa masiva por referencia (referenceType + rango de referenceId, inclusive)
+    // ===============================
+    public List<BulkReversalResult> reverseByReference(ReferenceType referenceType, String referenceIdFrom, String referenceIdTo) {
+        if (referenceType == null) {
+            throw new IllegalArgumentException("referenceType no puede ser null");
+        }
+        if (referenceIdFrom == null || referenceIdFrom.isBlank() || referenceIdTo == null || referenceIdTo.isBlank()) {
+            throw new IllegalArgumentException("referenceIdFrom y referenceIdTo son requeridos");
+        }
+        if (referenceIdFrom.compareTo(referenceIdTo) > 0) {
+            throw new IllegalArgumentException("referenceIdFrom no puede ser mayor que referenceIdTo");
+        }
+
+        List<UUID> ids = ledgerOperationRepository.findReversibleIdsByReferenceRange(
+                referenceType, referenceIdFrom, referenceIdTo, PageRequest.of(0, MAX_OPERATIONS + 1));
+        if (ids.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("El filtro abarca más de " + MAX_OPERATIONS
+                    + " operaciones; acote el rango de referenceId");
+        }
+        return reverseInChunks(ids);
+    }
+
+    private List<BulkReversalResult> reverseInChunks(List<UUID> ids) {
+        List<BulkReversalResult> out = new ArrayList<>(ids.size());
+
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            try {
+                out.addAll(tx.execute(status -> reverseChunk(chunk)));
+            } catch (RuntimeException e) {
+                log.warn("Bloque de reversa masiva fallido ({} operaciones desde {}): {}",
+                        chunk.size(), chunk.get(0), e.getMessage());
+                String reason = "No se pudo reversar el bloque: " + e.getMessage();
+                chunk.forEach(id -> out.add(BulkReversalResult.failed(id, reason)));
+            }
+        }
+        return out;
+    }
+
+    private List<BulkReversalResult> reverseChunk(List<UUID> ids) {
+        // 1) Originales bloqueadas en UNA consulta: reversas simultáneas (masivas o UC-8) se serializan
+        Map<UUID, LedgerOperation> originals = ledgerOperationRepository.findAllByIdForUpdate(ids).stream()
+                .collect(Collectors.toMap(LedgerOperation::getId, Function.identity()));
+
+        List<UUID> toReverse = ids.stream()
+                .filter(id -> originals.containsKey(id) && originals.get(id).getReversedByOperationId() == null)
+                .toList();
+
+        // 2) Asientos de todas las pendientes en UNA consulta
+        Map<UUID, List<LedgerEntry>> entriesByOpId = toReverse.isEmpty()
+                ? Map.of()
+                : ledgerEntryRepository.findByOperationIdIn(toReverse).stream()
+                        .collect(Collectors.groupingBy(e -> e.getOperation().getId()));
+
+        // 3) Inversas en memoria
+        Instant now = Instant.now();
+        List<ReversalRow> reversals = new ArrayList<>();
+        List<EntryRow> reversedEntries = new ArrayList<>();
+        List<BulkReversalResult> results = new ArrayList<>(ids.size());
+
+        for (UUID id : ids) {
+            LedgerOperation original = originals.get(id);
+            if (original == null) {
+                results.add(BulkReversalResult.notFound(id));
+                continue;
+            }
+            if (original.getReversedByOperationId() != null) {
+                results.add(BulkReversalResult.alreadyReversed(id, original.getReversedByOperationId()));
+                continue;
+            }
+            List<LedgerEntry> entries = entriesByOpId.getOrDefault(id, List.of());
+            if (entries.isEmpty()) {
+                results.add(BulkReversalResult.failed(id, "No se encontraron asientos para la operación: " + id));
+                continue;
+            }
+
+            UUID reversalId = UUID.randomUUID();
+            reversals.add(new ReversalRow(
+                    new OperationRow(reversalId, "reversal:" + id, original.getReferenceType(), original.getReferenceId(), now),
+                    id
+            ));
+            for (LedgerEntry entry : entries) {
+                reversedEntries.add(new EntryRow(
+                        entry.getAccountId(),
+                        invert(entry.getEntryType()),
+                        entry.getAmount(),
+                        entry.getCurrency(),
+                        now,
+                        reversalId
+                ));
+            }
+            results.add(BulkReversalResult.reversed(id, reversalId, entries.size()));
+        }
+
+        // 4) Escritura en JDBC batch: operaciones de reversa + enlaces, saldos (balance_after) y asientos
+        ledgerBatchJdbcRepository.insertReversals(reversals);
+        ledgerBatchJdbcRepository.insertEntries(accountBalanceRepository.applyRows(reversedEntries));
+        accountBalanceRepository.updateLastEntryIdsOfOperations(reversals.stream().map(r -> r.operation().id()).toList());
+        accountBalanceCache.invalidateAfterCommit(reversedEntries.stream().map(EntryRow::accountId).toList());
+
+        idempotencyKeyFilter.addAfterCommit(reversals.stream().map(r -> r.operation().idempotencyKey()).toList());
+        return results;
+    }
+
+    private static EntryType invert(EntryType entryType) {
+        return switch (entryType) {
+            case DEBIT -> EntryType.CREDIT;
+            case CREDIT -> EntryType.DEBIT;
+        };
+    }
+}
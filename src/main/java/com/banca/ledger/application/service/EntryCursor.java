@@ -0,0 +1,36 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.LedgerEntryResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Posición del listado por cursor (UC-3C): el último asiento devuelto, (createdAt, id).
+ * Viaja opaco al cliente (base64url); el cliente no debe interpretarlo ni construirlo.
+ */
+record EntryCursor(Instant createdAt, long id) {
+
+    static EntryCursor of(LedgerEntryResponse entry) {
+        return new EntryCursor(entry.getCreatedAt(), entry.getId());
+    }
+
+    String encode() {
+        String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static EntryCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 3) throw new IllegalArgumentException("cursor inválido");
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new EntryCursor(createdAt, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            // NumberFormatException y errores de base64 son IllegalArgumentException
+            throw new IllegalArgumentException("cursor inválido");
+        }
+    }
+}
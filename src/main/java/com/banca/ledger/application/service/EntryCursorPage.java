@@ -0,0 +1,8 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.LedgerEntryResponse;
+
+import java.util.List;
+
+// Una página del listado por cursor; nextCursor == null => no hay más asientos
+public record EntryCursorPage(List<LedgerEntryResponse> entries, String nextCursor) {}
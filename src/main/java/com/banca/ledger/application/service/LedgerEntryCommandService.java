@@ -2,39 +2,64 @@ package com.banca.ledger.application.service;
 
 import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
 import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.MovementLegRequest;
 import com.banca.ledger.api.mapper.CompositeMovementAssembler;
 import com.banca.ledger.application.exception.ConflictException;
 import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
+import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.OperationRow;
 import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class LedgerEntryCommandService {
 
+    static final int MAX_BATCH_SIZE = 1000;
+    // = hibernate.jdbc.batch_size: todas las patas de un movimiento salen en un solo batch
+    static final int MAX_LEGS = 50;
+
     private final LedgerEntryRepository ledgerEntryRepository;
     private final LedgerOperationRepository ledgerOperationRepository;
     private final CompositeMovementAssembler compositeMovementAssembler;
+    private final LedgerBatchJdbcRepository ledgerBatchJdbcRepository;
+    private final IdempotencyKeyFilter idempotencyKeyFilter;
+    private final AccountBalanceJdbcRepository accountBalanceRepository;
+    private final AccountBalanceCache accountBalanceCache;
 
     public LedgerEntryCommandService(
             LedgerEntryRepository ledgerEntryRepository,
             LedgerOperationRepository ledgerOperationRepository,
-            CompositeMovementAssembler compositeMovementAssembler
+            CompositeMovementAssembler compositeMovementAssembler,
+            LedgerBatchJdbcRepository ledgerBatchJdbcRepository,
+            IdempotencyKeyFilter idempotencyKeyFilter,
+            AccountBalanceJdbcRepository accountBalanceRepository,
+            AccountBalanceCache accountBalanceCache
     ) {
         this.ledgerEntryRepository = ledgerEntryRepository;
         this.ledgerOperationRepository = ledgerOperationRepository;
         this.compositeMovementAssembler = compositeMovementAssembler;
+        this.ledgerBatchJdbcRepository = ledgerBatchJdbcRepository;
+        this.idempotencyKeyFilter = idempotencyKeyFilter;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.accountBalanceCache = accountBalanceCache;
     }
 
     // ===============================
@@ -42,16 +67,25 @@ public class LedgerEntryCommandService {
     // ===============================
     @Transactional
     public LedgerEntry createEntry(CreateLedgerEntryRequest request) {
+        return doCreateEntry(request);
+    }
+
+    private LedgerEntry doCreateEntry(CreateLedgerEntryRequest request) {
         validateCreateEntryRequest(request);
 
-        LedgerOperation operation = getOrCreateOperation(
+        ResolvedOperation resolved = getOrCreateOperation(
+                UUID.randomUUID(),
                 request.getIdempotencyKey(),
                 request.getReferenceType(),
                 request.getReferenceId()
         );
+        LedgerOperation operation = resolved.operation();
 
         // UC-1: una operación debe tener EXACTAMENTE 1 entry
-        List<LedgerEntry> existingEntries = ledgerEntryRepository.findByOperationId(operation.getId());
+        // (si la operación la acabamos de insertar no puede tener entries: evitamos la consulta)
+        List<LedgerEntry> existingEntries = resolved.created()
+                ? List.of()
+                : ledgerEntryRepository.findByOperationId(operation.getId());
 
         if (existingEntries.size() > 1) {
             throw new IllegalStateException(
@@ -74,7 +108,150 @@ public class LedgerEntryCommandService {
                 operation
         );
 
-        return ledgerEntryRepository.save(newEntry);
+        accountBalanceRepository.applyEntries(List.of(newEntry));
+        LedgerEntry saved = ledgerEntryRepository.save(newEntry);
+        accountBalanceRepository.updateLastEntryIds(List.of(saved));
+        accountBalanceCache.invalidateAfterCommit(List.of(saved.getAccountId()));
+        return saved;
+    }
+
+    // ===============================
+    // UC-1B: Crear asientos en lote (N requests de UC-1 en una sola transacción)
+    // ===============================
+    /**
+     * Versión masiva de UC-1 para procesos de liquidación:
+     * - resuelve en UNA consulta solo las idempotencyKeys que el Bloom filter no descarta
+     * - inserta operaciones y entries nuevas con JDBC batch
+     * - recupera los asientos resultantes en UNA consulta
+     * Devuelve un resultado por elemento (CREATED / REPLAYED / CONFLICT) en el orden del request;
+     * un conflicto de idempotencia en un elemento no aborta el resto del lote.
+     */
+    @Transactional
+    public List<BatchEntryResult> createEntries(List<CreateLedgerEntryRequest> requests) {
+        validateBatchRequest(requests);
+
+        Set<String> keys = requests.stream()
+                .map(CreateLedgerEntryRequest::getIdempotencyKey)
+                .collect(Collectors.toSet());
+        // Keys que el filtro marca como definitivamente nuevas no se consultan (el ON CONFLICT cubre otros pods)
+        List<String> keysToLookUp = keys.stream().filter(idempotencyKeyFilter::mightContain).toList();
+        Map<String, LedgerOperation> existingByKey = keysToLookUp.isEmpty()
+                ? Map.of()
+                : ledgerOperationRepository.findByIdempotencyKeyIn(keysToLookUp).stream()
+                        .collect(Collectors.toMap(LedgerOperation::getIdempotencyKey, Function.identity()));
+        idempotencyKeyFilter.recordFalsePositives(keysToLookUp.size() - existingByKey.size());
+
+        int size = requests.size();
+        BatchEntryResult[] results = new BatchEntryResult[size];
+        UUID[] operationIds = new UUID[size];
+        boolean[] creators = new boolean[size];
+
+        // 1) Clasificación en memoria: qué se crea, qué es reintento y qué choca
+        Map<String, OperationRow> newOpsByKey = new LinkedHashMap<>();
+        Map<UUID, EntryRow> newEntriesByOpId = new LinkedHashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            CreateLedgerEntryRequest request = requests.get(i);
+            String key = request.getIdempotencyKey();
+
+            LedgerOperation existing = existingByKey.get(key);
+            OperationRow claimed = newOpsByKey.get(key);
+
+            if (existing != null) {
+                classifyReplay(i, request, existing.getId(), existing.getReferenceType(),
+                        existing.getReferenceId(), results, operationIds);
+            } else if (claimed != null) {
+                // Misma key repetida dentro del lote: la primera aparición crea, las demás son reintentos
+                classifyReplay(i, request, claimed.id(), claimed.referenceType(),
+                        claimed.referenceId(), results, operationIds);
+            } else {
+                Instant now = Instant.now();
+                OperationRow op = new OperationRow(
+                        UUID.randomUUID(), key, request.getReferenceType(), request.getReferenceId(), now);
+                newOpsByKey.put(key, op);
+                newEntriesByOpId.put(op.id(), new EntryRow(
+                        request.getAccountId(),
+                        request.getEntryType(),
+                        request.getAmount(),
+                        request.getCurrency(),
+                        now,
+                        op.id()
+                ));
+                operationIds[i] = op.id();
+                creators[i] = true;
+            }
+        }
+
+        // 2) Insert batch de operaciones (ON CONFLICT DO NOTHING por si otra transacción ganó la carrera)
+        List<OperationRow> newOps = new ArrayList<>(newOpsByKey.values());
+        Set<UUID> insertedOpIds = ledgerBatchJdbcRepository.insertOperationsSkippingExisting(newOps);
+
+        List<String> lostKeys = newOps.stream()
+                .filter(op -> !insertedOpIds.contains(op.id()))
+                .map(OperationRow::idempotencyKey)
+                .toList();
+
+        if (!lostKeys.isEmpty()) {
+            Map<String, LedgerOperation> winnersByKey = ledgerOperationRepository.findByIdempotencyKeyIn(lostKeys).stream()
+                    .collect(Collectors.toMap(LedgerOperation::getIdempotencyKey, Function.identity()));
+
+            for (int i = 0; i < size; i++) {
+                if (operationIds[i] == null || insertedOpIds.contains(operationIds[i])
+                        || !newEntriesByOpId.containsKey(operationIds[i])) {
+                    continue;
+                }
+                CreateLedgerEntryRequest request = requests.get(i);
+                LedgerOperation winner = winnersByKey.get(request.getIdempotencyKey());
+                if (winner == null) {
+                    throw new IllegalStateException(
+                            "No se pudo recuperar la operación tras conflicto de idempotencia: " + request.getIdempotencyKey());
+                }
+                creators[i] = false;
+                operationIds[i] = null;
+                classifyReplay(i, request, winner.getId(), winner.getReferenceType(),
+                        winner.getReferenceId(), results, operationIds);
+            }
+            newEntriesByOpId.keySet().retainAll(insertedOpIds);
+        }
+
+        // 3) Saldos (con balance_after de cada entry) e insert batch de entries
+        //    (solo de las operaciones que insertamos nosotros)
+        List<EntryRow> newEntries = accountBalanceRepository.applyRows(new ArrayList<>(newEntriesByOpId.values()));
+        ledgerBatchJdbcRepository.insertEntries(newEntries);
+        accountBalanceRepository.updateLastEntryIdsOfOperations(new ArrayList<>(newEntriesByOpId.keySet()));
+        accountBalanceCache.invalidateAfterCommit(newEntries.stream().map(EntryRow::accountId).toList());
+
+        // 4) Recuperar en UNA consulta los asientos de todo el lote (nuevos y reintentos)
+        Set<UUID> resolvedOpIds = Arrays.stream(operationIds)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<UUID, List<LedgerEntry>> entriesByOpId = resolvedOpIds.isEmpty()
+                ? Map.of()
+                : ledgerEntryRepository.findByOperationIdIn(resolvedOpIds).stream()
+                        .collect(Collectors.groupingBy(e -> e.getOperation().getId()));
+
+        List<BatchEntryResult> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (results[i] == null) {
+                String key = requests.get(i).getIdempotencyKey();
+                List<LedgerEntry> entries = entriesByOpId.getOrDefault(operationIds[i], List.of());
+
+                // UC-1: una operación debe tener EXACTAMENTE 1 entry
+                if (entries.size() != 1) {
+                    results[i] = BatchEntryResult.conflict(i, key,
+                            "Inconsistencia: operación " + operationIds[i] + " tiene " + entries.size() +
+                                    " entries, se esperaba exactamente 1");
+                } else if (creators[i]) {
+                    results[i] = BatchEntryResult.created(i, key, entries.get(0));
+                } else {
+                    results[i] = BatchEntryResult.replayed(i, key, entries.get(0));
+                }
+            }
+            out.add(results[i]);
+        }
+
+        idempotencyKeyFilter.addAfterCommit(keys);
+        return out;
     }
 
     // ===============================
@@ -82,24 +259,24 @@ public class LedgerEntryCommandService {
     // ===============================
     @Transactional
     public OperationEntries recordCompositeMovement(CreateCompositeLedgerMovementRequest request) {
+        return doRecordCompositeMovement(request, UUID.randomUUID());
+    }
+
+    private OperationEntries doRecordCompositeMovement(CreateCompositeLedgerMovementRequest request, UUID operationId) {
         validateCompositeRequest(request);
 
-        LedgerOperation operation = getOrCreateOperation(
+        ResolvedOperation resolved = getOrCreateOperation(
+                operationId,
                 request.getIdempotencyKey(),
                 request.getReferenceType(),
                 request.getReferenceId()
         );
+        LedgerOperation operation = resolved.operation();
 
         // Idempotencia: si ya existe por key, devolvemos lo existente (esperamos 2 entries)
-        List<LedgerEntry> existingEntries = ledgerEntryRepository.findByOperationId(operation.getId());
-        if (!existingEntries.isEmpty()) {
-            if (existingEntries.size() != 2) {
-                throw new IllegalStateException(
-                        "Inconsistencia: operación " + operation.getId() + " tiene " +
-                                existingEntries.size() + " entradas, se esperaban 2"
-                );
-            }
-            return new OperationEntries(operation, existingEntries);
+        Optional<OperationEntries> replay = findReplay(resolved, 2);
+        if (replay.isPresent()) {
+            return replay.get();
         }
 
         // Creamos y guardamos las 2 entries (DEBIT + CREDIT)
@@ -109,34 +286,125 @@ public class LedgerEntryCommandService {
             throw new IllegalStateException("El compositeMovementAssembler debe generar exactamente 2 entradas");
         }
 
+        accountBalanceRepository.applyEntries(newEntries);
         List<LedgerEntry> saved = ledgerEntryRepository.saveAll(newEntries);
+        accountBalanceRepository.updateLastEntryIds(saved);
+        accountBalanceCache.invalidateAfterCommit(accountIdsOf(saved));
         return new OperationEntries(operation, saved);
     }
 
+    // ===============================
+    // UC-2M: Movimiento de N patas (una operación, cuadre por moneda)
+    // ===============================
+    /**
+     * Generalización de UC-2: comisiones, impuestos o dispersiones en UNA operación y UNA transacción.
+     * El cuadre (Σ DEBIT == Σ CREDIT por moneda) se valida en memoria antes de tocar la BD;
+     * las patas se guardan con un único saveAll (un batch JDBC, ver MAX_LEGS).
+     */
+    @Transactional
+    public OperationEntries recordMultiLegMovement(CreateMultiLegMovementRequest request) {
+        return doRecordMultiLegMovement(request);
+    }
+
+    private OperationEntries doRecordMultiLegMovement(CreateMultiLegMovementRequest request) {
+        validateMultiLegRequest(request);
+
+        ResolvedOperation resolved = getOrCreateOperation(
+                UUID.randomUUID(),
+                request.getIdempotencyKey(),
+                request.getReferenceType(),
+                request.getReferenceId()
+        );
+
+        // Idempotencia: el replay debe tener tantas entries como patas trae el request
+        Optional<OperationEntries> replay = findReplay(resolved, request.getLegs().size());
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+
+        List<LedgerEntry> newEntries = compositeMovementAssembler.toLegEntries(request, resolved.operation());
+        accountBalanceRepository.applyEntries(newEntries);
+        List<LedgerEntry> saved = ledgerEntryRepository.saveAll(newEntries);
+        accountBalanceRepository.updateLastEntryIds(saved);
+        accountBalanceCache.invalidateAfterCommit(accountIdsOf(saved));
+        return new OperationEntries(resolved.operation(), saved);
+    }
+
+    // ===============================
+    // UC-1 / UC-2 / UC-2M dentro de la transacción de un grupo (group commit, lotes del modo asíncrono)
+    // ===============================
+    /*
+    Participan en la transacción abierta por el llamador, que escribe varios requests juntos (sin savepoints:
+    JpaTransactionManager no los soporta). Es seguro porque cada caso de uso detecta sus errores de cliente
+    (validación => IllegalArgumentException, idempotencyKey con otra referencia => ConflictException)
+    ANTES de escribir nada del request: el que falla no deja filas, entidades modificadas ni invalidaciones
+    de saldo en la transacción compartida.
+    - noRollbackFor: esos dos errores no marcan rollback-only la transacción del grupo
+    - cualquier otra excepción sí la marca: el llamador revierte el grupo y reintenta request por request
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = {IllegalArgumentException.class, ConflictException.class})
+    public LedgerEntry createEntryInGroup(CreateLedgerEntryRequest request) {
+        return doCreateEntry(request);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = {IllegalArgumentException.class, ConflictException.class})
+    public OperationEntries recordCompositeMovementInGroup(CreateCompositeLedgerMovementRequest request) {
+        return doRecordCompositeMovement(request, UUID.randomUUID());
+    }
+
+    /**
+     * UC-2 con el operationId ya asignado (modo asíncrono: se devolvió en el 202 antes de contabilizar).
+     * Si la idempotencyKey ya estaba contabilizada se devuelve la operación existente (con SU id).
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = {IllegalArgumentException.class, ConflictException.class})
+    public OperationEntries recordCompositeMovementInGroup(CreateCompositeLedgerMovementRequest request, UUID operationId) {
+        return doRecordCompositeMovement(request, operationId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = {IllegalArgumentException.class, ConflictException.class})
+    public OperationEntries recordMultiLegMovementInGroup(CreateMultiLegMovementRequest request) {
+        return doRecordMultiLegMovement(request);
+    }
+
+    // ===============================
+    // UC-8: Reversar una operación (idempotente)
+    // ===============================
+    /**
+     * La original se lee bloqueada (FOR UPDATE) y trae su enlace reversed_by:
+     * - ya reversada => se devuelve la reversa existente (un reintento nunca choca con la unique de la key)
+     * - si no, se crea la reversa enlazada en ambos sentidos dentro de la misma transacción
+     */
     @Transactional
     public OperationEntries reverseOperation(UUID operationId) {
         if (operationId == null) {
             throw new IllegalArgumentException("operationId no puede ser null");
         }
 
-        LedgerOperation originalOp = ledgerOperationRepository.findById(operationId)
+        LedgerOperation originalOp = ledgerOperationRepository.findByIdForUpdate(operationId)
                 .orElseThrow(() -> new NotFoundException("Operación no encontrada: " + operationId));
 
+        if (originalOp.getReversedByOperationId() != null) {
+            UUID reversalId = originalOp.getReversedByOperationId();
+            LedgerOperation existingReversal = ledgerOperationRepository.findById(reversalId)
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Inconsistencia: la reversa " + reversalId + " de la operación " + operationId + " no existe"));
+            return new OperationEntries(existingReversal, ledgerEntryRepository.findByOperationId(reversalId));
+        }
+
         List<LedgerEntry> originalEntries = ledgerEntryRepository.findByOperationId(originalOp.getId());
         if (originalEntries == null || originalEntries.isEmpty()) {
             throw new IllegalStateException("No se encontraron asientos para la operación: " + operationId);
         }
 
-        // 1) Crear una NUEVA operación para la reversión (no reutilizar la original)
-        // Aquí puedes definir un referenceType específico tipo REVERSAL si lo agregas a tu enum.
-        // Si no lo tienes aún, puedes reutilizar el mismo referenceType y referenceId con un sufijo.
-        LedgerOperation reversalOp = ledgerOperationRepository.save(
-                new LedgerOperation(
-                        "reversal:" + originalOp.getId(),   // idempotencyKey mínimo (mejorable)
-                        originalOp.getReferenceType(),
-                        originalOp.getReferenceId()
-                )
+        // 1) Crear una NUEVA operación para la reversión, con la referencia de la original y enlazada a ella
+        LedgerOperation newReversal = new LedgerOperation(
+                "reversal:" + originalOp.getId(),   // la unique de la key sigue protegiendo ante datos sin enlace
+                originalOp.getReferenceType(),
+                originalOp.getReferenceId()
         );
+        newReversal.markAsReversalOf(originalOp.getId());
+        LedgerOperation reversalOp = ledgerOperationRepository.save(newReversal);
+        originalOp.markReversedBy(reversalOp.getId()); // UPDATE al flush, la original sigue bloqueada
 
         // 2) Generar entries inversos
         List<LedgerEntry> reversedEntries = new ArrayList<>();
@@ -164,49 +432,106 @@ public class LedgerEntryCommandService {
             throw new IllegalStateException("No se pudieron crear asientos inversos para: " + operationId);
         }
 
-        // 3) Guardar en batch
+        // 3) Saldos y guardado en batch
+        accountBalanceRepository.applyEntries(reversedEntries);
         List<LedgerEntry> saved = ledgerEntryRepository.saveAll(reversedEntries);
+        accountBalanceRepository.updateLastEntryIds(saved);
+        accountBalanceCache.invalidateAfterCommit(accountIdsOf(saved));
+        idempotencyKeyFilter.addAfterCommit(reversalOp.getIdempotencyKey());
 
         return new OperationEntries(reversalOp, saved);
     }
 
 
 
+    private static List<Long> accountIdsOf(List<LedgerEntry> entries) {
+        return entries.stream().map(LedgerEntry::getAccountId).toList();
+    }
+
     /**
-     * Idempotencia robusta:
-     * - find por idempotencyKey
-     * - si no existe, intentamos insert
-     * - si hay carrera, DataIntegrityViolationException y volvemos a find
+     * Idempotencia robusta en una sola ida a BD:
+     * - INSERT ... ON CONFLICT (idempotency_key) DO NOTHING RETURNING, o la fila existente si ya estaba
+     * - sin DataIntegrityViolationException => la sesión de Hibernate no queda inválida bajo contención
+     * - solo si la fila ganadora se confirmó después del snapshot del statement, un find adicional la recupera
      * - si existe, validamos que referenceType/referenceId coincidan
      */
-    private LedgerOperation getOrCreateOperation(String idempotencyKey, ReferenceType referenceType, String referenceId) {
-        return ledgerOperationRepository.findByIdempotencyKey(idempotencyKey)
-                .map(op -> ensureSameReference(op, referenceType, referenceId))
-                .orElseGet(() -> {
-                    try {
-                        return ledgerOperationRepository.save(
-                                new LedgerOperation(idempotencyKey, referenceType, referenceId)
-                        );
-                    } catch (DataIntegrityViolationException e) {
-                        LedgerOperation op = ledgerOperationRepository.findByIdempotencyKey(idempotencyKey)
-                                .orElseThrow(() -> new IllegalStateException(
-                                        "No se pudo recuperar la operación tras conflicto de idempotencia", e));
-                        return ensureSameReference(op, referenceType, referenceId);
-                    }
-                });
+    private ResolvedOperation getOrCreateOperation(
+            UUID candidateId, String idempotencyKey, ReferenceType referenceType, String referenceId
+    ) {
+        LedgerOperation op = ledgerOperationRepository.insertIfAbsent(
+                        candidateId, idempotencyKey, referenceType.name(), referenceId, Instant.now())
+                .or(() -> ledgerOperationRepository.findByIdempotencyKey(idempotencyKey))
+                .orElseThrow(() -> new IllegalStateException(
+                        "No se pudo recuperar la operación tras conflicto de idempotencia"));
+        idempotencyKeyFilter.addAfterCommit(idempotencyKey);
+
+        return new ResolvedOperation(ensureSameReference(op, referenceType, referenceId), candidateId.equals(op.getId()));
+    }
+
+    // created = true si la fila la insertó ESTA llamada (no puede tener entries todavía)
+    private record ResolvedOperation(LedgerOperation operation, boolean created) {}
+
+    /**
+     * Replay de UC-2 / UC-2M: vacío si la operación no tiene entries todavía (hay que crearlas);
+     * si las tiene, deben ser exactamente expectedEntries (una por pata). Otra cantidad = la key se
+     * reutilizó con otro movimiento => 409, como ensureSameReference.
+     */
+    private Optional<OperationEntries> findReplay(ResolvedOperation resolved, int expectedEntries) {
+        // Si la operación la acabamos de insertar no puede tener entries: evitamos la consulta
+        if (resolved.created()) return Optional.empty();
+
+        LedgerOperation operation = resolved.operation();
+        List<LedgerEntry> existingEntries = ledgerEntryRepository.findByOperationId(operation.getId());
+        if (existingEntries.isEmpty()) return Optional.empty();
+
+        if (existingEntries.size() != expectedEntries) {
+            throw new ConflictException(
+                    "Conflicto de idempotencia: la idempotencyKey ya existe con otro movimiento. " +
+                            "La operación " + operation.getId() + " tiene " + existingEntries.size() +
+                            " entradas y el request trae " + expectedEntries
+            );
+        }
+        return Optional.of(new OperationEntries(operation, existingEntries));
     }
 
     private LedgerOperation ensureSameReference(LedgerOperation op, ReferenceType referenceType, String referenceId) {
         if (op.getReferenceType() != referenceType || !Objects.equals(op.getReferenceId(), referenceId)) {
             throw new ConflictException(
-                    "Conflicto de idempotencia: la idempotencyKey ya existe pero con otra referencia. " +
-                            "Existente: (" + op.getReferenceType() + ", " + op.getReferenceId() + ") " +
-                            "Nueva: (" + referenceType + ", " + referenceId + ")"
+                    idempotencyConflictMessage(op.getReferenceType(), op.getReferenceId(), referenceType, referenceId)
             );
         }
         return op;
     }
 
+    static String idempotencyConflictMessage(
+            ReferenceType existingType, String existingId, ReferenceType referenceType, String referenceId
+    ) {
+        return "Conflicto de idempotencia: la idempotencyKey ya existe pero con otra referencia. " +
+                "Existente: (" + existingType + ", " + existingId + ") " +
+                "Nueva: (" + referenceType + ", " + referenceId + ")";
+    }
+
+    /**
+     * Equivalente en lote de ensureSameReference: en vez de lanzar ConflictException
+     * deja el conflicto registrado en results[i] para no abortar el resto del lote.
+     */
+    private void classifyReplay(
+            int i,
+            CreateLedgerEntryRequest request,
+            UUID existingOpId,
+            ReferenceType existingType,
+            String existingRefId,
+            BatchEntryResult[] results,
+            UUID[] operationIds
+    ) {
+        if (existingType != request.getReferenceType() || !Objects.equals(existingRefId, request.getReferenceId())) {
+            results[i] = BatchEntryResult.conflict(i, request.getIdempotencyKey(), idempotencyConflictMessage(
+                    existingType, existingRefId, request.getReferenceType(), request.getReferenceId()));
+            return;
+        }
+        operationIds[i] = existingOpId;
+    }
+
     private void validateCreateEntryRequest(CreateLedgerEntryRequest request) {
         if (request == null) throw new IllegalArgumentException("El request no puede ser null");
         if (request.getAccountId() == null) throw new IllegalArgumentException("accountId es obligatorio");
@@ -221,6 +546,20 @@ public class LedgerEntryCommandService {
             throw new IllegalArgumentException("idempotencyKey es obligatorio");
     }
 
+    private void validateBatchRequest(List<CreateLedgerEntryRequest> requests) {
+        if (requests == null || requests.isEmpty()) throw new IllegalArgumentException("El lote no puede ser vacío");
+        if (requests.size() > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("El lote admite como máximo " + MAX_BATCH_SIZE + " elementos");
+
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validateCreateEntryRequest(requests.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("entries[" + i + "]: " + e.getMessage(), e);
+            }
+        }
+    }
+
     private void validateCompositeRequest(CreateCompositeLedgerMovementRequest request) {
         if (request == null) throw new IllegalArgumentException("El request no puede ser null");
 
@@ -239,4 +578,40 @@ public class LedgerEntryCommandService {
         if (request.getIdempotencyKey() == null || request.getIdempotencyKey().isBlank())
             throw new IllegalArgumentException("idempotencyKey es obligatorio");
     }
+
+    private void validateMultiLegRequest(CreateMultiLegMovementRequest request) {
+        if (request == null) throw new IllegalArgumentException("El request no puede ser null");
+        if (request.getReferenceType() == null) throw new IllegalArgumentException("referenceType es obligatorio");
+        if (request.getReferenceId() == null || request.getReferenceId().isBlank())
+            throw new IllegalArgumentException("referenceId es obligatorio");
+        if (request.getIdempotencyKey() == null || request.getIdempotencyKey().isBlank())
+            throw new IllegalArgumentException("idempotencyKey es obligatorio");
+
+        List<MovementLegRequest> legs = request.getLegs();
+        if (legs == null || legs.size() < 2)
+            throw new IllegalArgumentException("El movimiento debe tener al menos 2 patas");
+        if (legs.size() > MAX_LEGS)
+            throw new IllegalArgumentException("El movimiento admite como máximo " + MAX_LEGS + " patas");
+
+        // Cuadre por moneda en memoria: DEBIT suma, CREDIT resta
+        Map<Currency, BigDecimal> net = new EnumMap<>(Currency.class);
+        for (int i = 0; i < legs.size(); i++) {
+            MovementLegRequest leg = legs.get(i);
+            if (leg == null) throw new IllegalArgumentException("legs[" + i + "]: no puede ser null");
+            if (leg.getAccountId() == null) throw new IllegalArgumentException("legs[" + i + "]: accountId es obligatorio");
+            if (leg.getEntryType() == null) throw new IllegalArgumentException("legs[" + i + "]: entryType es obligatorio");
+            if (leg.getAmount() == null || leg.getAmount().signum() <= 0)
+                throw new IllegalArgumentException("legs[" + i + "]: amount debe ser mayor a 0");
+            if (leg.getCurrency() == null) throw new IllegalArgumentException("legs[" + i + "]: currency es obligatorio");
+
+            BigDecimal signed = leg.getEntryType() == EntryType.DEBIT ? leg.getAmount() : leg.getAmount().negate();
+            net.merge(leg.getCurrency(), signed, BigDecimal::add);
+        }
+        net.forEach((currency, difference) -> {
+            if (difference.signum() != 0) {
+                throw new IllegalArgumentException("El movimiento no cuadra en " + currency
+                        + ": débitos - créditos = " + difference.toPlainString());
+            }
+        });
+    }
 }
@@ -0,0 +1,159 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.domain.enums.ExportFormat;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryExportJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryExportJdbcRepository.ExportRow;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UC-3E: exportación del historial completo de una cuenta (conciliación) en CSV o NDJSON.
+ *
+ * Cada asiento se escribe en la respuesta apenas llega del cursor de BD (fetchSize filas por ida):
+ * ni la lista de asientos ni el documento completo existen en memoria, sea el historial de 1K o de 100M filas.
+ * La transacción de solo lectura dura lo que dura la descarga (el cursor de pgjdbc la necesita).
+ */
+@Service
+public class LedgerEntryExportService {
+
+    static final String CSV_HEADER =
+            "id,operationId,accountId,entryType,amount,currency,referenceType,referenceId,createdAt,balanceAfter";
+
+    private final LedgerEntryExportJdbcRepository exportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public LedgerEntryExportService(
+            LedgerEntryExportJdbcRepository exportRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.export.fetch-size:1000}") int fetchSize
+    ) {
+        if (fetchSize <= 0) throw new IllegalArgumentException("ledger.export.fetch-size debe ser mayor a 0");
+
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    public void validate(Long accountId, ExportFormat format) {
+        if (accountId == null || accountId <= 0) throw new IllegalArgumentException("accountId inválido");
+        if (format == null) throw new IllegalArgumentException("format es requerido");
+    }
+
+    // Devuelve la cantidad de asientos exportados. No cierra el stream (es de quien lo abrió)
+    public long exportAccount(Long accountId, ExportFormat format, OutputStream out) {
+        validate(accountId, format);
+
+        try {
+            return switch (format) {
+                case CSV -> exportCsv(accountId, out);
+                case NDJSON -> exportNdjson(accountId, out);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long exportCsv(long accountId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long rows = streamRows(accountId, row -> {
+            writer.write(Long.toString(row.id()));
+            writer.write(',');
+            writer.write(row.operationId().toString());
+            writer.write(',');
+            writer.write(Long.toString(row.accountId()));
+            writer.write(',');
+            writer.write(row.entryType());
+            writer.write(',');
+            writer.write(row.amount().toPlainString());
+            writer.write(',');
+            writer.write(row.currency());
+            writer.write(',');
+            writer.write(row.referenceType());
+            writer.write(',');
+            writeCsvField(writer, row.referenceId());
+            writer.write(',');
+            writer.write(row.createdAt().toString());
+            writer.write(',');
+            if (row.balanceAfter() != null) writer.write(row.balanceAfter().toPlainString());
+            writer.write('\n');
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long exportNdjson(long accountId, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // Una línea por asiento: sin array envolvente ni separador entre objetos
+        json.setRootValueSeparator(null);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long rows = streamRows(accountId, row -> {
+            json.writeStartObject();
+            json.writeNumberField("id", row.id());
+            json.writeStringField("operationId", row.operationId().toString());
+            json.writeNumberField("accountId", row.accountId());
+            json.writeStringField("entryType", row.entryType());
+            json.writeNumberField("amount", row.amount());
+            json.writeStringField("currency", row.currency());
+            json.writeStringField("referenceType", row.referenceType());
+            json.writeStringField("referenceId", row.referenceId());
+            json.writeStringField("createdAt", row.createdAt().toString());
+            if (row.balanceAfter() != null) json.writeNumberField("balanceAfter", row.balanceAfter());
+            json.writeEndObject();
+            json.writeRaw('\n');
+        });
+        json.flush();
+        return rows;
+    }
+
+    private long streamRows(long accountId, RowWriter rowWriter) {
+        long[] rows = {0};
+        readOnlyTx.executeWithoutResult(status -> exportRepository.forEachEntryOfAccount(accountId, fetchSize, row -> {
+            try {
+                rowWriter.write(row);
+            } catch (IOException e) {
+                // Cliente desconectado u otro error de escritura: corta el cursor y cierra la transacción
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        }));
+        return rows[0];
+    }
+
+    // referenceId es texto libre: comillas si trae separadores
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ExportRow row) throws IOException;
+    }
+}
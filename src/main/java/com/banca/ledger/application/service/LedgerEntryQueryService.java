@@ -1,13 +1,21 @@
 package com.banca.ledger.application.service;
 
 import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.api.dto.LedgerEntryResponse;
 import com.banca.ledger.api.dto.OperationDetailResponse;
 import com.banca.ledger.application.exception.NotFoundException;
-import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.BalanceGranularity;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceAggregate;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository.AccountBalanceRow;
+import com.banca.ledger.infrastructure.persistence.BalanceSeriesJdbcRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -15,33 +23,78 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class LedgerEntryQueryService {
 
+    static final int MAX_ACCOUNTS_PER_BALANCE_LOOKUP = 100;
+    static final int MAX_SERIES_POINTS = 366;
+    static final int MAX_SERIES_DAYS = 3660;
+
     private final LedgerEntryRepository ledgerEntryRepository;
     private final LedgerOperationRepository ledgerOperationRepository;
+    private final AccountBalanceJdbcRepository accountBalanceRepository;
+    private final AccountBalanceCache accountBalanceCache;
+    private final BalanceSeriesJdbcRepository balanceSeriesRepository;
 
     public LedgerEntryQueryService(
             LedgerEntryRepository ledgerEntryRepository,
-            LedgerOperationRepository ledgerOperationRepository
+            LedgerOperationRepository ledgerOperationRepository,
+            AccountBalanceJdbcRepository accountBalanceRepository,
+            AccountBalanceCache accountBalanceCache,
+            BalanceSeriesJdbcRepository balanceSeriesRepository
     ) {
         this.ledgerEntryRepository = ledgerEntryRepository;
         this.ledgerOperationRepository = ledgerOperationRepository;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.accountBalanceCache = accountBalanceCache;
+        this.balanceSeriesRepository = balanceSeriesRepository;
     }
 
     // UC-3: Listar movimientos por cuenta (paginado)
     @Transactional(readOnly = true)
-    public Page<LedgerEntry> listEntries(Long accountId, int page, int size) {
+    public Page<LedgerEntryResponse> listEntries(Long accountId, int page, int size) {
         if (accountId == null || accountId <= 0) throw new IllegalArgumentException("accountId inválido");
         if (page < 0) throw new IllegalArgumentException("page no puede ser negativo");
         if (size <= 0 || size > 100) throw new IllegalArgumentException("size debe estar entre 1 y 100");
 
         Pageable pageable = PageRequest.of(page, size);
-        return ledgerEntryRepository.findByAccountIdOrderByCreatedAtDesc(accountId, pageable);
+        return ledgerEntryRepository.findResponsesByAccountId(accountId, pageable);
+    }
+
+    // UC-3C: Listar movimientos por cuenta con cursor (keyset sobre (createdAt, id), ver V10)
+    // cursor null o vacío => primera página. Se lee un asiento extra para saber si hay siguiente página
+    @Transactional(readOnly = true)
+    public EntryCursorPage listEntriesByCursor(Long accountId, String cursor, int size) {
+        if (accountId == null || accountId <= 0) throw new IllegalArgumentException("accountId inválido");
+        if (size <= 0 || size > 100) throw new IllegalArgumentException("size debe estar entre 1 y 100");
+
+        Limit limit = Limit.of(size + 1);
+        List<LedgerEntryResponse> entries;
+        if (cursor == null || cursor.isBlank()) {
+            entries = ledgerEntryRepository.findResponsesByAccountIdFirst(accountId, limit);
+        } else {
+            EntryCursor after = EntryCursor.decode(cursor);
+            entries = ledgerEntryRepository.findResponsesByAccountIdBefore(accountId, after.createdAt(), after.id(), limit);
+        }
+
+        if (entries.size() <= size) {
+            return new EntryCursorPage(entries, null);
+        }
+        List<LedgerEntryResponse> page = entries.subList(0, size);
+        return new EntryCursorPage(page, EntryCursor.of(page.get(size - 1)).encode());
     }
 
     // UC-4B: Obtener detalle por entryId
@@ -56,9 +109,9 @@ public class LedgerEntryQueryService {
     }
 
 
-    // UC-4A: Obtener detalle por operationId (DEVUELVE DOMINIO AGRUPADO)
+    // UC-4A: Obtener detalle por operationId (operación + asientos ya proyectados a la respuesta)
     @Transactional(readOnly = true)
-    public OperationEntries getOperationEntries(UUID operationId) {
+    public OperationEntriesView getOperationEntries(UUID operationId) {
         if (operationId == null) throw new IllegalArgumentException("operationId no puede ser null");
 
         LedgerOperation op = ledgerOperationRepository.findById(operationId)
@@ -66,7 +119,7 @@ public class LedgerEntryQueryService {
                         "Operación no encontrada para el id: " + operationId
                 ));
 
-        List<LedgerEntry> entries = ledgerEntryRepository.findByOperationId(op.getId());
+        List<LedgerEntryResponse> entries = ledgerEntryRepository.findResponsesByOperationId(op.getId());
 
         if (entries == null || entries.isEmpty()) {
             throw new IllegalStateException(
@@ -74,22 +127,55 @@ public class LedgerEntryQueryService {
             );
         }
 
-        return new OperationEntries(op, entries);
+        return new OperationEntriesView(op, entries);
     }
 
-    @Transactional(readOnly = true)
+    // UC-5: saldo actual = lectura de account_balances (se mantiene en cada contabilización, ver V6)
+    // Con varias monedas: suma de todas (como UC-6, la serie y el extracto) informada con la moneda del
+    // último movimiento (mayor last_posted_at, ver V11)
+    // Sin transacción: un hit de la caché no toma conexión; la carga es una sola consulta
     public AccountBalanceResponse getAccountBalance(Long accountId){
         if(accountId ==null || accountId <=0) throw new IllegalArgumentException("El account debe ser valido");
-        BigDecimal totalCredits = ledgerEntryRepository.sumAmountByAccountIdAndEntryType(accountId, EntryType.CREDIT);
-        BigDecimal totalDebits = ledgerEntryRepository.sumAmountByAccountIdAndEntryType(accountId, EntryType.DEBIT);
 
-        BigDecimal balance = (totalCredits == null ? BigDecimal.ZERO : totalCredits)
-                .subtract(totalDebits == null ? BigDecimal.ZERO : totalDebits);
-        LedgerEntry entry = ledgerEntryRepository.findFirstByAccountIdOrderByCreatedAtDesc(accountId).orElseThrow(()
-                -> new NotFoundException("No se encontraron asientos para la cuenta: " + accountId)
-        );
-        return new AccountBalanceResponse(accountId, entry.getCurrency(),balance);
+        return accountBalanceCache.get(accountId, this::loadAccountBalance);
+    }
+
+    // UC-5B: saldo actual de varias cuentas (dashboard): caché + UNA lectura de account_balances para el resto
+    // Las cuentas sin asientos no vienen en el mapa (el caller decide cómo informarlas)
+    public Map<Long, AccountBalanceResponse> getAccountBalances(List<Long> accountIds) {
+        if (accountIds == null || accountIds.isEmpty()) throw new IllegalArgumentException("accountIds no puede ser vacío");
+        if (accountIds.size() > MAX_ACCOUNTS_PER_BALANCE_LOOKUP) {
+            throw new IllegalArgumentException("accountIds admite como máximo " + MAX_ACCOUNTS_PER_BALANCE_LOOKUP + " elementos");
+        }
+        if (accountIds.stream().anyMatch(id -> id == null || id <= 0)) {
+            throw new IllegalArgumentException("accountId debe ser válido");
+        }
+
+        return accountBalanceCache.getAll(accountIds, this::loadAccountBalances);
+    }
+
+    private Map<Long, AccountBalanceResponse> loadAccountBalances(Set<Long> accountIds) {
+        // Filas agrupadas por cuenta, la del último movimiento primero (ver findByAccountIds)
+        Map<Long, List<AccountBalanceRow>> rowsByAccount = new LinkedHashMap<>();
+        for (AccountBalanceRow row : accountBalanceRepository.findByAccountIds(accountIds)) {
+            rowsByAccount.computeIfAbsent(row.accountId(), id -> new ArrayList<>()).add(row);
+        }
+        Map<Long, AccountBalanceResponse> out = new LinkedHashMap<>();
+        rowsByAccount.forEach((accountId, rows) -> out.put(accountId, toBalanceResponse(accountId, rows)));
+        return out;
+    }
+
+    private AccountBalanceResponse loadAccountBalance(long accountId) {
+        List<AccountBalanceRow> balances = accountBalanceRepository.findByAccountId(accountId);
+        if (balances.isEmpty()) {
+            throw new NotFoundException("No se encontraron asientos para la cuenta: " + accountId);
+        }
+        return toBalanceResponse(accountId, balances);
+    }
 
+    private static AccountBalanceResponse toBalanceResponse(Long accountId, List<AccountBalanceRow> rows) {
+        BigDecimal balance = rows.stream().map(AccountBalanceRow::balance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new AccountBalanceResponse(accountId, rows.get(0).currency(), balance);
     }
     @Transactional(readOnly = true)
     public AccountBalanceResponse getAccountBalanceUpToDate(Long accountId, Instant upToDate) {
@@ -100,25 +186,74 @@ public class LedgerEntryQueryService {
             throw new IllegalArgumentException("upToDate no puede ser null");
         }
 
-        BigDecimal totalCredits =
-                ledgerEntryRepository.sumAmountByAccountIdAndEntryTypeUpToDate(
-                        accountId, EntryType.CREDIT, upToDate
-                );
+        // Snapshot de cierre más cercano + asientos posteriores, en UNA consulta (ver V7 y V8)
+        AccountBalanceAggregate aggregate = ledgerEntryRepository.aggregateBalanceUpToDate(accountId, upToDate);
 
-        BigDecimal totalDebits =
-                ledgerEntryRepository.sumAmountByAccountIdAndEntryTypeUpToDate(
-                        accountId, EntryType.DEBIT, upToDate
-                );
+        // Si no existe ninguna entry hasta upToDate → balance 0 y currency null
+        if (aggregate == null || aggregate.getLatestCurrency() == null) {
+            return new AccountBalanceResponse(accountId, null, BigDecimal.ZERO);
+        }
+
+        return new AccountBalanceResponse(accountId, Currency.valueOf(aggregate.getLatestCurrency()), balanceOf(aggregate));
+    }
+
+    // UC-6S: serie de saldos de cierre (UTC) en [from, to]: saldo de apertura UNA vez (snapshot + cola, como UC-6)
+    // + variaciones diarias del rango en UNA consulta agrupada, acumuladas en memoria. Serie densa
+    @Transactional(readOnly = true)
+    public BalanceSeries getBalanceSeries(Long accountId, LocalDate from, LocalDate to, BalanceGranularity granularity) {
+        if (accountId == null || accountId <= 0) throw new IllegalArgumentException("accountId debe ser válido");
+        if (from == null || to == null) throw new IllegalArgumentException("from y to son requeridos");
+        if (granularity == null) throw new IllegalArgumentException("granularity es requerido");
+        if (from.isAfter(to)) throw new IllegalArgumentException("from no puede ser posterior a to");
+        if (ChronoUnit.DAYS.between(from, to) + 1 > MAX_SERIES_DAYS) {
+            throw new IllegalArgumentException("El rango admite como máximo " + MAX_SERIES_DAYS + " días");
+        }
+        if (countPeriods(from, to, granularity) > MAX_SERIES_POINTS) {
+            throw new IllegalArgumentException("La serie admite como máximo " + MAX_SERIES_POINTS + " puntos");
+        }
+
+        // Hasta el último instante anterior a from (created_at tiene precisión de microsegundos)
+        Instant beforeFrom = from.atStartOfDay(ZoneOffset.UTC).toInstant().minusNanos(1_000);
+        BigDecimal opening = balanceOf(ledgerEntryRepository.aggregateBalanceUpToDate(accountId, beforeFrom));
+        Map<LocalDate, BigDecimal> deltas = balanceSeriesRepository.findDailyDeltas(accountId, from, to);
+
+        List<BalanceSeries.Point> points = new ArrayList<>();
+        BigDecimal running = opening;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            running = running.add(deltas.getOrDefault(day, BigDecimal.ZERO));
+            if (day.equals(to) || day.equals(periodEnd(day, granularity))) {
+                points.add(new BalanceSeries.Point(day, running));
+            }
+        }
+        return new BalanceSeries(accountId, granularity, from, to, opening, points);
+    }
+
+    private static BigDecimal balanceOf(AccountBalanceAggregate aggregate) {
+        if (aggregate == null) return BigDecimal.ZERO;
 
-        BigDecimal balance = (totalCredits == null ? BigDecimal.ZERO : totalCredits)
+        BigDecimal snapshotBalance = aggregate.getSnapshotBalance();
+        BigDecimal totalCredits = aggregate.getCredits();
+        BigDecimal totalDebits = aggregate.getDebits();
+        return (snapshotBalance == null ? BigDecimal.ZERO : snapshotBalance)
+                .add(totalCredits == null ? BigDecimal.ZERO : totalCredits)
                 .subtract(totalDebits == null ? BigDecimal.ZERO : totalDebits);
+    }
+
+    // Último día del período que contiene a day (semanas ISO: lunes a domingo)
+    private static LocalDate periodEnd(LocalDate day, BalanceGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+            case MONTH -> day.with(TemporalAdjusters.lastDayOfMonth());
+        };
+    }
 
-        // Si existe al menos una entry hasta upToDate → tomamos su currency
-        // Si no existe ninguna → balance 0 y currency null
-        return ledgerEntryRepository
-                .findFirstByAccountIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(accountId, upToDate)
-                .map(entry -> new AccountBalanceResponse(accountId, entry.getCurrency(), balance))
-                .orElseGet(() -> new AccountBalanceResponse(accountId, null, BigDecimal.ZERO));
+    private static long countPeriods(LocalDate from, LocalDate to, BalanceGranularity granularity) {
+        long periods = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = periodEnd(day, granularity).plusDays(1)) {
+            periods++;
+        }
+        return periods;
     }
 
 
@@ -140,6 +275,35 @@ public class LedgerEntryQueryService {
 
     }
 
+    // UC-7B: todas las operaciones de una referencia de negocio (original y reversas), cada una con sus asientos
+    // Dos consultas en total: operaciones por (referenceType, referenceId) + asientos de todas ellas con IN
+    @Transactional(readOnly = true)
+    public List<OperationEntriesView> getOperationsByReference(ReferenceType referenceType, String referenceId) {
+        if (referenceType == null) throw new IllegalArgumentException("referenceType es requerido");
+        if (referenceId == null || referenceId.isBlank()) throw new IllegalArgumentException("referenceId no puede ser nulo o vacío");
+
+        List<LedgerOperation> operations =
+                ledgerOperationRepository.findByReferenceTypeAndReferenceIdOrderByCreatedAtAscIdAsc(referenceType, referenceId);
+        if (operations.isEmpty()) return List.of();
+
+        Map<UUID, List<LedgerEntryResponse>> entriesByOperation = new LinkedHashMap<>();
+        for (LedgerEntryResponse entry : ledgerEntryRepository.findResponsesByOperationIdIn(
+                operations.stream().map(LedgerOperation::getId).toList())) {
+            entriesByOperation.computeIfAbsent(entry.getOperationId(), id -> new ArrayList<>()).add(entry);
+        }
+
+        List<OperationEntriesView> result = new ArrayList<>(operations.size());
+        for (LedgerOperation operation : operations) {
+            List<LedgerEntryResponse> entries = entriesByOperation.get(operation.getId());
+            if (entries == null) {
+                throw new IllegalStateException("Inconsistencia: Operación " + operation.getId() +
+                        " no tiene entradas asociadas");
+            }
+            result.add(new OperationEntriesView(operation, entries));
+        }
+        return result;
+    }
+
     //
 
 }
@@ -0,0 +1,251 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.domain.model.LedgerEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Group commit opcional para UC-1 / UC-2 / UC-2M (ledger.group-commit.enabled=true).
+ *
+ * Las llamadas concurrentes se encolan durante una ventana corta (maxWait o maxBatchSize, lo que
+ * ocurra primero) y se escriben en UNA transacción => un solo flush de WAL por grupo.
+ *
+ * - Sin savepoints (JpaTransactionManager no soporta PROPAGATION_NESTED): cada request corre con las variantes
+ *   *InGroup del command service, que detectan sus errores de cliente (400 / 409) ANTES de escribir nada.
+ *   Ese error se le devuelve solo a SU caller; el resto del grupo sigue y confirma.
+ * - Los callers reciben su resultado recién cuando el grupo confirma (nunca ven datos sin commit).
+ * - Cualquier otro error (BD, inconsistencia, fallo del commit) revierte el grupo entero y cada request
+ *   se reintenta en su propia transacción (métrica ledger.group-commit.fallbacks).
+ * - Cola llena => el request se ejecuta directo (sin group commit) en vez de rechazarse.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ledger.group-commit.enabled", havingValue = "true")
+public class LedgerGroupCommitWriter {
+
+    private final LedgerEntryCommandService commandService;
+    private final TransactionTemplate groupTx;
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final Duration maxWait;
+    private final int maxBatchSize;
+    private final int writers;
+    private final List<Thread> writerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final DistributionSummary groupSize;
+    private final Counter fallbacks;
+    private final Counter queueFull;
+
+    public LedgerGroupCommitWriter(
+            LedgerEntryCommandService commandService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${ledger.group-commit.max-wait:2ms}") Duration maxWait,
+            @Value("${ledger.group-commit.max-batch-size:64}") int maxBatchSize,
+            @Value("${ledger.group-commit.queue-capacity:10000}") int queueCapacity,
+            @Value("${ledger.group-commit.writers:2}") int writers
+    ) {
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("ledger.group-commit.max-batch-size debe ser mayor a 0");
+        if (writers <= 0) throw new IllegalArgumentException("ledger.group-commit.writers debe ser mayor a 0");
+
+        this.commandService = commandService;
+        this.groupTx = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxWait = maxWait;
+        this.maxBatchSize = maxBatchSize;
+        this.writers = writers;
+
+        this.groupSize = DistributionSummary.builder("ledger.group-commit.group.size")
+                .description("Requests confirmados por transacción")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("ledger.group-commit.fallbacks")
+                .description("Grupos revertidos y reintentados request por request")
+                .register(meterRegistry);
+        this.queueFull = Counter.builder("ledger.group-commit.queue.full")
+                .description("Requests ejecutados sin group commit por cola llena")
+                .register(meterRegistry);
+        meterRegistry.gauge("ledger.group-commit.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < writers; i++) {
+            Thread t = new Thread(this::writeLoop, "ledger-group-commit-" + i);
+            t.setDaemon(true);
+            t.start();
+            writerThreads.add(t);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread t : writerThreads) {
+            t.interrupt();
+            t.join(5_000);
+        }
+        // Lo que quedó en cola se escribe request por request
+        List<PendingWrite<?>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(PendingWrite::runAlone);
+    }
+
+    // UC-1 agrupado
+    public LedgerEntry createEntry(CreateLedgerEntryRequest request) {
+        return submit(() -> commandService.createEntryInGroup(request), () -> commandService.createEntry(request));
+    }
+
+    // UC-2 agrupado
+    public OperationEntries recordCompositeMovement(CreateCompositeLedgerMovementRequest request) {
+        return submit(() -> commandService.recordCompositeMovementInGroup(request),
+                () -> commandService.recordCompositeMovement(request));
+    }
+
+    // UC-2M agrupado
+    public OperationEntries recordMultiLegMovement(CreateMultiLegMovementRequest request) {
+        return submit(() -> commandService.recordMultiLegMovementInGroup(request),
+                () -> commandService.recordMultiLegMovement(request));
+    }
+
+    private <T> T submit(Supplier<T> inGroup, Supplier<T> alone) {
+        PendingWrite<T> pending = new PendingWrite<>(inGroup, alone);
+        if (!running || !queue.offer(pending)) {
+            queueFull.increment();
+            return alone.get();
+        }
+        return pending.await();
+    }
+
+    private void writeLoop() {
+        List<PendingWrite<?>> group = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingWrite<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (group.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    PendingWrite<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    group.add(next);
+                }
+
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(PendingWrite::runAlone);
+                return;
+            } catch (RuntimeException | Error e) {
+                // Nunca dejamos callers colgados ni el hilo muerto
+                log.error("Error inesperado en group commit", e);
+                group.forEach(w -> w.failIfPending(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    void commitGroup(List<PendingWrite<?>> group) {
+        try {
+            groupTx.executeWithoutResult(status -> {
+                for (PendingWrite<?> write : group) {
+                    write.runInGroup();
+                    if (status.isRollbackOnly()) {
+                        // Algo dentro del request marcó la transacción: el grupo ya no puede confirmar
+                        throw new IllegalStateException("Transacción del grupo marcada rollback-only");
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // Los errores de cliente quedan en cada PendingWrite: lo que llega aquí revierte el grupo entero
+            fallbacks.increment();
+            log.warn("Group commit de {} requests revertido, reintentando uno por uno: {}", group.size(), e.getMessage());
+            group.forEach(PendingWrite::runAlone);
+            return;
+        }
+
+        groupSize.record(group.size());
+        group.forEach(PendingWrite::publish);
+    }
+
+    /**
+     * Un request encolado. El resultado (o el error de negocio) se guarda al ejecutarse
+     * y se publica al caller solo después del commit del grupo.
+     */
+    static final class PendingWrite<T> {
+
+        private final Supplier<T> inGroup;
+        private final Supplier<T> alone;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private RuntimeException failure;
+
+        PendingWrite(Supplier<T> inGroup, Supplier<T> alone) {
+            this.inGroup = inGroup;
+            this.alone = alone;
+        }
+
+        void runInGroup() {
+            result = null;
+            failure = null;
+            try {
+                result = inGroup.get();
+            } catch (IllegalArgumentException | ConflictException e) {
+                failure = e; // detectado antes de escribir: la transacción del grupo queda intacta
+            }
+        }
+
+        void publish() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        void runAlone() {
+            try {
+                future.complete(alone.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void failIfPending(Throwable e) {
+            future.completeExceptionally(e);
+        }
+
+        T await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error err) throw err;
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryExportJdbcRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * UC-6E: extracto de una cuenta para un período [from, to] arbitrario.
+ *
+ * - Saldo de apertura: UNA consulta de saldo histórico (snapshot + cola, UC-6) hasta el instante anterior a from.
+ * - Asientos del período: UN recorrido por rango con cursor de BD (fetchSize filas por ida), en orden (created_at, id);
+ *   cada asiento se escribe con su saldo corrido apenas llega, y los totales se acumulan en el camino.
+ * - Saldo de cierre y totales van al final del documento: la memoria no depende del largo del período.
+ * - Ambas lecturas en la misma transacción REPEATABLE READ: apertura y asientos ven la misma foto del ledger
+ *   (un asiento con fecha pasada confirmado en medio no descuadra el extracto).
+ * Como UC-6, suma los importes de todas las monedas de la cuenta.
+ */
+@Service
+public class LedgerStatementService {
+
+    private final LedgerEntryQueryService queryService;
+    private final LedgerEntryExportJdbcRepository exportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public LedgerStatementService(
+            LedgerEntryQueryService queryService,
+            LedgerEntryExportJdbcRepository exportRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.export.fetch-size:1000}") int fetchSize
+    ) {
+        if (fetchSize <= 0) throw new IllegalArgumentException("ledger.export.fetch-size debe ser mayor a 0");
+
+        this.queryService = queryService;
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.fetchSize = fetchSize;
+    }
+
+    public void validate(Long accountId, Instant from, Instant to) {
+        if (accountId == null || accountId <= 0) throw new IllegalArgumentException("accountId debe ser válido");
+        if (from == null || to == null) throw new IllegalArgumentException("from y to son requeridos");
+        if (from.isAfter(to)) throw new IllegalArgumentException("from no puede ser posterior a to");
+    }
+
+    // Devuelve la cantidad de asientos del extracto. No cierra el stream (es de quien lo abrió)
+    public long writeStatement(Long accountId, Instant from, Instant to, OutputStream out) {
+        validate(accountId, from, to);
+
+        try {
+            JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            long entries = readOnlyTx.execute(status -> {
+                try {
+                    return writeDocument(json, accountId, from, to);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.flush();
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long writeDocument(JsonGenerator json, long accountId, Instant from, Instant to) throws IOException {
+        // created_at tiene precisión de microsegundos: el último instante anterior a from
+        Instant beforeFrom = from.minusNanos(1).truncatedTo(ChronoUnit.MICROS);
+        BigDecimal opening = queryService.getAccountBalanceUpToDate(accountId, beforeFrom).getBalance();
+
+        json.writeStartObject();
+        json.writeNumberField("accountId", accountId);
+        json.writeStringField("from", from.toString());
+        json.writeStringField("to", to.toString());
+        json.writeNumberField("openingBalance", opening);
+        json.writeArrayFieldStart("entries");
+
+        Totals totals = new Totals(opening);
+        exportRepository.forEachEntryOfAccountBetween(accountId, from, to, fetchSize, row -> {
+            BigDecimal running = totals.apply(row.entryType(), row.amount());
+            try {
+                json.writeStartObject();
+                json.writeNumberField("id", row.id());
+                json.writeStringField("operationId", row.operationId().toString());
+                json.writeStringField("entryType", row.entryType());
+                json.writeNumberField("amount", row.amount());
+                json.writeStringField("currency", row.currency());
+                json.writeStringField("referenceType", row.referenceType());
+                json.writeStringField("referenceId", row.referenceId());
+                json.writeStringField("createdAt", row.createdAt().toString());
+                json.writeNumberField("runningBalance", running);
+                json.writeEndObject();
+            } catch (IOException e) {
+                // Cliente desconectado u otro error de escritura: corta el cursor y cierra la transacción
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        json.writeEndArray();
+        json.writeNumberField("entryCount", totals.entries);
+        json.writeNumberField("totalDebits", totals.debits);
+        json.writeNumberField("totalCredits", totals.credits);
+        json.writeNumberField("closingBalance", totals.balance);
+        json.writeEndObject();
+        return totals.entries;
+    }
+
+    private static final class Totals {
+        private BigDecimal balance;
+        private BigDecimal debits = BigDecimal.ZERO;
+        private BigDecimal credits = BigDecimal.ZERO;
+        private long entries;
+
+        private Totals(BigDecimal opening) {
+            this.balance = opening;
+        }
+
+        private BigDecimal apply(String entryType, BigDecimal amount) {
+            entries++;
+            if (EntryType.CREDIT.name().equals(entryType)) {
+                credits = credits.add(amount);
+                balance = balance.add(amount);
+            } else {
+                debits = debits.add(amount);
+                balance = balance.subtract(amount);
+            }
+            return balance;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.LedgerEntryResponse;
+import com.banca.ledger.domain.model.LedgerOperation;
+
+import java.util.List;
+
+// Lectura de UC-4A: los asientos vienen proyectados desde la consulta (sin entidades LedgerEntry)
+public record OperationEntriesView(LedgerOperation operation, List<LedgerEntryResponse> entries) {}
@@ -0,0 +1,5 @@
+package com.banca.ledger.domain.enums;
+
+public enum BatchItemStatus {
+    CREATED,REPLAYED,CONFLICT;
+}
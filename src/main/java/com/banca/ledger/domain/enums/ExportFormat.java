@@ -0,0 +1,6 @@
+package com.banca.ledger.domain.enums;
+
+public enum ExportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,7 @@
+package com.banca.ledger.domain.enums;
+
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
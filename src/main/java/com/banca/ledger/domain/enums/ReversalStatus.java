@@ -0,0 +1,5 @@
+package com.banca.ledger.domain.enums;
+
+public enum ReversalStatus {
+    REVERSED,ALREADY_REVERSED,NOT_FOUND,FAILED;
+}
@@ -17,8 +17,13 @@ import java.util.Objects;
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // requerido por JPA
 public class LedgerEntry {
 
+    /*
+    Secuencia con allocationSize = 50 (optimizador pooled): Hibernate reserva 50 ids por cada nextval
+    y puede agrupar los INSERT en JDBC batch. Debe coincidir con el INCREMENT BY de V2.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_id_gen")
+    @SequenceGenerator(name = "ledger_entries_id_gen", sequenceName = "ledger_entries_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_id", nullable = false)
@@ -35,6 +40,13 @@ public class LedgerEntry {
     @Column(nullable = false, length = 30)
     private Currency currency;
 
+    /*
+    Saldo de la cuenta en la moneda del asiento inmediatamente después de contabilizarlo
+    (orden de contabilización). Se calcula antes del INSERT con el lock del saldo de la cuenta
+    (ver AccountBalanceJdbcRepository); null solo en asientos previos a V9 aún sin backfill.
+     */
+    @Column(name = "balance_after", precision = 38, scale = 4, updatable = false)
+    private BigDecimal balanceAfter;
 
 
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -60,6 +72,13 @@ public class LedgerEntry {
         this.operation = operation;
     }
 
+    public void assignBalanceAfter(BigDecimal balanceAfter) {
+        if (this.id != null) {
+            throw new IllegalStateException("balanceAfter solo se asigna antes de persistir el asiento");
+        }
+        this.balanceAfter = balanceAfter;
+    }
+
     @PrePersist
     void prePersist() {
         if (createdAt == null) {
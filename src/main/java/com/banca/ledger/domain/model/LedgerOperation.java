@@ -34,6 +34,13 @@ public class LedgerOperation {
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Enlace de reversa (V5): viaja con la operación, sin consultas extra
+    @Column(name = "reverses_operation_id", columnDefinition = "uuid", updatable = false)
+    private UUID reversesOperationId;
+
+    @Column(name = "reversed_by_operation_id", columnDefinition = "uuid")
+    private UUID reversedByOperationId;
+
 
 
 
@@ -45,6 +52,14 @@ public class LedgerOperation {
 
     }
 
+    public void markAsReversalOf(UUID originalOperationId) {
+        this.reversesOperationId = originalOperationId;
+    }
+
+    public void markReversedBy(UUID reversalOperationId) {
+        this.reversedByOperationId = reversalOperationId;
+    }
+
     @PrePersist
     void prePersiste(){
         if(createdAt == null){
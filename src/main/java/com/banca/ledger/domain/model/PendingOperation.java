@@ -0,0 +1,105 @@
+package com.banca.ledger.domain.model;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.PendingOperationStatus;
+import com.banca.ledger.domain.enums.ReferenceType;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/*
+Movimiento compuesto aceptado en modo asíncrono y todavía no (o ya) contabilizado.
+El id es el operationId que se devuelve en el 202 y con el que se consulta el estado.
+ */
+@Entity
+@Table(name = "pending_operations")
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class PendingOperation {
+
+    @Id
+    @Column(columnDefinition = "uuid", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "idempotency_key", nullable = false, length = 512, updatable = false)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reference_type", nullable = false, updatable = false)
+    private ReferenceType referenceType;
+
+    @Column(name = "reference_id", nullable = false, length = 100, updatable = false)
+    private String referenceId;
+
+    @Column(name = "debit_account_id", nullable = false, updatable = false)
+    private Long debitAccountId;
+
+    @Column(name = "credit_account_id", nullable = false, updatable = false)
+    private Long creditAccountId;
+
+    @Column(nullable = false, precision = 19, scale = 4, updatable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30, updatable = false)
+    private Currency currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PendingOperationStatus status;
+
+    @Column(name = "rejection_reason", length = 1000)
+    private String rejectionReason;
+
+    @Column(name = "posted_operation_id", columnDefinition = "uuid")
+    private UUID postedOperationId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public void markPosted(UUID operationId) {
+        this.status = PendingOperationStatus.POSTED;
+        this.postedOperationId = operationId;
+        this.rejectionReason = null;
+        this.updatedAt = Instant.now();
+    }
+
+    public void markRejected(String reason) {
+        this.status = PendingOperationStatus.REJECTED;
+        this.rejectionReason = reason != null && reason.length() > 1000 ? reason.substring(0, 1000) : reason;
+        this.updatedAt = Instant.now();
+    }
+
+    public void registerAttempt() {
+        this.attempts++;
+        this.updatedAt = Instant.now();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        if (getClass() != o.getClass()) return false;
+        PendingOperation that = (PendingOperation) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public final int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,74 @@
+package com.banca.ledger.infrastructure.config;
+
+import com.banca.ledger.infrastructure.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Réplica de lectura: las transacciones readOnly (@Transactional(readOnly = true), TransactionTemplate readOnly)
+ * usan un pool propio contra la réplica; todo lo demás (escrituras, Flyway, JdbcTemplate sin transacción) va al primario.
+ * Ojo: los métodos heredados de JpaRepository (findById, findAll, ...) llevan @Transactional(readOnly = true) de
+ * SimpleJpaRepository; llamados fuera de una transacción abren una readOnly propia y van a la réplica.
+ * Las lecturas que deben ver el último commit (p. ej. el estado de una operación asíncrona) van dentro de una
+ * transacción read-write.
+ *
+ * - LazyConnectionDataSourceProxy difiere la conexión real hasta la primera sentencia: para entonces la
+ *   transacción ya marcó la conexión como readOnly y el proxy elige el pool.
+ * - Sin ledger.datasource.replica.url esta configuración no se carga y queda el DataSource de Spring Boot.
+ * - Las cargas de la caché de saldos (UC-5 / UC-5B) no abren transacción y siguen en el primario:
+ *   recargar desde una réplica atrasada guardaría el saldo anterior al commit que acaba de invalidarla.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ledger.datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("ledger-primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(
+            @Value("${ledger.datasource.replica.url}") String url,
+            @Value("${ledger.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${ledger.datasource.replica.password:${spring.datasource.password}}") String password,
+            @Value("${ledger.datasource.replica.maximum-pool-size:10}") int maximumPoolSize
+    ) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("ledger-replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${ledger.datasource.replica.read-your-writes:false}") boolean readYourWrites
+    ) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(readYourWrites
+                ? new ReplicaRoutingDataSource(replicaDataSource, primaryDataSource, meterRegistry)
+                : replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,21 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import java.math.BigDecimal;
+
+/*
+Proyección del agregado de saldo a una fecha (una sola consulta, ver LedgerEntryRepository):
+snapshotBalance = snapshots de cierre diario; credits / debits / entryCount = asientos posteriores al cierre.
+latestCurrency es null cuando la cuenta no tiene asientos hasta la fecha.
+ */
+public interface AccountBalanceAggregate {
+
+    BigDecimal getSnapshotBalance();
+
+    BigDecimal getCredits();
+
+    BigDecimal getDebits();
+
+    String getLatestCurrency();
+
+    long getEntryCount();
+}
@@ -0,0 +1,277 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+
+/*
+Saldos materializados (account_balances), siempre dentro de la transacción que contabiliza.
+ANTES de insertar los asientos:
+- applyEntries (JPA) / applyRows (JDBC batch / COPY): deltas agregados en memoria, un único upsert
+  RETURNING por lote => el lock de la fila de saldo serializa las contabilizaciones de cada cuenta/moneda
+  y con el saldo resultante se calcula balance_after de cada asiento (en el orden recibido)
+DESPUÉS de insertarlos (ya tienen id):
+- updateLastEntryIds / updateLastEntryIdsOfOperations: last_entry_id y last_posted_at (created_at del
+  último asiento) sobre las filas ya bloqueadas
+La moneda del último movimiento de una cuenta es la de mayor last_posted_at: los ids no siguen el orden de
+contabilización (JPA reserva bloques de 50, JDBC batch / COPY piden un nextval por fila).
+Las filas se actualizan en orden (account_id, currency): dos transacciones que tocan las mismas cuentas
+toman los locks en el mismo orden y no se bloquean mutuamente en deadlock.
+ */
+@Repository
+public class AccountBalanceJdbcRepository {
+
+    // Cuenta/moneda nueva: last_entry_id = 0 y last_posted_at = -infinity hasta que updateLastEntryIds* los fije
+    private static final String UPSERT_RETURNING_SQL = """
+            INSERT INTO account_balances (account_id, currency, balance, last_entry_id, last_posted_at, version, updated_at)
+            SELECT d.account_id, d.currency, d.delta, 0, '-infinity', 1, now()
+            FROM unnest(?, ?, ?) AS d(account_id, currency, delta)
+            ORDER BY d.account_id, d.currency
+            ON CONFLICT (account_id, currency) DO UPDATE
+            SET balance = account_balances.balance + EXCLUDED.balance,
+                version = account_balances.version + 1,
+                updated_at = now()
+            RETURNING account_id, currency, balance
+            """;
+
+    private static final String UPDATE_LAST_ENTRY_IDS_SQL = """
+            UPDATE account_balances b
+            SET last_entry_id = GREATEST(b.last_entry_id, u.last_entry_id),
+                last_posted_at = GREATEST(b.last_posted_at, u.last_posted_at)
+            FROM unnest(?, ?, ?, ?) AS u(account_id, currency, last_entry_id, last_posted_at)
+            WHERE b.account_id = u.account_id
+              AND b.currency = u.currency
+            """;
+
+    private static final String UPDATE_LAST_ENTRY_IDS_OF_OPERATIONS_SQL = """
+            UPDATE account_balances b
+            SET last_entry_id = GREATEST(b.last_entry_id, m.last_entry_id),
+                last_posted_at = GREATEST(b.last_posted_at, m.last_posted_at)
+            FROM (
+                SELECT account_id, currency, MAX(id) AS last_entry_id, MAX(created_at) AS last_posted_at
+                FROM ledger_entries
+                WHERE operation_id = ANY (?)
+                GROUP BY account_id, currency
+            ) m
+            WHERE b.account_id = m.account_id
+              AND b.currency = m.currency
+            """;
+
+    private static final String SELECT_BY_ACCOUNT_SQL = """
+            SELECT account_id, currency, balance, last_entry_id, version
+            FROM account_balances
+            WHERE account_id = ?
+            ORDER BY last_posted_at DESC, last_entry_id DESC
+            """;
+
+    // Mismo orden que SELECT_BY_ACCOUNT_SQL dentro de cada cuenta
+    private static final String SELECT_BY_ACCOUNTS_SQL = """
+            SELECT account_id, currency, balance, last_entry_id, version
+            FROM account_balances
+            WHERE account_id = ANY (?)
+            ORDER BY account_id, last_posted_at DESC, last_entry_id DESC
+            """;
+
+    // Reconstrucción: bloquea las escrituras de saldos (no las lecturas) mientras se recalcula
+    private static final String LOCK_SQL = "LOCK TABLE account_balances IN EXCLUSIVE MODE";
+
+    private static final String DELETE_ALL_SQL = "DELETE FROM account_balances";
+
+    private static final String DELETE_ACCOUNT_SQL = "DELETE FROM account_balances WHERE account_id = ?";
+
+    private static final String REBUILD_ALL_SQL = """
+            INSERT INTO account_balances (account_id, currency, balance, last_entry_id, last_posted_at, version, updated_at)
+            SELECT account_id,
+                   currency,
+                   SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END),
+                   MAX(id),
+                   MAX(created_at),
+                   0,
+                   now()
+            FROM ledger_entries
+            GROUP BY account_id, currency
+            """;
+
+    private static final String REBUILD_ACCOUNT_SQL = """
+            INSERT INTO account_balances (account_id, currency, balance, last_entry_id, last_posted_at, version, updated_at)
+            SELECT account_id,
+                   currency,
+                   SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END),
+                   MAX(id),
+                   MAX(created_at),
+                   0,
+                   now()
+            FROM ledger_entries
+            WHERE account_id = ?
+            GROUP BY account_id, currency
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountBalanceJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Asientos JPA todavía sin persistir: asigna balanceAfter para que viaje en el mismo INSERT
+    public void applyEntries(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) return;
+
+        List<BigDecimal> balancesAfter = apply(entries.stream()
+                .map(e -> new Movement(new BalanceKey(e.getAccountId(), e.getCurrency()), signed(e.getEntryType(), e.getAmount())))
+                .toList());
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).assignBalanceAfter(balancesAfter.get(i));
+        }
+    }
+
+    // Filas de JDBC batch / COPY todavía sin insertar: devuelve las mismas filas con balanceAfter
+    public List<EntryRow> applyRows(List<EntryRow> rows) {
+        if (rows.isEmpty()) return rows;
+
+        List<BigDecimal> balancesAfter = apply(rows.stream()
+                .map(r -> new Movement(new BalanceKey(r.accountId(), r.currency()), signed(r.entryType(), r.amount())))
+                .toList());
+        List<EntryRow> out = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            out.add(rows.get(i).withBalanceAfter(balancesAfter.get(i)));
+        }
+        return out;
+    }
+
+    // Asientos JPA ya persistidos (con id y createdAt)
+    public void updateLastEntryIds(Collection<LedgerEntry> entries) {
+        if (entries.isEmpty()) return;
+
+        Map<BalanceKey, Long> lastIds = new TreeMap<>();
+        Map<BalanceKey, Instant> lastPostedAt = new TreeMap<>();
+        for (LedgerEntry entry : entries) {
+            BalanceKey key = new BalanceKey(entry.getAccountId(), entry.getCurrency());
+            lastIds.merge(key, entry.getId(), Math::max);
+            lastPostedAt.merge(key, entry.getCreatedAt(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE_LAST_ENTRY_IDS_SQL);
+            bindKeys(con, ps, lastIds.keySet());
+            ps.setArray(3, con.createArrayOf("bigint", lastIds.values().toArray()));
+            // ISO-8601 en UTC (Instant.toString): PostgreSQL lo interpreta como timestamptz
+            ps.setArray(4, con.createArrayOf("timestamptz", lastPostedAt.values().stream().map(Instant::toString).toArray()));
+            return ps;
+        });
+    }
+
+    // Asientos insertados por JDBC batch / COPY (sin id en memoria)
+    public void updateLastEntryIdsOfOperations(Collection<UUID> operationIds) {
+        if (operationIds.isEmpty()) return;
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE_LAST_ENTRY_IDS_OF_OPERATIONS_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", operationIds.toArray()));
+            return ps;
+        });
+    }
+
+    // Una fila por moneda, la del último movimiento primero
+    public List<AccountBalanceRow> findByAccountId(Long accountId) {
+        return jdbcTemplate.query(SELECT_BY_ACCOUNT_SQL, (rs, rowNum) -> mapRow(rs), accountId);
+    }
+
+    // Varias cuentas en una consulta (PK (account_id, currency)); las cuentas sin saldos no vienen
+    public List<AccountBalanceRow> findByAccountIds(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) return List.of();
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_BY_ACCOUNTS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", accountIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> mapRow(rs));
+    }
+
+    // Recalcula desde ledger_entries; devuelve las filas (cuenta/moneda) reconstruidas
+    public int rebuildAll() {
+        jdbcTemplate.execute(LOCK_SQL);
+        jdbcTemplate.update(DELETE_ALL_SQL);
+        return jdbcTemplate.update(REBUILD_ALL_SQL);
+    }
+
+    public int rebuildAccount(Long accountId) {
+        jdbcTemplate.execute(LOCK_SQL);
+        jdbcTemplate.update(DELETE_ACCOUNT_SQL, accountId);
+        return jdbcTemplate.update(REBUILD_ACCOUNT_SQL, accountId);
+    }
+
+    /*
+    Un upsert RETURNING para todo el lote; el saldo devuelto es el de DESPUÉS del lote, así que el de antes
+    es ese menos el delta del lote y se reparte asiento por asiento en el orden de contabilización.
+     */
+    private List<BigDecimal> apply(List<Movement> movements) {
+        Map<BalanceKey, BigDecimal> deltas = new TreeMap<>();
+        for (Movement m : movements) {
+            deltas.merge(m.key(), m.signedAmount(), BigDecimal::add);
+        }
+
+        Map<BalanceKey, BigDecimal> running = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_RETURNING_SQL);
+            bindKeys(con, ps, deltas.keySet());
+            ps.setArray(3, con.createArrayOf("numeric", deltas.values().toArray()));
+            return ps;
+        }, rs -> {
+            BalanceKey key = new BalanceKey(rs.getLong("account_id"), Currency.valueOf(rs.getString("currency")));
+            running.put(key, rs.getBigDecimal("balance").subtract(deltas.get(key)));
+        });
+
+        List<BigDecimal> balancesAfter = new ArrayList<>(movements.size());
+        for (Movement m : movements) {
+            balancesAfter.add(running.merge(m.key(), m.signedAmount(), BigDecimal::add));
+        }
+        return balancesAfter;
+    }
+
+    private static AccountBalanceRow mapRow(ResultSet rs) throws SQLException {
+        return new AccountBalanceRow(
+                rs.getLong("account_id"),
+                Currency.valueOf(rs.getString("currency")),
+                rs.getBigDecimal("balance"),
+                rs.getLong("last_entry_id"),
+                rs.getLong("version")
+        );
+    }
+
+    private static void bindKeys(Connection con, PreparedStatement ps, Collection<BalanceKey> keys) throws SQLException {
+        ps.setArray(1, con.createArrayOf("bigint", keys.stream().map(BalanceKey::accountId).toArray()));
+        ps.setArray(2, con.createArrayOf("varchar", keys.stream().map(k -> k.currency().name()).toArray()));
+    }
+
+    private static BigDecimal signed(EntryType entryType, BigDecimal amount) {
+        return entryType == EntryType.CREDIT ? amount : amount.negate();
+    }
+
+    private record Movement(BalanceKey key, BigDecimal signedAmount) {}
+
+    private record BalanceKey(Long accountId, Currency currency) implements Comparable<BalanceKey> {
+        @Override
+        public int compareTo(BalanceKey other) {
+            int byAccount = accountId.compareTo(other.accountId);
+            return byAccount != 0 ? byAccount : currency.name().compareTo(other.currency.name());
+        }
+    }
+
+    public record AccountBalanceRow(
+            Long accountId,
+            Currency currency,
+            BigDecimal balance,
+            long lastEntryId,
+            long version
+    ) {}
+}
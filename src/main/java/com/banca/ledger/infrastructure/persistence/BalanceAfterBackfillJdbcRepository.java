@@ -0,0 +1,72 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/*
+Backfill de ledger_entries.balance_after (V9) para asientos anteriores a la columna, por bloques de cuentas:
+- las cuentas pendientes salen del índice parcial idx_ledger_entries_balance_after_pending
+- se bloquean sus saldos (mismo orden que las contabilizaciones) => no se intercala ningún asiento nuevo
+- saldo corrido por cuenta/moneda en orden de id; solo se escriben las filas que siguen en NULL
+ */
+@Repository
+public class BalanceAfterBackfillJdbcRepository {
+
+    private static final String PENDING_ACCOUNTS_SQL = """
+            SELECT DISTINCT account_id
+            FROM ledger_entries
+            WHERE balance_after IS NULL
+            ORDER BY account_id
+            LIMIT ?
+            """;
+
+    private static final String LOCK_BALANCES_SQL = """
+            SELECT account_id
+            FROM account_balances
+            WHERE account_id = ANY (?)
+            ORDER BY account_id, currency
+            FOR UPDATE
+            """;
+
+    private static final String BACKFILL_SQL = """
+            UPDATE ledger_entries le
+            SET balance_after = r.running
+            FROM (
+                SELECT id,
+                       SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END)
+                           OVER (PARTITION BY account_id, currency ORDER BY id) AS running
+                FROM ledger_entries
+                WHERE account_id = ANY (?)
+            ) r
+            WHERE le.id = r.id
+              AND le.balance_after IS NULL
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BalanceAfterBackfillJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> findPendingAccountIds(int limit) {
+        return jdbcTemplate.queryForList(PENDING_ACCOUNTS_SQL, Long.class, limit);
+    }
+
+    // Devuelve los asientos completados
+    public int backfillAccounts(List<Long> accountIds) {
+        Long[] ids = accountIds.toArray(Long[]::new);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_BALANCES_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> {});
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(BACKFILL_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+Serie de saldos de una cuenta (UC-6S): variación neta por día (UTC) de un rango en UNA consulta agrupada.
+Solo lee columnas de idx_ledger_entries_account_created_at_id (V10) => index-only scan sobre el rango;
+los días sin movimientos no vienen (el servicio completa la serie).
+ */
+@Repository
+public class BalanceSeriesJdbcRepository {
+
+    private static final String DAILY_DELTAS_SQL = """
+            SELECT CAST(created_at AT TIME ZONE 'UTC' AS date) AS day,
+                   SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END) AS delta
+            FROM ledger_entries
+            WHERE account_id = ?
+              AND created_at >= ?
+              AND created_at < ?
+            GROUP BY 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BalanceSeriesJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Días [from, to] inclusive, ordenados
+    public Map<LocalDate, BigDecimal> findDailyDeltas(long accountId, LocalDate from, LocalDate to) {
+        Map<LocalDate, BigDecimal> deltas = new TreeMap<>();
+        jdbcTemplate.query(DAILY_DELTAS_SQL,
+                rs -> {
+                    deltas.put(rs.getDate("day").toLocalDate(), rs.getBigDecimal("delta"));
+                },
+                accountId,
+                Timestamp.from(from.atStartOfDay(ZoneOffset.UTC).toInstant()),
+                Timestamp.from(to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()));
+        return deltas;
+    }
+}
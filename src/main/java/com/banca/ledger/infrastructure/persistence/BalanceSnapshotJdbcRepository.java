@@ -0,0 +1,106 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/*
+Snapshots de saldo de cierre diario (balance_snapshots, ver V8):
+- snapshotDay: un día completo de todas las cuentas en un INSERT ... SELECT
+  (snapshot anterior de cada cuenta/moneda + asientos del día); solo cuentas con movimientos ese día
+- la marca de agua (balance_snapshot_state) avanza con CAS sobre version: si un asiento tardío
+  la invalidó mientras se calculaba el día, el avance no se aplica y la transacción debe descartarse
+ */
+@Repository
+public class BalanceSnapshotJdbcRepository {
+
+    private static final String SELECT_STATE_SQL = """
+            SELECT valid_through, version
+            FROM balance_snapshot_state
+            WHERE id = 1
+            """;
+
+    private static final String MIN_ENTRY_DAY_SQL = """
+            SELECT (MIN(created_at) AT TIME ZONE 'UTC')::date
+            FROM ledger_entries
+            """;
+
+    // Días sin movimientos no generan filas: la consulta toma el snapshot más cercano por cuenta/moneda
+    private static final String SNAPSHOT_DAY_SQL = """
+            INSERT INTO balance_snapshots (account_id, currency, snapshot_date, balance, created_at)
+            SELECT d.account_id, d.currency, ?, COALESCE(p.balance, 0) + d.amount, now()
+            FROM (
+                SELECT account_id,
+                       currency,
+                       SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END) AS amount
+                FROM ledger_entries
+                WHERE created_at >= ? AND created_at < ?
+                GROUP BY account_id, currency
+            ) d
+            LEFT JOIN LATERAL (
+                SELECT bs.balance
+                FROM balance_snapshots bs
+                WHERE bs.account_id = d.account_id
+                  AND bs.currency = d.currency
+                  AND bs.snapshot_date < ?
+                ORDER BY bs.snapshot_date DESC
+                LIMIT 1
+            ) p ON true
+            ON CONFLICT (account_id, currency, snapshot_date) DO UPDATE
+            SET balance = EXCLUDED.balance,
+                created_at = now()
+            """;
+
+    private static final String ADVANCE_SQL = """
+            UPDATE balance_snapshot_state
+            SET valid_through = ?,
+                version = version + 1,
+                updated_at = now()
+            WHERE id = 1
+              AND version = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BalanceSnapshotJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public SnapshotState findState() {
+        return jdbcTemplate.queryForObject(SELECT_STATE_SQL, (rs, rowNum) -> {
+            Date validThrough = rs.getDate("valid_through");
+            return new SnapshotState(validThrough == null ? null : validThrough.toLocalDate(), rs.getLong("version"));
+        });
+    }
+
+    // Primer día con asientos (UTC); vacío si el ledger no tiene asientos
+    public Optional<LocalDate> findFirstEntryDay() {
+        Date day = jdbcTemplate.queryForObject(MIN_ENTRY_DAY_SQL, Date.class);
+        return Optional.ofNullable(day).map(Date::toLocalDate);
+    }
+
+    // Devuelve las filas (cuenta/moneda) escritas para el día
+    public int snapshotDay(LocalDate day) {
+        return jdbcTemplate.update(SNAPSHOT_DAY_SQL,
+                Date.valueOf(day),
+                startOfDay(day),
+                startOfDay(day.plusDays(1)),
+                Date.valueOf(day));
+    }
+
+    // false => otro job avanzó o un asiento tardío invalidó la marca: no confirmar lo calculado
+    public boolean advance(LocalDate validThrough, long expectedVersion) {
+        return jdbcTemplate.update(ADVANCE_SQL, Date.valueOf(validThrough), expectedVersion) == 1;
+    }
+
+    private static Timestamp startOfDay(LocalDate day) {
+        return Timestamp.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    public record SnapshotState(LocalDate validThrough, long version) {}
+}
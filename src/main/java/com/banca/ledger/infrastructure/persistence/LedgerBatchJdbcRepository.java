@@ -0,0 +1,181 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/*
+Inserciones masivas con JDBC batch (sin pasar por el persistence context de Hibernate).
+Se usa para los lotes de asientos: una sola ida a BD por cada bloque de jdbcBatchSize filas.
+ */
+@Repository
+public class LedgerBatchJdbcRepository {
+
+    private static final String INSERT_OPERATION_SQL = """
+            INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (idempotency_key) DO NOTHING
+            """;
+
+    private static final String INSERT_ENTRY_SQL = """
+            INSERT INTO ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id, balance_after)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_REVERSAL_OPERATION_SQL = """
+            INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at, reverses_operation_id)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String LINK_REVERSAL_SQL = """
+            UPDATE ledger_operations SET reversed_by_operation_id = ? WHERE id = ?
+            """;
+
+    private static final String SELECT_EXISTING_IDS_SQL = """
+            SELECT id FROM ledger_operations WHERE id IN (:ids)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final int jdbcBatchSize;
+
+    public LedgerBatchJdbcRepository(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            @Value("${ledger.batch.jdbc-batch-size:500}") int jdbcBatchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    /**
+     * Inserta las operaciones ignorando las que ya existan por idempotencyKey (carrera con otra transacción).
+     * Devuelve los ids que efectivamente quedaron insertados por ESTA llamada.
+     */
+    public Set<UUID> insertOperationsSkippingExisting(List<OperationRow> rows) {
+        if (rows.isEmpty()) return Set.of();
+
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_OPERATION_SQL, rows, jdbcBatchSize, (ps, row) -> {
+            ps.setObject(1, row.id());
+            ps.setString(2, row.idempotencyKey());
+            ps.setString(3, row.referenceType().name());
+            ps.setString(4, row.referenceId());
+            ps.setObject(5, toOffsetDateTime(row.createdAt()));
+        });
+
+        Set<UUID> inserted = new HashSet<>();
+        boolean unknownCounts = false;
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknownCounts = true;
+                } else if (count > 0) {
+                    inserted.add(rows.get(i).id());
+                }
+                i++;
+            }
+        }
+
+        // Con reWriteBatchedInserts el driver no informa filas por sentencia: lo confirmamos por id
+        if (unknownCounts) {
+            return findExistingIds(rows.stream().map(OperationRow::id).toList());
+        }
+        return inserted;
+    }
+
+    public void insertEntries(List<EntryRow> rows) {
+        if (rows.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, rows, jdbcBatchSize, (ps, row) -> {
+            ps.setLong(1, row.accountId());
+            ps.setString(2, row.entryType().name());
+            ps.setBigDecimal(3, row.amount());
+            ps.setString(4, row.currency().name());
+            ps.setObject(5, toOffsetDateTime(row.createdAt()));
+            ps.setObject(6, row.operationId());
+            ps.setBigDecimal(7, row.balanceAfter());
+        });
+    }
+
+    /**
+     * Reversas masivas: inserta las operaciones de reversa (ya enlazadas a su original) y marca cada
+     * original con su reversa. Las originales deben estar bloqueadas por el llamador (FOR UPDATE).
+     */
+    public void insertReversals(List<ReversalRow> rows) {
+        if (rows.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(INSERT_REVERSAL_OPERATION_SQL, rows, jdbcBatchSize, (ps, row) -> {
+            ps.setObject(1, row.operation().id());
+            ps.setString(2, row.operation().idempotencyKey());
+            ps.setString(3, row.operation().referenceType().name());
+            ps.setString(4, row.operation().referenceId());
+            ps.setObject(5, toOffsetDateTime(row.operation().createdAt()));
+            ps.setObject(6, row.originalOperationId());
+        });
+
+        jdbcTemplate.batchUpdate(LINK_REVERSAL_SQL, rows, jdbcBatchSize, (ps, row) -> {
+            ps.setObject(1, row.operation().id());
+            ps.setObject(2, row.originalOperationId());
+        });
+    }
+
+    private Set<UUID> findExistingIds(List<UUID> ids) {
+        Set<UUID> existing = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += jdbcBatchSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + jdbcBatchSize, ids.size()));
+            existing.addAll(namedJdbcTemplate.queryForList(
+                    SELECT_EXISTING_IDS_SQL, Map.of("ids", chunk), UUID.class));
+        }
+        return existing;
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    public record OperationRow(
+            UUID id,
+            String idempotencyKey,
+            ReferenceType referenceType,
+            String referenceId,
+            Instant createdAt
+    ) {}
+
+    public record ReversalRow(
+            OperationRow operation,
+            UUID originalOperationId
+    ) {}
+
+    // balanceAfter lo completa AccountBalanceJdbcRepository.applyRows antes de insertar
+    public record EntryRow(
+            Long accountId,
+            EntryType entryType,
+            BigDecimal amount,
+            Currency currency,
+            Instant createdAt,
+            UUID operationId,
+            BigDecimal balanceAfter
+    ) {
+        public EntryRow(Long accountId, EntryType entryType, BigDecimal amount, Currency currency,
+                        Instant createdAt, UUID operationId) {
+            this(accountId, entryType, amount, currency, createdAt, operationId, null);
+        }
+
+        public EntryRow withBalanceAfter(BigDecimal balanceAfter) {
+            return new EntryRow(accountId, entryType, amount, currency, createdAt, operationId, balanceAfter);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.OperationRow;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+
+/*
+Carga masiva con COPY ... FROM STDIN (CopyManager de pgjdbc): sin parseo/plan por fila ni ida a BD por batch.
+Usa la conexión de la transacción en curso (JdbcTemplate) => el COPY se confirma o revierte con ella.
+Formato "text" de COPY: columnas separadas por TAB, filas por \n, sin NULLs.
+ */
+@Repository
+public class LedgerCopyRepository {
+
+    private static final String COPY_OPERATIONS_SQL = """
+            COPY ledger_operations (id, idempotency_key, reference_type, reference_id, created_at) FROM STDIN
+            """;
+
+    private static final String COPY_ENTRIES_SQL = """
+            COPY ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id, balance_after) FROM STDIN
+            """;
+
+    private static final String SELECT_EXISTING_KEYS_SQL = """
+            SELECT idempotency_key FROM ledger_operations WHERE idempotency_key = ANY (?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerCopyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long copyOperations(List<OperationRow> rows) {
+        if (rows.isEmpty()) return 0;
+
+        StringBuilder data = new StringBuilder(rows.size() * 128);
+        for (OperationRow row : rows) {
+            appendField(data, row.id().toString()).append('\t');
+            appendField(data, row.idempotencyKey()).append('\t');
+            appendField(data, row.referenceType().name()).append('\t');
+            appendField(data, row.referenceId()).append('\t');
+            appendField(data, row.createdAt().toString()).append('\n');
+        }
+        return copy(COPY_OPERATIONS_SQL, data);
+    }
+
+    public long copyEntries(List<EntryRow> rows) {
+        if (rows.isEmpty()) return 0;
+
+        StringBuilder data = new StringBuilder(rows.size() * 96);
+        for (EntryRow row : rows) {
+            data.append(row.accountId()).append('\t');
+            data.append(row.entryType().name()).append('\t');
+            data.append(row.amount().toPlainString()).append('\t');
+            data.append(row.currency().name()).append('\t');
+            data.append(row.createdAt().toString()).append('\t');
+            data.append(row.operationId()).append('\t');
+            data.append(row.balanceAfter().toPlainString()).append('\n');
+        }
+        return copy(COPY_ENTRIES_SQL, data);
+    }
+
+    // Una sola consulta indexada por bloque (idempotency_key = ANY(array))
+    public List<String> findExistingIdempotencyKeys(Collection<String> keys) {
+        if (keys.isEmpty()) return List.of();
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_EXISTING_KEYS_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", keys.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+    }
+
+    private long copy(String sql, StringBuilder data) {
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try {
+                return con.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(data.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return copied != null ? copied : 0;
+    }
+
+    // Escapes del formato text de COPY
+    private static StringBuilder appendField(StringBuilder data, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> data.append("\\\\");
+                case '\t' -> data.append("\\t");
+                case '\n' -> data.append("\\n");
+                case '\r' -> data.append("\\r");
+                default -> data.append(c);
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,107 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/*
+Recorrido de los asientos de una cuenta para exportación (UC-3E) y extracto de un período (UC-6E):
+- cursor de solo avance con fetchSize acotado: pgjdbc trae los asientos de a fetchSize filas
+  (requiere transacción abierta: con autocommit el driver materializa todo el resultado)
+- filas planas (sin entidades ni contexto de persistencia): la memoria no crece con el historial
+- orden cronológico (created_at, id) resuelto por idx_ledger_entries_account_created_at_id (V10);
+  el período se recorre como rango sobre el mismo índice, con los extremos de findByAccountIdAndCreatedAtBetween
+ */
+@Repository
+public class LedgerEntryExportJdbcRepository {
+
+    private static final String SELECT_ACCOUNT_ENTRIES_SQL = """
+            SELECT le.id, le.operation_id, le.account_id, le.entry_type, le.amount, le.currency,
+                   o.reference_type, o.reference_id, le.created_at, le.balance_after
+            FROM ledger_entries le
+            JOIN ledger_operations o ON o.id = le.operation_id
+            WHERE le.account_id = ?
+            ORDER BY le.created_at, le.id
+            """;
+
+    // [from, to] inclusive en ambos extremos (BETWEEN)
+    private static final String SELECT_ACCOUNT_ENTRIES_BETWEEN_SQL = """
+            SELECT le.id, le.operation_id, le.account_id, le.entry_type, le.amount, le.currency,
+                   o.reference_type, o.reference_id, le.created_at, le.balance_after
+            FROM ledger_entries le
+            JOIN ledger_operations o ON o.id = le.operation_id
+            WHERE le.account_id = ?
+              AND le.created_at >= ?
+              AND le.created_at <= ?
+            ORDER BY le.created_at, le.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerEntryExportJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void forEachEntryOfAccount(long accountId, int fetchSize, Consumer<ExportRow> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ACCOUNT_ENTRIES_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, accountId);
+            return ps;
+        }, rs -> {
+            consumer.accept(mapRow(rs));
+        });
+    }
+
+    public void forEachEntryOfAccountBetween(long accountId, Instant from, Instant to, int fetchSize, Consumer<ExportRow> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ACCOUNT_ENTRIES_BETWEEN_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, accountId);
+            ps.setTimestamp(2, Timestamp.from(from));
+            ps.setTimestamp(3, Timestamp.from(to));
+            return ps;
+        }, rs -> {
+            consumer.accept(mapRow(rs));
+        });
+    }
+
+    private static ExportRow mapRow(ResultSet rs) throws SQLException {
+        return new ExportRow(
+                rs.getLong("id"),
+                rs.getObject("operation_id", UUID.class),
+                rs.getLong("account_id"),
+                rs.getString("entry_type"),
+                rs.getBigDecimal("amount"),
+                rs.getString("currency"),
+                rs.getString("reference_type"),
+                rs.getString("reference_id"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getBigDecimal("balance_after")
+        );
+    }
+
+    // balanceAfter null => asiento anterior a V9 todavía no completado por el backfill
+    public record ExportRow(
+            long id,
+            UUID operationId,
+            long accountId,
+            String entryType,
+            BigDecimal amount,
+            String currency,
+            String referenceType,
+            String referenceId,
+            Instant createdAt,
+            BigDecimal balanceAfter
+    ) {}
+}
@@ -1,7 +1,8 @@
 package com.banca.ledger.infrastructure.persistence;
 
-import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.api.dto.LedgerEntryResponse;
 import com.banca.ledger.domain.model.LedgerEntry;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,58 +11,131 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface LedgerEntryRepository extends JpaRepository<LedgerEntry,Long> {
 
+    /*
+    Proyección de los listados de solo lectura: SELECT de las columnas de la respuesta (asiento + referenceType
+    de la operación) construyendo LedgerEntryResponse directamente. Sin entidades: nada en el contexto de
+    persistencia ni snapshots de dirty checking, y sin el mapeo entidad -> DTO posterior.
+     */
+    String ENTRY_RESPONSE = """
+            SELECT new com.banca.ledger.api.dto.LedgerEntryResponse(
+                le.id, o.id, le.accountId, le.entryType, le.amount, le.currency, o.referenceType, le.createdAt, le.balanceAfter)
+            FROM LedgerEntry le
+            JOIN le.operation o
+            """;
+
     Page<LedgerEntry> findByAccountId(Long accountId, Pageable pageable);
 
     Page<LedgerEntry> findByAccountIdAndCreatedAtBetween(Long accountId, Instant from, Instant to, Pageable pageable);
 
+    // UC-3: el COUNT de la página no necesita la operación
+    @Query(value = ENTRY_RESPONSE + """
+            WHERE le.accountId = :accountId
+            ORDER BY le.createdAt DESC
+            """,
+            countQuery = "SELECT COUNT(le) FROM LedgerEntry le WHERE le.accountId = :accountId")
+    Page<LedgerEntryResponse> findResponsesByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    /*
+    Listado por cursor (keyset): primera página y las siguientes a partir del último (createdAt, id) devuelto.
+    La comparación de filas se resuelve como rango en idx_ledger_entries_account_created_at_id (V10):
+    sin OFFSET que descartar ni COUNT(*).
+     */
+    @Query(ENTRY_RESPONSE + """
+            WHERE le.accountId = :accountId
+            ORDER BY le.createdAt DESC, le.id DESC
+            """)
+    List<LedgerEntryResponse> findResponsesByAccountIdFirst(@Param("accountId") Long accountId, Limit limit);
+
+    @Query(ENTRY_RESPONSE + """
+            WHERE le.accountId = :accountId
+              AND (le.createdAt, le.id) < (:createdAt, :id)
+            ORDER BY le.createdAt DESC, le.id DESC
+            """)
+    List<LedgerEntryResponse> findResponsesByAccountIdBefore(
+            @Param("accountId") Long accountId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    // UC-4A
+    @Query(ENTRY_RESPONSE + """
+            WHERE o.id = :operationId
+            ORDER BY le.id
+            """)
+    List<LedgerEntryResponse> findResponsesByOperationId(@Param("operationId") UUID operationId);
+
+    // UC-7B: asientos de varias operaciones en UNA consulta (IN), en vez de una consulta por operación
+    @Query(ENTRY_RESPONSE + """
+            WHERE o.id IN :operationIds
+            ORDER BY o.id, le.id
+            """)
+    List<LedgerEntryResponse> findResponsesByOperationIdIn(@Param("operationIds") Collection<UUID> operationIds);
+
     /*
     @EntityGraph permite definir, por método de repositorio, qué asociaciones LAZY deben cargarse junto con la entidad principal, evitando
      LazyInitializationException sin cambiar el fetch global.
      */
     @EntityGraph(attributePaths = "operation")
-    Page<LedgerEntry> findByAccountIdOrderByCreatedAtDesc(Long accountId, Pageable pageable);
+    List<LedgerEntry> findByOperationId(UUID operationId);
 
     @EntityGraph(attributePaths = "operation")
-    List<LedgerEntry> findByOperationId(UUID operationId);
+    List<LedgerEntry> findByOperationIdIn(Collection<UUID> operationIds);
 
     Optional<LedgerEntry> findFirstByOperationId(UUID operationId);
-    @Query("""
-    SELECT COALESCE(SUM(le.amount), 0)
-    FROM LedgerEntry le
-    WHERE le.accountId = :accountId
-      AND le.entryType = :entryType
-""")
-    BigDecimal sumAmountByAccountIdAndEntryType(
-            @Param("accountId") Long accountId,
-            @Param("entryType") EntryType entryType
-    );
 
-    Optional<LedgerEntry> findFirstByAccountIdOrderByCreatedAtDesc(Long accountId);
-
-    @Query("""
-    SELECT COALESCE(SUM(le.amount), 0)
-    FROM LedgerEntry le
-    WHERE le.accountId = :accountId
-      AND le.entryType = :entryType
-      AND le.createdAt <= :upToDate
-""")
-    BigDecimal sumAmountByAccountIdAndEntryTypeUpToDate(
+    /*
+    Saldo a una fecha en UNA consulta: snapshot de cierre diario más cercano por moneda (V8)
+    + créditos y débitos posteriores a ese cierre, y moneda del último asiento.
+    El día de corte es el anterior a upToDate (UTC), acotado por la marca de agua del job de snapshots;
+    sin snapshots válidos se suman todos los asientos. Los asientos solo leen columnas de
+    idx_ledger_entries_account_created_at_id (V10) => index-only scan sobre un rango corto.
+     */
+    @Query(value = """
+    WITH cutoff AS (
+        SELECT CASE WHEN s.valid_through IS NULL THEN NULL
+                    ELSE LEAST(CAST(CAST(:upToDate AS timestamptz) AT TIME ZONE 'UTC' AS date) - 1, s.valid_through)
+               END AS day
+        FROM balance_snapshot_state s
+        WHERE s.id = 1
+    ),
+    snap AS (
+        SELECT DISTINCT ON (bs.currency) bs.balance
+        FROM balance_snapshots bs
+        WHERE bs.account_id = :accountId
+          AND bs.snapshot_date <= (SELECT day FROM cutoff)
+        ORDER BY bs.currency, bs.snapshot_date DESC
+    )
+    SELECT (SELECT COALESCE(SUM(balance), 0) FROM snap)                         AS snapshotBalance,
+           COALESCE(SUM(le.amount) FILTER (WHERE le.entry_type = 'CREDIT'), 0) AS credits,
+           COALESCE(SUM(le.amount) FILTER (WHERE le.entry_type = 'DEBIT'), 0)  AS debits,
+           (SELECT l.currency
+            FROM ledger_entries l
+            WHERE l.account_id = :accountId
+              AND l.created_at <= :upToDate
+            ORDER BY l.created_at DESC
+            LIMIT 1)                                                            AS latestCurrency,
+           COUNT(*)                                                             AS entryCount
+    FROM ledger_entries le
+    WHERE le.account_id = :accountId
+      AND le.created_at >= COALESCE(CAST((SELECT day FROM cutoff) + 1 AS timestamp) AT TIME ZONE 'UTC',
+                                     CAST('-infinity' AS timestamptz))
+      AND le.created_at <= :upToDate
+""", nativeQuery = true)
+    AccountBalanceAggregate aggregateBalanceUpToDate(
             @Param("accountId") Long accountId,
-            @Param("entryType") EntryType entryType,
             @Param("upToDate") Instant upToDate
     );
 
-    Optional<LedgerEntry> findFirstByAccountIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(Long accountId, Instant upToDate);
-
 
     @EntityGraph(attributePaths = "operation")
     @Query("select le from LedgerEntry le where le.id = :entryId")
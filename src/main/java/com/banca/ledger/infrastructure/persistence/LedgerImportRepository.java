@@ -0,0 +1,18 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import com.banca.ledger.domain.model.LedgerImport;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface LedgerImportRepository extends JpaRepository<LedgerImport, String> {
+
+    // Cada bloque bloquea el checkpoint: dos ejecuciones de la misma importación no pueden avanzarlo a la vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from LedgerImport i where i.id = :id")
+    Optional<LedgerImport> findByIdForUpdate(@Param("id") String id);
+}
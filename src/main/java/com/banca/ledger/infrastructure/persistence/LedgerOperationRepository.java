@@ -3,17 +3,90 @@ package com.banca.ledger.infrastructure.persistence;
 import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface LedgerOperationRepository extends JpaRepository<LedgerOperation, UUID> {
     Optional<LedgerOperation> findByIdempotencyKey(String idempotencyKey);
+    List<LedgerOperation> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
     boolean existsByIdempotencyKey(String idempotencyKey);
-    Optional<LedgerOperation> findByReferenceTypeAndReferenceId(ReferenceType referenceType,String referenceId);
+    // Una referencia puede tener varias operaciones (la original y sus reversas reutilizan la misma referencia)
+    List<LedgerOperation> findByReferenceTypeAndReferenceIdOrderByCreatedAtAscIdAsc(ReferenceType referenceType, String referenceId);
+
+    // Reversa: SELECT ... FOR UPDATE de la original => reversas concurrentes de la misma operación se serializan
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from LedgerOperation o where o.id = :id")
+    Optional<LedgerOperation> findByIdForUpdate(@Param("id") UUID id);
+
+    // Reversa masiva: bloquea el bloque completo en UNA consulta; orden por id => sin deadlocks entre lotes solapados
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from LedgerOperation o where o.id in :ids order by o.id")
+    List<LedgerOperation> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    // Operaciones de una referencia (rango de referenceId inclusive), sin contar las que ya son reversas
+    @Query("""
+    select o.id from LedgerOperation o
+    where o.referenceType = :referenceType
+      and o.referenceId between :referenceIdFrom and :referenceIdTo
+      and o.reversesOperationId is null
+    order by o.referenceId, o.createdAt, o.id
+""")
+    List<UUID> findReversibleIdsByReferenceRange(
+            @Param("referenceType") ReferenceType referenceType,
+            @Param("referenceIdFrom") String referenceIdFrom,
+            @Param("referenceIdTo") String referenceIdTo,
+            Pageable pageable
+    );
+
+    /*
+    Get-or-create idempotente en UNA sola sentencia:
+    - si la idempotencyKey no existe, inserta la fila con el id propuesto y la devuelve
+    - si ya existe, ON CONFLICT DO NOTHING (sin excepción => la sesión de Hibernate sigue usable) y devuelve la existente
+    Vacío solo si la fila ganadora se confirmó después del snapshot de esta sentencia (carrera muy ajustada).
+    @Transactional: los query methods heredan readOnly = true de SimpleJpaRepository y esto escribe.
+     */
+    @Transactional
+    @Query(value = """
+            WITH inserted AS (
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (:id, :idempotencyKey, :referenceType, :referenceId, :createdAt)
+                ON CONFLICT (idempotency_key) DO NOTHING
+                RETURNING *
+            )
+            SELECT * FROM inserted
+            UNION ALL
+            SELECT * FROM ledger_operations
+            WHERE idempotency_key = :idempotencyKey
+              AND NOT EXISTS (SELECT 1 FROM inserted)
+            """, nativeQuery = true)
+    Optional<LedgerOperation> insertIfAbsent(
+            @Param("id") UUID id,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("referenceType") String referenceType,
+            @Param("referenceId") String referenceId,
+            @Param("createdAt") Instant createdAt
+    );
+
+    // Recorrido completo de keys (siembra del Bloom filter): requiere transacción abierta y cerrar el Stream
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select o.idempotencyKey from LedgerOperation o")
+    Stream<String> streamAllIdempotencyKeys();
 
 
 }
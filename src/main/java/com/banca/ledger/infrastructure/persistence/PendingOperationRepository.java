@@ -0,0 +1,86 @@
+package com.banca.ledger.infrastructure.persistence;
+
+import com.banca.ledger.domain.enums.PendingOperationStatus;
+import com.banca.ledger.domain.model.PendingOperation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PendingOperationRepository extends JpaRepository<PendingOperation, UUID> {
+
+    /*
+    Aceptación idempotente en UNA sentencia (mismo patrón que LedgerOperationRepository.insertIfAbsent):
+    inserta la fila PENDING con el id propuesto o devuelve la ya aceptada con esa idempotencyKey.
+     */
+    @Transactional
+    @Query(value = """
+            WITH inserted AS (
+                INSERT INTO pending_operations (id, idempotency_key, reference_type, reference_id,
+                                                debit_account_id, credit_account_id, amount, currency,
+                                                status, attempts, created_at, updated_at)
+                VALUES (:id, :idempotencyKey, :referenceType, :referenceId,
+                        :debitAccountId, :creditAccountId, :amount, :currency,
+                        'PENDING', 0, :createdAt, :createdAt)
+                ON CONFLICT (idempotency_key) DO NOTHING
+                RETURNING *
+            )
+            SELECT * FROM inserted
+            UNION ALL
+            SELECT * FROM pending_operations
+            WHERE idempotency_key = :idempotencyKey
+              AND NOT EXISTS (SELECT 1 FROM inserted)
+            """, nativeQuery = true)
+    Optional<PendingOperation> insertIfAbsent(
+            @Param("id") UUID id,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("referenceType") String referenceType,
+            @Param("referenceId") String referenceId,
+            @Param("debitAccountId") Long debitAccountId,
+            @Param("creditAccountId") Long creditAccountId,
+            @Param("amount") BigDecimal amount,
+            @Param("currency") String currency,
+            @Param("createdAt") Instant createdAt
+    );
+
+    Optional<PendingOperation> findByIdempotencyKey(String idempotencyKey);
+
+    /*
+    Barrido de recuperación: PENDING que nadie tocó desde "before" (caídas, cola llena, fallos de BD).
+    Por cursor (keyset) sobre (createdAt, id): primera página y las siguientes a partir de la última fila vista,
+    así las que siguen PENDING tras un intento no tapan a las más nuevas.
+     */
+    @Query("""
+            SELECT p FROM PendingOperation p
+            WHERE p.status = :status
+              AND p.updatedAt < :before
+            ORDER BY p.createdAt ASC, p.id ASC
+            """)
+    List<PendingOperation> findStaleFirst(
+            @Param("status") PendingOperationStatus status,
+            @Param("before") Instant before,
+            Limit limit
+    );
+
+    @Query("""
+            SELECT p FROM PendingOperation p
+            WHERE p.status = :status
+              AND p.updatedAt < :before
+              AND (p.createdAt, p.id) > (:createdAt, :id)
+            ORDER BY p.createdAt ASC, p.id ASC
+            """)
+    List<PendingOperation> findStaleAfter(
+            @Param("status") PendingOperationStatus status,
+            @Param("before") Instant before,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Limit limit
+    );
+}
@@ -0,0 +1,32 @@
+package com.banca.ledger.infrastructure.replica;
+
+import org.postgresql.replication.LogSequenceNumber;
+
+/*
+Read-your-writes sobre la réplica: LSN mínimo que la réplica debe haber aplicado para atender
+las lecturas del request actual (header X-Ledger-LSN, ver ReadYourWritesFilter).
+- las escrituras devuelven en el mismo header el LSN del primario posterior a su commit
+- ligado al hilo del request: los cuerpos en streaming (export, extracto) corren en otro hilo y no lo ven
+ */
+public final class ReadYourWrites {
+
+    public static final String HEADER = "X-Ledger-LSN";
+
+    private static final ThreadLocal<LogSequenceNumber> REQUIRED_LSN = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    // null si el request no pidió leer sus escrituras
+    public static LogSequenceNumber requiredLsn() {
+        return REQUIRED_LSN.get();
+    }
+
+    static void require(LogSequenceNumber lsn) {
+        REQUIRED_LSN.set(lsn);
+    }
+
+    static void clear() {
+        REQUIRED_LSN.remove();
+    }
+}
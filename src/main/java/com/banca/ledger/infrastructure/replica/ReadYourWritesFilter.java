@@ -0,0 +1,51 @@
+package com.banca.ledger.infrastructure.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.postgresql.replication.LogSequenceNumber;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Toma el LSN que el cliente recibió de una escritura (header X-Ledger-LSN) para las lecturas de este request
+@Component
+@ConditionalOnProperty(name = "ledger.datasource.replica.read-your-writes", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(ReadYourWrites.HEADER);
+        if (header == null || header.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        LogSequenceNumber lsn = parse(header.trim());
+        if (LogSequenceNumber.INVALID_LSN.equals(lsn)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), ReadYourWrites.HEADER + " inválido");
+            return;
+        }
+
+        ReadYourWrites.require(lsn);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    // Formato de PostgreSQL: "16/B374D848"
+    private static LogSequenceNumber parse(String value) {
+        try {
+            return LogSequenceNumber.valueOf(value);
+        } catch (NumberFormatException e) {
+            return LogSequenceNumber.INVALID_LSN;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.banca.ledger.infrastructure.replica;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Set;
+
+/*
+Escrituras exitosas: header X-Ledger-LSN con el LSN actual del primario.
+Se calcula al escribir la respuesta, después del commit de la transacción del servicio => cubre lo confirmado.
+Fuera de transacción la consulta va al primario (solo las transacciones readOnly van a la réplica).
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "ledger.datasource.replica.read-your-writes", havingValue = "true")
+public class ReadYourWritesResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String CURRENT_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+    private static final Set<HttpMethod> READ_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReadYourWritesResponseAdvice(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (READ_METHODS.contains(request.getMethod())) return body;
+        if (response instanceof ServletServerHttpResponse servletResponse
+                && servletResponse.getServletResponse().getStatus() >= 400) {
+            return body;
+        }
+
+        response.getHeaders().set(ReadYourWrites.HEADER, jdbcTemplate.queryForObject(CURRENT_LSN_SQL, String.class));
+        return body;
+    }
+}
@@ -0,0 +1,78 @@
+package com.banca.ledger.infrastructure.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.replication.LogSequenceNumber;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Conexiones de las transacciones de solo lectura cuando read-your-writes está activo.
+ *
+ * - Sin LSN en el request: réplica, sin consultas extra.
+ * - Con LSN: una consulta a la réplica (pg_last_wal_replay_lsn) sobre la misma conexión que se va a usar;
+ *   si todavía no aplicó ese LSN la conexión se devuelve al pool y la lectura va al primario.
+ * - Una réplica que no está en recuperación (no es standby) no informa LSN: se considera atrasada.
+ * - ledger.replica.primary-fallbacks cuenta las lecturas desviadas al primario.
+ * - getConnection(username, password) enruta igual y pasa las credenciales al pool elegido.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final String REPLAY_LSN_SQL = "SELECT pg_last_wal_replay_lsn()::text";
+
+    private final DataSource replica;
+    private final DataSource primary;
+    private final Counter primaryFallbacks;
+
+    public ReplicaRoutingDataSource(DataSource replica, DataSource primary, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.primary = primary;
+        this.primaryFallbacks = Counter.builder("ledger.replica.primary-fallbacks")
+                .description("Lecturas read-your-writes enviadas al primario porque la réplica no alcanzaba el LSN")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        LogSequenceNumber required = ReadYourWrites.requiredLsn();
+        if (required == null) return source.open(replica);
+
+        Connection connection = source.open(replica);
+        try {
+            if (replayedLsn(connection) >= required.asLong()) return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        connection.close();
+        primaryFallbacks.increment();
+        return source.open(primary);
+    }
+
+    private static long replayedLsn(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(REPLAY_LSN_SQL)) {
+            String lsn = rs.next() ? rs.getString(1) : null;
+            return lsn == null ? -1 : LogSequenceNumber.valueOf(lsn).asLong();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,11 @@
+-- V10__ledger_entries_account_keyset_index.sql
+-- Listado de asientos por cuenta con cursor (keyset): WHERE account_id = ? AND (created_at, id) < (?, ?)
+-- ORDER BY created_at DESC, id DESC. Con id como columna de clave el índice resuelve el seek y el orden
+-- completo (sin sort de desempate); el agregado de saldo a una fecha (V7) sigue usando el prefijo.
+
+CREATE INDEX idx_ledger_entries_account_created_at_id
+    ON ledger_entries (account_id, created_at, id)
+    INCLUDE (entry_type, amount, currency);
+
+-- Reemplazado por el nuevo índice (mismas columnas + id)
+DROP INDEX idx_ledger_entries_account_created_at_cover;
@@ -0,0 +1,21 @@
+-- V11__account_balances_last_posted_at.sql
+-- Momento de contabilización del último asiento aplicado a cada cuenta/moneda. La moneda del último
+-- movimiento se elige por este instante y no por last_entry_id: los ids no siguen el orden de
+-- contabilización (JPA reserva bloques de 50 por nextval, JDBC batch / COPY piden uno por fila).
+
+ALTER TABLE account_balances ADD COLUMN last_posted_at TIMESTAMPTZ;
+
+UPDATE account_balances b
+SET last_posted_at = m.last_posted_at
+FROM (
+    SELECT account_id, currency, MAX(created_at) AS last_posted_at
+    FROM ledger_entries
+    GROUP BY account_id, currency
+) m
+WHERE b.account_id = m.account_id
+  AND b.currency = m.currency;
+
+-- Filas sin asientos (no debería haberlas): quedan al final del orden
+UPDATE account_balances SET last_posted_at = '-infinity' WHERE last_posted_at IS NULL;
+
+ALTER TABLE account_balances ALTER COLUMN last_posted_at SET NOT NULL;
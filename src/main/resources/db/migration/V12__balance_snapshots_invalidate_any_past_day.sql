@@ -0,0 +1,20 @@
+-- V12__balance_snapshots_invalidate_any_past_day.sql
+-- Reemplaza el trigger de V8: todo asiento con fecha anterior a hoy cambia version, no solo los que caen
+-- hasta el día siguiente a la marca de agua. Con el job atrasado varios días (p. ej. primera pasada sobre
+-- un ledger importado) un asiento del día D > marca + 1 todavía sin commit no tocaba la fila de estado:
+-- el job podía calcular D sin verlo y avanzar. Ahora el writer tiene el lock de la fila hasta su commit,
+-- el advance del job espera y su CAS sobre version falla, y el día se recalcula con el asiento.
+-- valid_through solo retrocede si el asiento cae en un día ya cubierto (igual que en V8).
+
+CREATE OR REPLACE FUNCTION invalidate_balance_snapshots() RETURNS trigger AS $$
+BEGIN
+    UPDATE balance_snapshot_state s
+    SET valid_through = CASE WHEN m.first_day <= s.valid_through THEN m.first_day - 1 ELSE s.valid_through END,
+        version = s.version + 1,
+        updated_at = now()
+    FROM (SELECT MIN((created_at AT TIME ZONE 'UTC')::date) AS first_day FROM new_entries) m
+    WHERE s.id = 1
+      AND m.first_day < (now() AT TIME ZONE 'UTC')::date;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,10 @@
+-- V2__ledger_entries_pooled_sequence.sql
+-- ledger_entries.id deja de comportarse como IDENTITY (1 en 1) y pasa a una secuencia con incremento 50,
+-- alineada con el optimizador "pooled" de Hibernate (allocationSize = 50 en LedgerEntry).
+-- Con IDENTITY Hibernate necesita el id de cada INSERT al momento => desactiva el JDBC batching en saveAll.
+
+-- La secuencia del BIGSERIAL se conserva (y sigue siendo el DEFAULT de la columna):
+-- los ids existentes no cambian y el siguiente nextval continúa desde el último valor usado.
+-- Los INSERT que usan el DEFAULT (p.ej. el batch JDBC de /entries/batch) toman un nextval completo
+-- por fila: nunca caen dentro de un rango reservado por Hibernate.
+ALTER SEQUENCE ledger_entries_id_seq INCREMENT BY 50;
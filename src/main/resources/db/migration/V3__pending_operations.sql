@@ -0,0 +1,28 @@
+-- V3__pending_operations.sql
+-- Modo asíncrono de UC-2 (POST /entries/composite?async=true): el request se guarda aquí (durable)
+-- y se responde 202 con el operationId; un drenador en proceso lo contabiliza después.
+-- Estados: PENDING (aceptado, sin contabilizar) -> POSTED | REJECTED (con motivo).
+
+CREATE TABLE pending_operations (
+    id UUID PRIMARY KEY,
+    idempotency_key VARCHAR(512) NOT NULL,
+    reference_type VARCHAR(100) NOT NULL,
+    reference_id VARCHAR(100) NOT NULL,
+    debit_account_id BIGINT NOT NULL,
+    credit_account_id BIGINT NOT NULL,
+    amount NUMERIC(19,4) NOT NULL,
+    currency VARCHAR(30) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    rejection_reason VARCHAR(1000),
+    -- Operación contable resultante (distinta de id si la idempotencyKey ya estaba contabilizada)
+    posted_operation_id UUID,
+    attempts INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    CONSTRAINT uq_pending_operations_idempotency UNIQUE (idempotency_key)
+);
+
+-- Recuperación al arrancar / barrido periódico: solo filas PENDING, las más antiguas primero
+CREATE INDEX idx_pending_operations_pending
+    ON pending_operations(created_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,20 @@
+-- V4__ledger_imports.sql
+-- Importación masiva de asientos históricos (POST /imports/{importId}) vía COPY.
+-- Una fila por importación = su checkpoint: rows_processed se actualiza en la MISMA transacción
+-- que cada bloque copiado => reanudar es saltar esas filas del archivo, sin duplicar ni perder nada.
+
+CREATE TABLE ledger_imports (
+    id VARCHAR(100) PRIMARY KEY,
+    format VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    -- Filas de datos del archivo ya confirmadas (checkpoint)
+    rows_processed BIGINT NOT NULL DEFAULT 0,
+    operations_imported BIGINT NOT NULL DEFAULT 0,
+    entries_imported BIGINT NOT NULL DEFAULT 0,
+    -- Throughput de la ejecución en curso (o la última)
+    rows_per_second DOUBLE PRECISION NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000),
+    started_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    completed_at TIMESTAMPTZ
+);
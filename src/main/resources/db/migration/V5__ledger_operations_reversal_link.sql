@@ -0,0 +1,26 @@
+-- V5__ledger_operations_reversal_link.sql
+-- Enlace original <-> reversa en la propia fila de ledger_operations:
+-- "¿ya está reversada?" deja de ser una búsqueda por la key "reversal:<id>" y se lee con la operación.
+
+ALTER TABLE ledger_operations
+    ADD COLUMN reverses_operation_id UUID,
+    ADD COLUMN reversed_by_operation_id UUID;
+
+ALTER TABLE ledger_operations
+    ADD CONSTRAINT fk_ledger_operations_reverses
+        FOREIGN KEY (reverses_operation_id) REFERENCES ledger_operations(id),
+    ADD CONSTRAINT fk_ledger_operations_reversed_by
+        FOREIGN KEY (reversed_by_operation_id) REFERENCES ledger_operations(id),
+    -- Una operación se reversa como máximo una vez
+    ADD CONSTRAINT uq_ledger_operations_reverses UNIQUE (reverses_operation_id);
+
+-- Reversas previas a esta migración (solo identificables por su idempotency_key)
+UPDATE ledger_operations r
+SET reverses_operation_id = o.id
+FROM ledger_operations o
+WHERE r.idempotency_key = 'reversal:' || o.id::text;
+
+UPDATE ledger_operations o
+SET reversed_by_operation_id = r.id
+FROM ledger_operations r
+WHERE r.reverses_operation_id = o.id;
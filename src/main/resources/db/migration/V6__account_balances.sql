@@ -0,0 +1,27 @@
+-- V6__account_balances.sql
+-- Saldo materializado por cuenta y moneda (créditos - débitos), mantenido en la MISMA transacción
+-- que cada contabilización: el saldo actual se lee de una fila en vez de sumar todo ledger_entries.
+
+CREATE TABLE account_balances (
+    account_id BIGINT NOT NULL,
+    currency VARCHAR(30) NOT NULL,
+    -- Suma de muchos asientos NUMERIC(19,4): más dígitos enteros para no desbordar
+    balance NUMERIC(38,4) NOT NULL,
+    -- Mayor id de asiento aplicado (la moneda del último movimiento es la de mayor last_entry_id)
+    last_entry_id BIGINT NOT NULL,
+    -- Cantidad de actualizaciones aplicadas a la fila
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    CONSTRAINT pk_account_balances PRIMARY KEY (account_id, currency)
+);
+
+-- Saldos de los asientos existentes
+INSERT INTO account_balances (account_id, currency, balance, last_entry_id, version, updated_at)
+SELECT account_id,
+       currency,
+       SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END),
+       MAX(id),
+       0,
+       now()
+FROM ledger_entries
+GROUP BY account_id, currency;
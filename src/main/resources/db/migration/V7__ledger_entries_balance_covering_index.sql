@@ -0,0 +1,11 @@
+-- V7__ledger_entries_balance_covering_index.sql
+-- Índice que cubre el agregado de saldo a una fecha (SUM ... FILTER + moneda del último asiento):
+-- todas las columnas que lee están en el índice => index-only scan sin visitar el heap
+-- (mientras el visibility map esté al día; autovacuum lo mantiene también en tablas solo-insert).
+
+CREATE INDEX idx_ledger_entries_account_created_at_cover
+    ON ledger_entries (account_id, created_at)
+    INCLUDE (entry_type, amount, currency);
+
+-- (account_id, created_at DESC) queda cubierto por el nuevo índice (recorrido hacia atrás)
+DROP INDEX idx_ledger_entries_account_created_at;
@@ -0,0 +1,54 @@
+-- V8__balance_snapshots.sql
+-- Saldos de cierre diario (UTC) por cuenta y moneda: el saldo a una fecha es el snapshot más cercano
+-- anterior + solo los asientos posteriores, en vez de sumar toda la vida de la cuenta.
+
+-- Una fila por (cuenta, moneda, día) con movimientos ese día; balance = acumulado al cierre del día
+CREATE TABLE balance_snapshots (
+    account_id BIGINT NOT NULL,
+    currency VARCHAR(30) NOT NULL,
+    snapshot_date DATE NOT NULL,
+    balance NUMERIC(38,4) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    CONSTRAINT pk_balance_snapshots PRIMARY KEY (account_id, currency, snapshot_date)
+);
+
+-- Marca de agua del job (fila única):
+-- valid_through = último día cuyos snapshots están completos (NULL = todavía ninguno)
+-- version       = cambia en cada avance del job y en cada invalidación (el job avanza con CAS sobre ella)
+CREATE TABLE balance_snapshot_state (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    valid_through DATE,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+INSERT INTO balance_snapshot_state (id, valid_through, version) VALUES (1, NULL, 0);
+
+-- El job lee un día completo de todas las cuentas: BRIN sobre created_at (tabla append-only, índice mínimo)
+CREATE INDEX idx_ledger_entries_created_at_brin
+    ON ledger_entries USING BRIN (created_at);
+
+-- Asientos tardíos o con fecha pasada (importación histórica, commit que cruza la medianoche):
+-- si caen en un día ya cubierto, la marca de agua retrocede al día anterior y el job recalcula desde ahí.
+-- Si caen en el día siguiente a la marca (el que el job puede estar calculando) solo cambia version,
+-- para que ese cálculo en curso no avance la marca.
+-- Los asientos de hoy no tocan la fila de estado: las contabilizaciones normales no se serializan en ella.
+CREATE FUNCTION invalidate_balance_snapshots() RETURNS trigger AS $$
+BEGIN
+    UPDATE balance_snapshot_state s
+    SET valid_through = CASE WHEN m.first_day <= s.valid_through THEN m.first_day - 1 ELSE s.valid_through END,
+        version = s.version + 1,
+        updated_at = now()
+    FROM (SELECT MIN((created_at AT TIME ZONE 'UTC')::date) AS first_day FROM new_entries) m
+    WHERE s.id = 1
+      AND m.first_day < (now() AT TIME ZONE 'UTC')::date
+      AND (s.valid_through IS NULL OR m.first_day <= s.valid_through + 1);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_ledger_entries_invalidate_snapshots
+    AFTER INSERT ON ledger_entries
+    REFERENCING NEW TABLE AS new_entries
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION invalidate_balance_snapshots();
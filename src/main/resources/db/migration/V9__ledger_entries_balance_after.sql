@@ -0,0 +1,12 @@
+-- V9__ledger_entries_balance_after.sql
+-- Saldo corrido por asiento: saldo de la cuenta en la moneda del asiento inmediatamente después de él,
+-- en orden de contabilización. Los asientos nuevos lo traen calculado en el INSERT / COPY
+-- (lock del saldo de la cuenta en account_balances); los existentes los completa BalanceAfterBackfillJob.
+
+-- Sin DEFAULT: solo cambia el catálogo, no reescribe la tabla
+ALTER TABLE ledger_entries ADD COLUMN balance_after NUMERIC(38,4);
+
+-- Cuentas pendientes de backfill: se vacía a medida que avanza el job (puede eliminarse al terminar)
+CREATE INDEX idx_ledger_entries_balance_after_pending
+    ON ledger_entries (account_id)
+    WHERE balance_after IS NULL;
@@ -0,0 +1,140 @@
+package com.banca.ledger.application.idempotency;
+
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.domain.enums.ReferenceType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencySingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencySingleFlight singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new IdempotencySingleFlight(meterRegistry, Duration.ofSeconds(5));
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentSameKey_executesOnce_andWaitersGetLeaderResult() throws Exception {
+        IdempotentRequestKey key = new IdempotentRequestKey("entry", "idem-1", ReferenceType.DEPOSIT, "ref-1");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(key, () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "resultado";
+        }));
+        waitUntil(() -> gauge() == 1.0);
+
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(executor.submit(() -> singleFlight.execute(key, () -> {
+                executions.incrementAndGet();
+                return "no-debe-ejecutarse";
+            })));
+        }
+        waitUntil(() -> counter("ledger.idempotency.singleflight.coalesced") == 3.0);
+        release.countDown();
+
+        assertEquals("resultado", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> w : waiters) {
+            assertEquals("resultado", w.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(1.0, counter("ledger.idempotency.singleflight.executed"));
+        waitUntil(() -> gauge() == 0.0);
+    }
+
+    @Test
+    void leaderException_isRethrownToWaiters() throws Exception {
+        IdempotentRequestKey key = new IdempotentRequestKey("entry", "idem-1", ReferenceType.DEPOSIT, "ref-1");
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(key, () -> {
+            await(release);
+            throw new ConflictException("Conflicto de idempotencia");
+        }));
+        waitUntil(() -> gauge() == 1.0);
+
+        Future<String> waiter = executor.submit(() -> singleFlight.execute(key, () -> "no-debe-ejecutarse"));
+        waitUntil(() -> counter("ledger.idempotency.singleflight.coalesced") == 1.0);
+        release.countDown();
+
+        ExecutionException leaderEx = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterEx = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ConflictException.class, leaderEx.getCause());
+        assertSame(leaderEx.getCause(), waiterEx.getCause());
+    }
+
+    @Test
+    void sameKeyWithOtherReference_isNotCoalesced() {
+        IdempotentRequestKey original = new IdempotentRequestKey("entry", "idem-1", ReferenceType.DEPOSIT, "ref-1");
+        IdempotentRequestKey otherRef = new IdempotentRequestKey("entry", "idem-1", ReferenceType.DEPOSIT, "ref-2");
+
+        String result = singleFlight.execute(original,
+                () -> singleFlight.execute(otherRef, () -> "anidado"));
+
+        assertEquals("anidado", result);
+        assertEquals(2.0, counter("ledger.idempotency.singleflight.executed"));
+        assertEquals(0.0, counter("ledger.idempotency.singleflight.coalesced"));
+    }
+
+    @Test
+    void sequentialCalls_areNotCoalesced() {
+        IdempotentRequestKey key = new IdempotentRequestKey("composite", "idem-1", ReferenceType.TRANSFER, "ref-1");
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute(key, executions::incrementAndGet);
+        singleFlight.execute(key, executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+        assertEquals(0.0, gauge());
+    }
+
+    private double counter(String name) {
+        var c = meterRegistry.find(name).counter();
+        return c == null ? 0.0 : c.count();
+    }
+
+    private double gauge() {
+        return meterRegistry.get("ledger.idempotency.singleflight.inflight").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Timeout esperando la condición");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.banca.ledger.application.idempotency;
+
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.domain.enums.ReferenceType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotentReplayCacheTest {
+
+    private static final IdempotentRequestKey KEY =
+            IdempotentRequestKey.entry("idem-1", ReferenceType.DEPOSIT, "ref-1");
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotentReplayCache cache;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new IdempotentReplayCache(meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void replay_isServedFromCache_andCountedAsHit() {
+        assertEquals("respuesta", cache.getOrExecute(KEY, this::execute));
+        assertEquals("respuesta", cache.getOrExecute(KEY, this::execute));
+
+        assertEquals(1, executions.get());
+        assertEquals(1.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    void exceptions_areNotCached() {
+        assertThrows(ConflictException.class, () -> cache.getOrExecute(KEY, () -> {
+            throw new ConflictException("Conflicto de idempotencia");
+        }));
+
+        assertEquals("respuesta", cache.getOrExecute(KEY, this::execute));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void insideTransaction_isOnlyFilledAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.getOrExecute(KEY, this::execute);
+        cache.getOrExecute(KEY, this::execute);
+        assertEquals(2, executions.get(), "Antes del commit no debe haber nada en la caché");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        cache.getOrExecute(KEY, this::execute);
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void insideTransaction_rollback_leavesCacheEmpty() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.getOrExecute(KEY, this::execute);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        cache.getOrExecute(KEY, this::execute);
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void sameKeyWithOtherReference_isAMiss() {
+        IdempotentRequestKey otherRef = IdempotentRequestKey.entry("idem-1", ReferenceType.DEPOSIT, "ref-2");
+
+        cache.getOrExecute(KEY, this::execute);
+        cache.getOrExecute(otherRef, this::execute);
+
+        assertEquals(2, executions.get());
+    }
+
+    private String execute() {
+        executions.incrementAndGet();
+        return "respuesta";
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", IdempotentReplayCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,62 @@
+package com.banca.ledger.application.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void addedKeys_areAlwaysReported_evenAfterGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01, Long.MAX_VALUE);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("idem-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("idem-" + i), "Falso negativo para idem-" + i);
+        }
+        assertTrue(filter.sliceCount() > 1, "Debió crecer más allá de la capacidad inicial");
+        // put ignora las keys que ya daban falso positivo (~1%)
+        assertEquals(10_000, filter.keyCount(), 200);
+    }
+
+    @Test
+    void falsePositiveRate_staysNearConfiguredBound() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01, Long.MAX_VALUE);
+        for (int i = 0; i < 20_000; i++) {
+            filter.put("idem-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 50_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("nueva-" + i)) falsePositives++;
+        }
+
+        double observed = (double) falsePositives / probes;
+        assertTrue(observed < 0.02, "Tasa de falsos positivos observada demasiado alta: " + observed);
+        assertTrue(filter.estimatedFalsePositiveRate() <= 0.011);
+    }
+
+    @Test
+    void whenMemoryLimitIsReached_filterSaturates_andAnswersMaybe() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01, 2_048);
+
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("idem-" + i);
+        }
+
+        assertTrue(filter.isSaturated());
+        assertTrue(filter.bitCount() <= 2_048);
+        assertTrue(filter.mightContain("nunca-agregada"));
+    }
+
+    @Test
+    void invalidConfiguration_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1.0, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(1_000_000, 0.01, 64));
+    }
+}
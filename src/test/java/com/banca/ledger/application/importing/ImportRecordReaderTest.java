@@ -0,0 +1,111 @@
+package com.banca.ledger.application.importing;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportRecordReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void csv_readsColumnsByHeaderName_inAnyOrder() throws Exception {
+        String csv = """
+                amount,currency,entryType,accountId,referenceId,referenceType,idempotencyKey,createdAt
+                150.00,PEN,DEBIT,10,"DEP,001",DEPOSIT,idem-1,2019-03-01T10:00:00Z
+                150.00,PEN,CREDIT,20,"DEP,001",DEPOSIT,idem-1,
+                """;
+
+        try (ImportRecordReader reader = reader(ImportFormat.CSV, csv)) {
+            ImportRecord first = reader.next();
+            assertEquals("idem-1", first.idempotencyKey());
+            assertEquals(ReferenceType.DEPOSIT, first.referenceType());
+            assertEquals("DEP,001", first.referenceId());
+            assertEquals(10L, first.accountId());
+            assertEquals(EntryType.DEBIT, first.entryType());
+            assertEquals(0, new BigDecimal("150.00").compareTo(first.amount()));
+            assertEquals(Currency.PEN, first.currency());
+            assertEquals(Instant.parse("2019-03-01T10:00:00Z"), first.createdAt());
+
+            ImportRecord second = reader.next();
+            assertEquals(EntryType.CREDIT, second.entryType());
+            assertNull(second.createdAt());
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void ndjson_readsOneObjectPerLine_andIgnoresBlankLines() throws Exception {
+        String ndjson = """
+                {"idempotencyKey":"idem-1","referenceType":"TRANSFER","referenceId":"TRF-1","accountId":10,"entryType":"DEBIT","amount":5.5,"currency":"USD"}
+
+                {"idempotencyKey":"idem-1","referenceType":"TRANSFER","referenceId":"TRF-1","accountId":20,"entryType":"CREDIT","amount":5.5,"currency":"USD"}
+                """;
+
+        try (ImportRecordReader reader = reader(ImportFormat.NDJSON, ndjson)) {
+            assertEquals(10L, reader.next().accountId());
+            assertEquals(20L, reader.next().accountId());
+            assertEquals(3, reader.lineNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void skip_resumesAfterTheCheckpointRows() throws Exception {
+        String csv = """
+                idempotencyKey,referenceType,referenceId,accountId,entryType,amount,currency
+                idem-1,DEPOSIT,R1,10,DEBIT,1,PEN
+                idem-1,DEPOSIT,R1,20,CREDIT,1,PEN
+                idem-2,DEPOSIT,R2,30,DEBIT,1,PEN
+                """;
+
+        try (ImportRecordReader reader = reader(ImportFormat.CSV, csv)) {
+            reader.skip(2);
+            assertEquals("idem-2", reader.next().idempotencyKey());
+        }
+    }
+
+    @Test
+    void csv_withoutRequiredColumn_throwsIllegalArgument() {
+        String csv = """
+                idempotencyKey,referenceType,referenceId,accountId,entryType,amount
+                idem-1,DEPOSIT,R1,10,DEBIT,1
+                """;
+
+        ImportRecordReader reader = reader(ImportFormat.CSV, csv);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, reader::next);
+        assertTrue(ex.getMessage().contains("currency"));
+    }
+
+    @Test
+    void csv_withInvalidValue_reportsLineNumber() {
+        String csv = """
+                idempotencyKey,referenceType,referenceId,accountId,entryType,amount,currency
+                idem-1,DEPOSIT,R1,10,DEBIT,1,PEN
+                idem-1,DEPOSIT,R1,veinte,CREDIT,1,PEN
+                """;
+
+        ImportRecordReader reader = reader(ImportFormat.CSV, csv);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> {
+            reader.next();
+            reader.next();
+        });
+        assertTrue(ex.getMessage().startsWith("Línea 3"));
+    }
+
+    private ImportRecordReader reader(ImportFormat format, String content) {
+        return new ImportRecordReader(format,
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+}
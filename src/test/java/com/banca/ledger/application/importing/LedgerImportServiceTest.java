@@ -0,0 +1,212 @@
+package com.banca.ledger.application.importing;
+
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
+import com.banca.ledger.application.service.AccountBalanceCache;
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.enums.ImportStatus;
+import com.banca.ledger.domain.model.LedgerImport;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.OperationRow;
+import com.banca.ledger.infrastructure.persistence.LedgerCopyRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerImportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class LedgerImportServiceTest {
+
+    private static final String HEADER = "idempotencyKey,referenceType,referenceId,accountId,entryType,amount,currency\n";
+
+    private LedgerImportRepository importRepository;
+    private LedgerCopyRepository copyRepository;
+    private IdempotencyKeyFilter idempotencyKeyFilter;
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicReference<LedgerImport> stored = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        importRepository = mock(LedgerImportRepository.class);
+        copyRepository = mock(LedgerCopyRepository.class);
+        idempotencyKeyFilter = mock(IdempotencyKeyFilter.class);
+        accountBalanceRepository = mock(AccountBalanceJdbcRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        // Checkpoint "en BD": una sola instancia compartida entre transacciones
+        when(importRepository.findByIdForUpdate("imp-1")).thenAnswer(inv -> Optional.ofNullable(stored.get()));
+        when(importRepository.save(any(LedgerImport.class))).thenAnswer(inv -> {
+            stored.set(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+        when(copyRepository.findExistingIdempotencyKeys(anyCollection())).thenReturn(List.of());
+        when(accountBalanceRepository.applyRows(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void importsInChunks_cutAtOperationBoundaries_andAdvancesCheckpoint() {
+        String csv = HEADER
+                + "idem-a,DEPOSIT,R-A,10,DEBIT,100.00,PEN\n"
+                + "idem-a,DEPOSIT,R-A,20,CREDIT,100.00,PEN\n"
+                + "idem-b,TRANSFER,R-B,10,DEBIT,5,USD\n"
+                + "idem-b,TRANSFER,R-B,30,CREDIT,2,USD\n"
+                + "idem-b,TRANSFER,R-B,40,CREDIT,3,USD\n"
+                + "idem-c,DEPOSIT,R-C,10,DEBIT,1,PEN\n"
+                + "idem-c,DEPOSIT,R-C,20,CREDIT,1,PEN\n";
+
+        LedgerImport result = service(3).importStream("imp-1", ImportFormat.CSV, input(csv));
+
+        assertEquals(ImportStatus.COMPLETED, result.getStatus());
+        assertEquals(7, result.getRowsProcessed());
+        assertEquals(3, result.getOperationsImported());
+        assertEquals(7, result.getEntriesImported());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OperationRow>> operations = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EntryRow>> entries = ArgumentCaptor.forClass(List.class);
+        verify(copyRepository, times(2)).copyOperations(operations.capture());
+        verify(copyRepository, times(2)).copyEntries(entries.capture());
+
+        // Primer bloque: a + b (5 filas, la operación b no se parte); segundo: c
+        assertEquals(List.of("idem-a", "idem-b"),
+                operations.getAllValues().get(0).stream().map(OperationRow::idempotencyKey).toList());
+        assertEquals(5, entries.getAllValues().get(0).size());
+        assertEquals(2, entries.getAllValues().get(1).size());
+
+        // Cada asiento apunta a la operación de su bloque
+        OperationRow b = operations.getAllValues().get(0).get(1);
+        assertEquals(3, entries.getAllValues().get(0).stream().filter(e -> e.operationId().equals(b.id())).count());
+
+        verify(idempotencyKeyFilter, times(2)).addAfterCommit(anyCollection());
+
+        // Saldos del bloque en la misma transacción que su COPY
+        verify(accountBalanceRepository).applyRows(entries.getAllValues().get(0));
+        verify(accountBalanceRepository).updateLastEntryIdsOfOperations(operations.getAllValues().get(0).stream().map(OperationRow::id).toList());
+        verify(accountBalanceRepository).updateLastEntryIdsOfOperations(operations.getAllValues().get(1).stream().map(OperationRow::id).toList());
+        assertEquals(7.0, meterRegistry.get("ledger.import.rows").counter().count());
+    }
+
+    @Test
+    void unbalancedOperation_failsImport_withoutCopying() {
+        String csv = HEADER
+                + "idem-a,DEPOSIT,R-A,10,DEBIT,100.00,PEN\n"
+                + "idem-a,DEPOSIT,R-A,20,CREDIT,99.99,PEN\n";
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service(100).importStream("imp-1", ImportFormat.CSV, input(csv)));
+
+        assertTrue(ex.getMessage().contains("no cuadra"));
+        assertEquals(ImportStatus.FAILED, stored.get().getStatus());
+        assertEquals(ex.getMessage(), stored.get().getErrorMessage());
+        verify(copyRepository, never()).copyOperations(any());
+    }
+
+    @Test
+    void sameCurrencyBalance_isCheckedPerCurrency() {
+        String csv = HEADER
+                + "idem-a,DEPOSIT,R-A,10,DEBIT,100,PEN\n"
+                + "idem-a,DEPOSIT,R-A,20,CREDIT,100,USD\n";
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service(100).importStream("imp-1", ImportFormat.CSV, input(csv)));
+    }
+
+    @Test
+    void keyAlreadyInLedger_failsImport() {
+        when(copyRepository.findExistingIdempotencyKeys(anyCollection())).thenReturn(List.of("idem-a"));
+        String csv = HEADER
+                + "idem-a,DEPOSIT,R-A,10,DEBIT,1,PEN\n"
+                + "idem-a,DEPOSIT,R-A,20,CREDIT,1,PEN\n";
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service(100).importStream("imp-1", ImportFormat.CSV, input(csv)));
+
+        assertTrue(ex.getMessage().contains("idem-a"));
+        assertEquals(ImportStatus.FAILED, stored.get().getStatus());
+        verify(copyRepository, never()).copyOperations(any());
+    }
+
+    @Test
+    void nonContiguousRowsOfTheSameKey_areRejected() {
+        String csv = HEADER
+                + "idem-a,DEPOSIT,R-A,10,DEBIT,1,PEN\n"
+                + "idem-a,DEPOSIT,R-A,20,CREDIT,1,PEN\n"
+                + "idem-b,DEPOSIT,R-B,10,DEBIT,1,PEN\n"
+                + "idem-b,DEPOSIT,R-B,20,CREDIT,1,PEN\n"
+                + "idem-a,DEPOSIT,R-A,10,DEBIT,1,PEN\n"
+                + "idem-a,DEPOSIT,R-A,20,CREDIT,1,PEN\n";
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service(100).importStream("imp-1", ImportFormat.CSV, input(csv)));
+        assertTrue(ex.getMessage().contains("repetida"));
+    }
+
+    @Test
+    void failedImport_resumesFromCheckpoint() {
+        LedgerImport previous = new LedgerImport("imp-1", ImportFormat.CSV);
+        previous.checkpoint(2, 1, 2, 0);
+        previous.fail("caída de red");
+        stored.set(previous);
+
+        String csv = HEADER
+                + "idem-a,DEPOSIT,R-A,10,DEBIT,1,PEN\n"
+                + "idem-a,DEPOSIT,R-A,20,CREDIT,1,PEN\n"
+                + "idem-b,DEPOSIT,R-B,10,DEBIT,1,PEN\n"
+                + "idem-b,DEPOSIT,R-B,20,CREDIT,1,PEN\n";
+
+        LedgerImport result = service(100).importStream("imp-1", ImportFormat.CSV, input(csv));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OperationRow>> operations = ArgumentCaptor.forClass(List.class);
+        verify(copyRepository).copyOperations(operations.capture());
+        assertEquals(List.of("idem-b"), operations.getValue().stream().map(OperationRow::idempotencyKey).toList());
+
+        assertEquals(ImportStatus.COMPLETED, result.getStatus());
+        assertNull(result.getErrorMessage());
+        assertEquals(4, result.getRowsProcessed());
+        assertEquals(2, result.getOperationsImported());
+    }
+
+    @Test
+    void completedImport_isNotRunAgain() {
+        LedgerImport previous = new LedgerImport("imp-1", ImportFormat.CSV);
+        previous.checkpoint(2, 1, 2, 0);
+        previous.complete();
+        stored.set(previous);
+
+        LedgerImport result = service(100).importStream("imp-1", ImportFormat.CSV,
+                input(HEADER + "idem-z,DEPOSIT,R-Z,10,DEBIT,1,PEN\n"));
+
+        assertSame(previous, result);
+        verifyNoInteractions(copyRepository);
+    }
+
+    private LedgerImportService service(int chunkSize) {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        return new LedgerImportService(importRepository, copyRepository, idempotencyKeyFilter, accountBalanceRepository,
+                mock(AccountBalanceCache.class), new ObjectMapper().findAndRegisterModules(), transactionManager, meterRegistry, chunkSize);
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,149 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.domain.enums.Currency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountBalanceCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountBalanceCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AccountBalanceCache(meterRegistry, true, 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void hit_doesNotReload_andRecordsMetrics() {
+        cache.get(10L, this::load);
+        AccountBalanceResponse second = cache.get(10L, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(new BigDecimal("1"), second.getBalance());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "ledger.balance").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "ledger.balance").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("ledger.balance.cache.staleness").timer().count());
+    }
+
+    @Test
+    void eachReadGetsItsOwnInstance() {
+        cache.get(10L, this::load).setBalance(BigDecimal.TEN);
+
+        assertEquals(new BigDecimal("1"), cache.get(10L, this::load).getBalance());
+    }
+
+    @Test
+    void invalidation_insideTransaction_waitsForCommit() {
+        cache.get(10L, this::load);
+        cache.get(20L, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidateAfterCommit(List.of(10L));
+
+        // Antes del commit se sigue sirviendo el saldo confirmado
+        cache.get(10L, this::load);
+        assertEquals(2, loads.get());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(new BigDecimal("3"), cache.get(10L, this::load).getBalance());
+        cache.get(20L, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void rollback_keepsTheCachedBalance() {
+        cache.get(10L, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidateAfterCommit(List.of(10L));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        cache.get(10L, this::load);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void failedLoad_isNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(10L, id -> {
+            throw new IllegalStateException("sin asientos");
+        }));
+
+        cache.get(10L, this::load);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getAll_servesCachedAccounts_andLoadsTheRestInOneCall() {
+        cache.get(10L, this::load);
+
+        Map<Long, AccountBalanceResponse> result = cache.getAll(List.of(20L, 10L, 30L), this::loadAll);
+
+        assertEquals(List.of(20L, 10L, 30L), List.copyOf(result.keySet()));
+        assertEquals(2, loads.get()); // 10 individual + una carga en bloque (20, 30)
+        cache.getAll(List.of(20L, 30L), this::loadAll);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getAll_doesNotCacheWhatWasReadBeforeAConcurrentInvalidation() {
+        cache.getAll(List.of(10L), ids -> {
+            Map<Long, AccountBalanceResponse> loaded = loadAll(ids);
+            // Commit de otra contabilización mientras la carga leía la BD
+            cache.invalidateAfterCommit(List.of(99L));
+            return loaded;
+        });
+
+        cache.get(10L, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void disabled_alwaysLoads() {
+        AccountBalanceCache disabled = new AccountBalanceCache(new SimpleMeterRegistry(), false, 100, Duration.ofMinutes(1));
+
+        disabled.get(10L, this::load);
+        disabled.get(10L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private Map<Long, AccountBalanceResponse> loadAll(Set<Long> accountIds) {
+        loads.incrementAndGet();
+        Map<Long, AccountBalanceResponse> out = new LinkedHashMap<>();
+        accountIds.forEach(id -> out.put(id, new AccountBalanceResponse(id, Currency.PEN, BigDecimal.TEN)));
+        return out;
+    }
+
+    private AccountBalanceResponse load(long accountId) {
+        return new AccountBalanceResponse(accountId, Currency.PEN, new BigDecimal(loads.incrementAndGet()));
+    }
+}
@@ -0,0 +1,295 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.PendingOperationStatus;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.domain.model.PendingOperation;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import com.banca.ledger.infrastructure.persistence.PendingOperationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AsyncCompositeMovementPipelineTest {
+
+    private LedgerEntryCommandService commandService;
+    private PendingOperationRepository pendingRepo;
+    private LedgerOperationRepository operationRepo;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncCompositeMovementPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        commandService = mock(LedgerEntryCommandService.class);
+        pendingRepo = mock(PendingOperationRepository.class);
+        operationRepo = mock(LedgerOperationRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+
+        // Sin start(): los drenadores no corren, la cola se observa directamente
+        pipeline = new AsyncCompositeMovementPipeline(
+                commandService, pendingRepo, operationRepo, transactionManager, meterRegistry,
+                100, 10, 1, Duration.ofSeconds(5), Duration.ofSeconds(30), 3
+        );
+    }
+
+    @Test
+    void accept_whenNew_savesPending_andQueuesIt() {
+        CreateCompositeLedgerMovementRequest request = request("idem-1", "DEP-001");
+        PendingOperation pending = pending(UUID.randomUUID(), PendingOperationStatus.PENDING, "DEP-001");
+        when(pendingRepo.insertIfAbsent(any(), eq("idem-1"), eq("DEPOSIT"), eq("DEP-001"),
+                eq(10L), eq(20L), eq(new BigDecimal("150.00")), eq("PEN"), any()))
+                .thenReturn(Optional.of(pending));
+
+        assertSame(pending, pipeline.accept(request));
+
+        assertEquals(1.0, meterRegistry.get("ledger.async.queue.size").gauge().value());
+        assertEquals(1.0, meterRegistry.get("ledger.async.operations").tag("result", "accepted").counter().count());
+        verifyNoInteractions(commandService);
+    }
+
+    @Test
+    void accept_whenKeyAlreadyAcceptedWithOtherReference_throwsConflict() {
+        CreateCompositeLedgerMovementRequest request = request("idem-1", "DEP-002");
+        PendingOperation existing = pending(UUID.randomUUID(), PendingOperationStatus.PENDING, "DEP-001");
+        when(pendingRepo.insertIfAbsent(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.empty());
+        when(pendingRepo.findByIdempotencyKey("idem-1")).thenReturn(Optional.of(existing));
+
+        assertThrows(ConflictException.class, () -> pipeline.accept(request));
+
+        assertEquals(0.0, meterRegistry.get("ledger.async.queue.size").gauge().value());
+    }
+
+    @Test
+    void accept_whenAlreadyPosted_returnsIt_withoutQueueing() {
+        CreateCompositeLedgerMovementRequest request = request("idem-1", "DEP-001");
+        PendingOperation posted = pending(UUID.randomUUID(), PendingOperationStatus.POSTED, "DEP-001");
+        when(pendingRepo.insertIfAbsent(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.of(posted));
+
+        assertSame(posted, pipeline.accept(request));
+
+        assertEquals(0.0, meterRegistry.get("ledger.async.queue.size").gauge().value());
+    }
+
+    @Test
+    void processBatch_postsAndRejects_inOneTransaction_withoutSavepoints() {
+        UUID okId = UUID.randomUUID();
+        UUID badId = UUID.randomUUID();
+        PendingOperation ok = pending(okId, PendingOperationStatus.PENDING, "DEP-001");
+        PendingOperation bad = pending(badId, PendingOperationStatus.PENDING, "DEP-002");
+        when(pendingRepo.findAllById(List.of(okId, badId))).thenReturn(List.of(ok, bad));
+
+        LedgerOperation operation = mock(LedgerOperation.class);
+        when(operation.getId()).thenReturn(okId);
+        when(commandService.recordCompositeMovementInGroup(any(), eq(okId)))
+                .thenReturn(new OperationEntries(operation, List.of()));
+        when(commandService.recordCompositeMovementInGroup(any(), eq(badId)))
+                .thenThrow(new IllegalArgumentException("debitAccountId y creditAccountId no pueden ser iguales"));
+
+        pipeline.processBatch(List.of(okId, badId));
+
+        verify(ok).registerAttempt();
+        verify(ok).markPosted(okId);
+        verify(bad).markRejected("debitAccountId y creditAccountId no pueden ser iguales");
+        // Registro de intentos + lote; el rechazo no revierte el lote
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, never()).rollback(any());
+        assertEquals(1.0, meterRegistry.get("ledger.async.operations").tag("result", "posted").counter().count());
+        assertEquals(1.0, meterRegistry.get("ledger.async.operations").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void processBatch_infrastructureFailure_retriesEachOperationAlone() {
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+        PendingOperation first = pending(firstId, PendingOperationStatus.PENDING, "DEP-001");
+        PendingOperation second = pending(secondId, PendingOperationStatus.PENDING, "DEP-002");
+        when(pendingRepo.findAllById(List.of(firstId, secondId))).thenReturn(List.of(first, second));
+        when(pendingRepo.findById(firstId)).thenReturn(Optional.of(first));
+        when(pendingRepo.findById(secondId)).thenReturn(Optional.of(second));
+
+        LedgerOperation operation = mock(LedgerOperation.class);
+        when(operation.getId()).thenReturn(secondId);
+        AtomicInteger secondAttempts = new AtomicInteger();
+        when(commandService.recordCompositeMovementInGroup(any(), eq(firstId)))
+                .thenReturn(new OperationEntries(operation, List.of()));
+        when(commandService.recordCompositeMovementInGroup(any(), eq(secondId))).thenAnswer(inv -> {
+            if (secondAttempts.incrementAndGet() == 1) {
+                throw new DataIntegrityViolationException("fallo de BD dentro del lote");
+            }
+            return new OperationEntries(operation, List.of());
+        });
+
+        pipeline.processBatch(List.of(firstId, secondId));
+
+        assertEquals(2, secondAttempts.get());
+        verify(second).markPosted(secondId);
+        verify(second, never()).markRejected(any());
+        verify(pendingRepo).findById(firstId);
+        verify(pendingRepo).findById(secondId);
+        // Un intento por pasada, confirmado antes del lote que se revirtió
+        verify(second, times(1)).registerAttempt();
+        InOrder order = inOrder(transactionManager);
+        order.verify(transactionManager).commit(any());
+        order.verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void processBatch_whenAttemptsAreExhausted_rejectsWithoutPosting() {
+        UUID id = UUID.randomUUID();
+        PendingOperation exhausted = pending(id, PendingOperationStatus.PENDING, "DEP-001");
+        when(exhausted.getAttempts()).thenReturn(3);
+        when(pendingRepo.findAllById(List.of(id))).thenReturn(List.of(exhausted));
+
+        pipeline.processBatch(List.of(id));
+
+        verify(exhausted).markRejected("Sin contabilizar tras 3 intentos");
+        verify(exhausted, never()).registerAttempt();
+        verifyNoInteractions(commandService);
+        verify(transactionManager, times(1)).getTransaction(any());
+        assertEquals(1.0, meterRegistry.get("ledger.async.operations").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void sweep_pagesByCursor_soOperationsThatStayPending_doNotHideNewerOnes() throws Exception {
+        // Lotes de 2; intervalo largo: los drenadores no barren por su cuenta durante el test
+        AsyncCompositeMovementPipeline sweeper = new AsyncCompositeMovementPipeline(
+                commandService, pendingRepo, operationRepo, transactionManager, meterRegistry,
+                100, 2, 1, Duration.ofHours(1), Duration.ofSeconds(30), 3
+        );
+        Instant since = Instant.parse("2026-01-01T00:00:00Z");
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+        UUID newerId = UUID.randomUUID();
+        PendingOperation first = stale(firstId, "2025-12-31T10:00:00Z");
+        PendingOperation second = stale(secondId, "2025-12-31T11:00:00Z");
+        PendingOperation newer = stale(newerId, "2025-12-31T12:00:00Z");
+        when(pendingRepo.findStaleFirst(PendingOperationStatus.PENDING, since, Limit.of(2)))
+                .thenReturn(List.of(first, second));
+        when(pendingRepo.findAllById(List.of(firstId, secondId))).thenReturn(List.of(first, second));
+        when(pendingRepo.findStaleAfter(PendingOperationStatus.PENDING, since,
+                Instant.parse("2025-12-31T11:00:00Z"), secondId, Limit.of(2))).thenReturn(List.of(newer));
+        when(pendingRepo.findStaleAfter(PendingOperationStatus.PENDING, since,
+                Instant.parse("2025-12-31T12:00:00Z"), newerId, Limit.of(2))).thenReturn(List.of());
+
+        // Las dos más antiguas fallan siempre por la BD y siguen PENDING
+        when(commandService.recordCompositeMovementInGroup(any(), eq(firstId)))
+                .thenThrow(new DataIntegrityViolationException("fallo de BD"));
+        when(commandService.recordCompositeMovementInGroup(any(), eq(secondId)))
+                .thenThrow(new DataIntegrityViolationException("fallo de BD"));
+        LedgerOperation operation = mock(LedgerOperation.class);
+        when(operation.getId()).thenReturn(newerId);
+        when(commandService.recordCompositeMovementInGroup(any(), eq(newerId)))
+                .thenReturn(new OperationEntries(operation, List.of()));
+
+        sweeper.start();
+        try {
+            sweeper.sweep(since);
+        } finally {
+            sweeper.stop();
+        }
+
+        verify(first).registerAttempt();
+        verify(first, never()).markRejected(any());
+        verify(newer).markPosted(newerId);
+        verify(pendingRepo, times(1)).findStaleFirst(any(), any(), any());
+    }
+
+    @Test
+    void processBatch_unexpectedFailureOfOneOperation_rejectsIt_afterRetryingAlone() {
+        UUID id = UUID.randomUUID();
+        PendingOperation inconsistent = pending(id, PendingOperationStatus.PENDING, "DEP-001");
+        when(pendingRepo.findAllById(List.of(id))).thenReturn(List.of(inconsistent));
+        when(pendingRepo.findById(id)).thenReturn(Optional.of(inconsistent));
+        when(commandService.recordCompositeMovementInGroup(any(), eq(id)))
+                .thenThrow(new IllegalStateException("Inconsistencia: operación con 3 entradas"));
+
+        pipeline.processBatch(List.of(id));
+
+        // Intento + lote + reintento solo + transacción aparte para el rechazo
+        verify(commandService, times(2)).recordCompositeMovementInGroup(any(), eq(id));
+        verify(inconsistent).markRejected("Inconsistencia: operación con 3 entradas");
+        verify(transactionManager, times(4)).getTransaction(any());
+        assertEquals(1.0, meterRegistry.get("ledger.async.operations").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void getStatus_whenOnlySyncOperationExists_reportsPosted() {
+        UUID operationId = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2026-01-01T00:00:00Z");
+        LedgerOperation operation = mock(LedgerOperation.class);
+        when(operation.getId()).thenReturn(operationId);
+        when(operation.getCreatedAt()).thenReturn(createdAt);
+        when(pendingRepo.findById(operationId)).thenReturn(Optional.empty());
+        when(operationRepo.findById(operationId)).thenReturn(Optional.of(operation));
+
+        AsyncCompositeMovementPipeline.OperationStatus status = pipeline.getStatus(operationId);
+
+        assertEquals(PendingOperationStatus.POSTED, status.status());
+        assertEquals(operationId, status.postedOperationId());
+        assertEquals(createdAt, status.updatedAt());
+        // Read-write: no se enruta a la réplica de lectura
+        verify(transactionManager).getTransaction(argThat(definition -> !definition.isReadOnly()));
+    }
+
+    @Test
+    void getStatus_whenUnknown_throwsNotFound() {
+        UUID operationId = UUID.randomUUID();
+        when(pendingRepo.findById(operationId)).thenReturn(Optional.empty());
+        when(operationRepo.findById(operationId)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> pipeline.getStatus(operationId));
+    }
+
+    private static CreateCompositeLedgerMovementRequest request(String idempotencyKey, String referenceId) {
+        return new CreateCompositeLedgerMovementRequest(
+                10L, 20L, new BigDecimal("150.00"),
+                Currency.PEN, ReferenceType.DEPOSIT, referenceId, idempotencyKey
+        );
+    }
+
+    private PendingOperation stale(UUID id, String createdAt) {
+        PendingOperation pending = pending(id, PendingOperationStatus.PENDING, "DEP-" + id);
+        when(pending.getCreatedAt()).thenReturn(Instant.parse(createdAt));
+        when(pendingRepo.findAllById(List.of(id))).thenReturn(List.of(pending));
+        when(pendingRepo.findById(id)).thenReturn(Optional.of(pending));
+        return pending;
+    }
+
+    private static PendingOperation pending(UUID id, PendingOperationStatus status, String referenceId) {
+        PendingOperation pending = mock(PendingOperation.class);
+        when(pending.getId()).thenReturn(id);
+        when(pending.getStatus()).thenReturn(status);
+        when(pending.getReferenceType()).thenReturn(ReferenceType.DEPOSIT);
+        when(pending.getReferenceId()).thenReturn(referenceId);
+        return pending;
+    }
+}
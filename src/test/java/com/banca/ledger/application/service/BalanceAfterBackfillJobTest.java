@@ -0,0 +1,55 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.infrastructure.persistence.BalanceAfterBackfillJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BalanceAfterBackfillJobTest {
+
+    private BalanceAfterBackfillJdbcRepository backfillRepository;
+    private BalanceAfterBackfillJob job;
+
+    @BeforeEach
+    void setUp() {
+        backfillRepository = mock(BalanceAfterBackfillJdbcRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        job = new BalanceAfterBackfillJob(backfillRepository, transactionManager, true, 2);
+    }
+
+    @Test
+    void run_processesChunksOfAccounts_untilNoneArePending() {
+        when(backfillRepository.findPendingAccountIds(2))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L))
+                .thenReturn(List.of());
+        when(backfillRepository.backfillAccounts(List.of(1L, 2L))).thenReturn(10);
+        when(backfillRepository.backfillAccounts(List.of(3L))).thenReturn(4);
+
+        assertEquals(14, job.run());
+        verify(backfillRepository, times(3)).findPendingAccountIds(2);
+    }
+
+    @Test
+    void run_stopsWhenAChunkFillsNothing() {
+        when(backfillRepository.findPendingAccountIds(2)).thenReturn(List.of(1L));
+        when(backfillRepository.backfillAccounts(List.of(1L))).thenReturn(0);
+
+        assertEquals(0, job.run());
+        verify(backfillRepository, times(1)).backfillAccounts(any());
+    }
+
+    @Test
+    void invalidChunkSize_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BalanceAfterBackfillJob(
+                backfillRepository, mock(PlatformTransactionManager.class), true, 0));
+    }
+}
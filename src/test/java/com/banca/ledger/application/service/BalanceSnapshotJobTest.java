@@ -0,0 +1,104 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.infrastructure.persistence.BalanceSnapshotJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.BalanceSnapshotJdbcRepository.SnapshotState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BalanceSnapshotJobTest {
+
+    // 2026-03-10 00:02 UTC: con settle-after de 5m el 2026-03-09 todavía no está cerrado
+    private static final Instant NOW = Instant.parse("2026-03-10T00:02:00Z");
+
+    private BalanceSnapshotJdbcRepository snapshotRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        snapshotRepository = mock(BalanceSnapshotJdbcRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void run_advancesDayByDay_untilLastClosedDay() {
+        when(snapshotRepository.findState())
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 5), 7))
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 6), 8))
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 7), 9))
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 8), 10));
+        when(snapshotRepository.advance(any(), anyLong())).thenReturn(true);
+
+        int advanced = job(400).run(NOW);
+
+        assertEquals(3, advanced);
+        verify(snapshotRepository).snapshotDay(LocalDate.of(2026, 3, 6));
+        verify(snapshotRepository).snapshotDay(LocalDate.of(2026, 3, 7));
+        verify(snapshotRepository).snapshotDay(LocalDate.of(2026, 3, 8));
+        verify(snapshotRepository).advance(LocalDate.of(2026, 3, 8), 9);
+        verify(snapshotRepository, never()).snapshotDay(LocalDate.of(2026, 3, 9));
+        verify(snapshotRepository, never()).findFirstEntryDay();
+    }
+
+    @Test
+    void run_withoutWatermark_startsAtFirstEntryDay() {
+        when(snapshotRepository.findState())
+                .thenReturn(new SnapshotState(null, 0))
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 8), 1));
+        when(snapshotRepository.findFirstEntryDay()).thenReturn(Optional.of(LocalDate.of(2026, 3, 8)));
+        when(snapshotRepository.advance(LocalDate.of(2026, 3, 8), 0)).thenReturn(true);
+
+        assertEquals(1, job(400).run(NOW));
+        verify(snapshotRepository).snapshotDay(LocalDate.of(2026, 3, 8));
+    }
+
+    @Test
+    void run_emptyLedger_doesNothing() {
+        when(snapshotRepository.findState()).thenReturn(new SnapshotState(null, 0));
+        when(snapshotRepository.findFirstEntryDay()).thenReturn(Optional.empty());
+
+        assertEquals(0, job(400).run(NOW));
+        verify(snapshotRepository, never()).snapshotDay(any());
+    }
+
+    @Test
+    void run_whenWatermarkChangedDuringDay_rollsBackAndRecomputes() {
+        // Un asiento tardío invalida la marca mientras se calcula el 2026-03-08: el CAS falla
+        when(snapshotRepository.findState())
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 7), 4))
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 7), 5))
+                .thenReturn(new SnapshotState(LocalDate.of(2026, 3, 8), 6));
+        when(snapshotRepository.advance(LocalDate.of(2026, 3, 8), 4)).thenReturn(false);
+        when(snapshotRepository.advance(LocalDate.of(2026, 3, 8), 5)).thenReturn(true);
+
+        assertEquals(1, job(400).run(NOW));
+        verify(snapshotRepository, times(2)).snapshotDay(LocalDate.of(2026, 3, 8));
+    }
+
+    @Test
+    void run_stopsAtMaxDaysPerRun() {
+        when(snapshotRepository.findState())
+                .thenReturn(new SnapshotState(LocalDate.of(2020, 1, 1), 1))
+                .thenReturn(new SnapshotState(LocalDate.of(2020, 1, 2), 2));
+        when(snapshotRepository.advance(any(), anyLong())).thenReturn(true);
+
+        assertEquals(2, job(2).run(NOW));
+        verify(snapshotRepository, times(2)).snapshotDay(any());
+    }
+
+    private BalanceSnapshotJob job(int maxDaysPerRun) {
+        return new BalanceSnapshotJob(snapshotRepository, transactionManager, true, Duration.ofMinutes(5), maxDaysPerRun);
+    }
+}
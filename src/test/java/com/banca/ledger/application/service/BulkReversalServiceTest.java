@@ -0,0 +1,222 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.enums.ReversalStatus;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.ReversalRow;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkReversalServiceTest {
+
+    private LedgerOperationRepository ledgerOperationRepository;
+    private LedgerEntryRepository ledgerEntryRepository;
+    private LedgerBatchJdbcRepository ledgerBatchJdbcRepository;
+    private IdempotencyKeyFilter idempotencyKeyFilter;
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+
+    // "BD" de originales y sus asientos
+    private final Map<UUID, LedgerOperation> operations = new HashMap<>();
+    private final Map<UUID, List<LedgerEntry>> entries = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ledgerOperationRepository = mock(LedgerOperationRepository.class);
+        ledgerEntryRepository = mock(LedgerEntryRepository.class);
+        ledgerBatchJdbcRepository = mock(LedgerBatchJdbcRepository.class);
+        idempotencyKeyFilter = mock(IdempotencyKeyFilter.class);
+        accountBalanceRepository = mock(AccountBalanceJdbcRepository.class);
+        when(accountBalanceRepository.applyRows(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        when(ledgerOperationRepository.findAllByIdForUpdate(anyCollection())).thenAnswer(inv -> {
+            Collection<UUID> ids = inv.getArgument(0);
+            return ids.stream().map(operations::get).filter(Objects::nonNull).toList();
+        });
+        when(ledgerEntryRepository.findByOperationIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<UUID> ids = inv.getArgument(0);
+            return ids.stream().flatMap(id -> entries.getOrDefault(id, List.of()).stream()).toList();
+        });
+    }
+
+    @Test
+    void reverseOperations_reportsOneResultPerOperation_inRequestOrder() {
+        UUID pending = operation("ref-1", "100.00");
+        UUID alreadyReversed = operation("ref-2", "50.00");
+        UUID previousReversal = UUID.randomUUID();
+        operations.get(alreadyReversed).markReversedBy(previousReversal);
+        UUID withoutEntries = UUID.randomUUID();
+        operations.put(withoutEntries, newOperation(withoutEntries, "ref-3"));
+        UUID missing = UUID.randomUUID();
+
+        List<BulkReversalResult> results = service(500)
+                .reverseOperations(List.of(pending, alreadyReversed, withoutEntries, missing));
+
+        assertEquals(List.of(pending, alreadyReversed, withoutEntries, missing),
+                results.stream().map(BulkReversalResult::operationId).toList());
+        assertEquals(ReversalStatus.REVERSED, results.get(0).status());
+        assertEquals(2, results.get(0).entriesReversed());
+        assertEquals(ReversalStatus.ALREADY_REVERSED, results.get(1).status());
+        assertEquals(previousReversal, results.get(1).reversalOperationId());
+        assertEquals(ReversalStatus.FAILED, results.get(2).status());
+        assertEquals(ReversalStatus.NOT_FOUND, results.get(3).status());
+
+        // Una sola escritura en batch con la reversa enlazada a su original
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReversalRow>> reversals = ArgumentCaptor.forClass(List.class);
+        verify(ledgerBatchJdbcRepository).insertReversals(reversals.capture());
+        assertEquals(1, reversals.getValue().size());
+        ReversalRow row = reversals.getValue().get(0);
+        assertEquals(pending, row.originalOperationId());
+        assertEquals(results.get(0).reversalOperationId(), row.operation().id());
+        assertEquals("reversal:" + pending, row.operation().idempotencyKey());
+        assertEquals("ref-1", row.operation().referenceId());
+
+        // Asientos inversos apuntando a la reversa
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EntryRow>> reversedEntries = ArgumentCaptor.forClass(List.class);
+        verify(ledgerBatchJdbcRepository).insertEntries(reversedEntries.capture());
+        assertEquals(List.of(EntryType.CREDIT, EntryType.DEBIT),
+                reversedEntries.getValue().stream().map(EntryRow::entryType).toList());
+        assertTrue(reversedEntries.getValue().stream().allMatch(e -> e.operationId().equals(row.operation().id())));
+
+        // Solo se consultan los asientos de las que de verdad se reversan
+        verify(ledgerEntryRepository).findByOperationIdIn(List.of(pending, withoutEntries));
+        verify(idempotencyKeyFilter).addAfterCommit(List.of("reversal:" + pending));
+        verify(accountBalanceRepository).applyRows(reversedEntries.getValue());
+        verify(accountBalanceRepository).updateLastEntryIdsOfOperations(List.of(row.operation().id()));
+    }
+
+    @Test
+    void reverseOperations_processesInChunks_oneLockQueryPerChunk() {
+        List<UUID> ids = List.of(operation("r1", "1"), operation("r2", "2"), operation("r3", "3"));
+
+        List<BulkReversalResult> results = service(2).reverseOperations(ids);
+
+        assertTrue(results.stream().allMatch(r -> r.status() == ReversalStatus.REVERSED));
+        verify(ledgerOperationRepository).findAllByIdForUpdate(ids.subList(0, 2));
+        verify(ledgerOperationRepository).findAllByIdForUpdate(ids.subList(2, 3));
+        verify(ledgerBatchJdbcRepository, times(2)).insertReversals(any());
+    }
+
+    @Test
+    void reverseOperations_failedChunk_isReportedWithoutAbortingTheRest() {
+        List<UUID> ids = List.of(operation("r1", "1"), operation("r2", "2"), operation("r3", "3"));
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .doNothing()
+                .when(ledgerBatchJdbcRepository).insertReversals(any());
+
+        List<BulkReversalResult> results = service(2).reverseOperations(ids);
+
+        assertEquals(List.of(ReversalStatus.FAILED, ReversalStatus.FAILED, ReversalStatus.REVERSED),
+                results.stream().map(BulkReversalResult::status).toList());
+        assertTrue(results.get(0).message().contains("duplicate key"));
+    }
+
+    @Test
+    void reverseOperations_duplicatedIds_areReversedOnce() {
+        UUID id = operation("r1", "1");
+
+        List<BulkReversalResult> results = service(500).reverseOperations(List.of(id, id));
+
+        assertEquals(1, results.size());
+        verify(ledgerOperationRepository).findAllByIdForUpdate(List.of(id));
+    }
+
+    @Test
+    void reverseOperations_empty_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> service(500).reverseOperations(List.of()));
+        verifyNoInteractions(ledgerOperationRepository, ledgerBatchJdbcRepository);
+    }
+
+    @Test
+    void reverseByReference_resolvesIdsWithOneQuery() {
+        UUID a = operation("BATCH-001", "10");
+        UUID b = operation("BATCH-002", "20");
+        when(ledgerOperationRepository.findReversibleIdsByReferenceRange(
+                eq(ReferenceType.TRANSFER), eq("BATCH-001"), eq("BATCH-999"), any(Pageable.class)))
+                .thenReturn(List.of(a, b));
+
+        List<BulkReversalResult> results = service(500)
+                .reverseByReference(ReferenceType.TRANSFER, "BATCH-001", "BATCH-999");
+
+        assertEquals(List.of(a, b), results.stream().map(BulkReversalResult::operationId).toList());
+        assertTrue(results.stream().allMatch(r -> r.status() == ReversalStatus.REVERSED));
+    }
+
+    @Test
+    void reverseByReference_tooManyOperations_throwsIllegalArgument_withoutReversing() {
+        List<UUID> tooMany = Collections.nCopies(BulkReversalService.MAX_OPERATIONS + 1, UUID.randomUUID());
+        when(ledgerOperationRepository.findReversibleIdsByReferenceRange(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(tooMany);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service(500).reverseByReference(ReferenceType.TRANSFER, "A", "Z"));
+        verify(ledgerOperationRepository, never()).findAllByIdForUpdate(anyCollection());
+    }
+
+    @Test
+    void reverseByReference_invertedRange_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service(500).reverseByReference(ReferenceType.TRANSFER, "Z", "A"));
+    }
+
+    private BulkReversalService service(int chunkSize) {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        return new BulkReversalService(ledgerOperationRepository, ledgerEntryRepository, ledgerBatchJdbcRepository,
+                idempotencyKeyFilter, accountBalanceRepository, mock(AccountBalanceCache.class), transactionManager, chunkSize);
+    }
+
+    // Operación original con un DEBIT y un CREDIT por el mismo monto
+    private UUID operation(String referenceId, String amount) {
+        UUID id = UUID.randomUUID();
+        LedgerOperation op = newOperation(id, referenceId);
+        operations.put(id, op);
+        entries.put(id, List.of(
+                new LedgerEntry(10L, EntryType.DEBIT, new BigDecimal(amount), Currency.PEN, op),
+                new LedgerEntry(20L, EntryType.CREDIT, new BigDecimal(amount), Currency.PEN, op)
+        ));
+        return id;
+    }
+
+    private static LedgerOperation newOperation(UUID id, String referenceId) {
+        LedgerOperation op = new LedgerOperation("idem-" + referenceId, ReferenceType.TRANSFER, referenceId);
+        setPrivateField(op, "id", id);
+        return op;
+    }
+
+    private static void setPrivateField(Object target, String fieldName, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(fieldName);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException("No se pudo setear el campo '" + fieldName + "' por reflexión", e);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.api.mapper.CompositeMovementAssembler;
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
+import com.banca.ledger.domain.enums.BatchItemStatus;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.EntryRow;
+import com.banca.ledger.infrastructure.persistence.LedgerBatchJdbcRepository.OperationRow;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEntryCommandServiceCreateEntriesTest {
+
+    @Mock private LedgerEntryRepository ledgerEntryRepository;
+    @Mock private LedgerOperationRepository ledgerOperationRepository;
+    @Mock private CompositeMovementAssembler compositeMovementAssembler; // no se usa aquí pero el ctor lo pide
+    @Mock private LedgerBatchJdbcRepository ledgerBatchJdbcRepository;
+    @Mock private IdempotencyKeyFilter idempotencyKeyFilter;
+    @Mock private AccountBalanceJdbcRepository accountBalanceRepository;
+    @Mock private AccountBalanceCache accountBalanceCache;
+
+    @InjectMocks private LedgerEntryCommandService service;
+
+    @Test
+    void newKeys_areCreated_withOneBatchPerTable_andWithoutLookup() {
+        CreateLedgerEntryRequest r1 = request("idem-1", "ref-1", 10L);
+        CreateLedgerEntryRequest r2 = request("idem-2", "ref-2", 20L);
+
+        // El Bloom filter descarta ambas keys: no hace falta el SELECT previo
+        when(idempotencyKeyFilter.mightContain(anyString())).thenReturn(false);
+        when(ledgerBatchJdbcRepository.insertOperationsSkippingExisting(anyList()))
+                .thenAnswer(inv -> idsOf(inv.getArgument(0)));
+        stubEntriesFromInsertedRows();
+
+        List<BatchEntryResult> results = service.createEntries(List.of(r1, r2));
+
+        assertEquals(2, results.size());
+        assertEquals(BatchItemStatus.CREATED, results.get(0).status());
+        assertEquals(BatchItemStatus.CREATED, results.get(1).status());
+        assertEquals(10L, results.get(0).entry().getAccountId());
+        assertEquals(20L, results.get(1).entry().getAccountId());
+
+        verify(ledgerOperationRepository, never()).findByIdempotencyKeyIn(anyCollection());
+        verify(ledgerBatchJdbcRepository, times(1)).insertOperationsSkippingExisting(anyList());
+        verify(ledgerBatchJdbcRepository, times(1)).insertEntries(anyList());
+        verify(ledgerEntryRepository, times(1)).findByOperationIdIn(anyCollection());
+
+        // Nada pasa por el camino individual
+        verify(ledgerOperationRepository, never()).findByIdempotencyKey(any());
+        verify(ledgerEntryRepository, never()).findByOperationId(any());
+
+        verify(idempotencyKeyFilter).addAfterCommit(Set.of("idem-1", "idem-2"));
+        verify(accountBalanceRepository).applyRows(argThat(rows -> rows.size() == 2));
+        verify(accountBalanceRepository).updateLastEntryIdsOfOperations(argThat(ids -> ids.size() == 2));
+    }
+
+    @Test
+    void existingKeys_areReplayedOrConflict_withoutInserting() {
+        CreateLedgerEntryRequest replay = request("idem-1", "ref-1", 10L);
+        CreateLedgerEntryRequest conflict = request("idem-2", "ref-otro", 20L);
+
+        LedgerOperation op1 = operation("idem-1", "ref-1");
+        LedgerOperation op2 = operation("idem-2", "ref-2");
+        LedgerEntry existingEntry = new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("100.00"), Currency.PEN, op1);
+
+        when(idempotencyKeyFilter.mightContain(anyString())).thenReturn(true);
+        when(ledgerOperationRepository.findByIdempotencyKeyIn(anyCollection())).thenReturn(List.of(op1, op2));
+        when(ledgerBatchJdbcRepository.insertOperationsSkippingExisting(List.of())).thenReturn(Set.of());
+        when(ledgerEntryRepository.findByOperationIdIn(Set.of(op1.getId()))).thenReturn(List.of(existingEntry));
+
+        List<BatchEntryResult> results = service.createEntries(List.of(replay, conflict));
+
+        assertEquals(BatchItemStatus.REPLAYED, results.get(0).status());
+        assertSame(existingEntry, results.get(0).entry());
+
+        assertEquals(BatchItemStatus.CONFLICT, results.get(1).status());
+        assertNull(results.get(1).entry());
+        assertTrue(results.get(1).message().contains("Conflicto de idempotencia"));
+
+        verify(ledgerBatchJdbcRepository).insertEntries(List.of());
+        verify(accountBalanceRepository).updateLastEntryIdsOfOperations(List.of());
+        verify(idempotencyKeyFilter).recordFalsePositives(0);
+    }
+
+    @Test
+    void bloomMaybe_butMissingInDb_isCreated_andCountedAsFalsePositive() {
+        CreateLedgerEntryRequest maybe = request("idem-1", "ref-1", 10L);
+        CreateLedgerEntryRequest absent = request("idem-2", "ref-2", 20L);
+
+        when(idempotencyKeyFilter.mightContain("idem-1")).thenReturn(true);
+        when(idempotencyKeyFilter.mightContain("idem-2")).thenReturn(false);
+        when(ledgerOperationRepository.findByIdempotencyKeyIn(List.of("idem-1"))).thenReturn(List.of());
+        when(ledgerBatchJdbcRepository.insertOperationsSkippingExisting(anyList()))
+                .thenAnswer(inv -> idsOf(inv.getArgument(0)));
+        stubEntriesFromInsertedRows();
+
+        List<BatchEntryResult> results = service.createEntries(List.of(maybe, absent));
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).status());
+        assertEquals(BatchItemStatus.CREATED, results.get(1).status());
+        verify(ledgerOperationRepository).findByIdempotencyKeyIn(List.of("idem-1"));
+        verify(idempotencyKeyFilter).recordFalsePositives(1);
+    }
+
+    @Test
+    void duplicatedKeyInsideBatch_createsOnce_andReplaysTheRest() {
+        CreateLedgerEntryRequest first = request("idem-1", "ref-1", 10L);
+        CreateLedgerEntryRequest retry = request("idem-1", "ref-1", 10L);
+
+        when(idempotencyKeyFilter.mightContain(anyString())).thenReturn(false);
+        when(ledgerBatchJdbcRepository.insertOperationsSkippingExisting(anyList()))
+                .thenAnswer(inv -> idsOf(inv.getArgument(0)));
+        stubEntriesFromInsertedRows();
+
+        List<BatchEntryResult> results = service.createEntries(List.of(first, retry));
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).status());
+        assertEquals(BatchItemStatus.REPLAYED, results.get(1).status());
+        assertSame(results.get(0).entry(), results.get(1).entry());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OperationRow>> opsCaptor = ArgumentCaptor.forClass((Class) List.class);
+        verify(ledgerBatchJdbcRepository).insertOperationsSkippingExisting(opsCaptor.capture());
+        assertEquals(1, opsCaptor.getValue().size(), "Debe insertarse una sola operación por key");
+    }
+
+    @Test
+    void lostRaceOnInsert_isReclassifiedAsReplay() {
+        CreateLedgerEntryRequest r1 = request("idem-1", "ref-1", 10L);
+
+        LedgerOperation winner = operation("idem-1", "ref-1");
+        LedgerEntry winnerEntry = new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("100.00"), Currency.PEN, winner);
+
+        // Otro pod creó la key: el filtro local no la conoce, el ON CONFLICT la detecta
+        when(idempotencyKeyFilter.mightContain(anyString())).thenReturn(false);
+        when(ledgerOperationRepository.findByIdempotencyKeyIn(anyCollection()))
+                .thenReturn(List.of(winner));     // tras perder la carrera: ya existe
+        when(ledgerBatchJdbcRepository.insertOperationsSkippingExisting(anyList())).thenReturn(Set.of());
+        when(ledgerEntryRepository.findByOperationIdIn(Set.of(winner.getId()))).thenReturn(List.of(winnerEntry));
+
+        List<BatchEntryResult> results = service.createEntries(List.of(r1));
+
+        assertEquals(BatchItemStatus.REPLAYED, results.get(0).status());
+        assertSame(winnerEntry, results.get(0).entry());
+        verify(ledgerBatchJdbcRepository).insertEntries(List.of());
+    }
+
+    @Test
+    void invalidItem_throwsIllegalArgument_withIndex() {
+        CreateLedgerEntryRequest ok = request("idem-1", "ref-1", 10L);
+        CreateLedgerEntryRequest bad = request("idem-2", "ref-2", 10L);
+        bad.setAmount(BigDecimal.ZERO);
+
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class,
+                () -> service.createEntries(List.of(ok, bad))
+        );
+
+        assertEquals("entries[1]: amount debe ser mayor a 0", ex.getMessage());
+        verifyNoInteractions(ledgerOperationRepository, ledgerEntryRepository, ledgerBatchJdbcRepository, idempotencyKeyFilter);
+    }
+
+    // Simula el SELECT final: construye 1 entry por cada fila insertada en el batch de entries
+    private void stubEntriesFromInsertedRows() {
+        when(accountBalanceRepository.applyRows(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        Map<UUID, LedgerEntry> byOpId = new HashMap<>();
+        doAnswer(inv -> {
+            List<EntryRow> rows = inv.getArgument(0);
+            for (EntryRow row : rows) {
+                LedgerOperation op = new LedgerOperation("x", ReferenceType.DEPOSIT, "x");
+                setPrivateField(op, "id", row.operationId());
+                byOpId.put(row.operationId(),
+                        new LedgerEntry(row.accountId(), row.entryType(), row.amount(), row.currency(), op));
+            }
+            return null;
+        }).when(ledgerBatchJdbcRepository).insertEntries(anyList());
+        when(ledgerEntryRepository.findByOperationIdIn(anyCollection()))
+                .thenAnswer(inv -> {
+                    Collection<UUID> ids = inv.getArgument(0);
+                    return ids.stream().map(byOpId::get).filter(Objects::nonNull).toList();
+                });
+    }
+
+    private static Set<UUID> idsOf(List<OperationRow> rows) {
+        return rows.stream().map(OperationRow::id).collect(Collectors.toSet());
+    }
+
+    private static CreateLedgerEntryRequest request(String idempotencyKey, String referenceId, Long accountId) {
+        CreateLedgerEntryRequest request = new CreateLedgerEntryRequest();
+        request.setAccountId(accountId);
+        request.setEntryType(EntryType.CREDIT);
+        request.setAmount(new BigDecimal("100.00"));
+        request.setCurrency(Currency.PEN);
+        request.setReferenceType(ReferenceType.DEPOSIT);
+        request.setReferenceId(referenceId);
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+
+    private static LedgerOperation operation(String idempotencyKey, String referenceId) {
+        LedgerOperation op = new LedgerOperation(idempotencyKey, ReferenceType.DEPOSIT, referenceId);
+        setPrivateField(op, "id", UUID.randomUUID());
+        return op;
+    }
+
+    private static void setPrivateField(Object target, String fieldName, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(fieldName);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException("No se pudo setear el campo '" + fieldName + "' por reflexión", e);
+        }
+    }
+}
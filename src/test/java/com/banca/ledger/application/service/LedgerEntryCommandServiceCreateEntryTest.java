@@ -2,22 +2,26 @@ package com.banca.ledger.application.service;
 
 import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
 import com.banca.ledger.api.mapper.CompositeMovementAssembler;
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +29,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class LedgerEntryCommandServiceCreateEntryTest {
@@ -38,6 +43,15 @@ class LedgerEntryCommandServiceCreateEntryTest {
     @Mock
     private CompositeMovementAssembler compositeMovementAssembler;
 
+    @Mock
+    private IdempotencyKeyFilter idempotencyKeyFilter;
+
+    @Mock
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+
+    @Mock
+    private AccountBalanceCache accountBalanceCache;
+
     @InjectMocks
     private LedgerEntryCommandService service;
 
@@ -58,28 +72,21 @@ class LedgerEntryCommandServiceCreateEntryTest {
         request.setReferenceId("ref-123");
         request.setIdempotencyKey("idem-abc-123");
 
-        // Operación NO existe
-        when(ledgerOperationRepository.findByIdempotencyKey("idem-abc-123"))
-                .thenReturn(Optional.empty());
-
-        // Al guardar operación, devolvemos una operación "persistida"
+        // Operación NO existe: el upsert inserta la fila con el id propuesto por el service
         LedgerOperation savedOperation = new LedgerOperation(
                 "idem-abc-123",
                 ReferenceType.DEPOSIT,
                 "ref-123"
         );
 
-        // 🔧 IMPORTANTE: en unit tests con mocks NO corre @PrePersist,
-        // así que seteamos manualmente el UUID para simular "persistencia"
-        UUID opId = UUID.randomUUID();
-        setPrivateField(savedOperation, "id", opId);
-
-        when(ledgerOperationRepository.save(any(LedgerOperation.class)))
-                .thenReturn(savedOperation);
-
-        // Aún no hay entries asociados a esa operación
-        when(ledgerEntryRepository.findByOperationId(opId))
-                .thenReturn(Collections.emptyList());
+        // 🔧 IMPORTANTE: en unit tests con mocks NO corre @PrePersist ni el INSERT,
+        // así que seteamos manualmente el UUID propuesto para simular "persistencia"
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    setPrivateField(savedOperation, "id", invocation.getArgument(0));
+                    return Optional.of(savedOperation);
+                });
 
         // Al guardar entry, devolvemos el mismo objeto (simulación)
         when(ledgerEntryRepository.save(any(LedgerEntry.class)))
@@ -87,6 +94,7 @@ class LedgerEntryCommandServiceCreateEntryTest {
 
         // 2) Act
         LedgerEntry result = service.createEntry(request);
+        UUID opId = savedOperation.getId();
 
         // 3) Assert (sobre el retorno del service)
         assertNotNull(result);
@@ -98,10 +106,12 @@ class LedgerEntryCommandServiceCreateEntryTest {
         assertEquals("idem-abc-123", result.getOperation().getIdempotencyKey());
         assertEquals(opId, result.getOperation().getId());
 
-        // 4) Verify (interacciones)
-        verify(ledgerOperationRepository, times(1)).findByIdempotencyKey("idem-abc-123");
-        verify(ledgerOperationRepository, times(1)).save(any(LedgerOperation.class));
-        verify(ledgerEntryRepository, times(1)).findByOperationId(opId);
+        // 4) Verify (interacciones): 1 sentencia para la operación, sin lookup de entries (operación nueva)
+        verify(ledgerOperationRepository, times(1)).insertIfAbsent(
+                eq(opId), eq("idem-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class));
+        verify(ledgerOperationRepository, never()).findByIdempotencyKey(any());
+        verify(ledgerOperationRepository, never()).save(any(LedgerOperation.class));
+        verify(ledgerEntryRepository, never()).findByOperationId(any());
         verify(ledgerEntryRepository, times(1)).save(any(LedgerEntry.class));
 
         // 5) Capturar lo que se guardó para verificar contenido
@@ -116,6 +126,13 @@ class LedgerEntryCommandServiceCreateEntryTest {
         assertNotNull(savedEntry.getOperation());
         assertEquals("idem-abc-123", savedEntry.getOperation().getIdempotencyKey());
         assertEquals(opId, savedEntry.getOperation().getId());
+
+        // Saldo materializado en la misma transacción: balance_after antes del INSERT, last_entry_id después
+        InOrder inOrder = inOrder(accountBalanceRepository, ledgerEntryRepository);
+        inOrder.verify(accountBalanceRepository).applyEntries(List.of(result));
+        inOrder.verify(ledgerEntryRepository).save(result);
+        inOrder.verify(accountBalanceRepository).updateLastEntryIds(List.of(result));
+        verify(accountBalanceCache).invalidateAfterCommit(List.of(10L));
     }
 
     @Test
@@ -139,7 +156,8 @@ class LedgerEntryCommandServiceCreateEntryTest {
         UUID opId = UUID.randomUUID();
         setPrivateField(existingOperation, "id", opId);
 
-        when(ledgerOperationRepository.findByIdempotencyKey("idem-abc-123"))
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
                 .thenReturn(Optional.of(existingOperation));
 
         // Ya existe EXACTAMENTE 1 entry asociada a la operación
@@ -162,11 +180,13 @@ class LedgerEntryCommandServiceCreateEntryTest {
         assertSame(existingEntry, result, "Debe devolver la MISMA instancia existente (idempotencia)");
 
         // 4) Verify (interacciones)
-        verify(ledgerOperationRepository, times(1)).findByIdempotencyKey("idem-abc-123");
+        verify(ledgerOperationRepository, times(1)).insertIfAbsent(
+                any(UUID.class), eq("idem-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class));
         verify(ledgerOperationRepository, never()).save(any(LedgerOperation.class));
 
         verify(ledgerEntryRepository, times(1)).findByOperationId(opId);
         verify(ledgerEntryRepository, never()).save(any(LedgerEntry.class));
+        verifyNoInteractions(accountBalanceRepository);
     }
 
     @Test
@@ -190,7 +210,8 @@ class LedgerEntryCommandServiceCreateEntryTest {
         UUID opId = UUID.randomUUID();
         setPrivateField(existingOperation, "id", opId);
 
-        when(ledgerOperationRepository.findByIdempotencyKey("idem-abc-123"))
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
                 .thenReturn(Optional.of(existingOperation));
 
         // La operación tiene MÁS DE 1 entry asociado -> inconsistencia
@@ -220,7 +241,8 @@ class LedgerEntryCommandServiceCreateEntryTest {
         assertTrue(ex.getMessage().contains("Inconsistencia"));
 
         // 3) Verify (no debe intentar guardar nada nuevo)
-        verify(ledgerOperationRepository, times(1)).findByIdempotencyKey("idem-abc-123");
+        verify(ledgerOperationRepository, times(1)).insertIfAbsent(
+                any(UUID.class), eq("idem-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class));
         verify(ledgerOperationRepository, never()).save(any(LedgerOperation.class));
 
         verify(ledgerEntryRepository, times(1)).findByOperationId(opId);
@@ -228,6 +250,41 @@ class LedgerEntryCommandServiceCreateEntryTest {
     }
 
 
+    @Test
+    void upsertReturnsNoRow_fallsBackToFindByIdempotencyKey() {
+        // Carrera muy ajustada: la fila ganadora se confirmó después del snapshot del upsert
+        CreateLedgerEntryRequest request = new CreateLedgerEntryRequest();
+        request.setAccountId(10L);
+        request.setEntryType(EntryType.CREDIT);
+        request.setAmount(new BigDecimal("100.00"));
+        request.setCurrency(Currency.PEN);
+        request.setReferenceType(ReferenceType.DEPOSIT);
+        request.setReferenceId("ref-123");
+        request.setIdempotencyKey("idem-abc-123");
+
+        LedgerOperation winner = new LedgerOperation("idem-abc-123", ReferenceType.DEPOSIT, "ref-123");
+        UUID opId = UUID.randomUUID();
+        setPrivateField(winner, "id", opId);
+
+        LedgerEntry winnerEntry = new LedgerEntry(
+                10L, EntryType.CREDIT, new BigDecimal("100.00"), Currency.PEN, winner
+        );
+
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
+                .thenReturn(Optional.empty());
+        when(ledgerOperationRepository.findByIdempotencyKey("idem-abc-123"))
+                .thenReturn(Optional.of(winner));
+        when(ledgerEntryRepository.findByOperationId(opId))
+                .thenReturn(List.of(winnerEntry));
+
+        LedgerEntry result = service.createEntry(request);
+
+        assertSame(winnerEntry, result, "Debe devolver la entry de la operación ganadora");
+        verify(ledgerOperationRepository, times(1)).findByIdempotencyKey("idem-abc-123");
+        verify(ledgerEntryRepository, never()).save(any(LedgerEntry.class));
+    }
+
     /**
      * Helper para setear campos privados (como el UUID id de entidades JPA)
      * en tests unitarios, simulando el efecto de @PrePersist.
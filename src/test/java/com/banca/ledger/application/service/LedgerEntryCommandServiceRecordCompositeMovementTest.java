@@ -3,23 +3,26 @@ package com.banca.ledger.application.service;
 import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
 import com.banca.ledger.api.mapper.CompositeMovementAssembler;
 import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
-import java.util.Collections;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,6 +30,7 @@ import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +45,15 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
     @Mock
     private CompositeMovementAssembler compositeMovementAssembler;
 
+    @Mock
+    private IdempotencyKeyFilter idempotencyKeyFilter;
+
+    @Mock
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+
+    @Mock
+    private AccountBalanceCache accountBalanceCache;
+
     @InjectMocks
     private LedgerEntryCommandService service;
 
@@ -56,22 +69,19 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         request.setReferenceId("ref-123");
         request.setIdempotencyKey("idem-uc2-abc-123");
 
-        when(ledgerOperationRepository.findByIdempotencyKey("idem-uc2-abc-123"))
-                .thenReturn(Optional.empty());
-
         LedgerOperation savedOperation = new LedgerOperation(
                 "idem-uc2-abc-123",
                 ReferenceType.DEPOSIT,
                 "ref-123"
         );
-        UUID opId = UUID.randomUUID();
-        setPrivateField(savedOperation, "id", opId);
-
-        when(ledgerOperationRepository.save(any(LedgerOperation.class)))
-                .thenReturn(savedOperation);
 
-        when(ledgerEntryRepository.findByOperationId(opId))
-                .thenReturn(Collections.emptyList());
+        // El upsert inserta la operación con el id propuesto por el service
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-uc2-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    setPrivateField(savedOperation, "id", invocation.getArgument(0));
+                    return Optional.of(savedOperation);
+                });
 
         LedgerEntry debitEntry = new LedgerEntry(
                 request.getDebitAccountId(),
@@ -97,6 +107,7 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
 
         // Act
         OperationEntries result = service.recordCompositeMovement(request);
+        UUID opId = savedOperation.getId();
 
         // Assert
         assertNotNull(result);
@@ -107,10 +118,11 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         assertNotNull(result.entries());
         assertEquals(2, result.entries().size());
 
-        // Verify
-        verify(ledgerOperationRepository).findByIdempotencyKey("idem-uc2-abc-123");
-        verify(ledgerOperationRepository).save(any(LedgerOperation.class));
-        verify(ledgerEntryRepository).findByOperationId(opId);
+        // Verify: 1 sentencia para la operación y sin lookup de entries (operación recién creada)
+        verify(ledgerOperationRepository).insertIfAbsent(
+                eq(opId), eq("idem-uc2-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class));
+        verify(ledgerOperationRepository, never()).findByIdempotencyKey(any());
+        verify(ledgerEntryRepository, never()).findByOperationId(any());
 
         verify(compositeMovementAssembler).toEntries(request, savedOperation);
         verify(ledgerEntryRepository).saveAll(anyList());
@@ -122,6 +134,11 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
 
         List<LedgerEntry> sentToSaveAll = listCaptor.getValue();
         assertEquals(2, sentToSaveAll.size());
+
+        InOrder inOrder = inOrder(accountBalanceRepository, ledgerEntryRepository);
+        inOrder.verify(accountBalanceRepository).applyEntries(result.entries());
+        inOrder.verify(ledgerEntryRepository).saveAll(result.entries());
+        inOrder.verify(accountBalanceRepository).updateLastEntryIds(result.entries());
     }
 
     @Test
@@ -144,7 +161,8 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         UUID opId = UUID.randomUUID();
         setPrivateField(existingOperation, "id", opId);
 
-        when(ledgerOperationRepository.findByIdempotencyKey("idem-uc2-abc-123"))
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-uc2-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
                 .thenReturn(Optional.of(existingOperation));
 
         LedgerEntry debitEntry = new LedgerEntry(
@@ -182,12 +200,14 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         assertEquals(2, result.entries().size());
 
         // Verify
-        verify(ledgerOperationRepository).findByIdempotencyKey("idem-uc2-abc-123");
+        verify(ledgerOperationRepository).insertIfAbsent(
+                any(UUID.class), eq("idem-uc2-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class));
         verify(ledgerOperationRepository, never()).save(any(LedgerOperation.class));
 
         verify(ledgerEntryRepository).findByOperationId(opId);
         verify(compositeMovementAssembler, never()).toEntries(any(), any());
         verify(ledgerEntryRepository, never()).saveAll(anyList());
+        verifyNoInteractions(accountBalanceRepository);
     }
 
     @Test
@@ -210,14 +230,16 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         UUID opId = UUID.randomUUID();
         setPrivateField(existingOperation, "id", opId);
 
-        when(ledgerOperationRepository.findByIdempotencyKey("idem-uc2-abc-123"))
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-uc2-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
                 .thenReturn(Optional.of(existingOperation));
 
         // Act + Assert
         assertThrows(ConflictException.class, () -> service.recordCompositeMovement(request));
 
         // Verify
-        verify(ledgerOperationRepository).findByIdempotencyKey("idem-uc2-abc-123");
+        verify(ledgerOperationRepository).insertIfAbsent(
+                any(UUID.class), eq("idem-uc2-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class));
         verify(ledgerOperationRepository, never()).save(any(LedgerOperation.class));
 
         verify(ledgerEntryRepository, never()).findByOperationId(any(UUID.class));
@@ -225,7 +247,7 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         verify(ledgerEntryRepository, never()).saveAll(anyList());
     }
     @Test
-    void existingEntriesSizeNotTwo_throwsIllegalState(){
+    void existingEntriesSizeNotTwo_throwsConflict(){
         CreateCompositeLedgerMovementRequest request = new CreateCompositeLedgerMovementRequest();
         request.setDebitAccountId(10L);
         request.setCreditAccountId(20L);
@@ -242,7 +264,8 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         UUID opId = UUID.randomUUID();
         setPrivateField(existingOperation, "id", opId);
 
-        when(ledgerOperationRepository.findByIdempotencyKey("idem-uc2-abc-123"))
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-uc2-abc-123"), eq("DEPOSIT"), eq("ref-123"), any(Instant.class)))
                 .thenReturn(Optional.of(existingOperation));
 
         LedgerEntry debitEntry = new LedgerEntry(
@@ -256,7 +279,7 @@ class LedgerEntryCommandServiceRecordCompositeMovementTest {
         when(ledgerEntryRepository.findByOperationId(opId))
                 .thenReturn(List.of(debitEntry));
 
-        assertThrows(IllegalStateException.class, () -> service.recordCompositeMovement(request));
+        assertThrows(ConflictException.class, () -> service.recordCompositeMovement(request));
 
         verify(ledgerEntryRepository,never()).saveAll(anyList());
 
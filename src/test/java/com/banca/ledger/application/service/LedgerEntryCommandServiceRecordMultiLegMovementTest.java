@@ -0,0 +1,199 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.MovementLegRequest;
+import com.banca.ledger.api.mapper.CompositeMovementAssembler;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEntryCommandServiceRecordMultiLegMovementTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private LedgerOperationRepository ledgerOperationRepository;
+
+    @Mock
+    private CompositeMovementAssembler compositeMovementAssembler;
+
+    @Mock
+    private IdempotencyKeyFilter idempotencyKeyFilter;
+
+    @Mock
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+
+    @Mock
+    private AccountBalanceCache accountBalanceCache;
+
+    @InjectMocks
+    private LedgerEntryCommandService service;
+
+    @Test
+    void recordMultiLegMovement_newOperation_savesAllLegsInOneSaveAll() {
+        // Pago de 100 con comisión 2 e impuesto 0.36: 1 débito, 3 créditos
+        CreateMultiLegMovementRequest request = request("idem-ml-1", List.of(
+                leg(10L, EntryType.DEBIT, "100.00", Currency.PEN),
+                leg(20L, EntryType.CREDIT, "97.64", Currency.PEN),
+                leg(30L, EntryType.CREDIT, "2.00", Currency.PEN),
+                leg(40L, EntryType.CREDIT, "0.36", Currency.PEN)
+        ));
+
+        LedgerOperation operation = new LedgerOperation("idem-ml-1", ReferenceType.TRANSFER, "TRF-1");
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq("idem-ml-1"), eq("TRANSFER"), eq("TRF-1"), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    setPrivateField(operation, "id", invocation.getArgument(0));
+                    return Optional.of(operation);
+                });
+
+        List<LedgerEntry> legs = List.of(mock(LedgerEntry.class), mock(LedgerEntry.class),
+                mock(LedgerEntry.class), mock(LedgerEntry.class));
+        when(compositeMovementAssembler.toLegEntries(request, operation)).thenReturn(legs);
+        when(ledgerEntryRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OperationEntries result = service.recordMultiLegMovement(request);
+
+        assertSame(operation, result.operation());
+        assertEquals(4, result.entries().size());
+        verify(ledgerEntryRepository, times(1)).saveAll(legs);
+        verify(ledgerEntryRepository, never()).findByOperationId(any());
+    }
+
+    @Test
+    void recordMultiLegMovement_balancesPerCurrency() {
+        CreateMultiLegMovementRequest request = request("idem-ml-2", List.of(
+                leg(10L, EntryType.DEBIT, "100.00", Currency.PEN),
+                leg(20L, EntryType.CREDIT, "100.00", Currency.PEN),
+                leg(10L, EntryType.DEBIT, "30.00", Currency.USD),
+                leg(20L, EntryType.CREDIT, "30.00", Currency.USD)
+        ));
+        LedgerOperation operation = new LedgerOperation("idem-ml-2", ReferenceType.TRANSFER, "TRF-1");
+        when(ledgerOperationRepository.insertIfAbsent(any(UUID.class), any(), any(), any(), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    setPrivateField(operation, "id", invocation.getArgument(0));
+                    return Optional.of(operation);
+                });
+        when(compositeMovementAssembler.toLegEntries(request, operation)).thenReturn(List.of());
+        when(ledgerEntryRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertDoesNotThrow(() -> service.recordMultiLegMovement(request));
+    }
+
+    @Test
+    void recordMultiLegMovement_unbalanced_throwsIllegalArgument_withoutTouchingDb() {
+        // Cuadra en total (100 = 70 + 30) pero no por moneda
+        CreateMultiLegMovementRequest request = request("idem-ml-3", List.of(
+                leg(10L, EntryType.DEBIT, "100.00", Currency.PEN),
+                leg(20L, EntryType.CREDIT, "70.00", Currency.PEN),
+                leg(30L, EntryType.CREDIT, "30.00", Currency.USD)
+        ));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.recordMultiLegMovement(request));
+
+        assertTrue(ex.getMessage().contains("no cuadra"));
+        verifyNoInteractions(ledgerOperationRepository, ledgerEntryRepository, compositeMovementAssembler);
+    }
+
+    @Test
+    void recordMultiLegMovement_replay_returnsStoredLegs() {
+        CreateMultiLegMovementRequest request = request("idem-ml-4", List.of(
+                leg(10L, EntryType.DEBIT, "5.00", Currency.PEN),
+                leg(20L, EntryType.CREDIT, "3.00", Currency.PEN),
+                leg(30L, EntryType.CREDIT, "2.00", Currency.PEN)
+        ));
+        LedgerOperation existing = existingOperation("idem-ml-4");
+        List<LedgerEntry> stored = List.of(mock(LedgerEntry.class), mock(LedgerEntry.class), mock(LedgerEntry.class));
+        when(ledgerEntryRepository.findByOperationId(existing.getId())).thenReturn(stored);
+
+        OperationEntries result = service.recordMultiLegMovement(request);
+
+        assertSame(existing, result.operation());
+        assertSame(stored, result.entries());
+        verifyNoInteractions(compositeMovementAssembler);
+        verify(ledgerEntryRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void recordMultiLegMovement_replayWithOtherLegCount_throwsConflict() {
+        CreateMultiLegMovementRequest request = request("idem-ml-5", List.of(
+                leg(10L, EntryType.DEBIT, "5.00", Currency.PEN),
+                leg(20L, EntryType.CREDIT, "3.00", Currency.PEN),
+                leg(30L, EntryType.CREDIT, "2.00", Currency.PEN)
+        ));
+        LedgerOperation existing = existingOperation("idem-ml-5");
+        when(ledgerEntryRepository.findByOperationId(existing.getId()))
+                .thenReturn(List.of(mock(LedgerEntry.class), mock(LedgerEntry.class)));
+
+        ConflictException ex = assertThrows(ConflictException.class, () -> service.recordMultiLegMovement(request));
+        assertEquals("Conflicto de idempotencia: la idempotencyKey ya existe con otro movimiento. " +
+                "La operación " + existing.getId() + " tiene 2 entradas y el request trae 3", ex.getMessage());
+        verify(ledgerEntryRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void recordMultiLegMovement_singleLeg_throwsIllegalArgument() {
+        CreateMultiLegMovementRequest request = request("idem-ml-6", List.of(
+                leg(10L, EntryType.DEBIT, "5.00", Currency.PEN)
+        ));
+
+        assertThrows(IllegalArgumentException.class, () -> service.recordMultiLegMovement(request));
+        verifyNoInteractions(ledgerOperationRepository);
+    }
+
+    private LedgerOperation existingOperation(String idempotencyKey) {
+        LedgerOperation existing = new LedgerOperation(idempotencyKey, ReferenceType.TRANSFER, "TRF-1");
+        setPrivateField(existing, "id", UUID.randomUUID());
+        // El upsert no inserta (id propuesto != id existente) => replay
+        when(ledgerOperationRepository.insertIfAbsent(
+                any(UUID.class), eq(idempotencyKey), eq("TRANSFER"), eq("TRF-1"), any(Instant.class)))
+                .thenReturn(Optional.of(existing));
+        return existing;
+    }
+
+    private static CreateMultiLegMovementRequest request(String idempotencyKey, List<MovementLegRequest> legs) {
+        return new CreateMultiLegMovementRequest(ReferenceType.TRANSFER, "TRF-1", idempotencyKey, legs);
+    }
+
+    private static MovementLegRequest leg(Long accountId, EntryType entryType, String amount, Currency currency) {
+        return new MovementLegRequest(accountId, entryType, new BigDecimal(amount), currency);
+    }
+
+    private static void setPrivateField(Object target, String fieldName, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(fieldName);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException("No se pudo setear el campo '" + fieldName + "' por reflexión", e);
+        }
+    }
+}
@@ -2,16 +2,19 @@ package com.banca.ledger.application.service;
 
 import com.banca.ledger.api.mapper.CompositeMovementAssembler;
 import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.application.idempotency.IdempotencyKeyFilter;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -34,6 +37,9 @@ class LedgerEntryCommandServiceReverseOperationTest {
     @Mock private LedgerEntryRepository ledgerEntryRepository;
     @Mock private LedgerOperationRepository ledgerOperationRepository;
     @Mock private CompositeMovementAssembler compositeMovementAssembler; // no se usa aquí pero el ctor lo pide
+    @Mock private IdempotencyKeyFilter idempotencyKeyFilter;
+    @Mock private AccountBalanceJdbcRepository accountBalanceRepository;
+    @Mock private AccountBalanceCache accountBalanceCache;
 
     @InjectMocks private LedgerEntryCommandService service;
 
@@ -49,7 +55,7 @@ class LedgerEntryCommandServiceReverseOperationTest {
         );
         setPrivateField(originalOp, "id", originalOpId);
 
-        when(ledgerOperationRepository.findById(originalOpId))
+        when(ledgerOperationRepository.findByIdForUpdate(originalOpId))
                 .thenReturn(Optional.of(originalOp));
 
         // Entries originales: 1 DEBIT + 1 CREDIT
@@ -100,13 +106,56 @@ class LedgerEntryCommandServiceReverseOperationTest {
         // Bonus: validar que apuntan a la reversalOp
         assertTrue(result.entries().stream().allMatch(e -> e.getOperation() == reversalOp));
 
+        // Enlace original -> reversa
+        assertEquals(reversalOpId, originalOp.getReversedByOperationId());
+
+        // Saldos: se aplican los asientos inversos antes de guardarlos
+        InOrder inOrder = inOrder(accountBalanceRepository, ledgerEntryRepository);
+        inOrder.verify(accountBalanceRepository).applyEntries(result.entries());
+        inOrder.verify(ledgerEntryRepository).saveAll(result.entries());
+        inOrder.verify(accountBalanceRepository).updateLastEntryIds(result.entries());
+
+        // Caché de saldos: ambas cuentas se invalidan tras el commit
+        verify(accountBalanceCache).invalidateAfterCommit(List.of(10L, 20L));
+
         // Verify: llamadas correctas
-        verify(ledgerOperationRepository).findById(originalOpId);
+        verify(ledgerOperationRepository).findByIdForUpdate(originalOpId);
         verify(ledgerEntryRepository).findByOperationId(originalOpId);
         verify(ledgerOperationRepository).save(any(LedgerOperation.class));
         verify(ledgerEntryRepository).saveAll(anyList());
     }
 
+    @Test
+    void reverseOperation_alreadyReversed_returnsExistingReversal_withoutWriting() {
+        UUID originalOpId = UUID.randomUUID();
+        UUID reversalOpId = UUID.randomUUID();
+
+        LedgerOperation originalOp = new LedgerOperation("idem-uc8-rev", ReferenceType.DEPOSIT, "ref-rev");
+        setPrivateField(originalOp, "id", originalOpId);
+        originalOp.markReversedBy(reversalOpId);
+
+        LedgerOperation reversalOp = new LedgerOperation("reversal:" + originalOpId, ReferenceType.DEPOSIT, "ref-rev");
+        setPrivateField(reversalOp, "id", reversalOpId);
+        reversalOp.markAsReversalOf(originalOpId);
+
+        List<LedgerEntry> storedEntries = List.of(
+                new LedgerEntry(20L, EntryType.DEBIT, new BigDecimal("100.00"), Currency.PEN, reversalOp),
+                new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("100.00"), Currency.PEN, reversalOp)
+        );
+
+        when(ledgerOperationRepository.findByIdForUpdate(originalOpId)).thenReturn(Optional.of(originalOp));
+        when(ledgerOperationRepository.findById(reversalOpId)).thenReturn(Optional.of(reversalOp));
+        when(ledgerEntryRepository.findByOperationId(reversalOpId)).thenReturn(storedEntries);
+
+        OperationEntries result = service.reverseOperation(originalOpId);
+
+        assertSame(reversalOp, result.operation());
+        assertSame(storedEntries, result.entries());
+        verify(ledgerOperationRepository, never()).save(any(LedgerOperation.class));
+        verify(ledgerEntryRepository, never()).saveAll(anyList());
+        verify(ledgerEntryRepository, never()).findByOperationId(originalOpId);
+    }
+
     @Test
     void reverseOperation_nullId_throwsException() {
 
@@ -126,7 +175,7 @@ class LedgerEntryCommandServiceReverseOperationTest {
     void reverseOperation_notFound_throwsNotFound() {
         UUID opId = UUID.randomUUID();
 
-        when(ledgerOperationRepository.findById(opId))
+        when(ledgerOperationRepository.findByIdForUpdate(opId))
                 .thenReturn(Optional.empty());
 
         NotFoundException ex = assertThrows(NotFoundException.class, () ->
@@ -135,7 +184,7 @@ class LedgerEntryCommandServiceReverseOperationTest {
 
         assertEquals("Operación no encontrada: " + opId, ex.getMessage());
 
-        verify(ledgerOperationRepository).findById(opId);
+        verify(ledgerOperationRepository).findByIdForUpdate(opId);
         verifyNoInteractions(ledgerEntryRepository);
         verifyNoMoreInteractions(ledgerOperationRepository);
     }
@@ -150,7 +199,7 @@ class LedgerEntryCommandServiceReverseOperationTest {
         );
         setPrivateField(originalOp, "id", originalOpId);
 
-        when(ledgerOperationRepository.findById(originalOpId))
+        when(ledgerOperationRepository.findByIdForUpdate(originalOpId))
                 .thenReturn(Optional.of(originalOp));
 
         when(ledgerEntryRepository.findByOperationId(originalOp.getId()))
@@ -163,7 +212,7 @@ class LedgerEntryCommandServiceReverseOperationTest {
 
         assertEquals("No se encontraron asientos para la operación: " + originalOpId, ex.getMessage());
 
-        verify(ledgerOperationRepository).findById(originalOpId);
+        verify(ledgerOperationRepository).findByIdForUpdate(originalOpId);
         verify(ledgerEntryRepository).findByOperationId(originalOpId);
 
         verify(ledgerOperationRepository, never()).save(any(LedgerOperation.class));
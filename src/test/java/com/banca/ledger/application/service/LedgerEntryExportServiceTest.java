@@ -0,0 +1,115 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.domain.enums.ExportFormat;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryExportJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryExportJdbcRepository.ExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LedgerEntryExportServiceTest {
+
+    private static final UUID OP_ID = UUID.fromString("11111111-2222-3333-4444-555555555555");
+
+    private LedgerEntryExportJdbcRepository exportRepository;
+    private PlatformTransactionManager transactionManager;
+    private LedgerEntryExportService service;
+
+    @BeforeEach
+    void setUp() {
+        exportRepository = mock(LedgerEntryExportJdbcRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        service = new LedgerEntryExportService(exportRepository, new ObjectMapper(), transactionManager, 250);
+
+        doAnswer(inv -> {
+            Consumer<ExportRow> consumer = inv.getArgument(2);
+            consumer.accept(row(1L, "R-1", new BigDecimal("100.0000")));
+            consumer.accept(row(2L, "R,\"2\"", null));
+            return null;
+        }).when(exportRepository).forEachEntryOfAccount(eq(10L), eq(250), any());
+    }
+
+    @Test
+    void csv_writesHeaderAndOneLinePerEntry_quotingFreeText() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = service.exportAccount(10L, ExportFormat.CSV, out);
+
+        assertEquals(2, rows);
+        assertEquals(LedgerEntryExportService.CSV_HEADER + "\n"
+                        + "1," + OP_ID + ",10,CREDIT,25.50,PEN,DEPOSIT,R-1,2026-01-02T03:04:05Z,100.0000\n"
+                        + "2," + OP_ID + ",10,CREDIT,25.50,PEN,DEPOSIT,\"R,\"\"2\"\"\",2026-01-02T03:04:05Z,\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjson_writesOneJsonObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportAccount(10L, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals(OP_ID.toString(), first.get("operationId").asText());
+        // Importes como número JSON con su escala (sin pasar por double)
+        assertTrue(lines[0].contains("\"amount\":25.50,"));
+        assertEquals("2026-01-02T03:04:05Z", first.get("createdAt").asText());
+        assertFalse(new ObjectMapper().readTree(lines[1]).has("balanceAfter"));
+    }
+
+    @Test
+    void runsInsideAReadOnlyTransaction_withTheConfiguredFetchSize() {
+        service.exportAccount(10L, ExportFormat.CSV, new ByteArrayOutputStream());
+
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        verify(exportRepository).forEachEntryOfAccount(eq(10L), eq(250), any());
+    }
+
+    @Test
+    void writeFailure_abortsTheExport() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("cliente desconectado");
+            }
+        };
+
+        assertThrows(RuntimeException.class, () -> service.exportAccount(10L, ExportFormat.NDJSON, broken));
+    }
+
+    @Test
+    void invalidAccountId_isRejected_withoutQuerying() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.exportAccount(0L, ExportFormat.CSV, new ByteArrayOutputStream()));
+        verify(exportRepository, never()).forEachEntryOfAccount(anyLong(), anyInt(), any());
+    }
+
+    private static ExportRow row(long id, String referenceId, BigDecimal balanceAfter) {
+        return new ExportRow(id, OP_ID, 10L, "CREDIT", new BigDecimal("25.50"), "PEN", "DEPOSIT", referenceId,
+                Instant.parse("2026-01-02T03:04:05Z"), balanceAfter);
+    }
+}
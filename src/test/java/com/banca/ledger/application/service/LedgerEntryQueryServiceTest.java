@@ -1,26 +1,40 @@
 package com.banca.ledger.application.service;
 
 import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.api.dto.LedgerEntryResponse;
 import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.domain.enums.BalanceGranularity;
 import com.banca.ledger.domain.enums.Currency;
-import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceAggregate;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.AccountBalanceJdbcRepository.AccountBalanceRow;
+import com.banca.ledger.infrastructure.persistence.BalanceSeriesJdbcRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
 import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -38,6 +52,16 @@ class LedgerEntryQueryServiceTest {
     @Mock
     private LedgerOperationRepository ledgerOperationRepository;
 
+    @Mock
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+
+    @Mock
+    private BalanceSeriesJdbcRepository balanceSeriesRepository;
+
+    @Spy
+    private AccountBalanceCache accountBalanceCache =
+            new AccountBalanceCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1));
+
     @InjectMocks
     private LedgerEntryQueryService ledgerEntryQueryService;
 
@@ -48,18 +72,18 @@ class LedgerEntryQueryServiceTest {
         int page = 0;
         int size = 5;
 
-        LedgerEntry e1 = mock(LedgerEntry.class);
-        LedgerEntry e2 = mock(LedgerEntry.class);
+        LedgerEntryResponse e1 = mock(LedgerEntryResponse.class);
+        LedgerEntryResponse e2 = mock(LedgerEntryResponse.class);
 
-        Page<LedgerEntry> expectedPage = new PageImpl<>(List.of(e1, e2));
+        Page<LedgerEntryResponse> expectedPage = new PageImpl<>(List.of(e1, e2));
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(ledgerEntryRepository.findByAccountIdOrderByCreatedAtDesc(eq(accountId), pageableCaptor.capture()))
+        when(ledgerEntryRepository.findResponsesByAccountId(eq(accountId), pageableCaptor.capture()))
                 .thenReturn(expectedPage);
 
         // Act
-        Page<LedgerEntry> result = ledgerEntryQueryService.listEntries(accountId, page, size);
+        Page<LedgerEntryResponse> result = ledgerEntryQueryService.listEntries(accountId, page, size);
 
         // Assert
         assertNotNull(result);
@@ -71,7 +95,7 @@ class LedgerEntryQueryServiceTest {
         assertEquals(size, pageableUsed.getPageSize());
 
         verify(ledgerEntryRepository, times(1))
-                .findByAccountIdOrderByCreatedAtDesc(eq(accountId), any(Pageable.class));
+                .findResponsesByAccountId(eq(accountId), any(Pageable.class));
 
         verifyNoInteractions(ledgerOperationRepository);
         verifyNoMoreInteractions(ledgerEntryRepository);
@@ -162,23 +186,23 @@ class LedgerEntryQueryServiceTest {
         LedgerOperation op = mock(LedgerOperation.class);
         when(op.getId()).thenReturn(operationId);
 
-        LedgerEntry e1 = mock(LedgerEntry.class);
-        LedgerEntry e2 = mock(LedgerEntry.class);
-        List<LedgerEntry> entries = List.of(e1, e2);
+        LedgerEntryResponse e1 = mock(LedgerEntryResponse.class);
+        LedgerEntryResponse e2 = mock(LedgerEntryResponse.class);
+        List<LedgerEntryResponse> entries = List.of(e1, e2);
 
         when(ledgerOperationRepository.findById(operationId))
                 .thenReturn(Optional.of(op));
-        when(ledgerEntryRepository.findByOperationId(operationId))
+        when(ledgerEntryRepository.findResponsesByOperationId(operationId))
                 .thenReturn(entries);
 
-        OperationEntries result = ledgerEntryQueryService.getOperationEntries(operationId);
+        OperationEntriesView result = ledgerEntryQueryService.getOperationEntries(operationId);
 
         assertNotNull(result);
         assertSame(op, result.operation());
         assertSame(entries, result.entries());
 
         verify(ledgerOperationRepository, times(1)).findById(operationId);
-        verify(ledgerEntryRepository, times(1)).findByOperationId(operationId);
+        verify(ledgerEntryRepository, times(1)).findResponsesByOperationId(operationId);
         verifyNoMoreInteractions(ledgerOperationRepository);
         verifyNoMoreInteractions(ledgerEntryRepository);
     }
@@ -215,37 +239,140 @@ class LedgerEntryQueryServiceTest {
         when(op.getId()).thenReturn(operationId);
         when(ledgerOperationRepository.findById(operationId))
                 .thenReturn(Optional.of(op));
-        when(ledgerEntryRepository.findByOperationId(operationId))
+        when(ledgerEntryRepository.findResponsesByOperationId(operationId))
                 .thenReturn(List.of());
         IllegalStateException ex = assertThrows(IllegalStateException.class,() ->
                 ledgerEntryQueryService.getOperationEntries(operationId)
         );
         assertEquals("Inconsistencia: no se encontraron asientos para operationId: " + operationId, ex.getMessage());
         verify(ledgerOperationRepository, times(1)).findById(operationId);
-        verify(ledgerEntryRepository, times(1)).findByOperationId(operationId);
+        verify(ledgerEntryRepository, times(1)).findResponsesByOperationId(operationId);
 
     }
 
 
-    // Test del método 4 getAccountBalance
+    // Tests de operaciones por referencia (UC-7B)
     @Test
-    void getAccountBalance_happyPath_shouldReturnBalance() {
-        // Arrange
+    void getOperationsByReference_loadsEntriesOfAllOperationsInOneQuery_andGroupsThemByOperation() {
+        UUID originalId = UUID.randomUUID();
+        UUID reversalId = UUID.randomUUID();
+        LedgerOperation original = mock(LedgerOperation.class);
+        LedgerOperation reversal = mock(LedgerOperation.class);
+        when(original.getId()).thenReturn(originalId);
+        when(reversal.getId()).thenReturn(reversalId);
+
+        LedgerEntryResponse o1 = mock(LedgerEntryResponse.class);
+        LedgerEntryResponse o2 = mock(LedgerEntryResponse.class);
+        LedgerEntryResponse r1 = mock(LedgerEntryResponse.class);
+        when(o1.getOperationId()).thenReturn(originalId);
+        when(o2.getOperationId()).thenReturn(originalId);
+        when(r1.getOperationId()).thenReturn(reversalId);
+
+        when(ledgerOperationRepository.findByReferenceTypeAndReferenceIdOrderByCreatedAtAscIdAsc(ReferenceType.TRANSFER, "TRF-1"))
+                .thenReturn(List.of(original, reversal));
+        when(ledgerEntryRepository.findResponsesByOperationIdIn(List.of(originalId, reversalId)))
+                .thenReturn(List.of(r1, o1, o2));
+
+        List<OperationEntriesView> result = ledgerEntryQueryService.getOperationsByReference(ReferenceType.TRANSFER, "TRF-1");
+
+        assertEquals(2, result.size());
+        assertSame(original, result.get(0).operation());
+        assertEquals(List.of(o1, o2), result.get(0).entries());
+        assertSame(reversal, result.get(1).operation());
+        assertEquals(List.of(r1), result.get(1).entries());
+
+        verify(ledgerEntryRepository, times(1)).findResponsesByOperationIdIn(List.of(originalId, reversalId));
+        verifyNoMoreInteractions(ledgerEntryRepository);
+    }
+
+    @Test
+    void getOperationsByReference_withoutOperations_returnsEmpty_withoutQueryingEntries() {
+        when(ledgerOperationRepository.findByReferenceTypeAndReferenceIdOrderByCreatedAtAscIdAsc(ReferenceType.DEPOSIT, "DEP-404"))
+                .thenReturn(List.of());
+
+        assertEquals(List.of(), ledgerEntryQueryService.getOperationsByReference(ReferenceType.DEPOSIT, "DEP-404"));
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+    @Test
+    void getOperationsByReference_operationWithoutEntries_shouldThrow() {
+        UUID operationId = UUID.randomUUID();
+        LedgerOperation op = mock(LedgerOperation.class);
+        when(op.getId()).thenReturn(operationId);
+        when(ledgerOperationRepository.findByReferenceTypeAndReferenceIdOrderByCreatedAtAscIdAsc(ReferenceType.DEPOSIT, "DEP-1"))
+                .thenReturn(List.of(op));
+        when(ledgerEntryRepository.findResponsesByOperationIdIn(List.of(operationId))).thenReturn(List.of());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                ledgerEntryQueryService.getOperationsByReference(ReferenceType.DEPOSIT, "DEP-1")
+        );
+        assertEquals("Inconsistencia: Operación " + operationId + " no tiene entradas asociadas", ex.getMessage());
+    }
+
+    @Test
+    void getOperationsByReference_blankReferenceId_shouldThrow() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                ledgerEntryQueryService.getOperationsByReference(ReferenceType.DEPOSIT, " ")
+        );
+        assertEquals("referenceId no puede ser nulo o vacío", ex.getMessage());
+        verifyNoInteractions(ledgerOperationRepository, ledgerEntryRepository);
+    }
+
+
+    // Tests del listado por cursor (keyset)
+    @Test
+    void listEntriesByCursor_firstPage_readsOneExtra_andReturnsCursorOfTheLastEntry() {
         Long accountId = 10L;
+        LedgerEntryResponse e1 = mock(LedgerEntryResponse.class);
+        LedgerEntryResponse e2 = mock(LedgerEntryResponse.class);
+        LedgerEntryResponse extra = mock(LedgerEntryResponse.class);
+        when(e2.getCreatedAt()).thenReturn(Instant.parse("2026-01-02T10:15:30.123456Z"));
+        when(e2.getId()).thenReturn(42L);
+        when(ledgerEntryRepository.findResponsesByAccountIdFirst(accountId, Limit.of(3)))
+                .thenReturn(List.of(e1, e2, extra));
+
+        EntryCursorPage result = ledgerEntryQueryService.listEntriesByCursor(accountId, "", 2);
 
-        BigDecimal credit = new BigDecimal("1000.00");
-        BigDecimal debit  = new BigDecimal("400.00");
-        BigDecimal expectedBalance = new BigDecimal("600.00");
+        assertEquals(List.of(e1, e2), result.entries());
+        assertNotNull(result.nextCursor());
 
-        LedgerEntry lastEntry = mock(LedgerEntry.class);
-        when(lastEntry.getCurrency()).thenReturn(Currency.PEN);
+        // El cursor lleva al seek desde el último asiento devuelto
+        when(ledgerEntryRepository.findResponsesByAccountIdBefore(
+                accountId, Instant.parse("2026-01-02T10:15:30.123456Z"), 42L, Limit.of(3)))
+                .thenReturn(List.of(extra));
 
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryType(accountId, EntryType.CREDIT))
-                .thenReturn(credit);
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryType(accountId, EntryType.DEBIT))
-                .thenReturn(debit);
-        when(ledgerEntryRepository.findFirstByAccountIdOrderByCreatedAtDesc(accountId))
-                .thenReturn(Optional.of(lastEntry));
+        EntryCursorPage next = ledgerEntryQueryService.listEntriesByCursor(accountId, result.nextCursor(), 2);
+
+        assertEquals(List.of(extra), next.entries());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void listEntriesByCursor_invalidCursor_shouldThrow() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                ledgerEntryQueryService.listEntriesByCursor(10L, "no-es-un-cursor", 20)
+        );
+
+        assertEquals("cursor inválido", ex.getMessage());
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+    @Test
+    void listEntriesByCursor_sizeOutOfRange_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () ->
+                ledgerEntryQueryService.listEntriesByCursor(10L, null, 101)
+        );
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+    // Test del método 4 getAccountBalance (lee account_balances)
+    @Test
+    void getAccountBalance_happyPath_shouldReturnBalance() {
+        // Arrange
+        Long accountId = 10L;
+        when(accountBalanceRepository.findByAccountId(accountId)).thenReturn(List.of(
+                new AccountBalanceRow(accountId, Currency.PEN, new BigDecimal("600.00"), 42L, 3L)
+        ));
 
         // Act
         AccountBalanceResponse result = ledgerEntryQueryService.getAccountBalance(accountId);
@@ -254,17 +381,11 @@ class LedgerEntryQueryServiceTest {
         assertNotNull(result);
         assertEquals(accountId, result.getAccountId());
         assertEquals(Currency.PEN, result.getCurrency());
-        assertEquals(expectedBalance, result.getBalance());
-
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryType(accountId, EntryType.CREDIT);
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryType(accountId, EntryType.DEBIT);
-        verify(ledgerEntryRepository, times(1))
-                .findFirstByAccountIdOrderByCreatedAtDesc(accountId);
+        assertEquals(new BigDecimal("600.00"), result.getBalance());
 
-        verifyNoInteractions(ledgerOperationRepository);
-        verifyNoMoreInteractions(ledgerEntryRepository);
+        // Una sola lectura: sin SUM sobre ledger_entries
+        verify(accountBalanceRepository, times(1)).findByAccountId(accountId);
+        verifyNoInteractions(ledgerEntryRepository, ledgerOperationRepository);
     }
     @Test
     void getAccountBalance_accountIdNull_shouldThrow() {
@@ -275,78 +396,100 @@ class LedgerEntryQueryServiceTest {
         assertEquals("El account debe ser valido", ex.getMessage());
         verifyNoInteractions(ledgerEntryRepository);
         verifyNoInteractions(ledgerOperationRepository);
+        verifyNoInteractions(accountBalanceRepository);
     }
 
     @Test
     void getAccountBalance_noEntries_shouldThrow(){
         Long accountId = 20L;
 
-        when(ledgerEntryRepository.findFirstByAccountIdOrderByCreatedAtDesc(accountId))
-                .thenReturn(Optional.empty());
+        when(accountBalanceRepository.findByAccountId(accountId)).thenReturn(List.of());
         NotFoundException ex = assertThrows(NotFoundException.class, () ->
                 ledgerEntryQueryService.getAccountBalance(accountId)
         );
         assertEquals("No se encontraron asientos para la cuenta: " + accountId, ex.getMessage());
-        verify(ledgerEntryRepository, times(1))
-                .findFirstByAccountIdOrderByCreatedAtDesc(accountId);
+        verify(accountBalanceRepository, times(1)).findByAccountId(accountId);
         verifyNoInteractions(ledgerOperationRepository);
     }
     @Test
-    void getAccountBalance_nullTotals_shouldReturnZeroDefaults() {
-        // Arrange
+    void getAccountBalance_severalCurrencies_shouldSumThem_withTheLatestCurrency() {
+        // Arrange: el repositorio devuelve primero la moneda del último movimiento
         Long accountId = 10L;
+        when(accountBalanceRepository.findByAccountId(accountId)).thenReturn(List.of(
+                new AccountBalanceRow(accountId, Currency.USD, new BigDecimal("25.00"), 90L, 1L),
+                new AccountBalanceRow(accountId, Currency.PEN, new BigDecimal("600.00"), 42L, 3L)
+        ));
 
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryType(accountId, EntryType.DEBIT))
-                .thenReturn(null);
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryType(accountId, EntryType.CREDIT))
-                .thenReturn(null);
+        // Act
+        AccountBalanceResponse result = ledgerEntryQueryService.getAccountBalance(accountId);
 
-        LedgerEntry lastEntry = mock(LedgerEntry.class);
-        when(lastEntry.getCurrency()).thenReturn(Currency.PEN);
+        // Assert: suma de todas las monedas (mismo criterio que UC-6) con la del último movimiento
+        assertEquals(Currency.USD, result.getCurrency());
+        assertEquals(new BigDecimal("625.00"), result.getBalance());
+    }
+    @Test
+    void getAccountBalance_repeatedReads_areServedFromTheCache_untilInvalidated() {
+        Long accountId = 10L;
+        when(accountBalanceRepository.findByAccountId(accountId)).thenReturn(List.of(
+                new AccountBalanceRow(accountId, Currency.PEN, new BigDecimal("600.00"), 42L, 3L)
+        ));
 
-        when(ledgerEntryRepository.findFirstByAccountIdOrderByCreatedAtDesc(accountId))
-                .thenReturn(Optional.of(lastEntry));
+        ledgerEntryQueryService.getAccountBalance(accountId);
+        AccountBalanceResponse cached = ledgerEntryQueryService.getAccountBalance(accountId);
 
-        // Act
-        AccountBalanceResponse result = ledgerEntryQueryService.getAccountBalance(accountId);
+        assertEquals(new BigDecimal("600.00"), cached.getBalance());
+        verify(accountBalanceRepository, times(1)).findByAccountId(accountId);
 
-        // Assert
-        assertNotNull(result);
-        assertEquals(accountId, result.getAccountId());
-        assertEquals(Currency.PEN, result.getCurrency());
-        assertEquals(BigDecimal.ZERO, result.getBalance());
+        // Fuera de transacción la invalidación es inmediata
+        accountBalanceCache.invalidateAfterCommit(List.of(accountId));
+        ledgerEntryQueryService.getAccountBalance(accountId);
+        verify(accountBalanceRepository, times(2)).findByAccountId(accountId);
+    }
+    @Test
+    void getAccountBalances_readsAllAccountsInOneQuery_andOmitsAccountsWithoutEntries() {
+        when(accountBalanceRepository.findByAccountIds(Set.of(10L, 20L, 30L))).thenReturn(List.of(
+                new AccountBalanceRow(10L, Currency.PEN, new BigDecimal("600.00"), 42L, 3L),
+                new AccountBalanceRow(20L, Currency.USD, new BigDecimal("5.00"), 50L, 1L),
+                new AccountBalanceRow(20L, Currency.PEN, new BigDecimal("20.00"), 60L, 2L)
+        ));
+
+        Map<Long, AccountBalanceResponse> result = ledgerEntryQueryService.getAccountBalances(List.of(10L, 20L, 30L));
+
+        assertEquals(List.of(10L, 20L), List.copyOf(result.keySet()));
+        assertEquals(new BigDecimal("600.00"), result.get(10L).getBalance());
+        // Igual que la lectura individual: suma de monedas, la primera fila (último movimiento) da la moneda
+        assertEquals(Currency.USD, result.get(20L).getCurrency());
+        assertEquals(new BigDecimal("25.00"), result.get(20L).getBalance());
+        verify(accountBalanceRepository, times(1)).findByAccountIds(any());
+
+        // Segunda lectura: las cuentas con saldo salen de la caché, solo se consulta la que no tenía
+        when(accountBalanceRepository.findByAccountIds(Set.of(30L))).thenReturn(List.of());
+        ledgerEntryQueryService.getAccountBalances(List.of(10L, 20L, 30L));
+        verify(accountBalanceRepository).findByAccountIds(Set.of(30L));
+    }
 
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryType(accountId, EntryType.DEBIT);
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryType(accountId, EntryType.CREDIT);
-        verify(ledgerEntryRepository, times(1))
-                .findFirstByAccountIdOrderByCreatedAtDesc(accountId);
+    @Test
+    void getAccountBalances_tooManyAccounts_shouldThrow() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
 
-        verifyNoInteractions(ledgerOperationRepository);
-        // opcional:
-        // verifyNoMoreInteractions(ledgerEntryRepository);
+        assertThrows(IllegalArgumentException.class, () -> ledgerEntryQueryService.getAccountBalances(ids));
+        verifyNoInteractions(accountBalanceRepository);
     }
-    // Test del método 5 getAccountBalanceUpToDate
+
+    // Test del método 5 getAccountBalanceUpToDate (snapshot + asientos posteriores en una sola consulta)
     @Test
     void getAccountBalanceUpToDate_HappyPath(){
         // Arrange
         Long accountId = 10L;
         Instant upToDate = Instant.now();
-        BigDecimal credit = new BigDecimal("1500.00");
-        BigDecimal debit = new BigDecimal("500.00");
-        BigDecimal expectedBalance = new BigDecimal("1000.00");
-
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.CREDIT,upToDate))
-                .thenReturn(credit);
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.DEBIT,upToDate))
-                .thenReturn(debit);
+        BigDecimal expectedBalance = new BigDecimal("1200.00");
 
-        LedgerEntry entry = mock(LedgerEntry.class);
-        when(entry.getCurrency()).thenReturn(Currency.PEN);
-
-        when(ledgerEntryRepository.findFirstByAccountIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(accountId,upToDate))
-                .thenReturn(Optional.of(entry));
+        AccountBalanceAggregate aggregate = mock(AccountBalanceAggregate.class);
+        when(aggregate.getSnapshotBalance()).thenReturn(new BigDecimal("200.00"));
+        when(aggregate.getCredits()).thenReturn(new BigDecimal("1500.00"));
+        when(aggregate.getDebits()).thenReturn(new BigDecimal("500.00"));
+        when(aggregate.getLatestCurrency()).thenReturn("PEN");
+        when(ledgerEntryRepository.aggregateBalanceUpToDate(accountId, upToDate)).thenReturn(aggregate);
 
         //Act
         AccountBalanceResponse result = ledgerEntryQueryService.getAccountBalanceUpToDate(accountId,upToDate);
@@ -357,36 +500,41 @@ class LedgerEntryQueryServiceTest {
         assertEquals(Currency.PEN, result.getCurrency());
         assertEquals(expectedBalance, result.getBalance());
 
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.CREDIT,upToDate);
+        // Una sola ida a BD
+        verify(ledgerEntryRepository, times(1)).aggregateBalanceUpToDate(accountId, upToDate);
+        verifyNoMoreInteractions(ledgerEntryRepository);
+    }
+    @Test
+    void getAccountBalanceUpToDate_onlySnapshot_noEntriesAfterIt(){
+        Long accountId = 10L;
+        Instant upToDate = Instant.now();
+        AccountBalanceAggregate aggregate = mock(AccountBalanceAggregate.class);
+        when(aggregate.getSnapshotBalance()).thenReturn(new BigDecimal("300.00"));
+        when(aggregate.getCredits()).thenReturn(BigDecimal.ZERO);
+        when(aggregate.getDebits()).thenReturn(BigDecimal.ZERO);
+        when(aggregate.getLatestCurrency()).thenReturn("USD");
+        when(ledgerEntryRepository.aggregateBalanceUpToDate(accountId, upToDate)).thenReturn(aggregate);
 
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.DEBIT,upToDate);
-        verify(ledgerEntryRepository, times(1))
-                .findFirstByAccountIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(accountId,upToDate);
+        AccountBalanceResponse result = ledgerEntryQueryService.getAccountBalanceUpToDate(accountId, upToDate);
 
+        assertEquals(Currency.USD, result.getCurrency());
+        assertEquals(new BigDecimal("300.00"), result.getBalance());
     }
     @Test
     void getAccountBalanceUpToDate_noEntries(){
         Long accountId = 10L;
         Instant upToDate = Instant.now();
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.CREDIT,upToDate))
-                .thenReturn(null);
-        when(ledgerEntryRepository.sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.DEBIT,upToDate))
-                .thenReturn(null);
-        when(ledgerEntryRepository.findFirstByAccountIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(accountId,upToDate))
-                .thenReturn(Optional.empty());
+        AccountBalanceAggregate aggregate = mock(AccountBalanceAggregate.class);
+        when(aggregate.getLatestCurrency()).thenReturn(null);
+        when(ledgerEntryRepository.aggregateBalanceUpToDate(accountId, upToDate)).thenReturn(aggregate);
+
         AccountBalanceResponse result = ledgerEntryQueryService.getAccountBalanceUpToDate(accountId,upToDate);
         assertNotNull(result);
         assertEquals(accountId, result.getAccountId());
         assertNull(result.getCurrency());
         assertEquals(BigDecimal.ZERO, result.getBalance());
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.CREDIT,upToDate);
-        verify(ledgerEntryRepository, times(1))
-                .sumAmountByAccountIdAndEntryTypeUpToDate(accountId,EntryType.DEBIT,upToDate);
-        verify(ledgerEntryRepository, times(1))
-                .findFirstByAccountIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(accountId,upToDate);
+        verify(ledgerEntryRepository, times(1)).aggregateBalanceUpToDate(accountId, upToDate);
+        verifyNoMoreInteractions(ledgerEntryRepository);
         verifyNoInteractions(ledgerOperationRepository);
 
     }
@@ -409,6 +557,87 @@ class LedgerEntryQueryServiceTest {
         verifyNoInteractions(ledgerOperationRepository);
     }
 
+    // Serie de saldos: apertura una vez + variaciones diarias acumuladas
+    @Test
+    void getBalanceSeries_daily_isDense_andRollsDeltasForward() {
+        LocalDate from = LocalDate.parse("2026-03-01");
+        LocalDate to = LocalDate.parse("2026-03-04");
+        AccountBalanceAggregate aggregate = mock(AccountBalanceAggregate.class);
+        when(aggregate.getSnapshotBalance()).thenReturn(new BigDecimal("100"));
+        when(aggregate.getCredits()).thenReturn(new BigDecimal("20"));
+        when(aggregate.getDebits()).thenReturn(BigDecimal.ZERO);
+        // Apertura: hasta el último microsegundo anterior al 1 de marzo
+        when(ledgerEntryRepository.aggregateBalanceUpToDate(10L, Instant.parse("2026-02-28T23:59:59.999999Z")))
+                .thenReturn(aggregate);
+        when(balanceSeriesRepository.findDailyDeltas(10L, from, to)).thenReturn(Map.of(
+                LocalDate.parse("2026-03-02"), new BigDecimal("-30"),
+                LocalDate.parse("2026-03-04"), new BigDecimal("5")));
+
+        BalanceSeries series = ledgerEntryQueryService.getBalanceSeries(10L, from, to, BalanceGranularity.DAY);
+
+        assertEquals(new BigDecimal("120"), series.openingBalance());
+        assertEquals(List.of(
+                new BalanceSeries.Point(LocalDate.parse("2026-03-01"), new BigDecimal("120")),
+                new BalanceSeries.Point(LocalDate.parse("2026-03-02"), new BigDecimal("90")),
+                new BalanceSeries.Point(LocalDate.parse("2026-03-03"), new BigDecimal("90")),
+                new BalanceSeries.Point(LocalDate.parse("2026-03-04"), new BigDecimal("95"))
+        ), series.points());
+        verify(balanceSeriesRepository, times(1)).findDailyDeltas(10L, from, to);
+    }
+
+    @Test
+    void getBalanceSeries_weekly_pointsAtSundays_andAtTo() {
+        // 2026-03-04 es miércoles: semanas cierran el 08 y el 15, el último punto es to
+        LocalDate from = LocalDate.parse("2026-03-04");
+        LocalDate to = LocalDate.parse("2026-03-17");
+        when(ledgerEntryRepository.aggregateBalanceUpToDate(eq(10L), any(Instant.class))).thenReturn(null);
+        when(balanceSeriesRepository.findDailyDeltas(10L, from, to)).thenReturn(Map.of(
+                LocalDate.parse("2026-03-05"), new BigDecimal("10"),
+                LocalDate.parse("2026-03-16"), new BigDecimal("1")));
+
+        BalanceSeries series = ledgerEntryQueryService.getBalanceSeries(10L, from, to, BalanceGranularity.WEEK);
+
+        assertEquals(BigDecimal.ZERO, series.openingBalance());
+        assertEquals(List.of(
+                new BalanceSeries.Point(LocalDate.parse("2026-03-08"), new BigDecimal("10")),
+                new BalanceSeries.Point(LocalDate.parse("2026-03-15"), new BigDecimal("10")),
+                new BalanceSeries.Point(LocalDate.parse("2026-03-17"), new BigDecimal("11"))
+        ), series.points());
+    }
+
+    @Test
+    void getBalanceSeries_monthly_pointsAtMonthEnds() {
+        LocalDate from = LocalDate.parse("2026-01-15");
+        LocalDate to = LocalDate.parse("2026-03-31");
+        when(ledgerEntryRepository.aggregateBalanceUpToDate(eq(10L), any(Instant.class))).thenReturn(null);
+        when(balanceSeriesRepository.findDailyDeltas(10L, from, to)).thenReturn(Map.of(
+                LocalDate.parse("2026-02-10"), new BigDecimal("7")));
+
+        BalanceSeries series = ledgerEntryQueryService.getBalanceSeries(10L, from, to, BalanceGranularity.MONTH);
+
+        assertEquals(List.of(LocalDate.parse("2026-01-31"), LocalDate.parse("2026-02-28"), LocalDate.parse("2026-03-31")),
+                series.points().stream().map(BalanceSeries.Point::date).toList());
+        assertEquals(new BigDecimal("7"), series.points().get(2).balance());
+    }
+
+    @Test
+    void getBalanceSeries_fromAfterTo_throws() {
+        assertThrows(IllegalArgumentException.class, () -> ledgerEntryQueryService.getBalanceSeries(
+                10L, LocalDate.parse("2026-03-02"), LocalDate.parse("2026-03-01"), BalanceGranularity.DAY));
+        verifyNoInteractions(ledgerEntryRepository, balanceSeriesRepository);
+    }
+
+    @Test
+    void getBalanceSeries_tooManyPoints_throws() {
+        // 367 días diarios > 366 puntos; el mismo rango mensual sí se admite
+        LocalDate from = LocalDate.parse("2026-01-01");
+        LocalDate to = from.plusDays(366);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> ledgerEntryQueryService.getBalanceSeries(10L, from, to, BalanceGranularity.DAY));
+        assertTrue(ex.getMessage().contains("366"));
+        verifyNoInteractions(ledgerEntryRepository, balanceSeriesRepository);
+    }
 
     // Test del método 6 listEntriesByOperationId
     @Test
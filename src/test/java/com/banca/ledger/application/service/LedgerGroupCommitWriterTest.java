@@ -0,0 +1,168 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.service.LedgerGroupCommitWriter.PendingWrite;
+import com.banca.ledger.domain.model.LedgerEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LedgerGroupCommitWriterTest {
+
+    private LedgerEntryCommandService commandService;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        commandService = mock(LedgerEntryCommandService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void concurrentCreateEntry_areWrittenInOneTransaction_withOwnResults() throws Exception {
+        // Ventana larga: el grupo se cierra al juntar 3 requests
+        LedgerGroupCommitWriter writer = writer(Duration.ofSeconds(5), 3, 1);
+        writer.start();
+
+        List<CreateLedgerEntryRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CreateLedgerEntryRequest r = new CreateLedgerEntryRequest();
+            r.setIdempotencyKey("idem-" + i);
+            requests.add(r);
+            LedgerEntry entry = mock(LedgerEntry.class);
+            when(entry.getAccountId()).thenReturn((long) i);
+            when(commandService.createEntryInGroup(r)).thenReturn(entry);
+        }
+
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<LedgerEntry>> futures = new ArrayList<>();
+            for (CreateLedgerEntryRequest r : requests) {
+                futures.add(callers.submit(() -> writer.createEntry(r)));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS).getAccountId());
+            }
+        } finally {
+            callers.shutdownNow();
+            writer.stop();
+        }
+
+        // Una sola transacción (sin savepoints por request) y ninguna escritura fuera del grupo
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(commandService, never()).createEntry(any());
+        assertEquals(3.0, meterRegistry.get("ledger.group-commit.group.size").summary().totalAmount());
+    }
+
+    @Test
+    void businessFailure_onlyAffectsItsCaller() {
+        LedgerGroupCommitWriter writer = writer(Duration.ofMillis(2), 64, 1);
+        LedgerEntry ok = mock(LedgerEntry.class);
+
+        PendingWrite<LedgerEntry> good = new PendingWrite<>(() -> ok, () -> fail("no debe reintentarse"));
+        PendingWrite<LedgerEntry> conflict = new PendingWrite<>(() -> {
+            throw new ConflictException("Conflicto de idempotencia");
+        }, () -> fail("no debe reintentarse"));
+        PendingWrite<LedgerEntry> invalid = new PendingWrite<>(() -> {
+            throw new IllegalArgumentException("amount debe ser mayor a 0");
+        }, () -> fail("no debe reintentarse"));
+
+        writer.commitGroup(List.of(good, conflict, invalid));
+
+        assertSame(ok, good.await());
+        assertThrows(ConflictException.class, conflict::await);
+        assertThrows(IllegalArgumentException.class, invalid::await);
+
+        // El grupo confirma una vez, sin rollback
+        verify(transactionManager, never()).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(0.0, meterRegistry.get("ledger.group-commit.fallbacks").counter().count());
+    }
+
+    @Test
+    void infrastructureFailure_rollsBackGroup_andRetriesEachRequestAlone() {
+        LedgerGroupCommitWriter writer = writer(Duration.ofMillis(2), 64, 1);
+        LedgerEntry first = mock(LedgerEntry.class);
+        LedgerEntry second = mock(LedgerEntry.class);
+        AtomicInteger secondAttempts = new AtomicInteger();
+
+        PendingWrite<LedgerEntry> a = new PendingWrite<>(() -> first, () -> first);
+        PendingWrite<LedgerEntry> b = new PendingWrite<>(() -> {
+            secondAttempts.incrementAndGet();
+            throw new DataIntegrityViolationException("fallo de BD dentro del grupo");
+        }, () -> {
+            secondAttempts.incrementAndGet();
+            return second;
+        });
+
+        writer.commitGroup(List.of(a, b));
+
+        assertSame(first, a.await());
+        assertSame(second, b.await());
+        assertEquals(2, secondAttempts.get());
+        assertEquals(1.0, meterRegistry.get("ledger.group-commit.fallbacks").counter().count());
+    }
+
+    @Test
+    void requestThatMarksTheTransactionRollbackOnly_revertsTheGroup_andRetriesEachRequestAlone() {
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        LedgerGroupCommitWriter writer = writer(Duration.ofMillis(2), 64, 1);
+        LedgerEntry first = mock(LedgerEntry.class);
+        LedgerEntry second = mock(LedgerEntry.class);
+        AtomicInteger firstRuns = new AtomicInteger();
+
+        PendingWrite<LedgerEntry> a = new PendingWrite<>(() -> {
+            status.setRollbackOnly(); // p. ej. una excepción capturada dentro de un repositorio transaccional
+            return first;
+        }, () -> first);
+        PendingWrite<LedgerEntry> b = new PendingWrite<>(() -> {
+            firstRuns.incrementAndGet();
+            return second;
+        }, () -> second);
+
+        writer.commitGroup(List.of(a, b));
+
+        assertSame(first, a.await());
+        assertSame(second, b.await());
+        assertEquals(0, firstRuns.get(), "el grupo se corta en cuanto queda rollback-only");
+        verify(transactionManager, never()).commit(any());
+        assertEquals(1.0, meterRegistry.get("ledger.group-commit.fallbacks").counter().count());
+    }
+
+    @Test
+    void whenNotRunning_writesDirectly() {
+        LedgerGroupCommitWriter writer = writer(Duration.ofMillis(2), 64, 1);
+        CreateLedgerEntryRequest request = new CreateLedgerEntryRequest();
+        LedgerEntry entry = mock(LedgerEntry.class);
+        when(commandService.createEntry(request)).thenReturn(entry);
+
+        assertSame(entry, writer.createEntry(request));
+        verifyNoInteractions(transactionManager);
+    }
+
+    private LedgerGroupCommitWriter writer(Duration maxWait, int maxBatchSize, int writers) {
+        return new LedgerGroupCommitWriter(
+                commandService, transactionManager, meterRegistry,
+                maxWait, maxBatchSize, 100, writers
+        );
+    }
+}
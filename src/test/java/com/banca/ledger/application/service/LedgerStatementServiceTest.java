@@ -0,0 +1,114 @@
+package com.banca.ledger.application.service;
+
+import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryExportJdbcRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryExportJdbcRepository.ExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LedgerStatementServiceTest {
+
+    private static final UUID OP_ID = UUID.fromString("11111111-2222-3333-4444-555555555555");
+    private static final Instant FROM = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-01-31T23:59:59Z");
+
+    private LedgerEntryQueryService queryService;
+    private LedgerEntryExportJdbcRepository exportRepository;
+    private PlatformTransactionManager transactionManager;
+    private LedgerStatementService service;
+
+    @BeforeEach
+    void setUp() {
+        queryService = mock(LedgerEntryQueryService.class);
+        exportRepository = mock(LedgerEntryExportJdbcRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        service = new LedgerStatementService(queryService, exportRepository, new ObjectMapper(), transactionManager, 250);
+    }
+
+    @Test
+    void writesOpeningEntriesWithRunningBalance_totalsAndClosing() throws Exception {
+        // Apertura: hasta el último microsegundo anterior a from
+        when(queryService.getAccountBalanceUpToDate(10L, Instant.parse("2025-12-31T23:59:59.999999Z")))
+                .thenReturn(new AccountBalanceResponse(10L, Currency.PEN, new BigDecimal("100.00")));
+        doAnswer(inv -> {
+            Consumer<ExportRow> consumer = inv.getArgument(4);
+            consumer.accept(row(1L, "CREDIT", "50.00"));
+            consumer.accept(row(2L, "DEBIT", "30.00"));
+            consumer.accept(row(3L, "DEBIT", "5.50"));
+            return null;
+        }).when(exportRepository).forEachEntryOfAccountBetween(eq(10L), eq(FROM), eq(TO), eq(250), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long entries = service.writeStatement(10L, FROM, TO, out);
+
+        assertEquals(3, entries);
+        JsonNode statement = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals(10, statement.get("accountId").asLong());
+        assertEquals("2026-01-01T00:00:00Z", statement.get("from").asText());
+        assertEquals(0, new BigDecimal("100.00").compareTo(statement.get("openingBalance").decimalValue()));
+        assertEquals(3, statement.get("entries").size());
+        assertEquals(0, new BigDecimal("150.00").compareTo(statement.get("entries").get(0).get("runningBalance").decimalValue()));
+        assertEquals(0, new BigDecimal("120.00").compareTo(statement.get("entries").get(1).get("runningBalance").decimalValue()));
+        assertEquals(0, new BigDecimal("114.50").compareTo(statement.get("entries").get(2).get("runningBalance").decimalValue()));
+        assertEquals(OP_ID.toString(), statement.get("entries").get(0).get("operationId").asText());
+        assertEquals(3, statement.get("entryCount").asLong());
+        assertEquals(0, new BigDecimal("35.50").compareTo(statement.get("totalDebits").decimalValue()));
+        assertEquals(0, new BigDecimal("50.00").compareTo(statement.get("totalCredits").decimalValue()));
+        assertEquals(0, new BigDecimal("114.50").compareTo(statement.get("closingBalance").decimalValue()));
+
+        // Apertura y asientos en la misma transacción de solo lectura y foto consistente
+        verify(transactionManager).getTransaction(argThat(def -> def.isReadOnly()
+                && def.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+    }
+
+    @Test
+    void periodWithoutEntries_closesAtTheOpeningBalance() throws Exception {
+        when(queryService.getAccountBalanceUpToDate(eq(10L), any()))
+                .thenReturn(new AccountBalanceResponse(10L, null, BigDecimal.ZERO));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long entries = service.writeStatement(10L, FROM, TO, out);
+
+        assertEquals(0, entries);
+        JsonNode statement = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+        assertTrue(statement.get("entries").isEmpty());
+        assertEquals(0, BigDecimal.ZERO.compareTo(statement.get("closingBalance").decimalValue()));
+    }
+
+    @Test
+    void fromAfterTo_isRejected_beforeReading() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.writeStatement(10L, TO, FROM, new ByteArrayOutputStream()));
+        verifyNoInteractions(queryService, exportRepository, transactionManager);
+    }
+
+    @Test
+    void invalidAccountId_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.validate(0L, FROM, TO));
+    }
+
+    private static ExportRow row(long id, String entryType, String amount) {
+        return new ExportRow(id, OP_ID, 10L, entryType, new BigDecimal(amount), "PEN", "DEPOSIT", "R-" + id,
+                Instant.parse("2026-01-02T03:04:05Z"), null);
+    }
+}
@@ -0,0 +1,131 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline.OperationStatus;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.PendingOperationStatus;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.PendingOperation;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "ledger.async.sweep-interval=200ms")
+class AsyncCompositeMovementPipelineIT extends BaseIT {
+
+    @Autowired
+    AsyncCompositeMovementPipeline pipeline;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    LedgerEntryCommandService commandService;
+
+    @Test
+    void accept_thenDrainer_postsOperation_withTheAcceptedId() throws Exception {
+        String key = "idem-async-" + UUID.randomUUID();
+
+        PendingOperation pending = pipeline.accept(request(key, "DEP-001"));
+        assertEquals(PendingOperationStatus.PENDING, pending.getStatus());
+
+        OperationStatus status = awaitFinalStatus(pending.getId());
+
+        assertEquals(PendingOperationStatus.POSTED, status.status());
+        assertEquals(pending.getId(), status.postedOperationId());
+        assertTrue(opRepo.findById(pending.getId()).isPresent());
+        assertEquals(2, entryRepo.count());
+
+        // Reintento del cliente: mismo operationId, nada nuevo en el ledger
+        PendingOperation replay = pipeline.accept(request(key, "DEP-001"));
+        assertEquals(pending.getId(), replay.getId());
+        assertEquals(PendingOperationStatus.POSTED, replay.getStatus());
+        assertEquals(1, opRepo.count());
+    }
+
+    @Test
+    void acceptedBatch_postsEveryOperation_andRejectsOnlyTheConflictingOne() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+
+        // Key ya contabilizada por la vía síncrona con otra referencia => esa operación se rechaza al contabilizar
+        String takenKey = "idem-async-taken-" + suffix;
+        commandService.recordCompositeMovement(request(takenKey, "DEP-SYNC"));
+
+        List<UUID> accepted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accepted.add(pipeline.accept(request("idem-async-" + i + "-" + suffix, "DEP-" + i)).getId());
+        }
+        UUID conflicting = pipeline.accept(request(takenKey, "DEP-OTRA")).getId();
+
+        for (UUID id : accepted) {
+            OperationStatus status = awaitFinalStatus(id);
+            assertEquals(PendingOperationStatus.POSTED, status.status());
+            assertEquals(id, status.postedOperationId());
+        }
+        OperationStatus rejected = awaitFinalStatus(conflicting);
+        assertEquals(PendingOperationStatus.REJECTED, rejected.status());
+        assertTrue(rejected.rejectionReason().startsWith("Conflicto de idempotencia"));
+
+        // 1 síncrona + 5 asíncronas, 2 asientos cada una; el rechazo no dejó nada
+        assertEquals(6, opRepo.count());
+        assertEquals(12, entryRepo.count());
+    }
+
+    @Test
+    void stalePendingOperation_withAttemptsExhausted_isRejectedBySweep_withoutPosting() throws Exception {
+        UUID id = UUID.randomUUID();
+        // Fila que ya agotó sus intentos (default ledger.async.max-attempts=5) y nadie tocó hace una hora
+        jdbc.update("""
+                INSERT INTO pending_operations (id, idempotency_key, reference_type, reference_id,
+                                                debit_account_id, credit_account_id, amount, currency,
+                                                status, attempts, created_at, updated_at)
+                VALUES (?, ?, 'DEPOSIT', 'DEP-STALE', 10, 20, 150.00, 'PEN',
+                        'PENDING', 5, now() - interval '1 hour', now() - interval '1 hour')
+                """, id, "idem-async-stale-" + id);
+
+        OperationStatus status = awaitFinalStatus(id);
+
+        assertEquals(PendingOperationStatus.REJECTED, status.status());
+        assertEquals("Sin contabilizar tras 5 intentos", status.rejectionReason());
+        assertEquals(0, opRepo.count());
+    }
+
+    @Test
+    void accept_whenKeyReusedWithOtherReference_throwsConflict() {
+        String key = "idem-async-" + UUID.randomUUID();
+        pipeline.accept(request(key, "DEP-001"));
+        assertThrows(ConflictException.class, () -> pipeline.accept(request(key, "DEP-002")));
+    }
+
+    private OperationStatus awaitFinalStatus(UUID operationId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        OperationStatus status = pipeline.getStatus(operationId);
+        while (status.status() == PendingOperationStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = pipeline.getStatus(operationId);
+        }
+        return status;
+    }
+
+    private static CreateCompositeLedgerMovementRequest request(String idempotencyKey, String referenceId) {
+        return new CreateCompositeLedgerMovementRequest(
+                10L, 20L, new BigDecimal("150.00"),
+                Currency.PEN, ReferenceType.DEPOSIT, referenceId, idempotencyKey
+        );
+    }
+}
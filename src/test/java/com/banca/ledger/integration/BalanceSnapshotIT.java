@@ -0,0 +1,190 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.application.service.BalanceSnapshotJob;
+import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.infrastructure.persistence.BalanceSnapshotJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BalanceSnapshotIT extends BaseIT {
+
+    private static final Long ACCOUNT = 10L;
+
+    @Autowired
+    BalanceSnapshotJob job;
+
+    @Autowired
+    BalanceSnapshotJdbcRepository snapshotRepository;
+
+    @Autowired
+    LedgerEntryQueryService queryService;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void run_snapshotsClosedDays_andHistoricalBalanceMatchesFullSum() {
+        insertEntry(EntryType.CREDIT, "100.00", Currency.PEN, "2026-02-01T10:00:00Z");
+        insertEntry(EntryType.DEBIT, "30.00", Currency.PEN, "2026-02-02T10:00:00Z");
+        insertEntry(EntryType.CREDIT, "50.00", Currency.USD, "2026-02-03T10:00:00Z");
+        insertEntry(EntryType.CREDIT, "7.00", Currency.USD, "2026-02-05T09:00:00Z");
+
+        int days = job.run(Instant.parse("2026-02-05T12:00:00Z"));
+
+        assertEquals(4, days); // 01..04 (el 04 sin movimientos no genera filas)
+        assertEquals(LocalDate.of(2026, 2, 4), snapshotRepository.findState().validThrough());
+        assertSnapshot(Currency.PEN, "2026-02-01", "100.00");
+        assertSnapshot(Currency.PEN, "2026-02-02", "70.00");
+        assertSnapshot(Currency.USD, "2026-02-03", "50.00");
+
+        AccountBalanceResponse fromSnapshot = queryService.getAccountBalanceUpToDate(ACCOUNT, Instant.parse("2026-02-04T10:00:00Z"));
+        assertEquals(Currency.USD, fromSnapshot.getCurrency());
+        assertEquals(0, new BigDecimal("120.00").compareTo(fromSnapshot.getBalance()));
+
+        // Posterior a la marca de agua: snapshots + asientos del día 05 hasta upToDate
+        AccountBalanceResponse withTail = queryService.getAccountBalanceUpToDate(ACCOUNT, Instant.parse("2026-02-06T00:00:00Z"));
+        assertEquals(0, new BigDecimal("127.00").compareTo(withTail.getBalance()));
+
+        // Antes de cualquier asiento
+        AccountBalanceResponse before = queryService.getAccountBalanceUpToDate(ACCOUNT, Instant.parse("2026-01-15T00:00:00Z"));
+        assertNull(before.getCurrency());
+        assertEquals(0, BigDecimal.ZERO.compareTo(before.getBalance()));
+    }
+
+    @Test
+    void backdatedEntry_invalidatesSnapshots_andRunRecomputesThem() {
+        insertEntry(EntryType.CREDIT, "100.00", Currency.PEN, "2026-02-01T10:00:00Z");
+        insertEntry(EntryType.DEBIT, "30.00", Currency.PEN, "2026-02-02T10:00:00Z");
+        job.run(Instant.parse("2026-02-05T12:00:00Z"));
+        assertEquals(LocalDate.of(2026, 2, 4), snapshotRepository.findState().validThrough());
+
+        // Asiento tardío con fecha del día 01: la marca retrocede y el saldo ya lo incluye
+        insertEntry(EntryType.CREDIT, "5.00", Currency.PEN, "2026-02-01T12:00:00Z");
+
+        assertEquals(LocalDate.of(2026, 1, 31), snapshotRepository.findState().validThrough());
+        AccountBalanceResponse afterLateEntry = queryService.getAccountBalanceUpToDate(ACCOUNT, Instant.parse("2026-02-04T10:00:00Z"));
+        assertEquals(0, new BigDecimal("75.00").compareTo(afterLateEntry.getBalance()));
+
+        job.run(Instant.parse("2026-02-05T12:00:00Z"));
+
+        assertEquals(LocalDate.of(2026, 2, 4), snapshotRepository.findState().validThrough());
+        assertSnapshot(Currency.PEN, "2026-02-01", "105.00");
+        assertSnapshot(Currency.PEN, "2026-02-02", "75.00");
+        AccountBalanceResponse recomputed = queryService.getAccountBalanceUpToDate(ACCOUNT, Instant.parse("2026-02-04T10:00:00Z"));
+        assertEquals(0, new BigDecimal("75.00").compareTo(recomputed.getBalance()));
+    }
+
+    @Test
+    void backdatedEntryOfAnUncoveredDay_stillOpenWhileTheJobPassesThatDay_isIncludedInItsSnapshot() throws Exception {
+        insertEntry(EntryType.CREDIT, "100.00", Currency.PEN, "2026-02-01T10:00:00Z");
+        job.run(Instant.parse("2026-02-02T12:00:00Z"));
+        assertEquals(LocalDate.of(2026, 2, 1), snapshotRepository.findState().validThrough());
+
+        // Writer con fecha pasada (p. ej. un chunk de importación) sin commit: día 03 > marca + 1
+        try (Connection writer = dataSource.getConnection()) {
+            writer.setAutoCommit(false);
+            insertEntry(writer, "5.00", "2026-02-03T10:00:00Z");
+
+            CompletableFuture<Integer> run = CompletableFuture.supplyAsync(
+                    () -> job.run(Instant.parse("2026-02-05T12:00:00Z")));
+            boolean committed = false;
+            try {
+                // El avance del job queda esperando el lock de la fila de estado que tiene el writer
+                awaitBlockedOnSnapshotState();
+                assertFalse(run.isDone());
+                writer.commit();
+                committed = true;
+            } finally {
+                if (!committed) writer.rollback(); // libera al job si la aserción falló
+            }
+            run.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(LocalDate.of(2026, 2, 4), snapshotRepository.findState().validThrough());
+        assertSnapshot(Currency.PEN, "2026-02-03", "105.00");
+        AccountBalanceResponse balance = queryService.getAccountBalanceUpToDate(ACCOUNT, Instant.parse("2026-02-04T10:00:00Z"));
+        assertEquals(0, new BigDecimal("105.00").compareTo(balance.getBalance()));
+    }
+
+    private void awaitBlockedOnSnapshotState() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Integer waiting = jdbc.queryForObject("""
+                    SELECT COUNT(*) FROM pg_stat_activity
+                    WHERE wait_event_type = 'Lock' AND query LIKE '%balance_snapshot_state%'
+                    """, Integer.class);
+            if (waiting != null && waiting > 0) return;
+            Thread.sleep(100);
+        }
+        fail("El job no esperó el lock de balance_snapshot_state");
+    }
+
+    private void insertEntry(Connection connection, String amount, String createdAt) throws SQLException {
+        UUID operationId = UUID.randomUUID();
+        Timestamp ts = Timestamp.from(Instant.parse(createdAt));
+        try (PreparedStatement op = connection.prepareStatement("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, ?, ?, ?)
+                """);
+             PreparedStatement entry = connection.prepareStatement("""
+                INSERT INTO ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """)) {
+            op.setObject(1, operationId);
+            op.setString(2, "idem-snap-" + operationId);
+            op.setString(3, ReferenceType.DEPOSIT.name());
+            op.setString(4, "ref-snap-" + operationId);
+            op.setTimestamp(5, ts);
+            op.executeUpdate();
+            entry.setLong(1, ACCOUNT);
+            entry.setString(2, EntryType.CREDIT.name());
+            entry.setBigDecimal(3, new BigDecimal(amount));
+            entry.setString(4, Currency.PEN.name());
+            entry.setTimestamp(5, ts);
+            entry.setObject(6, operationId);
+            entry.executeUpdate();
+        }
+    }
+
+    private void insertEntry(EntryType entryType, String amount, Currency currency, String createdAt) {
+        UUID operationId = UUID.randomUUID();
+        Timestamp ts = Timestamp.from(Instant.parse(createdAt));
+        jdbc.update("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, ?, ?, ?)
+                """, operationId, "idem-snap-" + operationId, ReferenceType.DEPOSIT.name(), "ref-snap-" + operationId, ts);
+        jdbc.update("""
+                INSERT INTO ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, ACCOUNT, entryType.name(), new BigDecimal(amount), currency.name(), ts, operationId);
+    }
+
+    private void assertSnapshot(Currency currency, String day, String expected) {
+        BigDecimal balance = jdbc.queryForObject("""
+                SELECT balance FROM balance_snapshots
+                WHERE account_id = ? AND currency = ? AND snapshot_date = ?
+                """, BigDecimal.class, ACCOUNT, currency.name(), Date.valueOf(LocalDate.parse(day)));
+        assertEquals(0, new BigDecimal(expected).compareTo(balance), currency + " " + day);
+    }
+}
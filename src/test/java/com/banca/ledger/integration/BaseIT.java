@@ -1,5 +1,6 @@
 package com.banca.ledger.integration;
 
+import com.banca.ledger.application.service.AccountBalanceCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -30,9 +31,21 @@ public abstract class BaseIT {
     @Autowired
     JdbcTemplate jdbc;
 
+    @Autowired
+    AccountBalanceCache accountBalanceCache;
+
+    // Sin RESTART IDENTITY: Hibernate mantiene en memoria el rango de ids reservado (pooled),
+    // si la secuencia volviera a 1 podría asignar ids negativos o repetidos entre tests.
     @BeforeEach
     void cleanDb() {
-        jdbc.execute("TRUNCATE TABLE ledger_entries RESTART IDENTITY CASCADE");
-        jdbc.execute("TRUNCATE TABLE ledger_operations RESTART IDENTITY CASCADE");
+        jdbc.execute("TRUNCATE TABLE ledger_entries CASCADE");
+        jdbc.execute("TRUNCATE TABLE ledger_operations CASCADE");
+        jdbc.execute("TRUNCATE TABLE pending_operations");
+        jdbc.execute("TRUNCATE TABLE ledger_imports");
+        jdbc.execute("TRUNCATE TABLE account_balances");
+        jdbc.execute("TRUNCATE TABLE balance_snapshots");
+        jdbc.execute("UPDATE balance_snapshot_state SET valid_through = NULL, version = 0");
+        // El contexto se comparte entre tests: sin transacción la invalidación es inmediata
+        accountBalanceCache.invalidateAllAfterCommit();
     }
 }
@@ -0,0 +1,113 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.application.service.BulkReversalResult;
+import com.banca.ledger.application.service.BulkReversalService;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.enums.ReversalStatus;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BulkReversalServiceIT extends BaseIT {
+
+    @Autowired
+    BulkReversalService bulkReversalService;
+
+    @Autowired
+    LedgerEntryCommandService commandService;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Test
+    void reverseOperations_createsLinkedReversals_andReportsEachOperation() {
+        UUID first = operation("BATCH-001", "100.00");
+        UUID second = operation("BATCH-002", "40.00");
+        UUID missing = UUID.randomUUID();
+
+        List<BulkReversalResult> results = bulkReversalService.reverseOperations(List.of(first, second, missing));
+
+        assertEquals(List.of(ReversalStatus.REVERSED, ReversalStatus.REVERSED, ReversalStatus.NOT_FOUND),
+                results.stream().map(BulkReversalResult::status).toList());
+
+        UUID reversalId = results.get(0).reversalOperationId();
+        LedgerOperation reversal = opRepo.findById(reversalId).orElseThrow();
+        assertEquals("reversal:" + first, reversal.getIdempotencyKey());
+        assertEquals(first, reversal.getReversesOperationId());
+        assertEquals(reversalId, opRepo.findById(first).orElseThrow().getReversedByOperationId());
+
+        List<LedgerEntry> reversedEntries = entryRepo.findByOperationId(reversalId);
+        assertEquals(2, reversedEntries.size());
+        LedgerEntry reversedDebit = reversedEntries.stream()
+                .filter(e -> e.getEntryType() == EntryType.DEBIT).findFirst().orElseThrow();
+        assertEquals(2001L, reversedDebit.getAccountId(), "El CREDIT original pasa a DEBIT");
+        assertEquals(0, new BigDecimal("100.00").compareTo(reversedDebit.getAmount()));
+    }
+
+    @Test
+    void reverseOperations_isIdempotent_andAgreesWithSingleReversal() {
+        UUID reversedBefore = operation("BATCH-010", "10.00");
+        OperationEntries single = commandService.reverseOperation(reversedBefore);
+        UUID pending = operation("BATCH-011", "20.00");
+
+        List<BulkReversalResult> firstRun = bulkReversalService.reverseOperations(List.of(reversedBefore, pending));
+        List<BulkReversalResult> secondRun = bulkReversalService.reverseOperations(List.of(reversedBefore, pending));
+
+        assertEquals(ReversalStatus.ALREADY_REVERSED, firstRun.get(0).status());
+        assertEquals(single.operation().getId(), firstRun.get(0).reversalOperationId());
+        assertEquals(ReversalStatus.REVERSED, firstRun.get(1).status());
+
+        assertTrue(secondRun.stream().allMatch(r -> r.status() == ReversalStatus.ALREADY_REVERSED));
+        assertEquals(firstRun.get(1).reversalOperationId(), secondRun.get(1).reversalOperationId());
+        assertEquals(4, opRepo.count());
+        assertEquals(8, entryRepo.count());
+
+        // UC-8 sobre una operación reversada en bloque devuelve esa misma reversa
+        assertEquals(firstRun.get(1).reversalOperationId(), commandService.reverseOperation(pending).operation().getId());
+    }
+
+    @Test
+    void reverseByReference_reversesTheRange_andSkipsExistingReversals() {
+        UUID inRangeA = operation("BATCH-020", "1.00");
+        UUID inRangeB = operation("BATCH-021", "2.00");
+        operation("BATCH-030", "3.00");
+
+        List<BulkReversalResult> first = bulkReversalService
+                .reverseByReference(ReferenceType.TRANSFER, "BATCH-020", "BATCH-029");
+        assertEquals(List.of(inRangeA, inRangeB), first.stream().map(BulkReversalResult::operationId).toList());
+
+        // Las reversas comparten referencia con su original pero no vuelven a entrar en el filtro
+        List<BulkReversalResult> second = bulkReversalService
+                .reverseByReference(ReferenceType.TRANSFER, "BATCH-020", "BATCH-029");
+        assertEquals(List.of(inRangeA, inRangeB), second.stream().map(BulkReversalResult::operationId).toList());
+        assertTrue(second.stream().allMatch(r -> r.status() == ReversalStatus.ALREADY_REVERSED));
+    }
+
+    private UUID operation(String referenceId, String amount) {
+        LedgerOperation op = opRepo.save(new LedgerOperation(
+                "idem-" + referenceId + "-" + UUID.randomUUID(), ReferenceType.TRANSFER, referenceId));
+        entryRepo.saveAll(List.of(
+                new LedgerEntry(1001L, EntryType.DEBIT, new BigDecimal(amount), Currency.PEN, op),
+                new LedgerEntry(2001L, EntryType.CREDIT, new BigDecimal(amount), Currency.PEN, op)
+        ));
+        return op.getId();
+    }
+}
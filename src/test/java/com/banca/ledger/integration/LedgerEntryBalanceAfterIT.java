@@ -0,0 +1,107 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.MovementLegRequest;
+import com.banca.ledger.application.service.BalanceAfterBackfillJob;
+import com.banca.ledger.application.service.BatchEntryResult;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LedgerEntryBalanceAfterIT extends BaseIT {
+
+    @Autowired
+    LedgerEntryCommandService commandService;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    BalanceAfterBackfillJob backfillJob;
+
+    @Test
+    void postings_storeRunningBalancePerAccountAndCurrency() {
+        String suffix = UUID.randomUUID().toString();
+
+        LedgerEntry first = commandService.createEntry(request(10L, EntryType.CREDIT, "100.00", Currency.PEN, "a-" + suffix));
+        LedgerEntry second = commandService.createEntry(request(10L, EntryType.DEBIT, "30.00", Currency.PEN, "b-" + suffix));
+        LedgerEntry otherCurrency = commandService.createEntry(request(10L, EntryType.CREDIT, "5.00", Currency.USD, "c-" + suffix));
+
+        assertBalanceAfter("100.00", first.getId());
+        assertBalanceAfter("70.00", second.getId());
+        assertBalanceAfter("5.00", otherCurrency.getId());
+
+        // Dos patas sobre la misma cuenta en una operación: saldo corrido pata por pata
+        OperationEntries multiLeg = commandService.recordMultiLegMovement(new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "trf-" + suffix, "idem-ml-" + suffix, List.of(
+                new MovementLegRequest(10L, EntryType.DEBIT, new BigDecimal("20.00"), Currency.PEN),
+                new MovementLegRequest(10L, EntryType.DEBIT, new BigDecimal("1.00"), Currency.PEN),
+                new MovementLegRequest(20L, EntryType.CREDIT, new BigDecimal("21.00"), Currency.PEN)
+        )));
+        assertEquals(0, new BigDecimal("50.00").compareTo(multiLeg.entries().get(0).getBalanceAfter()));
+        assertBalanceAfter("50.00", multiLeg.entries().get(0).getId());
+        assertBalanceAfter("49.00", multiLeg.entries().get(1).getId());
+        assertBalanceAfter("21.00", multiLeg.entries().get(2).getId());
+
+        // Camino JDBC batch
+        List<BatchEntryResult> batch = commandService.createEntries(List.of(
+                request(10L, EntryType.CREDIT, "1.00", Currency.PEN, "d-" + suffix),
+                request(10L, EntryType.CREDIT, "2.00", Currency.PEN, "e-" + suffix)
+        ));
+        assertBalanceAfter("50.00", batch.get(0).entry().getId());
+        assertBalanceAfter("52.00", batch.get(1).entry().getId());
+    }
+
+    @Test
+    void backfill_fillsRowsWrittenBeforeTheColumn() {
+        UUID op = UUID.randomUUID();
+        jdbc.update("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, 'DEPOSIT', 'ref-legacy', now())
+                """, op, "idem-legacy-" + op);
+        for (String[] row : new String[][]{{"CREDIT", "100.00"}, {"DEBIT", "40.00"}, {"CREDIT", "15.00"}}) {
+            jdbc.update("""
+                    INSERT INTO ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id)
+                    VALUES (77, ?, ?, 'PEN', now(), ?)
+                    """, row[0], new BigDecimal(row[1]), op);
+        }
+        // Saldo materializado de la cuenta (como lo dejó V6)
+        jdbc.update("""
+                INSERT INTO account_balances (account_id, currency, balance, last_entry_id, version)
+                SELECT 77, 'PEN', 75.00, MAX(id), 0 FROM ledger_entries WHERE account_id = 77
+                """);
+
+        assertEquals(3, backfillJob.run());
+        assertEquals(0, backfillJob.run());
+
+        List<BigDecimal> running = jdbc.queryForList(
+                "SELECT balance_after FROM ledger_entries WHERE account_id = 77 ORDER BY id", BigDecimal.class);
+        assertEquals(List.of("100.00", "60.00", "75.00"), running.stream().map(b -> b.setScale(2).toPlainString()).toList());
+    }
+
+    private void assertBalanceAfter(String expected, Long entryId) {
+        BigDecimal stored = entryRepo.findById(entryId).orElseThrow().getBalanceAfter();
+        assertNotNull(stored);
+        assertEquals(0, new BigDecimal(expected).compareTo(stored), "entry " + entryId);
+    }
+
+    private static CreateLedgerEntryRequest request(Long accountId, EntryType type, String amount, Currency currency, String key) {
+        return new CreateLedgerEntryRequest(accountId, type, new BigDecimal(amount), currency,
+                ReferenceType.DEPOSIT, "ref-" + key, "idem-" + key);
+    }
+}
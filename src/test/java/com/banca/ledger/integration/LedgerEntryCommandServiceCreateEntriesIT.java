@@ -0,0 +1,101 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.application.service.BatchEntryResult;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.domain.enums.BatchItemStatus;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LedgerEntryCommandServiceCreateEntriesIT extends BaseIT {
+
+    @Autowired
+    LedgerEntryCommandService service;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Test
+    void createEntries_happyPath_shouldPersistOneOperationAndEntryPerItem() {
+        String suffix = UUID.randomUUID().toString();
+
+        List<CreateLedgerEntryRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requests.add(request("idem-batch-" + i + "-" + suffix, "ref-batch-" + i, 1000L + i));
+        }
+
+        List<BatchEntryResult> results = service.createEntries(requests);
+
+        assertEquals(50, results.size());
+        assertTrue(results.stream().allMatch(r -> r.status() == BatchItemStatus.CREATED));
+        assertTrue(results.stream().allMatch(r -> r.entry().getId() != null),
+                "Las entries devueltas deben venir persistidas (id no null)");
+
+        for (int i = 0; i < 50; i++) {
+            BatchEntryResult r = results.get(i);
+            assertEquals(i, r.index());
+            assertEquals(1000L + i, r.entry().getAccountId());
+            assertEquals(requests.get(i).getIdempotencyKey(), r.entry().getOperation().getIdempotencyKey());
+        }
+
+        assertEquals(50, opRepo.count());
+        assertEquals(50, entryRepo.count());
+    }
+
+    @Test
+    void createEntries_retry_shouldReplayAndReportConflicts() {
+        String suffix = UUID.randomUUID().toString();
+        CreateLedgerEntryRequest a = request("idem-a-" + suffix, "ref-a", 10L);
+        CreateLedgerEntryRequest b = request("idem-b-" + suffix, "ref-b", 20L);
+
+        List<BatchEntryResult> first = service.createEntries(List.of(a, b));
+
+        // Reintento: a igual, b con otra referencia (conflicto), c nueva y c repetida dentro del lote
+        CreateLedgerEntryRequest bConflict = request("idem-b-" + suffix, "ref-otra", 20L);
+        CreateLedgerEntryRequest c = request("idem-c-" + suffix, "ref-c", 30L);
+        List<BatchEntryResult> second = service.createEntries(List.of(a, bConflict, c, c));
+
+        assertEquals(BatchItemStatus.REPLAYED, second.get(0).status());
+        assertEquals(first.get(0).entry().getId(), second.get(0).entry().getId());
+
+        assertEquals(BatchItemStatus.CONFLICT, second.get(1).status());
+        assertNull(second.get(1).entry());
+
+        assertEquals(BatchItemStatus.CREATED, second.get(2).status());
+        assertEquals(BatchItemStatus.REPLAYED, second.get(3).status());
+        assertEquals(second.get(2).entry().getId(), second.get(3).entry().getId());
+
+        // En BD: a, b y c (sin duplicados)
+        assertEquals(3, opRepo.count());
+        assertEquals(3, entryRepo.count());
+    }
+
+    private static CreateLedgerEntryRequest request(String idempotencyKey, String referenceId, Long accountId) {
+        CreateLedgerEntryRequest request = new CreateLedgerEntryRequest();
+        request.setAccountId(accountId);
+        request.setEntryType(EntryType.CREDIT);
+        request.setAmount(new BigDecimal("25.00"));
+        request.setCurrency(Currency.PEN);
+        request.setReferenceType(ReferenceType.DEPOSIT);
+        request.setReferenceId(referenceId);
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+}
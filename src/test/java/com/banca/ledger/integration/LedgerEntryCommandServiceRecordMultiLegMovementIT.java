@@ -0,0 +1,98 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.MovementLegRequest;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LedgerEntryCommandServiceRecordMultiLegMovementIT extends BaseIT {
+
+    @Autowired
+    LedgerEntryCommandService service;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Test
+    void recordMultiLegMovement_persistsAllLegsUnderOneOperation() {
+        String suffix = UUID.randomUUID().toString();
+        CreateMultiLegMovementRequest request = new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "trf-" + suffix, "idem-ml-" + suffix, List.of(
+                new MovementLegRequest(1001L, EntryType.DEBIT, new BigDecimal("100.00"), Currency.PEN),
+                new MovementLegRequest(2001L, EntryType.CREDIT, new BigDecimal("97.64"), Currency.PEN),
+                new MovementLegRequest(3001L, EntryType.CREDIT, new BigDecimal("2.00"), Currency.PEN),
+                new MovementLegRequest(4001L, EntryType.CREDIT, new BigDecimal("0.36"), Currency.PEN)
+        ));
+
+        OperationEntries result = service.recordMultiLegMovement(request);
+
+        assertEquals(4, result.entries().size());
+        List<LedgerEntry> persisted = entryRepo.findByOperationId(result.operation().getId());
+        assertEquals(4, persisted.size());
+
+        BigDecimal net = persisted.stream()
+                .map(e -> e.getEntryType() == EntryType.DEBIT ? e.getAmount() : e.getAmount().negate())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, net.signum(), "Débitos y créditos deben cuadrar");
+    }
+
+    @Test
+    void recordMultiLegMovement_idempotency_shouldNotDuplicate() {
+        String suffix = UUID.randomUUID().toString();
+        CreateMultiLegMovementRequest request = new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "trf-" + suffix, "idem-ml-" + suffix, List.of(
+                new MovementLegRequest(1001L, EntryType.DEBIT, new BigDecimal("10.00"), Currency.USD),
+                new MovementLegRequest(2001L, EntryType.CREDIT, new BigDecimal("7.00"), Currency.USD),
+                new MovementLegRequest(3001L, EntryType.CREDIT, new BigDecimal("3.00"), Currency.USD)
+        ));
+
+        OperationEntries first = service.recordMultiLegMovement(request);
+        OperationEntries second = service.recordMultiLegMovement(request);
+
+        assertEquals(first.operation().getId(), second.operation().getId());
+        assertEquals(3, second.entries().size());
+        assertEquals(1, opRepo.count());
+        assertEquals(3, entryRepo.count());
+    }
+
+    @Test
+    void recordMultiLegMovement_keyReusedWithOtherLegCount_throwsConflict() {
+        String suffix = UUID.randomUUID().toString();
+        service.recordMultiLegMovement(new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "trf-" + suffix, "idem-ml-" + suffix, List.of(
+                new MovementLegRequest(1001L, EntryType.DEBIT, new BigDecimal("10.00"), Currency.PEN),
+                new MovementLegRequest(2001L, EntryType.CREDIT, new BigDecimal("10.00"), Currency.PEN)
+        )));
+
+        CreateMultiLegMovementRequest otherLegs = new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "trf-" + suffix, "idem-ml-" + suffix, List.of(
+                new MovementLegRequest(1001L, EntryType.DEBIT, new BigDecimal("10.00"), Currency.PEN),
+                new MovementLegRequest(2001L, EntryType.CREDIT, new BigDecimal("7.00"), Currency.PEN),
+                new MovementLegRequest(3001L, EntryType.CREDIT, new BigDecimal("3.00"), Currency.PEN)
+        ));
+
+        assertThrows(ConflictException.class, () -> service.recordMultiLegMovement(otherLegs));
+        assertEquals(1, opRepo.count());
+        assertEquals(2, entryRepo.count());
+    }
+}
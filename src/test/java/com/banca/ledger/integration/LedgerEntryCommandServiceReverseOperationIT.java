@@ -143,4 +143,27 @@ class LedgerEntryCommandServiceReverseOperationIT extends BaseIT {
         assertEquals(reversalOpId, revD.getOperation().getId());
         assertEquals(reversalOpId, revC.getOperation().getId());
     }
+
+    @Test
+    void reverseOperation_calledTwice_returnsSameReversal_andLinksBothOperations() {
+        String suffix = UUID.randomUUID().toString();
+        LedgerOperation originalOp = opRepo.save(
+                new LedgerOperation("idem-orig-" + suffix, ReferenceType.DEPOSIT, "ref-orig-" + suffix));
+        entryRepo.saveAll(List.of(
+                new LedgerEntry(1001L, EntryType.DEBIT, new BigDecimal("80.00"), Currency.PEN, originalOp),
+                new LedgerEntry(2001L, EntryType.CREDIT, new BigDecimal("80.00"), Currency.PEN, originalOp)
+        ));
+
+        OperationEntries first = service.reverseOperation(originalOp.getId());
+        OperationEntries second = service.reverseOperation(originalOp.getId());
+
+        UUID reversalOpId = first.operation().getId();
+        assertEquals(reversalOpId, second.operation().getId(), "El reintento debe devolver la misma reversa");
+        assertEquals(2, second.entries().size());
+        assertEquals(2, opRepo.count(), "No debe crearse una segunda reversa");
+        assertEquals(4, entryRepo.count());
+
+        assertEquals(reversalOpId, opRepo.findById(originalOp.getId()).orElseThrow().getReversedByOperationId());
+        assertEquals(originalOp.getId(), opRepo.findById(reversalOpId).orElseThrow().getReversesOperationId());
+    }
 }
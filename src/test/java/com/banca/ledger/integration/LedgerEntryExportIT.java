@@ -0,0 +1,85 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.LedgerEntryExportService;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ExportFormat;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// fetch-size menor que el historial: el cursor trae varios tramos
+@SpringBootTest
+@TestPropertySource(properties = "ledger.export.fetch-size=2")
+class LedgerEntryExportIT extends BaseIT {
+
+    @Autowired
+    LedgerEntryCommandService commandService;
+
+    @Autowired
+    LedgerEntryExportService exportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void ndjson_exportsTheWholeHistoryOfTheAccount_inChronologicalOrder() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ids.add(commandService.createEntry(request(10L, EntryType.CREDIT, i + ".00", "e" + i + "-" + suffix)).getId());
+        }
+        commandService.createEntry(request(20L, EntryType.DEBIT, "9.00", "other-" + suffix));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.exportAccount(10L, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, rows);
+        assertEquals(5, lines.length);
+        List<Long> exportedIds = new ArrayList<>();
+        for (String line : lines) {
+            exportedIds.add(objectMapper.readTree(line).get("id").asLong());
+        }
+        assertEquals(ids, exportedIds);
+
+        JsonNode last = objectMapper.readTree(lines[4]);
+        assertEquals("DEPOSIT", last.get("referenceType").asText());
+        assertEquals(0, new BigDecimal("15.00").compareTo(last.get("balanceAfter").decimalValue()));
+    }
+
+    @Test
+    void csv_exportsHeaderAndRows() {
+        String suffix = UUID.randomUUID().toString();
+        LedgerEntry entry = commandService.createEntry(request(10L, EntryType.DEBIT, "7.50", "csv-" + suffix));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportAccount(10L, ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,operationId,accountId"));
+        assertTrue(lines[1].startsWith(entry.getId() + "," + entry.getOperation().getId() + ",10,DEBIT,7.5000"));
+    }
+
+    private static CreateLedgerEntryRequest request(Long accountId, EntryType type, String amount, String key) {
+        return new CreateLedgerEntryRequest(accountId, type, new BigDecimal(amount), Currency.PEN,
+                ReferenceType.DEPOSIT, "ref-" + key, "idem-" + key);
+    }
+}
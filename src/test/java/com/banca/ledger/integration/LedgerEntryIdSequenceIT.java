@@ -0,0 +1,58 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LedgerEntryIdSequenceIT extends BaseIT {
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Test
+    void sequence_shouldUsePooledIncrement() {
+        Long increment = jdbc.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE sequencename = 'ledger_entries_id_seq'",
+                Long.class
+        );
+        assertEquals(50L, increment, "El INCREMENT BY debe coincidir con el allocationSize de LedgerEntry");
+    }
+
+    @Test
+    void saveAll_shouldAssignUniquePositiveIds() {
+        String suffix = UUID.randomUUID().toString();
+        LedgerOperation op = opRepo.save(new LedgerOperation("idem-seq-" + suffix, ReferenceType.DEPOSIT, "ref-seq"));
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            entries.add(new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("1.00"), Currency.PEN, op));
+        }
+
+        List<LedgerEntry> saved = entryRepo.saveAll(entries);
+
+        Set<Long> ids = saved.stream().map(LedgerEntry::getId).collect(Collectors.toSet());
+        assertEquals(120, ids.size(), "Los ids deben ser únicos");
+        assertTrue(ids.stream().allMatch(id -> id != null && id > 0), "Los ids deben ser positivos");
+        assertEquals(120, entryRepo.findByOperationId(op.getId()).size());
+    }
+}
@@ -1,7 +1,12 @@
 package com.banca.ledger.integration;
 
 import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.application.service.AccountBalanceRebuildService;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.application.service.OperationEntries;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.enums.ReferenceType;
@@ -14,7 +19,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,41 +39,24 @@ class LedgerEntryQueryServiceBalanceIT extends BaseIT {
     @Autowired
     LedgerOperationRepository opRepo;
 
+    @Autowired
+    LedgerEntryCommandService commandService;
+
+    @Autowired
+    AccountBalanceRebuildService rebuildService;
+
     @Test
     void getAccountBalance_happyPath_shouldReturnBalance() {
 
         // Arrange: evitar colisiones
         String suffix = UUID.randomUUID().toString();
-        String idempotencyKey = "idem-balance-" + suffix;
-        String referenceId = "ref-balance-" + suffix;
-
-        LedgerOperation op = opRepo.save(
-                new LedgerOperation(
-                        idempotencyKey,
-                        ReferenceType.DEPOSIT,
-                        referenceId
-                )
-        );
-
         Long accountId = 10L;
 
-        LedgerEntry debit = new LedgerEntry(
-                accountId,
-                EntryType.DEBIT,
-                new BigDecimal("50.00"),
-                Currency.PEN,
-                op
-        );
-
-        LedgerEntry credit = new LedgerEntry(
-                accountId,
-                EntryType.CREDIT,
-                new BigDecimal("150.00"),
-                Currency.PEN,
-                op
-        );
-
-        entryRepo.saveAll(List.of(debit, credit));
+        // Contabilizado por UC-1: el saldo materializado se actualiza en la misma transacción
+        commandService.createEntry(new CreateLedgerEntryRequest(accountId, EntryType.DEBIT,
+                new BigDecimal("50.00"), Currency.PEN, ReferenceType.DEPOSIT, "ref-d-" + suffix, "idem-d-" + suffix));
+        commandService.createEntry(new CreateLedgerEntryRequest(accountId, EntryType.CREDIT,
+                new BigDecimal("150.00"), Currency.PEN, ReferenceType.DEPOSIT, "ref-c-" + suffix, "idem-c-" + suffix));
 
         // Act
         AccountBalanceResponse result = service.getAccountBalance(accountId);
@@ -78,4 +69,86 @@ class LedgerEntryQueryServiceBalanceIT extends BaseIT {
         // balance = credits(150) - debits(50) = 100
         assertEquals(0, new BigDecimal("100.00").compareTo(result.getBalance()));
     }
+
+    @Test
+    void getAccountBalances_returnsTheSameBalancesAsTheSingleLookup() {
+        String suffix = UUID.randomUUID().toString();
+        commandService.recordCompositeMovement(new CreateCompositeLedgerMovementRequest(
+                10L, 20L, new BigDecimal("80.00"), Currency.PEN, ReferenceType.TRANSFER,
+                "trf-" + suffix, "idem-trf-" + suffix));
+        commandService.createEntry(new CreateLedgerEntryRequest(10L, EntryType.CREDIT,
+                new BigDecimal("3.00"), Currency.USD, ReferenceType.DEPOSIT, "ref-" + suffix, "idem-usd-" + suffix));
+
+        Map<Long, AccountBalanceResponse> balances = service.getAccountBalances(List.of(10L, 20L, 30L));
+
+        assertEquals(2, balances.size());
+        assertFalse(balances.containsKey(30L));
+        // Cuenta con dos monedas: suma de ambas con la del último movimiento, como en GET /accounts/{id}/balance
+        assertEquals(Currency.USD, balances.get(10L).getCurrency());
+        assertEquals(0, new BigDecimal("-77.00").compareTo(balances.get(10L).getBalance()));
+        assertEquals(service.getAccountBalance(10L).getBalance(), balances.get(10L).getBalance());
+        assertEquals(0, new BigDecimal("80.00").compareTo(balances.get(20L).getBalance()));
+        assertEquals(service.getAccountBalance(20L).getBalance(), balances.get(20L).getBalance());
+    }
+
+    @Test
+    void getAccountBalance_followsCompositeMovementAndItsReversal() {
+        String suffix = UUID.randomUUID().toString();
+
+        OperationEntries movement = commandService.recordCompositeMovement(new CreateCompositeLedgerMovementRequest(
+                1001L, 2001L, new BigDecimal("80.00"), Currency.USD, ReferenceType.TRANSFER,
+                "trf-" + suffix, "idem-trf-" + suffix));
+
+        assertEquals(0, new BigDecimal("-80.00").compareTo(service.getAccountBalance(1001L).getBalance()));
+        assertEquals(0, new BigDecimal("80.00").compareTo(service.getAccountBalance(2001L).getBalance()));
+
+        commandService.reverseOperation(movement.operation().getId());
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(service.getAccountBalance(1001L).getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(service.getAccountBalance(2001L).getBalance()));
+    }
+
+    @Test
+    void getAccountBalance_latestCurrencyFollowsPostingTime_notEntryId() {
+        // Los ids no siguen el orden de contabilización (bloques pooled de JPA vs nextval por fila de JDBC / COPY)
+        insertEntry(900_000_002L, 40L, "5.00", Currency.USD, "2026-03-01T10:00:00Z");
+        insertEntry(900_000_001L, 40L, "70.00", Currency.PEN, "2026-03-02T10:00:00Z");
+        rebuildService.rebuild(40L);
+
+        AccountBalanceResponse result = service.getAccountBalance(40L);
+
+        assertEquals(Currency.PEN, result.getCurrency());
+        assertEquals(0, new BigDecimal("75.00").compareTo(result.getBalance()));
+        assertEquals(Currency.PEN, service.getAccountBalances(List.of(40L)).get(40L).getCurrency());
+    }
+
+    @Test
+    void rebuild_recomputesBalancesFromLedgerEntries() {
+        // Asientos escritos por fuera del ledger (p. ej. corrección manual): el saldo materializado no los ve
+        String suffix = UUID.randomUUID().toString();
+        LedgerOperation op = opRepo.save(new LedgerOperation("idem-manual-" + suffix, ReferenceType.DEPOSIT, "ref-" + suffix));
+        entryRepo.saveAll(List.of(
+                new LedgerEntry(30L, EntryType.CREDIT, new BigDecimal("70.00"), Currency.PEN, op),
+                new LedgerEntry(30L, EntryType.DEBIT, new BigDecimal("20.00"), Currency.PEN, op)
+        ));
+
+        assertEquals(1, rebuildService.rebuild(30L));
+
+        AccountBalanceResponse result = service.getAccountBalance(30L);
+        assertEquals(Currency.PEN, result.getCurrency());
+        assertEquals(0, new BigDecimal("50.00").compareTo(result.getBalance()));
+    }
+
+    private void insertEntry(long id, Long accountId, String amount, Currency currency, String createdAt) {
+        UUID operationId = UUID.randomUUID();
+        Timestamp ts = Timestamp.from(Instant.parse(createdAt));
+        jdbc.update("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, ?, ?, ?)
+                """, operationId, "idem-" + operationId, ReferenceType.DEPOSIT.name(), "ref-" + operationId, ts);
+        jdbc.update("""
+                INSERT INTO ledger_entries (id, account_id, entry_type, amount, currency, created_at, operation_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, id, accountId, EntryType.CREDIT.name(), new BigDecimal(amount), currency.name(), ts, operationId);
+    }
 }
@@ -0,0 +1,84 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.application.service.BalanceSeries;
+import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.domain.enums.BalanceGranularity;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LedgerEntryQueryServiceBalanceSeriesIT extends BaseIT {
+
+    @Autowired
+    private LedgerEntryQueryService service;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void getBalanceSeries_daily_opensBeforeFrom_andFillsDaysWithoutEntries() {
+        Long accountId = 10L;
+
+        insertEntry(accountId, EntryType.CREDIT, "100.00", Instant.parse("2026-02-28T23:59:59Z")); // antes de from
+        insertEntry(accountId, EntryType.DEBIT, "30.00", Instant.parse("2026-03-01T00:00:00Z"));   // primer instante de from
+        insertEntry(accountId, EntryType.CREDIT, "5.50", Instant.parse("2026-03-03T23:59:59Z"));
+        insertEntry(accountId, EntryType.CREDIT, "999.00", Instant.parse("2026-03-04T00:00:00Z")); // después de to
+        insertEntry(20L, EntryType.CREDIT, "777.00", Instant.parse("2026-03-02T12:00:00Z"));       // otra cuenta
+
+        BalanceSeries series = service.getBalanceSeries(
+                accountId, LocalDate.parse("2026-03-01"), LocalDate.parse("2026-03-03"), BalanceGranularity.DAY);
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(series.openingBalance()));
+        assertEquals(List.of(LocalDate.parse("2026-03-01"), LocalDate.parse("2026-03-02"), LocalDate.parse("2026-03-03")),
+                series.points().stream().map(BalanceSeries.Point::date).toList());
+        assertEquals(0, new BigDecimal("70.00").compareTo(series.points().get(0).balance()));
+        assertEquals(0, new BigDecimal("70.00").compareTo(series.points().get(1).balance()));
+        assertEquals(0, new BigDecimal("75.50").compareTo(series.points().get(2).balance()));
+    }
+
+    @Test
+    void getBalanceSeries_lastPointMatchesBalanceHistory() {
+        Long accountId = 10L;
+        insertEntry(accountId, EntryType.CREDIT, "40.00", Instant.parse("2026-01-10T08:00:00Z"));
+        insertEntry(accountId, EntryType.DEBIT, "15.00", Instant.parse("2026-02-20T08:00:00Z"));
+
+        BalanceSeries series = service.getBalanceSeries(
+                accountId, LocalDate.parse("2026-01-01"), LocalDate.parse("2026-02-28"), BalanceGranularity.MONTH);
+
+        assertEquals(2, series.points().size());
+        BigDecimal history = service.getAccountBalanceUpToDate(accountId, Instant.parse("2026-02-28T23:59:59Z")).getBalance();
+        assertEquals(0, history.compareTo(series.points().get(1).balance()));
+        assertEquals(0, new BigDecimal("40.00").compareTo(series.points().get(0).balance()));
+    }
+
+    private void insertEntry(Long accountId, EntryType entryType, String amount, Instant createdAt) {
+        UUID operationId = UUID.randomUUID();
+        jdbc.update("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, ?, ?, ?)
+                """,
+                operationId, "idem-series-" + operationId, ReferenceType.DEPOSIT.name(), "ref-series-" + operationId,
+                Timestamp.from(createdAt)
+        );
+        jdbc.update("""
+                INSERT INTO ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """,
+                accountId, entryType.name(), new BigDecimal(amount), Currency.PEN.name(), Timestamp.from(createdAt), operationId
+        );
+    }
+}
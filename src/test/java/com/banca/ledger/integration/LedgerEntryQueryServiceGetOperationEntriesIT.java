@@ -1,7 +1,8 @@
 package com.banca.ledger.integration;
 
+import com.banca.ledger.api.dto.LedgerEntryResponse;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
-import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.application.service.OperationEntriesView;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
 import com.banca.ledger.domain.enums.ReferenceType;
@@ -67,7 +68,7 @@ class LedgerEntryQueryServiceGetOperationEntriesIT extends BaseIT {
         assertNotNull(op.getId());
 
         // Act
-        OperationEntries result = service.getOperationEntries(op.getId());
+        OperationEntriesView result = service.getOperationEntries(op.getId());
 
         // Assert
         assertNotNull(result);
@@ -76,16 +77,16 @@ class LedgerEntryQueryServiceGetOperationEntriesIT extends BaseIT {
 
         assertEquals(op.getId(), result.operation().getId());
 
-        List<LedgerEntry> entries = result.entries();
+        List<LedgerEntryResponse> entries = result.entries();
         assertEquals(2, entries.size());
 
         // 1 DEBIT + 1 CREDIT (sin depender del orden)
-        LedgerEntry debitEntry = entries.stream()
+        LedgerEntryResponse debitEntry = entries.stream()
                 .filter(e -> e.getEntryType() == EntryType.DEBIT)
                 .findFirst()
                 .orElseThrow();
 
-        LedgerEntry creditEntry = entries.stream()
+        LedgerEntryResponse creditEntry = entries.stream()
                 .filter(e -> e.getEntryType() == EntryType.CREDIT)
                 .findFirst()
                 .orElseThrow();
@@ -100,10 +101,10 @@ class LedgerEntryQueryServiceGetOperationEntriesIT extends BaseIT {
         assertEquals(Currency.PEN, creditEntry.getCurrency());
         assertEquals(0, new BigDecimal("150.00").compareTo(creditEntry.getAmount()));
 
-        // ambas entries apuntan a la operación
-        assertNotNull(debitEntry.getOperation());
-        assertNotNull(creditEntry.getOperation());
-        assertEquals(op.getId(), debitEntry.getOperation().getId());
-        assertEquals(op.getId(), creditEntry.getOperation().getId());
+        // ambas entries apuntan a la operación (y traen su referenceType desde la proyección)
+        assertEquals(op.getId(), debitEntry.getOperationId());
+        assertEquals(op.getId(), creditEntry.getOperationId());
+        assertEquals(ReferenceType.DEPOSIT, debitEntry.getReferenceType());
+        assertEquals(ReferenceType.DEPOSIT, creditEntry.getReferenceType());
     }
 }
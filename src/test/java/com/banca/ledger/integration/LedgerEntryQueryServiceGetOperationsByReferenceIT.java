@@ -0,0 +1,83 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.LedgerEntryResponse;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.application.service.OperationEntriesView;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LedgerEntryQueryServiceGetOperationsByReferenceIT extends BaseIT {
+
+    @Autowired
+    LedgerEntryQueryService service;
+
+    @Autowired
+    LedgerEntryCommandService commandService;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Test
+    void getOperationsByReference_returnsOriginalAndReversal_eachWithItsOwnEntries() {
+        String suffix = UUID.randomUUID().toString();
+        String referenceId = "ref-byref-" + suffix;
+
+        LedgerOperation original = opRepo.save(
+                new LedgerOperation("idem-byref-" + suffix, ReferenceType.TRANSFER, referenceId));
+        entryRepo.saveAll(List.of(
+                new LedgerEntry(1001L, EntryType.DEBIT, new BigDecimal("75.00"), Currency.PEN, original),
+                new LedgerEntry(2001L, EntryType.CREDIT, new BigDecimal("75.00"), Currency.PEN, original)
+        ));
+        // La reversa reutiliza referenceType + referenceId de la original
+        OperationEntries reversal = commandService.reverseOperation(original.getId());
+
+        // Otra referencia y otro tipo con el mismo referenceId: no deben aparecer
+        LedgerOperation other = opRepo.save(
+                new LedgerOperation("idem-byref-other-" + suffix, ReferenceType.DEPOSIT, referenceId));
+        entryRepo.saveAll(List.of(
+                new LedgerEntry(1001L, EntryType.DEBIT, new BigDecimal("1.00"), Currency.PEN, other),
+                new LedgerEntry(2001L, EntryType.CREDIT, new BigDecimal("1.00"), Currency.PEN, other)
+        ));
+
+        List<OperationEntriesView> result = service.getOperationsByReference(ReferenceType.TRANSFER, referenceId);
+
+        assertEquals(2, result.size());
+        assertEquals(original.getId(), result.get(0).operation().getId());
+        assertEquals(reversal.operation().getId(), result.get(1).operation().getId());
+        assertEquals(original.getId(), result.get(1).operation().getReversesOperationId());
+
+        for (OperationEntriesView view : result) {
+            assertEquals(2, view.entries().size());
+            for (LedgerEntryResponse entry : view.entries()) {
+                assertEquals(view.operation().getId(), entry.getOperationId());
+                assertEquals(ReferenceType.TRANSFER, entry.getReferenceType());
+            }
+        }
+    }
+
+    @Test
+    void getOperationsByReference_unknownReference_returnsEmpty() {
+        assertEquals(List.of(),
+                service.getOperationsByReference(ReferenceType.DEPOSIT, "ref-missing-" + UUID.randomUUID()));
+    }
+}
@@ -1,5 +1,7 @@
 package com.banca.ledger.integration;
 
+import com.banca.ledger.api.dto.LedgerEntryResponse;
+import com.banca.ledger.application.service.EntryCursorPage;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
@@ -15,6 +17,7 @@ import org.springframework.data.domain.Page;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
@@ -70,7 +73,7 @@ class LedgerEntryQueryServiceListEntriesIT extends BaseIT {
         int size = 10;
 
         // Act
-        Page<LedgerEntry> result = service.listEntries(accountId, page, size);
+        Page<LedgerEntryResponse> result = service.listEntries(accountId, page, size);
 
         // Assert: Page básica
         assertNotNull(result);
@@ -86,13 +89,13 @@ class LedgerEntryQueryServiceListEntriesIT extends BaseIT {
         );
 
         // Assert: orden determinista DESC por (createdAt DESC, id DESC)
-        List<LedgerEntry> content = result.getContent();
+        List<LedgerEntryResponse> content = result.getContent();
 
         // sanity checks
         assertTrue(content.stream().allMatch(e -> e.getCreatedAt() != null), "createdAt no debe ser null");
         assertTrue(content.stream().allMatch(e -> e.getId() != null), "id no debe ser null");
 
-        Comparator<LedgerEntry> expectedOrder = (a, b) -> {
+        Comparator<LedgerEntryResponse> expectedOrder = (a, b) -> {
             Instant ca = a.getCreatedAt();
             Instant cb = b.getCreatedAt();
             int cmp = cb.compareTo(ca); // DESC createdAt
@@ -103,8 +106,44 @@ class LedgerEntryQueryServiceListEntriesIT extends BaseIT {
             return Long.compare(b.getId(), a.getId());
         };
 
-        List<LedgerEntry> sorted = content.stream().sorted(expectedOrder).toList();
+        List<LedgerEntryResponse> sorted = content.stream().sorted(expectedOrder).toList();
         assertEquals(sorted, content,
                 "Debe venir ordenado DESC por createdAt y, si empata, por id DESC (orden estable)");
     }
+
+    @Test
+    void listEntriesByCursor_walksAllEntriesOnce_inCreatedAtDescIdDescOrder() {
+        String suffix = UUID.randomUUID().toString();
+        LedgerOperation op = opRepo.save(new LedgerOperation("idem-cursor-" + suffix, ReferenceType.DEPOSIT, "ref-" + suffix));
+
+        // Un solo saveAll: varios asientos comparten created_at y desempata el id
+        List<LedgerEntry> saved = entryRepo.saveAll(List.of(
+                new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("1"), Currency.PEN, op),
+                new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("2"), Currency.PEN, op),
+                new LedgerEntry(10L, EntryType.DEBIT, new BigDecimal("3"), Currency.PEN, op),
+                new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("4"), Currency.PEN, op),
+                new LedgerEntry(10L, EntryType.CREDIT, new BigDecimal("5"), Currency.PEN, op),
+                new LedgerEntry(20L, EntryType.DEBIT, new BigDecimal("15"), Currency.PEN, op)
+        ));
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            EntryCursorPage page = service.listEntriesByCursor(10L, cursor, 2);
+            page.entries().forEach(e -> walked.add(e.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = service.listEntries(10L, 0, 10).getContent().stream()
+                .sorted(Comparator.comparing(LedgerEntryResponse::getCreatedAt).thenComparing(LedgerEntryResponse::getId).reversed())
+                .map(LedgerEntryResponse::getId)
+                .toList();
+
+        assertEquals(3, pages);
+        assertEquals(5, walked.size());
+        assertEquals(expected, walked);
+        assertTrue(saved.stream().filter(e -> e.getAccountId() == 20L).noneMatch(e -> walked.contains(e.getId())));
+    }
 }
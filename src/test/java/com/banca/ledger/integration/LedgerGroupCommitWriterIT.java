@@ -0,0 +1,157 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.MovementLegRequest;
+import com.banca.ledger.application.exception.ConflictException;
+import com.banca.ledger.application.service.LedgerGroupCommitWriter;
+import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "ledger.group-commit.enabled=true",
+        "ledger.group-commit.max-wait=50ms",
+        "ledger.group-commit.writers=1"
+})
+class LedgerGroupCommitWriterIT extends BaseIT {
+
+    @Autowired
+    LedgerGroupCommitWriter writer;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentWrites_conflictInOneRequest_doesNotAbortTheOthers() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        double fallbacksBefore = fallbacks();
+        double groupedBefore = grouped();
+
+        // Key ya confirmada con otra referencia => el request "conflicto" debe recibir su 409
+        writer.createEntry(request("idem-taken-" + suffix, "ref-original", 1L));
+
+        List<Callable<LedgerEntry>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            CreateLedgerEntryRequest r = request("idem-gc-" + i + "-" + suffix, "ref-" + i, 100L + i);
+            calls.add(() -> writer.createEntry(r));
+        }
+        calls.add(() -> writer.createEntry(request("idem-taken-" + suffix, "ref-otra", 1L)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        try {
+            List<Future<LedgerEntry>> futures = pool.invokeAll(calls);
+
+            for (int i = 0; i < 8; i++) {
+                LedgerEntry entry = futures.get(i).get(10, TimeUnit.SECONDS);
+                assertNotNull(entry.getId());
+                assertEquals(100L + i, entry.getAccountId());
+            }
+
+            ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> futures.get(8).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(ConflictException.class, ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 1 previa + 8 nuevas; el conflicto no dejó nada
+        assertEquals(9, opRepo.count());
+        assertEquals(9, entryRepo.count());
+
+        // Todo se confirmó en grupos: ningún grupo revertido ni request reintentado aparte
+        assertEquals(fallbacksBefore, fallbacks());
+        assertEquals(groupedBefore + 10, grouped());
+    }
+
+    @Test
+    void compositeAndMultiLegMovements_areCommittedInGroups_withoutFallback() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        double fallbacksBefore = fallbacks();
+        long operationsBefore = opRepo.count();
+        long entriesBefore = entryRepo.count();
+
+        List<Callable<OperationEntries>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            CreateCompositeLedgerMovementRequest r = new CreateCompositeLedgerMovementRequest(
+                    200L + i, 300L + i, new BigDecimal("25.00"), Currency.PEN,
+                    ReferenceType.TRANSFER, "ref-comp-" + i, "idem-comp-" + i + "-" + suffix);
+            calls.add(() -> writer.recordCompositeMovement(r));
+        }
+        calls.add(() -> writer.recordMultiLegMovement(multiLeg("idem-ml-" + suffix, new BigDecimal("7.00"))));
+        // No cuadra: 400 solo para este caller
+        calls.add(() -> writer.recordMultiLegMovement(multiLeg("idem-ml-bad-" + suffix, new BigDecimal("6.00"))));
+
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        try {
+            List<Future<OperationEntries>> futures = pool.invokeAll(calls);
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(2, futures.get(i).get(10, TimeUnit.SECONDS).entries().size());
+            }
+            assertEquals(3, futures.get(4).get(10, TimeUnit.SECONDS).entries().size());
+
+            ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> futures.get(5).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(operationsBefore + 5, opRepo.count());
+        assertEquals(entriesBefore + 4 * 2 + 3, entryRepo.count());
+        assertEquals(fallbacksBefore, fallbacks());
+    }
+
+    private double fallbacks() {
+        return meterRegistry.get("ledger.group-commit.fallbacks").counter().count();
+    }
+
+    private double grouped() {
+        return meterRegistry.get("ledger.group-commit.group.size").summary().totalAmount();
+    }
+
+    // 10.00 DEBIT contra principal + 3.00 CREDIT: cuadra solo con principal = 7.00
+    private static CreateMultiLegMovementRequest multiLeg(String idempotencyKey, BigDecimal principal) {
+        return new CreateMultiLegMovementRequest(ReferenceType.TRANSFER, "ref-ml", idempotencyKey, List.of(
+                new MovementLegRequest(400L, EntryType.DEBIT, new BigDecimal("10.00"), Currency.PEN),
+                new MovementLegRequest(401L, EntryType.CREDIT, principal, Currency.PEN),
+                new MovementLegRequest(402L, EntryType.CREDIT, new BigDecimal("3.00"), Currency.PEN)
+        ));
+    }
+
+    private static CreateLedgerEntryRequest request(String idempotencyKey, String referenceId, Long accountId) {
+        CreateLedgerEntryRequest request = new CreateLedgerEntryRequest();
+        request.setAccountId(accountId);
+        request.setEntryType(EntryType.CREDIT);
+        request.setAmount(new BigDecimal("10.00"));
+        request.setCurrency(Currency.PEN);
+        request.setReferenceType(ReferenceType.DEPOSIT);
+        request.setReferenceId(referenceId);
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+}
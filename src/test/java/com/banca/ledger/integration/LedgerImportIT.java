@@ -0,0 +1,107 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.application.importing.LedgerImportService;
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.enums.ImportStatus;
+import com.banca.ledger.domain.model.LedgerImport;
+import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.infrastructure.persistence.LedgerEntryRepository;
+import com.banca.ledger.infrastructure.persistence.LedgerOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "ledger.import.chunk-size=2")
+class LedgerImportIT extends BaseIT {
+
+    private static final String HEADER = "idempotencyKey,referenceType,referenceId,accountId,entryType,amount,currency,createdAt\n";
+
+    @Autowired
+    LedgerImportService importService;
+
+    @Autowired
+    LedgerOperationRepository opRepo;
+
+    @Autowired
+    LedgerEntryRepository entryRepo;
+
+    @Test
+    void csvImport_loadsOperationsAndEntriesWithCopy() {
+        String csv = HEADER
+                + "legacy-1,DEPOSIT,\"DEP\\1\tX\",10,DEBIT,150.00,PEN,2019-03-01T10:00:00Z\n"
+                + "legacy-1,DEPOSIT,\"DEP\\1\tX\",20,CREDIT,150.00,PEN,2019-03-01T10:00:00Z\n"
+                + "legacy-2,TRANSFER,TRF-2,20,DEBIT,40.5,PEN,2019-03-02T10:00:00Z\n"
+                + "legacy-2,TRANSFER,TRF-2,30,CREDIT,40.5,PEN,2019-03-02T10:00:00Z\n";
+
+        LedgerImport result = importService.importStream("imp-csv", ImportFormat.CSV, input(csv));
+
+        assertEquals(ImportStatus.COMPLETED, result.getStatus());
+        assertEquals(4, result.getRowsProcessed());
+        assertEquals(2, opRepo.count());
+        assertEquals(4, entryRepo.count());
+
+        // Escapes del formato text de COPY (backslash y TAB) llegan intactos
+        LedgerOperation first = opRepo.findByIdempotencyKey("legacy-1").orElseThrow();
+        assertEquals("DEP\\1\tX", first.getReferenceId());
+        assertEquals(Instant.parse("2019-03-01T10:00:00Z"), first.getCreatedAt());
+
+        BigDecimal net = jdbc.queryForObject("""
+                SELECT COALESCE(SUM(CASE WHEN entry_type = 'DEBIT' THEN amount ELSE -amount END), 0)
+                FROM ledger_entries
+                """, BigDecimal.class);
+        assertEquals(0, net.signum());
+    }
+
+    @Test
+    void failedImport_keepsCommittedChunks_andResumesFromCheckpoint() {
+        String good = HEADER
+                + "legacy-1,DEPOSIT,R1,10,DEBIT,1,PEN,\n"
+                + "legacy-1,DEPOSIT,R1,20,CREDIT,1,PEN,\n"
+                + "legacy-2,DEPOSIT,R2,10,DEBIT,2,PEN,\n"
+                + "legacy-2,DEPOSIT,R2,20,CREDIT,2,PEN,\n";
+        String broken = good.replace("legacy-2,DEPOSIT,R2,20,CREDIT,2,PEN", "legacy-2,DEPOSIT,R2,20,CREDIT,3,PEN");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importStream("imp-resume", ImportFormat.CSV, input(broken)));
+
+        LedgerImport failed = importService.getImport("imp-resume");
+        assertEquals(ImportStatus.FAILED, failed.getStatus());
+        assertEquals(2, failed.getRowsProcessed());
+        assertEquals(1, opRepo.count());
+
+        // Archivo corregido, mismo importId: solo se carga lo que falta
+        LedgerImport resumed = importService.importStream("imp-resume", ImportFormat.CSV, input(good));
+
+        assertEquals(ImportStatus.COMPLETED, resumed.getStatus());
+        assertEquals(4, resumed.getRowsProcessed());
+        assertEquals(2, resumed.getOperationsImported());
+        assertEquals(2, opRepo.count());
+        assertEquals(4, entryRepo.count());
+    }
+
+    @Test
+    void ndjsonImport_withKeyAlreadyInLedger_fails() {
+        String line = "{\"idempotencyKey\":\"legacy-1\",\"referenceType\":\"DEPOSIT\",\"referenceId\":\"R1\","
+                + "\"accountId\":%d,\"entryType\":\"%s\",\"amount\":1,\"currency\":\"PEN\"}\n";
+        String ndjson = line.formatted(10, "DEBIT") + line.formatted(20, "CREDIT");
+
+        importService.importStream("imp-a", ImportFormat.NDJSON, input(ndjson));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importStream("imp-b", ImportFormat.NDJSON, input(ndjson)));
+        assertEquals(1, opRepo.count());
+        assertEquals(ImportStatus.FAILED, importService.getImport("imp-b").getStatus());
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.application.service.LedgerStatementService;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// fetch-size menor que el período: el cursor trae varios tramos
+@SpringBootTest
+@TestPropertySource(properties = "ledger.export.fetch-size=2")
+class LedgerStatementIT extends BaseIT {
+
+    @Autowired
+    private LedgerStatementService statementService;
+
+    @Autowired
+    private LedgerEntryQueryService queryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void statement_opensBeforeFrom_includesBothEnds_andClosesAtBalanceHistoryOfTo() throws Exception {
+        Long accountId = 10L;
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        Instant to = Instant.parse("2026-01-31T23:59:59Z");
+
+        insertEntry(accountId, EntryType.CREDIT, "100.00", Instant.parse("2025-12-31T23:59:59.999999Z")); // apertura
+        List<Long> inPeriod = new ArrayList<>();
+        inPeriod.add(insertEntry(accountId, EntryType.DEBIT, "10.00", from));
+        inPeriod.add(insertEntry(accountId, EntryType.CREDIT, "20.00", Instant.parse("2026-01-15T12:00:00Z")));
+        inPeriod.add(insertEntry(accountId, EntryType.DEBIT, "5.00", Instant.parse("2026-01-20T12:00:00Z")));
+        inPeriod.add(insertEntry(accountId, EntryType.CREDIT, "1.00", to));
+        insertEntry(accountId, EntryType.CREDIT, "999.00", Instant.parse("2026-02-01T00:00:00Z"));          // después
+        insertEntry(20L, EntryType.CREDIT, "777.00", Instant.parse("2026-01-10T00:00:00Z"));                // otra cuenta
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long entries = statementService.writeStatement(accountId, from, to, out);
+
+        JsonNode statement = objectMapper.readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals(4, entries);
+        assertEquals(0, new BigDecimal("100.00").compareTo(statement.get("openingBalance").decimalValue()));
+
+        List<Long> ids = new ArrayList<>();
+        statement.get("entries").forEach(e -> ids.add(e.get("id").asLong()));
+        assertEquals(inPeriod, ids);
+        assertEquals(0, new BigDecimal("90.00").compareTo(statement.get("entries").get(0).get("runningBalance").decimalValue()));
+
+        assertEquals(0, new BigDecimal("15.00").compareTo(statement.get("totalDebits").decimalValue()));
+        assertEquals(0, new BigDecimal("21.00").compareTo(statement.get("totalCredits").decimalValue()));
+        assertEquals(0, new BigDecimal("106.00").compareTo(statement.get("closingBalance").decimalValue()));
+        BigDecimal history = queryService.getAccountBalanceUpToDate(accountId, to).getBalance();
+        assertEquals(0, history.compareTo(statement.get("closingBalance").decimalValue()));
+    }
+
+    private Long insertEntry(Long accountId, EntryType entryType, String amount, Instant createdAt) {
+        UUID operationId = UUID.randomUUID();
+        jdbc.update("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, ?, ?, ?)
+                """,
+                operationId, "idem-stmt-" + operationId, ReferenceType.DEPOSIT.name(), "ref-stmt-" + operationId,
+                Timestamp.from(createdAt)
+        );
+        return jdbc.queryForObject("""
+                INSERT INTO ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                RETURNING id
+                """,
+                Long.class,
+                accountId, entryType.name(), new BigDecimal(amount), Currency.PEN.name(), Timestamp.from(createdAt), operationId
+        );
+    }
+}
@@ -0,0 +1,184 @@
+package com.banca.ledger.integration;
+
+import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline;
+import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.domain.enums.Currency;
+import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.PendingOperationStatus;
+import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.model.LedgerEntry;
+import com.banca.ledger.infrastructure.replica.ReadYourWrites;
+import com.banca.ledger.infrastructure.replica.ReplicaRoutingDataSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Segundo contenedor como "réplica": mismo esquema, datos independientes.
+// No es un standby (no informa LSN aplicado): con X-Ledger-LSN las lecturas siempre caen al primario
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReadReplicaRoutingIT extends BaseIT {
+
+    static final PostgreSQLContainer<?> replica =
+            new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        replica.start();
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @DynamicPropertySource
+    static void registerReplicaProps(DynamicPropertyRegistry registry) {
+        registry.add("ledger.datasource.replica.url", replica::getJdbcUrl);
+        registry.add("ledger.datasource.replica.username", replica::getUsername);
+        registry.add("ledger.datasource.replica.password", replica::getPassword);
+        registry.add("ledger.datasource.replica.read-your-writes", () -> true);
+    }
+
+    @Autowired
+    LedgerEntryCommandService commandService;
+
+    @Autowired
+    LedgerEntryQueryService queryService;
+
+    @Autowired
+    AsyncCompositeMovementPipeline pipeline;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final JdbcTemplate replicaJdbc = new JdbcTemplate(
+            new DriverManagerDataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword()));
+
+    @BeforeEach
+    void cleanReplica() {
+        replicaJdbc.execute("TRUNCATE TABLE ledger_entries CASCADE");
+        replicaJdbc.execute("TRUNCATE TABLE ledger_operations CASCADE");
+    }
+
+    @Test
+    void readOnlyTransactions_readTheReplica_andWritesGoToThePrimary() {
+        UUID operationId = UUID.randomUUID();
+        replicaJdbc.update("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, ?, ?, now())
+                """, operationId, "idem-replica-" + operationId, ReferenceType.DEPOSIT.name(), "ref-replica");
+        Long replicaEntryId = replicaJdbc.queryForObject("""
+                INSERT INTO ledger_entries (account_id, entry_type, amount, currency, created_at, operation_id)
+                VALUES (10, 'CREDIT', 42.00, 'PEN', now(), ?)
+                RETURNING id
+                """, Long.class, operationId);
+
+        // Solo existe en la "réplica"
+        LedgerEntry fromReplica = queryService.getEntryDetail(replicaEntryId);
+        assertEquals(0, new BigDecimal("42.00").compareTo(fromReplica.getAmount()));
+
+        LedgerEntry created = commandService.createEntry(request("idem-primary-" + UUID.randomUUID()));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM ledger_entries WHERE id = ?", Integer.class, created.getId()));
+        assertEquals(0, replicaJdbc.queryForObject("SELECT COUNT(*) FROM ledger_entries WHERE id = ?", Integer.class, created.getId()));
+    }
+
+    @Test
+    void operationStatus_isReadFromThePrimary() {
+        LedgerEntry created = commandService.createEntry(request("idem-status-" + UUID.randomUUID()));
+        UUID operationId = created.getOperation().getId();
+
+        // La "réplica" no tiene la operación: findById fuera de transacción iría a ella (readOnly) y daría 404
+        AsyncCompositeMovementPipeline.OperationStatus status = pipeline.getStatus(operationId);
+
+        assertEquals(PendingOperationStatus.POSTED, status.status());
+        assertEquals(operationId, status.postedOperationId());
+    }
+
+    @Test
+    void writeReturnsLsn_andReadingWithIt_staysOnThePrimaryUntilTheReplicaCatchesUp() throws Exception {
+        String body = objectMapper.writeValueAsString(request("idem-ryw-" + UUID.randomUUID()));
+        var result = mockMvc.perform(post("/entries").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(ReadYourWrites.HEADER))
+                .andReturn();
+        String lsn = result.getResponse().getHeader(ReadYourWrites.HEADER);
+        long entryId = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+
+        // Sin token: réplica (no tiene el asiento)
+        mockMvc.perform(get("/entries/{entryId}", entryId))
+                .andExpect(status().isNotFound());
+
+        // Con token: la réplica no alcanzó el LSN => primario
+        mockMvc.perform(get("/entries/{entryId}", entryId).header(ReadYourWrites.HEADER, lsn))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(entryId));
+    }
+
+    @Test
+    void getConnectionWithCredentials_routesLikeGetConnection_andPassesThemToThePool() throws Exception {
+        UUID operationId = UUID.randomUUID();
+        replicaJdbc.update("""
+                INSERT INTO ledger_operations (id, idempotency_key, reference_type, reference_id, created_at)
+                VALUES (?, ?, ?, ?, now())
+                """, operationId, "idem-creds-" + operationId, ReferenceType.DEPOSIT.name(), "ref-creds");
+        // Pools sin credenciales propias: solo conectan con las que recibe getConnection(username, password)
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                new DriverManagerDataSource(replica.getJdbcUrl()),
+                new DriverManagerDataSource(postgres.getJdbcUrl()),
+                new SimpleMeterRegistry());
+
+        // Sin LSN: réplica
+        try (Connection connection = routing.getConnection(replica.getUsername(), replica.getPassword())) {
+            Integer count = new JdbcTemplate(new SingleConnectionDataSource(connection, true)).queryForObject(
+                    "SELECT COUNT(*) FROM ledger_operations WHERE id = ?", Integer.class, operationId);
+            assertEquals(1, count);
+        }
+        assertThrows(SQLException.class, () -> routing.getConnection(replica.getUsername(), "no-es-la-clave"));
+    }
+
+    @Test
+    void invalidLsn_returns400() throws Exception {
+        mockMvc.perform(get("/entries/{entryId}", 1L).header(ReadYourWrites.HEADER, "no-es-un-lsn"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static CreateLedgerEntryRequest request(String idempotencyKey) {
+        CreateLedgerEntryRequest request = new CreateLedgerEntryRequest();
+        request.setAccountId(10L);
+        request.setEntryType(EntryType.CREDIT);
+        request.setAmount(new BigDecimal("15.00"));
+        request.setCurrency(Currency.PEN);
+        request.setReferenceType(ReferenceType.DEPOSIT);
+        request.setReferenceId("ref-" + idempotencyKey);
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+}
@@ -2,9 +2,13 @@ package com.banca.ledger.web;
 
 import com.banca.ledger.api.controller.AccountBalanceController;
 import com.banca.ledger.api.dto.AccountBalanceResponse;
+import com.banca.ledger.application.service.AccountBalanceRebuildService;
+import com.banca.ledger.application.service.BalanceSeries;
 import com.banca.ledger.api.exception.GlobalExceptionHandler;
 import com.banca.ledger.application.exception.NotFoundException;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
+import com.banca.ledger.application.service.LedgerStatementService;
+import com.banca.ledger.domain.enums.BalanceGranularity;
 import com.banca.ledger.domain.enums.Currency;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,11 +19,23 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = AccountBalanceController.class)
@@ -30,6 +46,8 @@ class AccountBalanceControllerWebMvcTest {
     @Autowired MockMvc mockMvc;
 
     @MockitoBean LedgerEntryQueryService queryService;
+    @MockitoBean AccountBalanceRebuildService rebuildService;
+    @MockitoBean LedgerStatementService statementService;
 
     @Test
     void getAccountBalance_whenAccountExists_returns200() throws Exception {
@@ -158,4 +176,148 @@ class AccountBalanceControllerWebMvcTest {
         verifyNoInteractions(queryService);
 
     }
+
+    @Test
+    void getAccountBalances_returnsMapByAccount_andAccountsWithoutEntries() throws Exception {
+        Map<Long, AccountBalanceResponse> balances = new LinkedHashMap<>();
+        balances.put(10L, new AccountBalanceResponse(10L, Currency.PEN, new BigDecimal("50")));
+        balances.put(20L, new AccountBalanceResponse(20L, Currency.USD, new BigDecimal("7")));
+        when(queryService.getAccountBalances(List.of(10L, 20L, 30L))).thenReturn(balances);
+
+        mockMvc.perform(post("/accounts/balances")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountIds\":[10,20,30]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balances['10'].balance").value(50))
+                .andExpect(jsonPath("$.balances['20'].currency").value("USD"))
+                .andExpect(jsonPath("$.notFound[0]").value(30));
+
+        verify(queryService).getAccountBalances(List.of(10L, 20L, 30L));
+    }
+
+    @Test
+    void getAccountBalances_whenMoreThan100Accounts_returns400() throws Exception {
+        String ids = LongStream.rangeClosed(1, 101).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        mockMvc.perform(post("/accounts/balances")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountIds\":[" + ids + "]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(queryService);
+    }
+
+    @Test
+    void getAccountBalances_whenAccountIdIsInvalid_returns400() throws Exception {
+        mockMvc.perform(post("/accounts/balances")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountIds\":[10,-1]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(queryService);
+    }
+
+    @Test
+    void getBalanceSeries_returnsOpeningBalanceAndPoints() throws Exception {
+        LocalDate from = LocalDate.parse("2026-01-01");
+        LocalDate to = LocalDate.parse("2026-01-02");
+        when(queryService.getBalanceSeries(10L, from, to, BalanceGranularity.DAY)).thenReturn(new BalanceSeries(
+                10L, BalanceGranularity.DAY, from, to, new BigDecimal("100"),
+                List.of(new BalanceSeries.Point(from, new BigDecimal("100")),
+                        new BalanceSeries.Point(to, new BigDecimal("75")))));
+
+        mockMvc.perform(get("/accounts/{accountId}/balance/series", 10L)
+                        .queryParam("from", "2026-01-01")
+                        .queryParam("to", "2026-01-02")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("DAY"))
+                .andExpect(jsonPath("$.openingBalance").value(100))
+                .andExpect(jsonPath("$.points.length()").value(2))
+                .andExpect(jsonPath("$.points[1].date").value("2026-01-02"))
+                .andExpect(jsonPath("$.points[1].balance").value(75));
+
+        verify(queryService).getBalanceSeries(10L, from, to, BalanceGranularity.DAY);
+    }
+
+    @Test
+    void getBalanceSeries_whenGranularityIsUnknown_returns400() throws Exception {
+        mockMvc.perform(get("/accounts/{accountId}/balance/series", 10L)
+                        .queryParam("from", "2026-01-01")
+                        .queryParam("to", "2026-01-02")
+                        .queryParam("granularity", "HOUR")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(queryService);
+    }
+
+    @Test
+    void getBalanceSeries_whenFromIsMissing_returns400() throws Exception {
+        mockMvc.perform(get("/accounts/{accountId}/balance/series", 10L)
+                        .queryParam("to", "2026-01-02")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(queryService);
+    }
+
+    @Test
+    void getStatement_streamsTheServiceOutput_asJson() throws Exception {
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        Instant to = Instant.parse("2026-01-31T23:59:59Z");
+        when(statementService.writeStatement(eq(10L), eq(from), eq(to), any(OutputStream.class))).thenAnswer(inv -> {
+            OutputStream out = inv.getArgument(3);
+            out.write("{\"accountId\":10,\"entries\":[],\"closingBalance\":5}".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        });
+
+        var async = mockMvc.perform(get("/accounts/{accountId}/statement", 10L)
+                        .queryParam("from", "2026-01-01T00:00:00Z")
+                        .queryParam("to", "2026-01-31T23:59:59Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.closingBalance").value(5));
+
+        verify(statementService).validate(10L, from, to);
+    }
+
+    @Test
+    void getStatement_whenFromIsAfterTo_returns400_beforeStreaming() throws Exception {
+        doThrow(new IllegalArgumentException("from no puede ser posterior a to"))
+                .when(statementService).validate(eq(10L), any(), any());
+
+        mockMvc.perform(get("/accounts/{accountId}/statement", 10L)
+                        .queryParam("from", "2026-02-01T00:00:00Z")
+                        .queryParam("to", "2026-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+
+        verify(statementService, never()).writeStatement(any(), any(), any(), any());
+    }
+
+    @Test
+    void rebuildBalances_forOneAccount_returns200_withRebuiltRows() throws Exception {
+        when(rebuildService.rebuild(10L)).thenReturn(2);
+
+        mockMvc.perform(post("/accounts/balances/rebuild").param("accountId", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountId").value(10))
+                .andExpect(jsonPath("$.balancesRebuilt").value(2));
+
+        verify(rebuildService).rebuild(10L);
+    }
+
+    @Test
+    void rebuildBalances_withoutAccountId_rebuildsAll() throws Exception {
+        when(rebuildService.rebuild(null)).thenReturn(500);
+
+        mockMvc.perform(post("/accounts/balances/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountId").doesNotExist())
+                .andExpect(jsonPath("$.balancesRebuilt").value(500));
+    }
 }
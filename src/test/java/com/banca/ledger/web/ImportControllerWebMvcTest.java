@@ -0,0 +1,89 @@
+package com.banca.ledger.web;
+
+import com.banca.ledger.api.controller.ImportController;
+import com.banca.ledger.api.exception.GlobalExceptionHandler;
+import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.application.importing.LedgerImportService;
+import com.banca.ledger.domain.enums.ImportFormat;
+import com.banca.ledger.domain.model.LedgerImport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ImportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import(GlobalExceptionHandler.class)
+class ImportControllerWebMvcTest {
+
+    @Autowired MockMvc mockMvc;
+
+    @MockitoBean LedgerImportService importService;
+
+    @Test
+    void importEntries_streamsBody_andReturnsFinalStatus() throws Exception {
+        LedgerImport completed = new LedgerImport("legacy-2019", ImportFormat.CSV);
+        completed.checkpoint(4, 2, 4, 1234.5);
+        completed.complete();
+        when(importService.importStream(eq("legacy-2019"), eq(ImportFormat.CSV), any(InputStream.class)))
+                .thenReturn(completed);
+
+        mockMvc.perform(post("/imports/{importId}", "legacy-2019")
+                        .param("format", "CSV")
+                        .contentType("text/csv")
+                        .content("idempotencyKey,referenceType,referenceId,accountId,entryType,amount,currency\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importId").value("legacy-2019"))
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.rowsProcessed").value(4))
+                .andExpect(jsonPath("$.operationsImported").value(2))
+                .andExpect(jsonPath("$.entriesImported").value(4))
+                .andExpect(jsonPath("$.rowsPerSecond").value(1234.5))
+                .andExpect(jsonPath("$.errorMessage").doesNotExist());
+
+        verify(importService).importStream(eq("legacy-2019"), eq(ImportFormat.CSV), any(InputStream.class));
+    }
+
+    @Test
+    void importEntries_whenFormatMissing_returns400() throws Exception {
+        mockMvc.perform(post("/imports/{importId}", "legacy-2019")
+                        .contentType("text/csv")
+                        .content("x"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void importEntries_whenFileInvalid_returns400() throws Exception {
+        when(importService.importStream(eq("legacy-2019"), eq(ImportFormat.NDJSON), any(InputStream.class)))
+                .thenThrow(new IllegalArgumentException("Operación legacy-1 no cuadra en PEN: débitos - créditos = 1"));
+
+        mockMvc.perform(post("/imports/{importId}", "legacy-2019")
+                        .param("format", "NDJSON")
+                        .contentType("application/x-ndjson")
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getImport_whenUnknown_returns404() throws Exception {
+        when(importService.getImport("nope")).thenThrow(new NotFoundException("Importación no encontrada: nope"));
+
+        mockMvc.perform(get("/imports/{importId}", "nope").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+}
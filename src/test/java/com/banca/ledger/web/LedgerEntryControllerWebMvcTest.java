@@ -2,23 +2,41 @@ package com.banca.ledger.web;
 
 import com.banca.ledger.api.controller.LedgerEntryController;
 import com.banca.ledger.api.dto.CreateCompositeLedgerMovementRequest;
+import com.banca.ledger.api.dto.CreateLedgerEntryBatchRequest;
 import com.banca.ledger.api.dto.CreateLedgerEntryRequest;
+import com.banca.ledger.api.dto.CreateMultiLegMovementRequest;
+import com.banca.ledger.api.dto.LedgerEntryBatchItemResponse;
+import com.banca.ledger.api.dto.LedgerEntryBatchResponse;
 import com.banca.ledger.api.dto.LedgerEntryResponse;
+import com.banca.ledger.api.dto.MovementLegRequest;
 import com.banca.ledger.api.dto.OperationDetailResponse;
 import com.banca.ledger.api.exception.GlobalExceptionHandler;
+import com.banca.ledger.api.mapper.LedgerEntryBatchAssembler;
 import com.banca.ledger.api.mapper.LedgerEntryMapper;
 import com.banca.ledger.api.mapper.OperationDetailAssembler;
 import com.banca.ledger.application.exception.ConflictException;
 import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.application.idempotency.IdempotencySingleFlight;
+import com.banca.ledger.application.idempotency.IdempotentReplayCache;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline;
+import com.banca.ledger.application.service.EntryCursorPage;
 import com.banca.ledger.application.service.LedgerEntryCommandService;
+import com.banca.ledger.application.service.LedgerEntryExportService;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
 import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.application.service.OperationEntriesView;
+import com.banca.ledger.domain.enums.BatchItemStatus;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.ExportFormat;
+import com.banca.ledger.domain.enums.PendingOperationStatus;
 import com.banca.ledger.domain.enums.ReferenceType;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import com.banca.ledger.domain.model.PendingOperation;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -29,7 +47,9 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
@@ -45,13 +65,14 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 
 
 @WebMvcTest(controllers = LedgerEntryController.class)
 @AutoConfigureMockMvc(addFilters = false) // evita que SecurityFilterChain interfiera por ahora
-@Import(GlobalExceptionHandler.class)
+@Import({GlobalExceptionHandler.class, IdempotencySingleFlight.class, IdempotentReplayCache.class, SimpleMeterRegistry.class}) // idempotencia en memoria real
 class LedgerEntryControllerWebMvcTest {
 
     @Autowired MockMvc mockMvc;
@@ -62,6 +83,17 @@ class LedgerEntryControllerWebMvcTest {
     @MockitoBean LedgerEntryQueryService queryService;
     @MockitoBean LedgerEntryMapper ledgerEntryMapper;
     @MockitoBean OperationDetailAssembler operationDetailAssembler;
+    @MockitoBean LedgerEntryBatchAssembler ledgerEntryBatchAssembler;
+    @MockitoBean AsyncCompositeMovementPipeline asyncPipeline;
+    @MockitoBean LedgerEntryExportService exportService;
+
+    @Autowired IdempotentReplayCache replayCache;
+
+    // El contexto se reutiliza entre tests: la caché de replays no debe arrastrar respuestas
+    @BeforeEach
+    void clearReplayCache() {
+        replayCache.invalidateAll();
+    }
 
     @Test
     void createEntry_returns200_andResponseJson() throws Exception {
@@ -122,6 +154,64 @@ class LedgerEntryControllerWebMvcTest {
                 .andExpect(jsonPath("$.createdAt").value("2026-01-01T00:00:00Z"));
     }
 
+    @Test
+    void createEntry_replayOfConfirmedKey_isServedFromCache() throws Exception {
+        CreateLedgerEntryRequest request = new CreateLedgerEntryRequest(
+                10L, EntryType.CREDIT, new BigDecimal("150.25"), Currency.PEN,
+                ReferenceType.DEPOSIT, "INV-001", "idem-replay"
+        );
+        LedgerEntryResponse response = new LedgerEntryResponse(
+                1L, UUID.randomUUID(), 10L, EntryType.CREDIT, new BigDecimal("150.25"),
+                Currency.PEN, ReferenceType.DEPOSIT, Instant.parse("2026-01-01T00:00:00Z")
+        );
+        LedgerEntry domainSaved = mock(LedgerEntry.class);
+
+        when(commandService.createEntry(any(CreateLedgerEntryRequest.class))).thenReturn(domainSaved);
+        when(ledgerEntryMapper.toResponse(domainSaved)).thenReturn(response);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/entries")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1));
+        }
+
+        // El replay no vuelve a pasar por el service ni por el mapper
+        verify(commandService, times(1)).createEntry(any(CreateLedgerEntryRequest.class));
+        verify(ledgerEntryMapper, times(1)).toResponse(domainSaved);
+    }
+
+    @Test
+    void createEntry_sameKeyWithOtherReference_isNotServedFromCache() throws Exception {
+        CreateLedgerEntryRequest original = new CreateLedgerEntryRequest(
+                10L, EntryType.CREDIT, new BigDecimal("150.25"), Currency.PEN,
+                ReferenceType.DEPOSIT, "INV-001", "idem-replay"
+        );
+        CreateLedgerEntryRequest otherRef = new CreateLedgerEntryRequest(
+                10L, EntryType.CREDIT, new BigDecimal("150.25"), Currency.PEN,
+                ReferenceType.DEPOSIT, "INV-999", "idem-replay"
+        );
+        LedgerEntry domainSaved = mock(LedgerEntry.class);
+
+        when(commandService.createEntry(any(CreateLedgerEntryRequest.class)))
+                .thenReturn(domainSaved)
+                .thenThrow(new ConflictException("Conflicto de idempotencia"));
+        when(ledgerEntryMapper.toResponse(domainSaved)).thenReturn(mock(LedgerEntryResponse.class));
+
+        mockMvc.perform(post("/entries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(original)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/entries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(otherRef)))
+                .andExpect(status().isConflict());
+
+        verify(commandService, times(2)).createEntry(any(CreateLedgerEntryRequest.class));
+    }
+
     @Test
     void createEntry_whenMissingIdempotencyKey_returns400() throws Exception {
         // idempotencyKey tiene @NotBlank => debe dar 400 por Bean Validation
@@ -164,6 +254,80 @@ class LedgerEntryControllerWebMvcTest {
                 .andExpect(status().isConflict());
     }
 
+    // Tests del endpoint de lote: POST /entries/batch
+
+    @Test
+    void createEntries_returns200_andItemResults() throws Exception {
+        CreateLedgerEntryRequest first = new CreateLedgerEntryRequest(
+                10L, EntryType.CREDIT, new BigDecimal("150.25"), Currency.PEN,
+                ReferenceType.DEPOSIT, "INV-001", "idem-1"
+        );
+        CreateLedgerEntryRequest second = new CreateLedgerEntryRequest(
+                10L, EntryType.CREDIT, new BigDecimal("150.25"), Currency.PEN,
+                ReferenceType.DEPOSIT, "INV-999", "idem-2"
+        );
+        CreateLedgerEntryBatchRequest request = new CreateLedgerEntryBatchRequest(List.of(first, second));
+
+        UUID opId = UUID.randomUUID();
+        LedgerEntryResponse entryResponse = new LedgerEntryResponse(
+                1L, opId, 10L, EntryType.CREDIT, new BigDecimal("150.25"),
+                Currency.PEN, ReferenceType.DEPOSIT, Instant.parse("2026-01-01T00:00:00Z")
+        );
+        LedgerEntryBatchResponse response = new LedgerEntryBatchResponse(1, 0, 1, List.of(
+                new LedgerEntryBatchItemResponse(0, "idem-1", BatchItemStatus.CREATED, entryResponse, null),
+                new LedgerEntryBatchItemResponse(1, "idem-2", BatchItemStatus.CONFLICT, null, "Conflicto de idempotencia")
+        ));
+
+        when(commandService.createEntries(anyList())).thenReturn(List.of());
+        when(ledgerEntryBatchAssembler.toResponse(anyList())).thenReturn(response);
+
+        mockMvc.perform(post("/entries/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.conflicts").value(1))
+                .andExpect(jsonPath("$.results.length()").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].entry.operationId").value(opId.toString()))
+                .andExpect(jsonPath("$.results[1].status").value("CONFLICT"))
+                .andExpect(jsonPath("$.results[1].entry").doesNotExist())
+                .andExpect(jsonPath("$.results[1].message").value("Conflicto de idempotencia"));
+
+        verify(commandService).createEntries(anyList());
+    }
+
+    @Test
+    void createEntries_whenEntriesIsEmpty_returns400() throws Exception {
+        CreateLedgerEntryBatchRequest request = new CreateLedgerEntryBatchRequest(List.of());
+
+        mockMvc.perform(post("/entries/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(commandService);
+    }
+
+    @Test
+    void createEntries_whenAnItemIsInvalid_returns400() throws Exception {
+        CreateLedgerEntryRequest invalid = new CreateLedgerEntryRequest(
+                10L, EntryType.CREDIT, new BigDecimal("150.25"), Currency.PEN,
+                ReferenceType.DEPOSIT, "INV-001", ""
+        );
+        CreateLedgerEntryBatchRequest request = new CreateLedgerEntryBatchRequest(List.of(invalid));
+
+        mockMvc.perform(post("/entries/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(commandService);
+    }
+
     // Tests para el segundo endpoint de la clase ledgerEntryController  de nombre listentries
 
     @Test
@@ -174,30 +338,6 @@ class LedgerEntryControllerWebMvcTest {
         int size = 20;
 
         UUID opId = UUID.randomUUID(); // solo para el response (JSON)
-        LedgerOperation op = new LedgerOperation("idem-x", ReferenceType.DEPOSIT, "DEP-001");
-
-        LedgerEntry e1 = LedgerEntry.builder()
-                .accountId(accountId)
-                .entryType(EntryType.CREDIT)
-                .amount(new BigDecimal("100.00"))
-                .currency(Currency.PEN)
-                .operation(op)
-                .build();
-
-        LedgerEntry e2 = LedgerEntry.builder()
-                .accountId(accountId)
-                .entryType(EntryType.CREDIT)
-                .amount(new BigDecimal("50.00"))
-                .currency(Currency.PEN)
-                .operation(op)
-                .build();
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<LedgerEntry> servicePage = new PageImpl<>(
-                List.of(e1, e2),
-                pageable,
-                2 // totalElements
-        );
 
         LedgerEntryResponse r1 = new LedgerEntryResponse(
                 1L, opId, accountId, EntryType.CREDIT, new BigDecimal("100.00"),
@@ -209,9 +349,15 @@ class LedgerEntryControllerWebMvcTest {
                 Currency.PEN, ReferenceType.DEPOSIT, Instant.parse("2026-01-02T00:00:00Z")
         );
 
+        // El servicio ya devuelve la página proyectada: el controller no mapea entidades
+        Pageable pageable = PageRequest.of(page, size);
+        Page<LedgerEntryResponse> servicePage = new PageImpl<>(
+                List.of(r1, r2),
+                pageable,
+                2 // totalElements
+        );
+
         when(queryService.listEntries(accountId, page, size)).thenReturn(servicePage);
-        when(ledgerEntryMapper.toResponse(e1)).thenReturn(r1);
-        when(ledgerEntryMapper.toResponse(e2)).thenReturn(r2);
 
         // Act + Assert
         mockMvc.perform(get("/entries/accounts/{accountId}", accountId)
@@ -239,7 +385,69 @@ class LedgerEntryControllerWebMvcTest {
                 .andExpect(jsonPath("$.size").value(size))
                 .andExpect(jsonPath("$.number").value(page))
                 .andExpect(jsonPath("$.totalElements").value(2));
+
+        verifyNoInteractions(ledgerEntryMapper);
+    }
+    @Test
+    void listEntriesByCursor_returns200_withContentAndNextCursor() throws Exception {
+        long accountId = 10L;
+        LedgerEntryResponse r1 = new LedgerEntryResponse(
+                1L, UUID.randomUUID(), accountId, EntryType.CREDIT, new BigDecimal("100.00"),
+                Currency.PEN, ReferenceType.DEPOSIT, Instant.parse("2026-01-01T00:00:00Z")
+        );
+        when(queryService.listEntriesByCursor(accountId, "abc", 1)).thenReturn(new EntryCursorPage(List.of(r1), "def"));
+
+        mockMvc.perform(get("/entries/accounts/{accountId}", accountId)
+                        .param("cursor", "abc")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("def"))
+                // Sin total ni número de página
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        verify(queryService, never()).listEntries(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void listEntriesByCursor_whenCursorIsInvalid_returns400() throws Exception {
+        when(queryService.listEntriesByCursor(10L, "xx", 20)).thenThrow(new IllegalArgumentException("cursor inválido"));
+
+        mockMvc.perform(get("/entries/accounts/{accountId}", 10L)
+                        .param("cursor", "xx")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportEntries_streamsTheServiceOutput_asAttachment() throws Exception {
+        when(exportService.exportAccount(eq(10L), eq(ExportFormat.CSV), any(OutputStream.class))).thenAnswer(inv -> {
+            OutputStream out = inv.getArgument(2);
+            out.write("id,amount\n1,100.00\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        var async = mockMvc.perform(get("/entries/accounts/{accountId}/export", 10L).param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"account-10.csv\""))
+                .andExpect(content().string("id,amount\n1,100.00\n"));
+    }
+
+    @Test
+    void exportEntries_whenFormatIsUnknown_returns400() throws Exception {
+        mockMvc.perform(get("/entries/accounts/{accountId}/export", 10L).param("format", "XML"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exportService);
     }
+
     @Test
     void listEntries_whenSizeIsGreaterThan100_returns400() throws Exception {
         long accountId = 10L;
@@ -358,6 +566,134 @@ class LedgerEntryControllerWebMvcTest {
                 .andExpect(jsonPath("$.entries[1].entryType").value("CREDIT"))
                 .andExpect(jsonPath("$.entries[1].amount").value(150.00));
     }
+    @Test
+    void createMultiLegMovement_returns200_withAllLegs() throws Exception {
+        CreateMultiLegMovementRequest request = new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "TRF-001", "idem-multi-leg-001", List.of(
+                new MovementLegRequest(10L, EntryType.DEBIT, new BigDecimal("100.00"), Currency.PEN),
+                new MovementLegRequest(20L, EntryType.CREDIT, new BigDecimal("98.00"), Currency.PEN),
+                new MovementLegRequest(30L, EntryType.CREDIT, new BigDecimal("2.00"), Currency.PEN)
+        ));
+
+        UUID operationId = UUID.randomUUID();
+        LedgerOperation operation = new LedgerOperation("idem-multi-leg-001", ReferenceType.TRANSFER, "TRF-001");
+        Instant date = Instant.parse("2026-01-01T10:00:00Z");
+        List<LedgerEntryResponse> legs = List.of(
+                new LedgerEntryResponse(1L, operationId, 10L, EntryType.DEBIT, new BigDecimal("100.00"), Currency.PEN, ReferenceType.TRANSFER, date),
+                new LedgerEntryResponse(2L, operationId, 20L, EntryType.CREDIT, new BigDecimal("98.00"), Currency.PEN, ReferenceType.TRANSFER, date),
+                new LedgerEntryResponse(3L, operationId, 30L, EntryType.CREDIT, new BigDecimal("2.00"), Currency.PEN, ReferenceType.TRANSFER, date)
+        );
+
+        when(commandService.recordMultiLegMovement(any(CreateMultiLegMovementRequest.class)))
+                .thenReturn(new OperationEntries(operation, List.of()));
+        when(operationDetailAssembler.toResponse(any(LedgerOperation.class), anyList()))
+                .thenReturn(new OperationDetailResponse(operationId, ReferenceType.TRANSFER, "TRF-001", date, legs));
+
+        mockMvc.perform(post("/entries/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.operationId").value(operationId.toString()))
+                .andExpect(jsonPath("$.entries.length()").value(3))
+                .andExpect(jsonPath("$.entries[2].accountId").value(30));
+
+        verify(commandService).recordMultiLegMovement(any(CreateMultiLegMovementRequest.class));
+    }
+
+    @Test
+    void createMultiLegMovement_withSingleLeg_returns400() throws Exception {
+        CreateMultiLegMovementRequest request = new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "TRF-001", "idem-multi-leg-002", List.of(
+                new MovementLegRequest(10L, EntryType.DEBIT, new BigDecimal("100.00"), Currency.PEN)
+        ));
+
+        mockMvc.perform(post("/entries/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(commandService);
+    }
+
+    @Test
+    void createMultiLegMovement_whenUnbalanced_returns400() throws Exception {
+        CreateMultiLegMovementRequest request = new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "TRF-001", "idem-multi-leg-003", List.of(
+                new MovementLegRequest(10L, EntryType.DEBIT, new BigDecimal("100.00"), Currency.PEN),
+                new MovementLegRequest(20L, EntryType.CREDIT, new BigDecimal("90.00"), Currency.PEN)
+        ));
+        when(commandService.recordMultiLegMovement(any(CreateMultiLegMovementRequest.class)))
+                .thenThrow(new IllegalArgumentException("El movimiento no cuadra en PEN: débitos - créditos = 10.00"));
+
+        mockMvc.perform(post("/entries/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createMultiLegMovement_whenKeyReusedWithOtherLegCount_returns409() throws Exception {
+        CreateMultiLegMovementRequest request = new CreateMultiLegMovementRequest(
+                ReferenceType.TRANSFER, "TRF-001", "idem-multi-leg-004", List.of(
+                new MovementLegRequest(10L, EntryType.DEBIT, new BigDecimal("100.00"), Currency.PEN),
+                new MovementLegRequest(20L, EntryType.CREDIT, new BigDecimal("100.00"), Currency.PEN)
+        ));
+        when(commandService.recordMultiLegMovement(any(CreateMultiLegMovementRequest.class)))
+                .thenThrow(new ConflictException("Conflicto de idempotencia: la idempotencyKey ya existe con otro movimiento"));
+
+        mockMvc.perform(post("/entries/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createCompositeMovement_async_returns202_withStatusLocation() throws Exception {
+        CreateCompositeLedgerMovementRequest request =
+                new CreateCompositeLedgerMovementRequest(
+                        10L, 20L, new BigDecimal("150.00"),
+                        Currency.PEN, ReferenceType.DEPOSIT, "DEP-001", "idem-composite-async"
+                );
+
+        UUID operationId = UUID.randomUUID();
+        PendingOperation pending = mock(PendingOperation.class);
+        when(pending.getId()).thenReturn(operationId);
+        when(pending.getStatus()).thenReturn(PendingOperationStatus.PENDING);
+        when(pending.getUpdatedAt()).thenReturn(Instant.parse("2026-01-01T10:00:00Z"));
+        when(asyncPipeline.accept(any(CreateCompositeLedgerMovementRequest.class))).thenReturn(pending);
+
+        mockMvc.perform(post("/entries/composite")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/operations/" + operationId + "/status"))
+                .andExpect(jsonPath("$.operationId").value(operationId.toString()))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.postedOperationId").doesNotExist())
+                .andExpect(jsonPath("$.rejectionReason").doesNotExist());
+
+        verify(asyncPipeline).accept(any(CreateCompositeLedgerMovementRequest.class));
+        verifyNoInteractions(commandService);
+    }
+
+    @Test
+    void createCompositeMovement_async_whenRequestInvalid_returns400() throws Exception {
+        CreateCompositeLedgerMovementRequest request =
+                new CreateCompositeLedgerMovementRequest(
+                        10L, 20L, null,
+                        Currency.PEN, ReferenceType.DEPOSIT, "DEP-001", "idem-composite-async"
+                );
+
+        mockMvc.perform(post("/entries/composite")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(asyncPipeline);
+    }
+
     @Test
     void createCompositeMovement_whenDebitAndCreditAccountAreEqual_returns400() throws Exception{
         CreateCompositeLedgerMovementRequest request =
@@ -520,16 +856,6 @@ class LedgerEntryControllerWebMvcTest {
         UUID operationId = UUID.randomUUID();
         LedgerOperation operation = new LedgerOperation("idem-123", ReferenceType.DEPOSIT, "INV-001");
 
-        LedgerEntry debitEntry = LedgerEntry.builder()
-                .accountId(10L).entryType(EntryType.DEBIT)
-                .amount(new BigDecimal("150.00")).currency(Currency.PEN)
-                .operation(operation).build();
-
-        LedgerEntry creditEntry = LedgerEntry.builder()
-                .accountId(20L).entryType(EntryType.CREDIT)
-                .amount(new BigDecimal("150.00")).currency(Currency.PEN)
-                .operation(operation).build();
-
         LedgerEntryResponse debitResponse =
                 new LedgerEntryResponse(1L, operationId, 10L, EntryType.DEBIT, new BigDecimal("150.00"),
                         Currency.PEN, ReferenceType.DEPOSIT, Instant.parse("2026-01-01T10:00:00Z"));
@@ -538,7 +864,7 @@ class LedgerEntryControllerWebMvcTest {
                 new LedgerEntryResponse(2L, operationId, 20L, EntryType.CREDIT, new BigDecimal("150.00"),
                         Currency.PEN, ReferenceType.DEPOSIT, Instant.parse("2026-01-01T10:00:01Z"));
 
-        OperationEntries result = new OperationEntries(operation, List.of(debitEntry, creditEntry));
+        OperationEntriesView result = new OperationEntriesView(operation, List.of(debitResponse, creditResponse));
         OperationDetailResponse response = new OperationDetailResponse(
                 operationId,
                 operation.getReferenceType(),
@@ -548,7 +874,7 @@ class LedgerEntryControllerWebMvcTest {
         );
 
         when(queryService.getOperationEntries(any(UUID.class))).thenReturn(result);
-        when(operationDetailAssembler.toResponse(any(LedgerOperation.class), anyList())).thenReturn(response);
+        when(operationDetailAssembler.toResponse(result)).thenReturn(response);
 
         mockMvc.perform(get("/entries/operations/{operationId}", operationId)
                         .accept(MediaType.APPLICATION_JSON))
@@ -4,16 +4,26 @@ import com.banca.ledger.api.controller.OperationController;
 import com.banca.ledger.api.dto.LedgerEntryResponse;
 import com.banca.ledger.api.dto.OperationDetailResponse;
 import com.banca.ledger.api.exception.GlobalExceptionHandler;
+import com.banca.ledger.api.mapper.BulkReversalAssembler;
 import com.banca.ledger.api.mapper.OperationDetailAssembler;
 import com.banca.ledger.application.exception.NotFoundException;
+import com.banca.ledger.application.idempotency.IdempotentReplayCache;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline;
+import com.banca.ledger.application.service.AsyncCompositeMovementPipeline.OperationStatus;
+import com.banca.ledger.application.service.BulkReversalResult;
+import com.banca.ledger.application.service.BulkReversalService;
 import com.banca.ledger.application.service.LedgerEntryCommandService;
 import com.banca.ledger.application.service.LedgerEntryQueryService;
 import com.banca.ledger.application.service.OperationEntries;
+import com.banca.ledger.application.service.OperationEntriesView;
 import com.banca.ledger.domain.enums.Currency;
 import com.banca.ledger.domain.enums.EntryType;
+import com.banca.ledger.domain.enums.PendingOperationStatus;
 import com.banca.ledger.domain.enums.ReferenceType;
+import com.banca.ledger.domain.enums.ReversalStatus;
 import com.banca.ledger.domain.model.LedgerEntry;
 import com.banca.ledger.domain.model.LedgerOperation;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -23,11 +33,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.Mockito.*;
@@ -37,7 +49,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = OperationController.class)
 @AutoConfigureMockMvc(addFilters = false)
-@Import(GlobalExceptionHandler.class)
+@Import({GlobalExceptionHandler.class, IdempotentReplayCache.class, SimpleMeterRegistry.class, BulkReversalAssembler.class})
 class OperationControllerWebMvcTest {
 
     @Autowired MockMvc mockMvc;
@@ -47,6 +59,15 @@ class OperationControllerWebMvcTest {
     @MockitoBean LedgerEntryCommandService commandService;
     @MockitoBean OperationDetailAssembler assembler;
     @MockitoBean LedgerEntryQueryService queryService;
+    @MockitoBean AsyncCompositeMovementPipeline asyncPipeline;
+    @MockitoBean BulkReversalService bulkReversalService;
+
+    @Autowired IdempotentReplayCache replayCache;
+
+    @BeforeEach
+    void clearReplayCache() {
+        replayCache.invalidateAll();
+    }
 
     @Test
     void getByIdempotencyKey_whenOperationIsFound_returns200() throws Exception {
@@ -147,6 +168,102 @@ class OperationControllerWebMvcTest {
          verifyNoMoreInteractions(queryService);
          verifyNoInteractions(commandService);
     }
+    @Test
+    void getByReference_returnsEveryOperationOfTheReference() throws Exception {
+        LedgerOperation original = mock(LedgerOperation.class);
+        LedgerOperation reversal = mock(LedgerOperation.class);
+        List<OperationEntriesView> views = List.of(
+                new OperationEntriesView(original, List.of()),
+                new OperationEntriesView(reversal, List.of()));
+
+        UUID originalId = UUID.randomUUID();
+        UUID reversalId = UUID.randomUUID();
+        OperationDetailResponse originalResponse = new OperationDetailResponse(
+                originalId, ReferenceType.TRANSFER, "TRF-1", Instant.parse("2026-01-01T00:00:00Z"), List.of());
+        OperationDetailResponse reversalResponse = new OperationDetailResponse(
+                reversalId, ReferenceType.TRANSFER, "TRF-1", Instant.parse("2026-01-02T00:00:00Z"), List.of());
+        reversalResponse.setReversesOperationId(originalId);
+
+        when(queryService.getOperationsByReference(ReferenceType.TRANSFER, "TRF-1")).thenReturn(views);
+        when(assembler.toResponses(views)).thenReturn(List.of(originalResponse, reversalResponse));
+
+        mockMvc.perform(get("/operations")
+                        .param("referenceType", "TRANSFER")
+                        .param("referenceId", "TRF-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].operationId").value(originalId.toString()))
+                .andExpect(jsonPath("$[1].operationId").value(reversalId.toString()))
+                .andExpect(jsonPath("$[1].reversesOperationId").value(originalId.toString()));
+
+        verify(queryService).getOperationsByReference(ReferenceType.TRANSFER, "TRF-1");
+        verifyNoInteractions(commandService);
+    }
+
+    @Test
+    void getByReference_withoutMatches_returnsEmptyArray() throws Exception {
+        when(queryService.getOperationsByReference(ReferenceType.DEPOSIT, "DEP-404")).thenReturn(List.of());
+        when(assembler.toResponses(List.of())).thenReturn(List.of());
+
+        mockMvc.perform(get("/operations")
+                        .param("referenceType", "DEPOSIT")
+                        .param("referenceId", "DEP-404"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void getByReference_withUnknownReferenceType_returns400() throws Exception {
+        mockMvc.perform(get("/operations")
+                        .param("referenceType", "PAYROLL")
+                        .param("referenceId", "X-1"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(queryService);
+    }
+
+    @Test
+    void getByReference_withoutReferenceId_returns400() throws Exception {
+        mockMvc.perform(get("/operations").param("referenceType", "TRANSFER"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Falta el parámetro requerido: referenceId"));
+
+        verifyNoInteractions(queryService);
+    }
+
+    @Test
+    void getStatus_whenRejected_returns200_withReason() throws Exception {
+        UUID operationId = UUID.randomUUID();
+        Instant updatedAt = Instant.parse("2026-01-01T00:00:05Z");
+
+        when(asyncPipeline.getStatus(operationId)).thenReturn(new OperationStatus(
+                operationId, PendingOperationStatus.REJECTED, null, "debitAccountId y creditAccountId no pueden ser iguales", updatedAt));
+
+        mockMvc.perform(get("/operations/{operationId}/status", operationId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.operationId").value(operationId.toString()))
+                .andExpect(jsonPath("$.status").value("REJECTED"))
+                .andExpect(jsonPath("$.rejectionReason").value("debitAccountId y creditAccountId no pueden ser iguales"))
+                .andExpect(jsonPath("$.postedOperationId").doesNotExist())
+                .andExpect(jsonPath("$.updatedAt").value("2026-01-01T00:00:05Z"));
+
+        verify(asyncPipeline).getStatus(operationId);
+        verifyNoInteractions(queryService, commandService);
+    }
+
+    @Test
+    void getStatus_whenOperationNotFound_returns404() throws Exception {
+        UUID operationId = UUID.randomUUID();
+        when(asyncPipeline.getStatus(operationId))
+                .thenThrow(new NotFoundException("Operación no encontrada: " + operationId));
+
+        mockMvc.perform(get("/operations/{operationId}/status", operationId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getByIdempotencyKey_whenIdempotencyKeyIsBlank_returns400() throws Exception {
         String idempotencyKey = " "; // blank realista (se enviará como %20)
@@ -240,6 +357,31 @@ class OperationControllerWebMvcTest {
     }
 
 
+    @Test
+    void reverseOperation_repeated_isServedFromCache() throws Exception {
+        UUID operationId = UUID.randomUUID();
+        LedgerOperation reversalOp = mock(LedgerOperation.class);
+        List<LedgerEntry> reversedEntries = List.of(mock(LedgerEntry.class));
+        OperationEntries result = new OperationEntries(reversalOp, reversedEntries);
+
+        OperationDetailResponse response = new OperationDetailResponse(
+                UUID.randomUUID(), ReferenceType.DEPOSIT, "DEP-001",
+                Instant.parse("2026-01-03T00:00:00Z"), List.of()
+        );
+
+        when(commandService.reverseOperation(operationId)).thenReturn(result);
+        when(assembler.toResponse(reversalOp, reversedEntries)).thenReturn(response);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/operations/{operationId}", operationId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.operationId").value(response.getOperationId().toString()));
+        }
+
+        verify(commandService, times(1)).reverseOperation(operationId);
+        verify(assembler, times(1)).toResponse(reversalOp, reversedEntries);
+    }
+
     @Test
     void reverseOperation_whenOperationNotFound_returns404() throws Exception{
         UUID operationId = UUID.randomUUID();
@@ -270,6 +412,64 @@ class OperationControllerWebMvcTest {
         verifyNoInteractions(queryService);
     }
 
+    @Test
+    void reverseInBulk_byOperationIds_returns200_withSummaryAndOneResultPerOperation() throws Exception {
+        UUID reversedId = UUID.randomUUID();
+        UUID reversalId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        when(bulkReversalService.reverseOperations(List.of(reversedId, missingId))).thenReturn(List.of(
+                new BulkReversalResult(reversedId, ReversalStatus.REVERSED, reversalId, 2, null),
+                new BulkReversalResult(missingId, ReversalStatus.NOT_FOUND, null, 0, "Operación no encontrada: " + missingId)
+        ));
+
+        String body = objectMapper.writeValueAsString(Map.of("operationIds", List.of(reversedId, missingId)));
+
+        mockMvc.perform(post("/operations/reversals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reversed").value(1))
+                .andExpect(jsonPath("$.notFound").value(1))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.results[0].operationId").value(reversedId.toString()))
+                .andExpect(jsonPath("$.results[0].reversalOperationId").value(reversalId.toString()))
+                .andExpect(jsonPath("$.results[0].entriesReversed").value(2))
+                .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.results[1].reversalOperationId").doesNotExist());
+
+        verifyNoInteractions(commandService);
+    }
+
+    @Test
+    void reverseInBulk_byReference_delegatesToReferenceFilter() throws Exception {
+        when(bulkReversalService.reverseByReference(ReferenceType.TRANSFER, "BATCH-001", "BATCH-999"))
+                .thenReturn(List.of());
+
+        String body = objectMapper.writeValueAsString(Map.of(
+                "referenceType", "TRANSFER", "referenceIdFrom", "BATCH-001", "referenceIdTo", "BATCH-999"));
+
+        mockMvc.perform(post("/operations/reversals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reversed").value(0));
+
+        verify(bulkReversalService).reverseByReference(ReferenceType.TRANSFER, "BATCH-001", "BATCH-999");
+    }
+
+    @Test
+    void reverseInBulk_withIdsAndReferenceFilter_returns400() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "operationIds", List.of(UUID.randomUUID()), "referenceType", "TRANSFER"));
+
+        mockMvc.perform(post("/operations/reversals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(bulkReversalService);
+    }
+
 
 
 